@@ -170,11 +170,13 @@ import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.text.ParseException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -189,6 +191,9 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
@@ -280,6 +285,22 @@ public abstract class AbstractEventEndpoint {
 
   public abstract UserDirectoryService getUserDirectoryService();
 
+  /** How long the results of bulk updates running in the background are kept after they finished */
+  private static final Duration BULK_UPDATE_RESULT_RETENTION = Duration.ofHours(1);
+
+  /** Runs bulk updates in the background, one at a time */
+  private final ExecutorService bulkUpdateExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "admin-ui-bulk-update");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Bulk updates running in the background and their results. They are only kept in the memory of the node running the
+   * update, so the progress is lost on restart and cannot be requested from other nodes.
+   */
+  private final Map<String, BulkUpdateUtil.BulkUpdateResult> bulkUpdates = new ConcurrentHashMap<>();
+
   /** Default server URL */
   protected String serverUrl = "http://localhost:8080";
 
@@ -316,6 +337,14 @@ public abstract class AbstractEventEndpoint {
     }
   }
 
+  /**
+   * Deactivates REST service. Bulk updates already running in the background are finished.
+   */
+  @Deactivate
+  public void deactivate() {
+    bulkUpdateExecutor.shutdown();
+  }
+
   /* As the list of event ids can grow large, we use a POST request to avoid problems with too large query strings */
   @POST
   @Path("workflowProperties")
@@ -1400,13 +1429,15 @@ public abstract class AbstractEventEndpoint {
   @PUT
   @Path("bulk/update")
   @RestQuery(name = "bulkupdate", description = "Update all of the given events at once", restParameters = {
-    @RestParameter(name = "update", isRequired = true, type = RestParameter.Type.TEXT, description = "The list of groups with events and fields to update.")}, responses = {
+    @RestParameter(name = "update", isRequired = true, type = RestParameter.Type.TEXT, description = "The list of groups with events and fields to update."),
+    @RestParameter(name = "background", isRequired = false, type = RestParameter.Type.BOOLEAN, defaultValue = "false", description = "Whether to update the events in the background. The progress is only kept in memory of the node handling the request, for an hour after the update has finished.")}, responses = {
     @RestResponse(description = "All events have been updated successfully.", responseCode = HttpServletResponse.SC_OK),
+    @RestResponse(description = "The events are updated in the background. The id of the bulk update to get its progress from is returned.", responseCode = SC_ACCEPTED),
     @RestResponse(description = "Could not parse update instructions.", responseCode = HttpServletResponse.SC_BAD_REQUEST),
     @RestResponse(description = "Field updating metadata or scheduling information. Some events may have been updated. Details are available in the response body.", responseCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR),
     @RestResponse(description = "The events in the response body were not found. No events were updated.", responseCode = HttpServletResponse.SC_NOT_FOUND)},
-    returnDescription = "In case of success, no content is returned. In case of errors while updating the metadata or scheduling information, the errors are returned. In case events were not found, their ids are returned")
-  public Response bulkUpdate(@FormParam("update") String updateJson) {
+    returnDescription = "In case of success, no content is returned. In case of errors while updating the metadata or scheduling information, the errors are returned. In case events were not found, their ids are returned. In case the events are updated in the background, the id of the bulk update is returned")
+  public Response bulkUpdate(@FormParam("update") String updateJson, @FormParam("background") boolean background) {
 
     final BulkUpdateUtil.BulkUpdateInstructions instructions;
     try {
@@ -1415,28 +1446,84 @@ public abstract class AbstractEventEndpoint {
       return badRequest("Cannot parse bulk update instructions");
     }
 
-    final Map<String, String> metadataUpdateFailures = new HashMap<>();
-    final Map<String, String> schedulingUpdateFailures = new HashMap<>();
+    // Check for invalid (non-existing) event ids, the events are read again right before each change
+    final Organization organization = getSecurityService().getOrganization();
+    final User user = getSecurityService().getUser();
+    final Set<String> eventIds = instructions.getEventIds();
+    final Set<String> notFoundIds = eventIds.stream()
+      .filter(id -> !BulkUpdateUtil.getEvent(getIndexService(), getIndex(), id).isPresent())
+      .collect(Collectors.toSet());
+    if (!notFoundIds.isEmpty()) {
+      return notFoundJson(JSONUtils.setToJSON(notFoundIds));
+    }
 
-    for (final BulkUpdateUtil.BulkUpdateInstructionGroup groupInstructions : instructions.getGroups()) {
-      // Get all the events to edit
-      final Map<String, Optional<Event>> events = groupInstructions.getEventIds().stream()
-        .collect(Collectors.toMap(id -> id, id -> BulkUpdateUtil.getEvent(getIndexService(), getIndex(), id)));
-
-      // Check for invalid (non-existing) event ids
-      final Set<String> notFoundIds = events.entrySet().stream().filter(e -> !e.getValue().isPresent()).map(Entry::getKey).collect(Collectors.toSet());
-      if (!notFoundIds.isEmpty()) {
-        return notFoundJson(JSONUtils.setToJSON(notFoundIds));
-      }
+    final BulkUpdateUtil.BulkUpdateResult result = new BulkUpdateUtil.BulkUpdateResult(organization.getId(),
+      user.getUsername(), eventIds.size());
 
+    // Large selections may time out the request, so clients can ask for them to be updated in the background
+    if (background) {
+      final Instant expired = Instant.now().minus(BULK_UPDATE_RESULT_RETENTION);
+      bulkUpdates.values().removeIf(other -> other.finishedBefore(expired));
+      bulkUpdates.put(result.getId(), result);
+      bulkUpdateExecutor.execute(() -> SecurityUtil.runAs(getSecurityService(), organization, user, () -> {
+        try {
+          runBulkUpdate(instructions, result);
+        } catch (RuntimeException e) {
+          logger.error("Bulk update {} failed", result.getId(), e);
+        } finally {
+          result.finish();
+        }
+      }));
+      logger.info("Updating {} events in the background as bulk update {}", eventIds.size(), result.getId());
+      return Response.accepted(result.toJson().toJSONString()).type(MediaType.APPLICATION_JSON_TYPE).build();
+    }
 
-      events.values().forEach(e -> e.ifPresent(event -> {
+    runBulkUpdate(instructions, result);
+    result.finish();
 
+    // Check if there were any errors updating the metadata or scheduling information
+    if (result.hasFailures()) {
+      return serverErrorJson(obj(
+        f("metadataFailures", JSONUtils.mapToJSON(result.getMetadataFailures())),
+        f("schedulingFailures", JSONUtils.mapToJSON(result.getSchedulingFailures()))
+      ));
+    }
+    return ok();
+  }
+
+  @GET
+  @Path("bulk/update/{id}")
+  @Produces(MediaType.APPLICATION_JSON)
+  @RestQuery(name = "bulkupdatestatus", description = "Returns the progress of a bulk update running in the background", returnDescription = "The number of processed events and the events updated or failed so far", pathParameters = {
+    @RestParameter(name = "id", isRequired = true, description = "The id of the bulk update", type = STRING)}, responses = {
+    @RestResponse(description = "The progress of the bulk update.", responseCode = HttpServletResponse.SC_OK),
+    @RestResponse(description = "The bulk update was not found or has finished too long ago.", responseCode = HttpServletResponse.SC_NOT_FOUND)})
+  public Response getBulkUpdate(@PathParam("id") String id) {
+    final BulkUpdateUtil.BulkUpdateResult result = bulkUpdates.get(id);
+    if (result == null || !result.isOwnedBy(getSecurityService().getOrganization().getId(),
+        getSecurityService().getUser().getUsername())) {
+      return notFound("Cannot find a bulk update with id '%s'.", id);
+    }
+    return Response.ok(result.toJson().toJSONString(), MediaType.APPLICATION_JSON_TYPE).build();
+  }
+
+  /**
+   * Applies the scheduling and metadata changes of a bulk update and records the outcome for each event. Events are
+   * read again for each change, since they may have been modified since the bulk update has been requested.
+   */
+  private void runBulkUpdate(final BulkUpdateUtil.BulkUpdateInstructions instructions,
+      final BulkUpdateUtil.BulkUpdateResult result) {
+    for (final BulkUpdateUtil.BulkUpdateInstructionGroup groupInstructions : instructions.getGroups()) {
+      for (final String eventId : groupInstructions.getEventIds()) {
         JSONObject metadata = null;
+        String schedulingFailure = null;
+        String metadataFailure = null;
 
         // Update the scheduling information
         try {
           if (groupInstructions.getScheduling() != null) {
+            final Event event = BulkUpdateUtil.getEvent(getIndexService(), getIndex(), eventId)
+              .orElseThrow(() -> new NotFoundException("Cannot find event " + eventId));
             // Since we only have the start/end time, we have to add the correct date(s) for this event.
             final JSONObject scheduling = BulkUpdateUtil.addSchedulingDates(event, groupInstructions.getScheduling());
             updateEventScheduling(scheduling.toJSONString(), event);
@@ -1444,29 +1531,23 @@ public abstract class AbstractEventEndpoint {
             metadata = BulkUpdateUtil.toNonTechnicalMetadataJson(scheduling);
           }
         } catch (Exception exception) {
-          schedulingUpdateFailures.put(event.getIdentifier(), exception.getMessage());
+          schedulingFailure = Objects.toString(exception.getMessage(), exception.getClass().getSimpleName());
         }
 
         // Update the event metadata
         try {
           if (groupInstructions.getMetadata() != null || metadata != null) {
             metadata = BulkUpdateUtil.mergeMetadataFields(metadata, groupInstructions.getMetadata());
-            getIndexService().updateAllEventMetadata(event.getIdentifier(), JSONArray.toJSONString(Collections.singletonList(metadata)), getIndex());
+            getIndexService().updateAllEventMetadata(eventId,
+              JSONArray.toJSONString(Collections.singletonList(metadata)), getIndex());
           }
         } catch (Exception exception) {
-          metadataUpdateFailures.put(event.getIdentifier(), exception.getMessage());
+          metadataFailure = Objects.toString(exception.getMessage(), exception.getClass().getSimpleName());
         }
-      }));
-    }
 
-    // Check if there were any errors updating the metadata or scheduling information
-    if (!metadataUpdateFailures.isEmpty() || !schedulingUpdateFailures.isEmpty()) {
-      return serverErrorJson(obj(
-        f("metadataFailures", JSONUtils.mapToJSON(metadataUpdateFailures)),
-        f("schedulingFailures", JSONUtils.mapToJSON(schedulingUpdateFailures))
-      ));
+        result.addProcessed(eventId, metadataFailure, schedulingFailure);
+      }
     }
-    return ok();
   }
 
   @POST
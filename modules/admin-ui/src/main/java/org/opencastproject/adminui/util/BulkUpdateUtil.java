@@ -47,8 +47,13 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 
 /**
@@ -355,6 +360,133 @@ public final class BulkUpdateUtil {
     public List<BulkUpdateInstructionGroup> getGroups() {
       return groups;
     }
+
+    /**
+     * Get the IDs of all events to apply the bulk update to.
+     *
+     * @return The IDs of the events of all groups.
+     */
+    public Set<String> getEventIds() {
+      final Set<String> eventIds = new LinkedHashSet<>();
+      for (final BulkUpdateInstructionGroup group : groups) {
+        eventIds.addAll(group.getEventIds());
+      }
+      return eventIds;
+    }
+  }
+
+  /**
+   * Progress and outcome of a bulk update, which may be running in the background. Safe to be read while the update
+   * is running.
+   */
+  public static class BulkUpdateResult {
+    private final String id = UUID.randomUUID().toString();
+    private final String organization;
+    private final String user;
+    private final int total;
+    private final List<String> updated = new ArrayList<>();
+    private final Map<String, String> metadataFailures = new LinkedHashMap<>();
+    private final Map<String, String> schedulingFailures = new LinkedHashMap<>();
+    private int processed = 0;
+    private Instant finished = null;
+
+    /**
+     * Create a new result for a bulk update started by the given user.
+     *
+     * @param organization The organization of the user.
+     * @param user The user name.
+     * @param total The number of events to update.
+     */
+    public BulkUpdateResult(final String organization, final String user, final int total) {
+      this.organization = organization;
+      this.user = user;
+      this.total = total;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    /**
+     * Whether the given user has started this bulk update.
+     *
+     * @param organization The organization of the user.
+     * @param user The user name.
+     * @return Whether the user has started the update.
+     */
+    public boolean isOwnedBy(final String organization, final String user) {
+      return this.organization.equals(organization) && this.user.equals(user);
+    }
+
+    /**
+     * Record that an event has been processed.
+     *
+     * @param eventId The id of the event.
+     * @param metadataFailure The reason the meta data update failed or <code>null</code>.
+     * @param schedulingFailure The reason the scheduling update failed or <code>null</code>.
+     */
+    public synchronized void addProcessed(final String eventId, final String metadataFailure,
+        final String schedulingFailure) {
+      processed++;
+      if (metadataFailure != null) {
+        metadataFailures.put(eventId, metadataFailure);
+      }
+      if (schedulingFailure != null) {
+        schedulingFailures.put(eventId, schedulingFailure);
+      }
+      if (metadataFailure == null && schedulingFailure == null) {
+        updated.add(eventId);
+      }
+    }
+
+    /**
+     * Record that the bulk update has finished.
+     */
+    public synchronized void finish() {
+      finished = Instant.now();
+    }
+
+    /**
+     * Whether the bulk update finished before the given time.
+     *
+     * @param time The time to compare to.
+     * @return Whether the update finished before.
+     */
+    public synchronized boolean finishedBefore(final Instant time) {
+      return finished != null && finished.isBefore(time);
+    }
+
+    public synchronized boolean hasFailures() {
+      return !metadataFailures.isEmpty() || !schedulingFailures.isEmpty();
+    }
+
+    public synchronized Map<String, String> getMetadataFailures() {
+      return new LinkedHashMap<>(metadataFailures);
+    }
+
+    public synchronized Map<String, String> getSchedulingFailures() {
+      return new LinkedHashMap<>(schedulingFailures);
+    }
+
+    /**
+     * Serialize the progress and the outcome for each processed event.
+     *
+     * @return The json serialized result.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized JSONObject toJson() {
+      final JSONObject result = new JSONObject();
+      result.put("id", id);
+      result.put("total", total);
+      result.put("processed", processed);
+      result.put("finished", finished != null);
+      final JSONArray updatedJson = new JSONArray();
+      updatedJson.addAll(updated);
+      result.put("updated", updatedJson);
+      result.put("metadataFailures", new JSONObject(metadataFailures));
+      result.put("schedulingFailures", new JSONObject(schedulingFailures));
+      return result;
+    }
   }
 
 }
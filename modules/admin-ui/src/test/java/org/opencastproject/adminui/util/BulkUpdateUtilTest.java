@@ -22,7 +22,9 @@
 package org.opencastproject.adminui.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import org.opencastproject.elasticsearch.index.objects.event.Event;
 
@@ -34,6 +36,8 @@ import org.junit.Test;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
 import uk.co.datumedge.hamcrest.json.SameJSONAs;
@@ -115,6 +119,35 @@ public class BulkUpdateUtilTest {
     assertThat(actual.toJSONString(), SameJSONAs.sameJSONAs(expected.toJSONString()));
   }
 
+  @Test
+  public void testBulkUpdateResult() {
+    final BulkUpdateUtil.BulkUpdateResult result = new BulkUpdateUtil.BulkUpdateResult("org", "user", 3);
+    result.addProcessed("a", null, null);
+    result.addProcessed("b", "metadata failed", null);
+    assertTrue(result.hasFailures());
+    assertTrue(result.isOwnedBy("org", "user"));
+    assertFalse(result.isOwnedBy("org", "other"));
+
+    final JSONObject json = result.toJson();
+    assertEquals(3, json.get("total"));
+    assertEquals(2, json.get("processed"));
+    assertEquals(false, json.get("finished"));
+    assertEquals(List.of("a"), json.get("updated"));
+    assertEquals("metadata failed", ((JSONObject) json.get("metadataFailures")).get("b"));
+    assertTrue(((JSONObject) json.get("schedulingFailures")).isEmpty());
+
+    result.finish();
+    assertEquals(true, result.toJson().get("finished"));
+    assertTrue(result.finishedBefore(Instant.now().plusSeconds(1)));
+  }
+
+  @Test
+  public void testBulkUpdateInstructionsEventIds() {
+    final BulkUpdateUtil.BulkUpdateInstructions instructions = new BulkUpdateUtil.BulkUpdateInstructions(
+        "[{\"events\": [\"a\", \"b\"]}, {\"events\": [\"c\", \"a\"]}]");
+    assertEquals(List.of("a", "b", "c"), new ArrayList<>(instructions.getEventIds()));
+  }
+
   private static Object loadJson(String filename) {
     final String fullName = "/bulkupdate/" +  filename;
     try (InputStream in = BulkUpdateUtil.class.getResourceAsStream(fullName)) {
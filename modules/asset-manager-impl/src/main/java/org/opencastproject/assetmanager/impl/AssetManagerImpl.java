@@ -42,7 +42,6 @@ import org.opencastproject.assetmanager.api.Snapshot;
 import org.opencastproject.assetmanager.api.Value;
 import org.opencastproject.assetmanager.api.Version;
 import org.opencastproject.assetmanager.api.fn.Enrichments;
-import org.opencastproject.assetmanager.api.fn.Snapshots;
 import org.opencastproject.assetmanager.api.query.ADeleteQuery;
 import org.opencastproject.assetmanager.api.query.AQueryBuilder;
 import org.opencastproject.assetmanager.api.query.ARecord;
@@ -56,8 +55,10 @@ import org.opencastproject.assetmanager.api.storage.DeletionSelector;
 import org.opencastproject.assetmanager.api.storage.RemoteAssetStore;
 import org.opencastproject.assetmanager.api.storage.Source;
 import org.opencastproject.assetmanager.api.storage.StoragePath;
+import org.opencastproject.assetmanager.impl.jmx.IndexRebuildBean;
 import org.opencastproject.assetmanager.impl.persistence.AssetDtos;
 import org.opencastproject.assetmanager.impl.persistence.Database;
+import org.opencastproject.assetmanager.impl.persistence.IndexRebuildCheckpointDto;
 import org.opencastproject.assetmanager.impl.persistence.SnapshotDto;
 import org.opencastproject.assetmanager.impl.query.AQueryBuilderImpl;
 import org.opencastproject.assetmanager.impl.query.AbstractADeleteQuery;
@@ -101,6 +102,9 @@ import org.opencastproject.util.MimeTypes;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.RequireUtil;
 import org.opencastproject.util.data.functions.Functions;
+import org.opencastproject.util.jmx.JmxUtil;
+import org.opencastproject.util.metrics.Gauge;
+import org.opencastproject.util.metrics.Metrics;
 import org.opencastproject.workspace.api.Workspace;
 
 import com.entwinemedia.fn.Fn;
@@ -112,15 +116,18 @@ import com.entwinemedia.fn.Prelude;
 import com.entwinemedia.fn.data.Opt;
 import com.entwinemedia.fn.fns.Booleans;
 import com.entwinemedia.fn.fns.Strings;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
@@ -145,9 +152,16 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import javax.management.ObjectInstance;
 import javax.persistence.EntityManagerFactory;
 
 /**
@@ -165,7 +179,35 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
 
   private static final Logger logger = LoggerFactory.getLogger(AssetManagerImpl.class);
 
-  private static final int PAGE_SIZE = 1000;
+  /** Configuration key for the number of snapshots loaded at once when rebuilding the index */
+  public static final String REPOPULATE_PAGE_SIZE_KEY = "repopulate.page.size";
+
+  /** Configuration key for the number of events fetched from and written to the index at once */
+  public static final String REPOPULATE_BULK_SIZE_KEY = "repopulate.bulk.size";
+
+  /** Configuration key for the number of organizations indexed in parallel */
+  public static final String REPOPULATE_THREADS_KEY = "repopulate.threads";
+
+  /** Configuration key defining whether a failed index rebuild is resumed at the last committed page */
+  public static final String REPOPULATE_RESUME_KEY = "repopulate.resume";
+
+  /** Configuration key for the number of assets of a snapshot stored in parallel */
+  public static final String STORE_THREADS_KEY = "store.threads";
+
+  /** Configuration key for the interval to reconcile the event metrics with the database, in seconds */
+  public static final String METRICS_RECONCILE_INTERVAL_KEY = "metrics.reconcile.interval";
+
+  private static final int DEFAULT_REPOPULATE_PAGE_SIZE = 1000;
+  private static final int DEFAULT_REPOPULATE_BULK_SIZE = 20;
+  private static final int DEFAULT_REPOPULATE_THREADS = 1;
+  private static final int DEFAULT_STORE_THREADS = 4;
+  private static final long DEFAULT_METRICS_RECONCILE_INTERVAL = 300;
+
+  /** Events of the cluster, maintained as snapshots change on this node and reconciled with the database */
+  private static final Gauge events = Metrics.gauge("opencast_asset_manager_events", "Events in Asset Manager",
+      "organization");
+
+  private static final String JMX_INDEX_REBUILD_TYPE = "AssetManagerIndexRebuild";
 
   enum AdminRole {
     GLOBAL, ORGANIZATION, NONE
@@ -198,6 +240,21 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
   private boolean includeCARoles;
   private boolean includeUIRoles;
 
+  // Settings for the index rebuild
+  private int repopulatePageSize = DEFAULT_REPOPULATE_PAGE_SIZE;
+  private int repopulateBulkSize = DEFAULT_REPOPULATE_BULK_SIZE;
+  private int repopulateThreads = DEFAULT_REPOPULATE_THREADS;
+  private boolean repopulateResume = false;
+
+  /** Executor storing the assets of snapshots, or <code>null</code> to store them one after another */
+  private ExecutorService storeExecutor;
+
+  /** Executor reconciling the event metrics with the database */
+  private ScheduledExecutorService metricsExecutor;
+
+  private final IndexRebuildBean indexRebuildBean = new IndexRebuildBean();
+  private ObjectInstance registeredMXBean;
+
   public static final Set<MediaPackageElement.Type> MOVABLE_TYPES = Sets.newHashSet(
           MediaPackageElement.Type.Attachment,
           MediaPackageElement.Type.Catalog,
@@ -218,6 +275,71 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
     includeAPIRoles = BooleanUtils.toBoolean(Objects.toString(cc.getProperties().get("includeAPIRoles"), null));
     includeCARoles = BooleanUtils.toBoolean(Objects.toString(cc.getProperties().get("includeCARoles"), null));
     includeUIRoles = BooleanUtils.toBoolean(Objects.toString(cc.getProperties().get("includeUIRoles"), null));
+
+    repopulatePageSize = Math.max(1, NumberUtils.toInt(
+        Objects.toString(cc.getProperties().get(REPOPULATE_PAGE_SIZE_KEY), null), DEFAULT_REPOPULATE_PAGE_SIZE));
+    repopulateBulkSize = Math.max(1, NumberUtils.toInt(
+        Objects.toString(cc.getProperties().get(REPOPULATE_BULK_SIZE_KEY), null), DEFAULT_REPOPULATE_BULK_SIZE));
+    repopulateThreads = NumberUtils.toInt(
+        Objects.toString(cc.getProperties().get(REPOPULATE_THREADS_KEY), null), DEFAULT_REPOPULATE_THREADS);
+    repopulateResume = BooleanUtils.toBoolean(
+        Objects.toString(cc.getProperties().get(REPOPULATE_RESUME_KEY), null));
+
+    final int storeThreads = NumberUtils.toInt(
+        Objects.toString(cc.getProperties().get(STORE_THREADS_KEY), null), DEFAULT_STORE_THREADS);
+    if (storeThreads > 1) {
+      storeExecutor = Executors.newFixedThreadPool(storeThreads);
+    }
+
+    // Count the events once and then reconcile the counts maintained by this node with the changes of others
+    final long metricsReconcileInterval = NumberUtils.toLong(Objects.toString(
+        cc.getProperties().get(METRICS_RECONCILE_INTERVAL_KEY), null), DEFAULT_METRICS_RECONCILE_INTERVAL);
+    metricsExecutor = Executors.newSingleThreadScheduledExecutor();
+    if (metricsReconcileInterval > 0) {
+      metricsExecutor.scheduleWithFixedDelay(this::reconcileEventMetrics, 0, metricsReconcileInterval,
+          TimeUnit.SECONDS);
+    } else {
+      metricsExecutor.execute(this::reconcileEventMetrics);
+    }
+
+    registeredMXBean = JmxUtil.registerMXBean(indexRebuildBean, JMX_INDEX_REBUILD_TYPE);
+  }
+
+  /**
+   * OSGi callback.
+   */
+  @Deactivate
+  public synchronized void deactivate() {
+    if (registeredMXBean != null) {
+      JmxUtil.unregisterMXBean(registeredMXBean);
+      registeredMXBean = null;
+    }
+    if (storeExecutor != null) {
+      storeExecutor.shutdown();
+      storeExecutor = null;
+    }
+    if (metricsExecutor != null) {
+      metricsExecutor.shutdownNow();
+      metricsExecutor = null;
+    }
+  }
+
+  /**
+   * Resets the event metrics to the counts in the database. The metrics are maintained from the snapshots taken and
+   * deleted by this node, which does not see the changes made by other nodes of the cluster.
+   */
+  void reconcileEventMetrics() {
+    try {
+      final Map<String, Long> counts = getDatabase().countEventsByOrganization();
+      for (Map.Entry<List<String>, Gauge.Child> child : events.getChildren().entrySet()) {
+        child.getValue().set(counts.getOrDefault(child.getKey().get(0), 0L));
+      }
+      for (Map.Entry<String, Long> count : counts.entrySet()) {
+        events.labels(count.getKey()).set(count.getValue());
+      }
+    } catch (Exception e) {
+      logger.warn("Unable to reconcile the event metrics with the database", e);
+    }
   }
 
   /**
@@ -438,6 +560,10 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
                 mkPropertyName(ace.getRole(), ace.getAction())), Value.mk(ace.isAllow())));
       }
 
+      if (firstSnapshot) {
+        events.labels(snapshot.getOrganizationId()).inc();
+      }
+
       updateEventInIndex(snapshot);
 
       logger.info("Trigger update handlers for snapshot {}, version {}",
@@ -917,6 +1043,8 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
     logger.info("Firing event handlers for deleting event {}", mpId);
     fireEventHandlers(AssetManagerItem.deleteEpisode(mpId, new Date()));
 
+    // deletions are usually restricted to the current organization, the reconciliation corrects the count otherwise
+    events.labels(securityService.getOrganization().getId()).dec();
     removeArchivedVersionFromIndex(mpId);
   }
 
@@ -933,67 +1061,173 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
   public void repopulate() throws IndexRebuildException {
     final Organization originalOrg = securityService.getOrganization();
     final User originalUser = (originalOrg != null ? securityService.getUser() : null);
+    final ExecutorService executor = repopulateThreads > 1 ? Executors.newFixedThreadPool(repopulateThreads) : null;
     try {
       final Organization defaultOrg = new DefaultOrganization();
       final User defaultSystemUser = SecurityUtil.createSystemUser(systemUserName, defaultOrg);
       securityService.setOrganization(defaultOrg);
       securityService.setUser(defaultSystemUser);
 
-      int offset = 0;
-      int total = (int) countEvents(null);
-      final AQueryBuilder q = createQuery();
-      RichAResult r;
-      int current = 0;
-      logIndexRebuildBegin(logger, index.getIndexName(), total, "snapshot(s)");
-      var updatedEventRange = new ArrayList<Event>();
-      do {
-        r = enrich(q.select(q.snapshot()).where(q.version().isLatest()).orderBy(q.mediapackageId().desc())
-          .page(offset, PAGE_SIZE).run());
-        offset += PAGE_SIZE;
-        int n = 20;
-
-        final Map<String, List<Snapshot>> byOrg = r.getSnapshots().groupMulti(Snapshots.getOrganizationId);
-        for (String orgId : byOrg.keySet()) {
-          final Organization snapshotOrg;
-          try {
-            snapshotOrg = orgDir.getOrganization(orgId);
-            User snapshotSystemUser = SecurityUtil.createSystemUser(systemUserName, snapshotOrg);
-            securityService.setOrganization(snapshotOrg);
-            securityService.setUser(snapshotSystemUser);
-            for (Snapshot snapshot : byOrg.get(orgId)) {
-              try {
-                current++;
-
-                var updatedEventData = index.getEvent(snapshot.getMediaPackage().getIdentifier().toString(), orgId,
-                    snapshotSystemUser);
-                updatedEventData = getEventUpdateFunction(snapshot, orgId, snapshotSystemUser).apply(updatedEventData);
-                updatedEventRange.add(updatedEventData.get());
+      final int total = (int) countEvents(null);
+      final String indexName = index.getIndexName();
+      final String indexGeneration;
+      try {
+        indexGeneration = index.getIndexGeneration();
+      } catch (IOException e) {
+        throw new IndexRebuildException(indexName, getService(), e);
+      }
 
-                if (updatedEventRange.size() >= n || current >= total) {
-                  index.bulkEventUpdate(updatedEventRange);
-                  logIndexRebuildProgress(logger, index.getIndexName(), total, current, n);
-                  updatedEventRange.clear();
-                }
-              } catch (Throwable t) {
-                logSkippingElement(logger, "event", snapshot.getMediaPackage().getIdentifier().toString(),
-                        snapshotOrg, t);
-              }
-            }
-          } catch (Throwable t) {
-            logIndexRebuildError(logger, index.getIndexName(), t, originalOrg);
-            throw new IndexRebuildException(index.getIndexName(), getService(), originalOrg, t);
-          } finally {
-            securityService.setOrganization(defaultOrg);
-            securityService.setUser(defaultSystemUser);
+      // A checkpoint is only valid for the index it has been written for. If the index has been cleared since, the
+      // snapshots committed before are gone and the rebuild has to start over.
+      String lastId = null;
+      int committed = 0;
+      final Optional<IndexRebuildCheckpointDto> checkpoint = getDatabase().findIndexRebuildCheckpoint(indexName);
+      if (repopulateResume && checkpoint.isPresent()
+          && Objects.equals(indexGeneration, checkpoint.get().getIndexGeneration())) {
+        lastId = checkpoint.get().getLastMediaPackageId();
+        committed = checkpoint.get().getIndexed();
+        logger.info("Resuming update of the {} index from service '{}' after media package {}", indexName,
+            getService(), lastId);
+      } else if (checkpoint.isPresent()) {
+        logger.info("Discarding the position of an earlier update of the {} index from service '{}'", indexName,
+            getService());
+        getDatabase().deleteIndexRebuildCheckpoint(indexName);
+      }
+      final AQueryBuilder q = createQuery();
+      logIndexRebuildBegin(logger, indexName, total, "snapshot(s)");
+      indexRebuildBean.start(total, committed);
+
+      // Pages are loaded on this thread while the organizations of the previous page are being indexed. Each page
+      // starts after the last media package of the previous one, which is also the position stored once a page has
+      // been committed, so that events added or removed in the meantime do not shift the position.
+      List<Future<?>> pending = Collections.emptyList();
+      String pendingLastId = null;
+      int pendingCount = 0;
+      boolean morePages = true;
+      while (morePages) {
+        Predicate where = q.version().isLatest();
+        if (lastId != null) {
+          where = where.and(q.mediapackageId().lt(lastId));
+        }
+        final List<Snapshot> snapshots = enrich(q.select(q.snapshot()).where(where)
+            .orderBy(q.mediapackageId().desc()).page(0, repopulatePageSize).run()).getSnapshots().toList();
+        awaitRepopulate(pending, originalOrg);
+        if (pendingLastId != null) {
+          committed += pendingCount;
+          if (repopulateResume) {
+            getDatabase().saveIndexRebuildCheckpoint(indexName, indexGeneration, pendingLastId, committed);
+          }
+          indexRebuildBean.committed(committed);
+        }
+        if (snapshots.isEmpty()) {
+          break;
+        }
+        morePages = snapshots.size() == repopulatePageSize;
+        lastId = snapshots.get(snapshots.size() - 1).getMediaPackage().getIdentifier().toString();
+        pendingLastId = lastId;
+        pendingCount = snapshots.size();
+
+        final Map<String, List<Snapshot>> byOrg = snapshots.stream()
+            .collect(Collectors.groupingBy(Snapshot::getOrganizationId));
+        pending = new ArrayList<>(byOrg.size());
+        for (Map.Entry<String, List<Snapshot>> entry : byOrg.entrySet()) {
+          if (executor == null) {
+            repopulate(entry.getKey(), entry.getValue(), total, defaultOrg, defaultSystemUser, originalOrg);
+          } else {
+            pending.add(executor.submit(() -> {
+              repopulate(entry.getKey(), entry.getValue(), total, defaultOrg, defaultSystemUser, originalOrg);
+              return null;
+            }));
           }
         }
-      } while (offset < total);
+      }
+      awaitRepopulate(pending, originalOrg);
+      if (repopulateResume) {
+        getDatabase().deleteIndexRebuildCheckpoint(indexName);
+      }
+      indexRebuildBean.committed(0);
+      logger.info("Updated the {} index from service '{}' with {} events per second", index.getIndexName(),
+          getService(), String.format("%.1f", indexRebuildBean.getEventsPerSecond()));
     } finally {
+      indexRebuildBean.stop();
+      if (executor != null) {
+        executor.shutdownNow();
+      }
       securityService.setOrganization(originalOrg);
       securityService.setUser(originalUser);
     }
   }
 
+  /**
+   * Adds the given snapshots of one organization to the index, fetching the existing events and writing the updated
+   * ones in bulks of {@link #repopulateBulkSize}.
+   */
+  private void repopulate(String orgId, List<Snapshot> snapshots, int total, Organization defaultOrg,
+          User defaultSystemUser, Organization originalOrg) throws IndexRebuildException {
+    Organization snapshotOrg = null;
+    try {
+      snapshotOrg = orgDir.getOrganization(orgId);
+      final User snapshotSystemUser = SecurityUtil.createSystemUser(systemUserName, snapshotOrg);
+      securityService.setOrganization(snapshotOrg);
+      securityService.setUser(snapshotSystemUser);
+      for (List<Snapshot> bulk : Lists.partition(snapshots, repopulateBulkSize)) {
+        final List<String> ids = bulk.stream()
+            .map(snapshot -> snapshot.getMediaPackage().getIdentifier().toString())
+            .collect(Collectors.toList());
+        final Map<String, Event> existingEvents = index.getEvents(ids, orgId, snapshotSystemUser);
+        final List<Event> updatedEvents = new ArrayList<>(bulk.size());
+        for (Snapshot snapshot : bulk) {
+          final String id = snapshot.getMediaPackage().getIdentifier().toString();
+          try {
+            getEventUpdateFunction(snapshot, orgId, snapshotSystemUser)
+                .apply(Optional.ofNullable(existingEvents.get(id)))
+                .ifPresent(updatedEvents::add);
+          } catch (Throwable t) {
+            logSkippingElement(logger, "event", id, snapshotOrg, t);
+          }
+        }
+        try {
+          index.bulkEventUpdate(updatedEvents);
+        } catch (SearchIndexException e) {
+          for (Event event : updatedEvents) {
+            logSkippingElement(logger, "event", event.getIdentifier(), snapshotOrg, e);
+          }
+        }
+        final int current = indexRebuildBean.indexed(bulk.size());
+        logIndexRebuildProgress(logger, index.getIndexName(), total, current, repopulateBulkSize);
+      }
+    } catch (Throwable t) {
+      if (snapshotOrg != null) {
+        logIndexRebuildError(logger, index.getIndexName(), t, snapshotOrg);
+      } else {
+        logIndexRebuildError(logger, index.getIndexName(), t);
+      }
+      throw new IndexRebuildException(index.getIndexName(), getService(), originalOrg, t);
+    } finally {
+      securityService.setOrganization(defaultOrg);
+      securityService.setUser(defaultSystemUser);
+    }
+  }
+
+  /**
+   * Waits for the given repopulation tasks to finish.
+   */
+  private void awaitRepopulate(List<Future<?>> tasks, Organization originalOrg) throws IndexRebuildException {
+    for (Future<?> task : tasks) {
+      try {
+        task.get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IndexRebuildException) {
+          throw (IndexRebuildException) e.getCause();
+        }
+        throw new IndexRebuildException(index.getIndexName(), getService(), originalOrg, e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IndexRebuildException(index.getIndexName(), getService(), originalOrg, e);
+      }
+    }
+  }
+
   /**
    * Used for testing
    */
@@ -1364,45 +1598,83 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
   }
 
   /**
-   * Store all elements of <code>pmp</code> under the given version.
+   * Store all elements of <code>pmp</code> under the given version. Checksums are looked up in one query and the
+   * elements are stored in parallel on the store executor if configured. If any element cannot be stored, all assets
+   * of the version are removed again.
    */
   private void storeAssets(final PartialMediaPackage pmp, final Version version) {
     final String mpId = pmp.getMediaPackage().getIdentifier().toString();
-    final String orgId = securityService.getOrganization().getId();
-    for (final MediaPackageElement e : pmp.getElements()) {
-      logger.debug("Archiving {} {} {}", e.getFlavor(), e.getMimeType(), e.getURI());
-      final StoragePath storagePath = StoragePath.mk(orgId, mpId, version, e.getIdentifier());
-      // find asset in versions
-      final Opt<StoragePath> existingAssetOpt = getDatabase().findAssetByChecksumAndStore(e.getChecksum().toString(),
-              getLocalAssetStore().getStoreType())
-              .map(new Fn<AssetDtos.Full, StoragePath>() {
-                @Override public StoragePath apply(AssetDtos.Full dto) {
-                  return StoragePath.mk(
-                          dto.getOrganizationId(),
-                          dto.getMediaPackageId(),
-                          dto.getVersion(),
-                          dto.getAssetDto().getMediaPackageElementId()
-                  );
-                }
-              });
+    final Organization org = securityService.getOrganization();
+    final User user = securityService.getUser();
+    final AssetStore store = getLocalAssetStore();
+    final List<MediaPackageElement> elements = pmp.getElements().toList();
+    final Map<String, AssetDtos.Full> existingAssets = getDatabase().findAssetsByChecksumsAndStore(
+        elements.stream().map(e -> e.getChecksum().toString()).collect(Collectors.toSet()), store.getStoreType(),
+        org.getId());
 
-      if (existingAssetOpt.isSome()) {
-        final StoragePath existingAsset = existingAssetOpt.get();
-        logger.debug("Content of asset {} with checksum {} has been archived before",
-                existingAsset.getMediaPackageElementId(), e.getChecksum());
-        if (!getLocalAssetStore().copy(existingAsset, storagePath)) {
-          throw new AssetManagerException(format(
-                  "An asset with checksum %s has already been archived but trying to copy or link asset %s to it "
-                          + "failed",
-                  e.getChecksum(),
-                  existingAsset
-          ));
+    final List<Future<?>> tasks = new ArrayList<>(elements.size());
+    try {
+      for (final MediaPackageElement e : elements) {
+        final StoragePath storagePath = StoragePath.mk(org.getId(), mpId, version, e.getIdentifier());
+        final AssetDtos.Full existingAsset = existingAssets.get(e.getChecksum().toString());
+        if (storeExecutor == null || elements.size() == 1) {
+          storeAsset(store, e, storagePath, existingAsset);
+        } else {
+          tasks.add(storeExecutor.submit(() -> SecurityUtil.runAs(securityService, org, user,
+              () -> storeAsset(store, e, storagePath, existingAsset))));
         }
-      } else {
-        final Opt<Long> size = e.getSize() > 0 ? Opt.some(e.getSize()) : Opt.none();
-        getLocalAssetStore().put(storagePath, Source.mk(e.getURI(), size, Opt.nul(e.getMimeType())));
       }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } catch (Exception e) {
+      // wait for the remaining tasks before cleaning up so that no asset is written after the cleanup
+      for (Future<?> task : tasks) {
+        task.cancel(false);
+        try {
+          task.get();
+        } catch (Exception ignore) {
+          // already handled or cancelled
+        }
+      }
+      logger.warn("Storing the assets of {} version {} failed, removing the stored assets", mpId, version);
+      store.delete(DeletionSelector.delete(org.getId(), mpId, version));
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      final Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+      if (cause instanceof AssetManagerException) {
+        throw (AssetManagerException) cause;
+      }
+      throw new AssetManagerException(cause);
+    }
+  }
+
+  /**
+   * Store a single element under the given path, copying or linking an existing asset of the same organization with the
+   * same content if there is one. If the content of that asset is missing from the store, the element is stored
+   * again.
+   */
+  private void storeAsset(final AssetStore store, final MediaPackageElement e, final StoragePath storagePath,
+          final AssetDtos.Full existing) {
+    logger.debug("Archiving {} {} {}", e.getFlavor(), e.getMimeType(), e.getURI());
+    if (existing != null) {
+      final StoragePath existingAsset = StoragePath.mk(
+              existing.getOrganizationId(),
+              existing.getMediaPackageId(),
+              existing.getVersion(),
+              existing.getAssetDto().getMediaPackageElementId()
+      );
+      logger.debug("Content of asset {} with checksum {} has been archived before",
+              existingAsset.getMediaPackageElementId(), e.getChecksum());
+      if (store.copy(existingAsset, storagePath)) {
+        return;
+      }
+      logger.warn("Asset {} with checksum {} is missing from store {}, archiving {} again", existingAsset,
+              e.getChecksum(), store.getStoreType(), e.getURI());
     }
+    final Opt<Long> size = e.getSize() > 0 ? Opt.some(e.getSize()) : Opt.none();
+    store.put(storagePath, Source.mk(e.getURI(), size, Opt.nul(e.getMimeType())));
   }
 
   private void storeManifest(final PartialMediaPackage pmp, final Version version) throws Exception {
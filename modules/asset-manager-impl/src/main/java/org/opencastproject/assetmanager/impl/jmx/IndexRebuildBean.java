@@ -0,0 +1,133 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.assetmanager.impl.jmx;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of the progress of an asset manager index rebuild. Snapshots may be reported from multiple threads.
+ */
+public class IndexRebuildBean implements IndexRebuildMXBean {
+
+  private volatile boolean running = false;
+  private volatile int total = 0;
+  private volatile int resumeOffset = 0;
+  private volatile long started = 0L;
+  private volatile long finished = 0L;
+  private final AtomicInteger current = new AtomicInteger(0);
+  private final AtomicInteger indexed = new AtomicInteger(0);
+
+  /**
+   * Marks the start of a rebuild.
+   *
+   * @param total
+   *          the number of snapshots to index
+   * @param committed
+   *          the number of snapshots skipped since they have been committed to the index by an earlier rebuild
+   */
+  public void start(int total, int committed) {
+    this.total = total;
+    this.resumeOffset = committed;
+    this.current.set(committed);
+    this.indexed.set(0);
+    this.started = System.currentTimeMillis();
+    this.finished = 0L;
+    this.running = true;
+  }
+
+  /**
+   * Reports indexed snapshots.
+   *
+   * @param count
+   *          the number of snapshots
+   * @return the number of snapshots indexed so far
+   */
+  public int indexed(int count) {
+    indexed.addAndGet(count);
+    return current.addAndGet(count);
+  }
+
+  /**
+   * Records the number of snapshots which have been committed to the index.
+   *
+   * @param committed
+   *          the number of committed snapshots, zero once the rebuild has been completed
+   */
+  public void committed(int committed) {
+    this.resumeOffset = committed;
+  }
+
+  /**
+   * Marks the end of a rebuild.
+   */
+  public void stop() {
+    this.finished = System.currentTimeMillis();
+    this.running = false;
+  }
+
+  /**
+   * @see org.opencastproject.assetmanager.impl.jmx.IndexRebuildMXBean#isRunning()
+   */
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * @see org.opencastproject.assetmanager.impl.jmx.IndexRebuildMXBean#getTotal()
+   */
+  @Override
+  public int getTotal() {
+    return total;
+  }
+
+  /**
+   * @see org.opencastproject.assetmanager.impl.jmx.IndexRebuildMXBean#getCurrent()
+   */
+  @Override
+  public int getCurrent() {
+    return current.get();
+  }
+
+  /**
+   * @see org.opencastproject.assetmanager.impl.jmx.IndexRebuildMXBean#getResumeOffset()
+   */
+  @Override
+  public int getResumeOffset() {
+    return resumeOffset;
+  }
+
+  /**
+   * @see org.opencastproject.assetmanager.impl.jmx.IndexRebuildMXBean#getEventsPerSecond()
+   */
+  @Override
+  public double getEventsPerSecond() {
+    if (started == 0L) {
+      return 0.0;
+    }
+    final long end = running ? System.currentTimeMillis() : finished;
+    final long duration = Math.max(1L, end - started);
+    return indexed.get() * 1000.0 / duration;
+  }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.assetmanager.impl.jmx;
+
+/**
+ * JMX Bean interface exposing the progress of the latest asset manager index rebuild
+ */
+public interface IndexRebuildMXBean {
+
+  /**
+   * Gets whether an index rebuild is currently running
+   *
+   * @return <code>true</code> if a rebuild is running
+   */
+  boolean isRunning();
+
+  /**
+   * Gets the number of snapshots to be indexed by the current or latest rebuild
+   *
+   * @return the total number of snapshots
+   */
+  int getTotal();
+
+  /**
+   * Gets the number of snapshots which have already been indexed by the current or latest rebuild, including those
+   * skipped when resuming an earlier rebuild
+   *
+   * @return the number of indexed snapshots
+   */
+  int getCurrent();
+
+  /**
+   * Gets the number of snapshots which have been committed to the index by an unfinished rebuild. A rebuild resumed
+   * later continues after these snapshots.
+   *
+   * @return the number of committed snapshots, zero if the latest rebuild has been completed
+   */
+  int getResumeOffset();
+
+  /**
+   * Gets the average throughput of the current or latest rebuild
+   *
+   * @return indexed events per second
+   */
+  double getEventsPerSecond();
+
+}
@@ -20,6 +20,7 @@
  */
 package org.opencastproject.assetmanager.impl.persistence;
 
+import static com.mysema.query.types.PathMetadataFactory.forVariable;
 import static org.opencastproject.db.Queries.namedQuery;
 
 import org.opencastproject.assetmanager.api.Availability;
@@ -37,19 +38,25 @@ import org.opencastproject.util.data.Function;
 import com.entwinemedia.fn.data.Opt;
 import com.mysema.query.Tuple;
 import com.mysema.query.jpa.EclipseLinkTemplates;
+import com.mysema.query.jpa.JPASubQuery;
 import com.mysema.query.jpa.JPQLTemplates;
 import com.mysema.query.jpa.impl.JPADeleteClause;
 import com.mysema.query.jpa.impl.JPAQuery;
 import com.mysema.query.jpa.impl.JPAQueryFactory;
 import com.mysema.query.jpa.impl.JPAUpdateClause;
 import com.mysema.query.types.expr.BooleanExpression;
+import com.mysema.query.types.path.PathInits;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -345,6 +352,66 @@ public class Database implements EntityPaths {
     return db.exec(SnapshotDto.countEventsQuery(organization));
   }
 
+  /**
+   * Find the position of an unfinished rebuild of an index.
+   *
+   * @param indexName
+   *          the name of the index
+   * @return the checkpoint or none if no rebuild of the index is unfinished
+   */
+  public Optional<IndexRebuildCheckpointDto> findIndexRebuildCheckpoint(final String indexName) {
+    return db.exec(em -> {
+      return Optional.ofNullable(em.find(IndexRebuildCheckpointDto.class, indexName));
+    });
+  }
+
+  /**
+   * Save the position of an index rebuild, replacing the previous one.
+   *
+   * @param indexName
+   *          the name of the index
+   * @param indexGeneration
+   *          the generation of the index, which changes when the index is cleared
+   * @param lastMediaPackageId
+   *          the lowest identifier of all media packages committed to the index
+   * @param indexed
+   *          the number of snapshots committed to the index
+   */
+  public void saveIndexRebuildCheckpoint(final String indexName, final String indexGeneration,
+      final String lastMediaPackageId, final int indexed) {
+    db.execTx(em -> {
+      em.merge(IndexRebuildCheckpointDto.mk(indexName, indexGeneration, lastMediaPackageId, indexed));
+    });
+  }
+
+  /**
+   * Remove the position of a finished or abandoned index rebuild.
+   *
+   * @param indexName
+   *          the name of the index
+   */
+  public void deleteIndexRebuildCheckpoint(final String indexName) {
+    db.execTx(em -> {
+      final IndexRebuildCheckpointDto checkpoint = em.find(IndexRebuildCheckpointDto.class, indexName);
+      if (checkpoint != null) {
+        em.remove(checkpoint);
+      }
+    });
+  }
+
+  /**
+   * Count the events with snapshots of each organization.
+   *
+   * @return the number of events by organization id
+   */
+  public Map<String, Long> countEventsByOrganization() {
+    final Map<String, Long> counts = new HashMap<>();
+    for (Object[] row : db.exec(namedQuery.findAll("Snapshot.countEventsByOrganization", Object[].class))) {
+      counts.put((String) row[0], ((Number) row[1]).longValue());
+    }
+    return counts;
+  }
+
   public Opt<AssetDtos.Full> findAssetByChecksumAndStore(final String checksum, final String storeId) {
     return db.execTx(em -> {
       final Tuple result = AssetDtos.baseJoin(em)
@@ -354,6 +421,38 @@ public class Database implements EntityPaths {
     });
   }
 
+  /**
+   * Find assets of an organization with any of the given checksums in a store. This is the bulk variant of
+   * {@link #findAssetByChecksumAndStore(String, String)} which only considers the first asset archived with each
+   * checksum.
+   *
+   * @return one asset per checksum for which an asset of the organization exists in the store
+   */
+  public Map<String, AssetDtos.Full> findAssetsByChecksumsAndStore(final Collection<String> checksums,
+          final String storeId, final String organizationId) {
+    if (checksums.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return db.execTx(em -> {
+      final QAssetDto first = new QAssetDto(AssetDto.class, forVariable("first"), new PathInits("snapshot"));
+      final List<Tuple> result = AssetDtos.baseJoin(em)
+          .where(QAssetDto.assetDto.id.in(new JPASubQuery()
+              .from(first)
+              .where(first.checksum.in(checksums)
+                  .and(first.storageId.eq(storeId))
+                  .and(first.snapshot.organizationId.eq(organizationId)))
+              .groupBy(first.checksum)
+              .list(first.id.min())))
+          .list(Full.select);
+      final Map<String, AssetDtos.Full> assets = new HashMap<>();
+      for (Tuple tuple : result) {
+        final AssetDtos.Full asset = Full.fromTuple.apply(tuple);
+        assets.put(asset.getAssetDto().getChecksum(), asset);
+      }
+      return assets;
+    });
+  }
+
   //
   // Utility
   //
@@ -0,0 +1,77 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.assetmanager.impl.persistence;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The position of an unfinished index rebuild, so that a failed rebuild can be resumed after a restart or on another
+ * node.
+ */
+@Entity(name = "IndexRebuildCheckpoint")
+@Table(name = "oc_assets_index_rebuild")
+public class IndexRebuildCheckpointDto {
+  @Id
+  @Column(name = "index_name", length = 128)
+  private String indexName;
+
+  @Column(name = "index_generation", length = 255, nullable = false)
+  private String indexGeneration;
+
+  @Column(name = "last_mediapackage_id", length = 128, nullable = false)
+  private String lastMediaPackageId;
+
+  @Column(name = "indexed", nullable = false)
+  private int indexed;
+
+  /** Create a new DTO. */
+  public static IndexRebuildCheckpointDto mk(String indexName, String indexGeneration, String lastMediaPackageId,
+      int indexed) {
+    final IndexRebuildCheckpointDto dto = new IndexRebuildCheckpointDto();
+    dto.indexName = indexName;
+    dto.indexGeneration = indexGeneration;
+    dto.lastMediaPackageId = lastMediaPackageId;
+    dto.indexed = indexed;
+    return dto;
+  }
+
+  public String getIndexName() {
+    return indexName;
+  }
+
+  /** The generation of the index the snapshots have been committed to. */
+  public String getIndexGeneration() {
+    return indexGeneration;
+  }
+
+  /** The media package with the lowest identifier of all media packages which have been committed to the index. */
+  public String getLastMediaPackageId() {
+    return lastMediaPackageId;
+  }
+
+  /** The number of snapshots which have been committed to the index. */
+  public int getIndexed() {
+    return indexed;
+  }
+}
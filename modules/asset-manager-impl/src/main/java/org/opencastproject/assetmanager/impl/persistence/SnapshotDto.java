@@ -73,6 +73,8 @@ import javax.persistence.UniqueConstraint;
         @NamedQuery(name = "Snapshot.countOrgEvents", query = "select count(distinct s.mediaPackageId) from Snapshot s "
                 + "where s.organizationId = :organizationId"),
         @NamedQuery(name = "Snapshot.countEvents", query = "select count(distinct s.mediaPackageId) from Snapshot s"),
+        @NamedQuery(name = "Snapshot.countEventsByOrganization", query = "select s.organizationId, "
+                + "count(distinct s.mediaPackageId) from Snapshot s group by s.organizationId"),
         @NamedQuery(name = "Snapshot.countByMediaPackage", query = "select count(s) from Snapshot s "
                 + "where s.mediaPackageId = :mediaPackageId"),
         @NamedQuery(name = "Snapshot.countByMediaPackageAndOrg", query = "select count(s) from Snapshot s "
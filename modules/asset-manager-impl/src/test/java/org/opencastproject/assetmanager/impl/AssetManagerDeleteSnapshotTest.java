@@ -25,6 +25,8 @@ import static org.junit.Assert.assertEquals;
 import org.opencastproject.assetmanager.impl.persistence.EntityPaths;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.util.metrics.Gauge;
+import org.opencastproject.util.metrics.Metrics;
 
 import com.mysema.query.jpa.JPASubQuery;
 
@@ -193,4 +195,25 @@ public class AssetManagerDeleteSnapshotTest extends AssetManagerDeleteTestBase i
     // assertEquals("All remaining snapshots should be deleted", 2, q.delete("", q.snapshot()).run());
     // assertEquals("There should be no more snapshots", 0, q.select(q.snapshot()).run().getSize());
   }
+
+  @Test
+  public void testEventMetrics() throws Exception {
+    final Gauge.Child events = Metrics.gauge("opencast_asset_manager_events", "Events in Asset Manager",
+        "organization").labels(DefaultOrganization.DEFAULT_ORGANIZATION_ID);
+    am.reconcileEventMetrics();
+    assertEquals(0, events.get(), 0);
+
+    // only the first snapshot of an episode adds an event
+    final String[] mp = createAndAddMediaPackagesSimple(3, 2, 2);
+    assertEquals(3, events.get(), 0);
+    q.delete(OWNER, q.snapshot()).where(q.version().isFirst()).run();
+    assertEquals(3, events.get(), 0);
+    q.delete(OWNER, q.snapshot()).where(q.mediaPackageId(mp[0])).run();
+    assertEquals(2, events.get(), 0);
+
+    // the count of the database replaces the count maintained by this node
+    events.set(42);
+    am.reconcileEventMetrics();
+    assertEquals(2, events.get(), 0);
+  }
 }
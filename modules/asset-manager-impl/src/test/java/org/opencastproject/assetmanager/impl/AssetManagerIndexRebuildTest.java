@@ -0,0 +1,198 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.assetmanager.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.opencastproject.assetmanager.impl.persistence.IndexRebuildCheckpointDto;
+import org.opencastproject.db.DBSessionFactory;
+import org.opencastproject.elasticsearch.api.SearchIndexException;
+import org.opencastproject.elasticsearch.index.ElasticsearchIndex;
+import org.opencastproject.elasticsearch.index.rebuild.IndexRebuildException;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.OrganizationDirectoryService;
+import org.opencastproject.security.api.User;
+import org.opencastproject.security.util.SecurityUtil;
+
+import org.easymock.EasyMock;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tests interrupting an index rebuild and resuming it with another asset manager instance, as after a restart.
+ */
+public class AssetManagerIndexRebuildTest extends AssetManagerTestBase {
+
+  private static final String INDEX_NAME = "test";
+
+  /** Media packages whose events have been requested from the index, in order */
+  private final List<String> indexed = new ArrayList<>();
+
+  /** Media package whose events cannot be requested from the index */
+  private String failOn;
+
+  /** Generation of the index, changed when the index is cleared */
+  private String generation = "1";
+
+  @Test
+  public void testResumeAfterRestart() throws Exception {
+    final List<String> ids = createMediaPackages(5);
+
+    // the second page fails after its first media package
+    failOn = ids.get(3);
+    rebuildAndFail(true);
+    assertEquals(ids.subList(0, 3), indexed);
+    final IndexRebuildCheckpointDto checkpoint = am.getDatabase().findIndexRebuildCheckpoint(INDEX_NAME).get();
+    assertEquals(ids.get(1), checkpoint.getLastMediaPackageId());
+    assertEquals(2, checkpoint.getIndexed());
+
+    // removing an event which has already been indexed does not shift the position
+    q.delete(OWNER, q.snapshot()).where(q.mediaPackageId(ids.get(0))).run();
+
+    // a new instance continues with the page which failed
+    indexed.clear();
+    failOn = null;
+    rebuild(true);
+    assertEquals(ids.subList(2, 5), indexed);
+    assertFalse(am.getDatabase().findIndexRebuildCheckpoint(INDEX_NAME).isPresent());
+  }
+
+  @Test
+  public void testStartOverWithoutResume() throws Exception {
+    final List<String> ids = createMediaPackages(5);
+
+    failOn = ids.get(3);
+    rebuildAndFail(false);
+    assertFalse(am.getDatabase().findIndexRebuildCheckpoint(INDEX_NAME).isPresent());
+
+    indexed.clear();
+    failOn = null;
+    rebuild(false);
+    assertEquals(ids, indexed);
+    assertFalse(am.getDatabase().findIndexRebuildCheckpoint(INDEX_NAME).isPresent());
+  }
+
+  @Test
+  public void testClearedIndexIsNotResumed() throws Exception {
+    final List<String> ids = createMediaPackages(5);
+
+    failOn = ids.get(3);
+    rebuildAndFail(true);
+    assertTrue(am.getDatabase().findIndexRebuildCheckpoint(INDEX_NAME).isPresent());
+
+    // the snapshots committed before are gone once the index has been cleared
+    generation = "2";
+    indexed.clear();
+    failOn = null;
+    rebuild(true);
+    assertEquals(ids, indexed);
+    assertFalse(am.getDatabase().findIndexRebuildCheckpoint(INDEX_NAME).isPresent());
+  }
+
+  @Test
+  public void testCompletedRebuildIsNotResumed() throws Exception {
+    final List<String> ids = createMediaPackages(3);
+    rebuild(true);
+
+    indexed.clear();
+    rebuild(true);
+    assertEquals(ids, indexed);
+  }
+
+  /** Create media packages and return their identifiers in the order they are indexed in */
+  private List<String> createMediaPackages(int amount) {
+    return Arrays.stream(createAndAddMediaPackagesSimple(amount, 1, 1))
+        .sorted(Comparator.reverseOrder())
+        .collect(Collectors.toList());
+  }
+
+  private void rebuildAndFail(boolean resume) throws Exception {
+    try {
+      rebuild(resume);
+      fail("The index rebuild should have failed");
+    } catch (IndexRebuildException e) {
+      // expected
+    }
+  }
+
+  /** Rebuild the index with a new asset manager instance sharing the database of the test */
+  private void rebuild(boolean resume) throws Exception {
+    final AssetManagerImpl assetManager = makeAssetManager();
+    assetManager.setIndex(mkIndex());
+    final OrganizationDirectoryService orgDir = EasyMock.createNiceMock(OrganizationDirectoryService.class);
+    EasyMock.expect(orgDir.getOrganization(EasyMock.anyString())).andReturn(new DefaultOrganization()).anyTimes();
+    EasyMock.replay(orgDir);
+    assetManager.setOrgDir(orgDir);
+    assetManager.setDBSessionFactory(EasyMock.createNiceMock(DBSessionFactory.class));
+    assetManager.activate(mkComponentContext(resume));
+    assetManager.setDatabase(am.getDatabase());
+    try {
+      assetManager.repopulate();
+    } finally {
+      assetManager.deactivate();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private ElasticsearchIndex mkIndex() throws Exception {
+    final ElasticsearchIndex index = EasyMock.createNiceMock(ElasticsearchIndex.class);
+    EasyMock.expect(index.getIndexName()).andReturn(INDEX_NAME).anyTimes();
+    EasyMock.expect(index.getIndexGeneration()).andReturn(generation).anyTimes();
+    EasyMock.expect(index.getEvents(EasyMock.anyObject(), EasyMock.anyString(), EasyMock.anyObject(User.class)))
+        .andAnswer(() -> {
+          final Collection<String> ids = (Collection<String>) EasyMock.getCurrentArguments()[0];
+          if (ids.contains(failOn)) {
+            throw new SearchIndexException("Index not available");
+          }
+          indexed.addAll(ids);
+          return Collections.emptyMap();
+        }).anyTimes();
+    EasyMock.replay(index);
+    return index;
+  }
+
+  private static ComponentContext mkComponentContext(boolean resume) {
+    final Hashtable<String, Object> properties = new Hashtable<>();
+    properties.put(AssetManagerImpl.REPOPULATE_PAGE_SIZE_KEY, "2");
+    properties.put(AssetManagerImpl.REPOPULATE_BULK_SIZE_KEY, "1");
+    properties.put(AssetManagerImpl.REPOPULATE_RESUME_KEY, Boolean.toString(resume));
+    final BundleContext bundleContext = EasyMock.createNiceMock(BundleContext.class);
+    EasyMock.expect(bundleContext.getProperty(SecurityUtil.PROPERTY_KEY_SYS_USER)).andReturn("system").anyTimes();
+    final ComponentContext cc = EasyMock.createNiceMock(ComponentContext.class);
+    EasyMock.expect(cc.getBundleContext()).andReturn(bundleContext).anyTimes();
+    EasyMock.expect(cc.getProperties()).andReturn(properties).anyTimes();
+    EasyMock.replay(bundleContext, cc);
+    return cc;
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.assetmanager.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.assetmanager.api.Snapshot;
+import org.opencastproject.assetmanager.api.storage.AssetStore;
+import org.opencastproject.assetmanager.api.storage.AssetStoreException;
+import org.opencastproject.assetmanager.api.storage.DeletionSelector;
+import org.opencastproject.assetmanager.api.storage.Source;
+import org.opencastproject.assetmanager.api.storage.StoragePath;
+import org.opencastproject.assetmanager.impl.util.TestUser;
+import org.opencastproject.mediapackage.MediaPackageElement;
+import org.opencastproject.security.api.JaxbOrganization;
+import org.opencastproject.security.api.Organization;
+import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.util.data.Option;
+
+import com.entwinemedia.fn.data.Opt;
+
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests how the assets of a snapshot are stored, reusing the content of assets archived before.
+ */
+public class AssetManagerStoreAssetsTest extends AssetManagerTestBase {
+
+  /** Assets copied from other assets, as pairs of source and target */
+  private final List<List<StoragePath>> copies = new ArrayList<>();
+
+  /** Assets put into the store */
+  private final List<StoragePath> puts = new ArrayList<>();
+
+  private AssetStore store;
+
+  @Override
+  protected AssetStore mkAssetStore(String storeType) {
+    final AssetStore delegate = super.mkAssetStore(storeType);
+    store = new AssetStore() {
+      @Override public void put(StoragePath path, Source source) throws AssetStoreException {
+        puts.add(path);
+        delegate.put(path, source);
+      }
+
+      @Override public boolean copy(StoragePath from, StoragePath to) throws AssetStoreException {
+        final boolean copied = delegate.copy(from, to);
+        if (copied) {
+          copies.add(Arrays.asList(from, to));
+        }
+        return copied;
+      }
+
+      @Override public Opt<InputStream> get(StoragePath path) throws AssetStoreException {
+        return delegate.get(path);
+      }
+
+      @Override public boolean contains(StoragePath path) throws AssetStoreException {
+        return delegate.contains(path);
+      }
+
+      @Override public boolean delete(DeletionSelector sel) throws AssetStoreException {
+        return delegate.delete(sel);
+      }
+
+      @Override public Option<Long> getTotalSpace() {
+        return delegate.getTotalSpace();
+      }
+
+      @Override public Option<Long> getUsableSpace() {
+        return delegate.getUsableSpace();
+      }
+
+      @Override public Option<Long> getUsedSpace() {
+        return delegate.getUsedSpace();
+      }
+
+      @Override public String getStoreType() {
+        return delegate.getStoreType();
+      }
+    };
+    return store;
+  }
+
+  @Test
+  public void testReuseAcrossMediaPackages() throws Exception {
+    final Snapshot first = am.takeSnapshot(OWNER, mkMediaPackage(mkCatalog()));
+    final Snapshot second = am.takeSnapshot(OWNER, mkMediaPackage(mkCatalog()));
+    final Snapshot third = am.takeSnapshot(OWNER, mkMediaPackage(mkCatalog()));
+
+    // all catalogs have the same content which is linked to the first asset archived with it
+    assertEquals(Arrays.asList(
+        Arrays.asList(path(first), path(second)),
+        Arrays.asList(path(first), path(third))), copies);
+    assertTrue(puts.contains(path(first)));
+    assertTrue(store.contains(path(second)));
+    assertTrue(store.contains(path(third)));
+  }
+
+  @Test
+  public void testStoreAgainIfKnownAssetIsMissing() throws Exception {
+    final Snapshot first = am.takeSnapshot(OWNER, mkMediaPackage(mkCatalog()));
+    store.delete(DeletionSelector.delete(first.getOrganizationId(), first.getMediaPackage().getIdentifier().toString(),
+        first.getVersion()));
+
+    final Snapshot second = am.takeSnapshot(OWNER, mkMediaPackage(mkCatalog()));
+    assertTrue(copies.isEmpty());
+    assertTrue(puts.contains(path(second)));
+    assertTrue(store.contains(path(second)));
+  }
+
+  @Test
+  public void testNoReuseAcrossOrganizations() throws Exception {
+    final Snapshot first = am.takeSnapshot(OWNER, mkMediaPackage(mkCatalog()));
+
+    final Organization other = new JaxbOrganization("other", "Other", null, "ROLE_OTHER_ADMIN", "ROLE_OTHER_ANONYMOUS",
+        null);
+    final SecurityService securityService = EasyMock.createNiceMock(SecurityService.class);
+    EasyMock.expect(securityService.getOrganization()).andReturn(other).anyTimes();
+    EasyMock.expect(securityService.getUser()).andReturn(TestUser.mk(other, other.getAdminRole())).anyTimes();
+    EasyMock.replay(securityService);
+    am.setSecurityService(securityService);
+
+    final Snapshot second = am.takeSnapshot(OWNER, mkMediaPackage(mkCatalog()));
+    assertEquals("other", second.getOrganizationId());
+    assertTrue(copies.isEmpty());
+    assertTrue(puts.contains(path(second)));
+
+    // assets of the other organization are reused within that organization only
+    final Snapshot third = am.takeSnapshot(OWNER, mkMediaPackage(mkCatalog()));
+    assertEquals(Arrays.asList(Arrays.asList(path(second), path(third))), copies);
+    assertTrue(store.contains(path(first)));
+  }
+
+  /** Path of the catalog of a snapshot */
+  private static StoragePath path(Snapshot snapshot) {
+    final MediaPackageElement catalog = snapshot.getMediaPackage().getCatalogs()[0];
+    return StoragePath.mk(snapshot.getOrganizationId(), snapshot.getMediaPackage().getIdentifier().toString(),
+        snapshot.getVersion(), catalog.getIdentifier());
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.authorization.xacml;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+
+import java.util.function.Supplier;
+
+/**
+ * Exposes the statistics of the cache of parsed XACML policies. The cache may be replaced on configuration changes,
+ * which resets the statistics.
+ */
+public class AclCacheStatistics implements AclCacheStatisticsMXBean {
+
+  private final Supplier<Cache<?, ?>> cache;
+
+  /**
+   * Creates a bean reporting on the current cache.
+   *
+   * @param cache
+   *          supplies the current cache
+   */
+  public AclCacheStatistics(Supplier<Cache<?, ?>> cache) {
+    this.cache = cache;
+  }
+
+  private CacheStats stats() {
+    return cache.get().stats();
+  }
+
+  @Override
+  public long getSize() {
+    return cache.get().size();
+  }
+
+  @Override
+  public long getHits() {
+    return stats().hitCount();
+  }
+
+  @Override
+  public long getMisses() {
+    return stats().missCount();
+  }
+
+  @Override
+  public double getHitRate() {
+    return stats().hitRate();
+  }
+
+  @Override
+  public long getEvictions() {
+    return stats().evictionCount();
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.authorization.xacml;
+
+/**
+ * JMX Bean interface exposing the statistics of the cache of parsed XACML policies
+ */
+public interface AclCacheStatisticsMXBean {
+
+  /**
+   * Gets the number of parsed access control lists in the cache
+   *
+   * @return the cache size
+   */
+  long getSize();
+
+  /**
+   * Gets the number of access control lists taken from the cache
+   *
+   * @return the number of cache hits
+   */
+  long getHits();
+
+  /**
+   * Gets the number of access control lists which had to be parsed since they were not in the cache
+   *
+   * @return the number of cache misses
+   */
+  long getMisses();
+
+  /**
+   * Gets the ratio of cache hits to all lookups
+   *
+   * @return the hit ratio, <code>1.0</code> if there have not been any lookups
+   */
+  double getHitRate();
+
+  /**
+   * Gets the number of access control lists evicted from the cache because of its size
+   *
+   * @return the number of evictions
+   */
+  long getEvictions();
+
+}
@@ -38,16 +38,23 @@ import org.opencastproject.security.api.AuthorizationService;
 import org.opencastproject.security.api.Role;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.User;
+import org.opencastproject.util.Checksum;
 import org.opencastproject.util.MimeTypes;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.data.Tuple;
+import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workspace.api.Workspace;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
@@ -62,6 +69,7 @@ import java.net.URISyntaxException;
 import java.util.Arrays;
 import java.util.Optional;
 
+import javax.management.ObjectInstance;
 import javax.xml.bind.JAXBException;
 
 /**
@@ -99,16 +107,52 @@ public class XACMLAuthorizationService implements AuthorizationService {
     OVERRIDE, ROLES, ACTIONS
   }
 
+  private static final String CONFIG_CACHE_SIZE = "acl.cache.size";
+
+  /** Default number of parsed ACLs to keep in memory */
+  private static final int DEFAULT_CACHE_SIZE = 1000;
+
+  /** The JMX type of the ACL cache statistics */
+  private static final String JMX_ACL_CACHE_TYPE = "XACMLAclCache";
+
+  /**
+   * Parsed ACLs keyed by the URI and checksum of their XACML attachment. Attachments without checksum are never cached,
+   * since their content may change without their URI changing, e.g. when an ACL is set on another node.
+   */
+  private volatile Cache<Tuple<URI, Checksum>, AccessControlList> aclCache = createAclCache(DEFAULT_CACHE_SIZE);
+
+  /** The current ACL cache size */
+  private int aclCacheSize = DEFAULT_CACHE_SIZE;
+
+  /** The ACL cache statistics */
+  private final AclCacheStatistics aclCacheStatistics = new AclCacheStatistics(() -> aclCache);
+
+  /** The registered ACL cache statistics */
+  private ObjectInstance aclCacheMXBean = null;
+
   @Activate
   @Modified
   public void activate(ComponentContext cc) {
     var properties = cc.getProperties();
 
+    if (aclCacheMXBean == null) {
+      aclCacheMXBean = JmxUtil.registerMXBean(aclCacheStatistics, JMX_ACL_CACHE_TYPE);
+    }
+
     if (properties == null) {
       mergeMode = MergeMode.OVERRIDE;
       logger.debug("Merge mode set to {}", mergeMode);
       return;
     }
+
+    final int cacheSize = NumberUtils.toInt(StringUtils.trimToNull((String) properties.get(CONFIG_CACHE_SIZE)),
+        DEFAULT_CACHE_SIZE);
+    if (cacheSize != aclCacheSize) {
+      aclCache = createAclCache(cacheSize);
+      aclCacheSize = cacheSize;
+      logger.debug("ACL cache size set to {}", cacheSize);
+    }
+
     final String mode = StringUtils.defaultIfBlank((String) properties.get(CONFIG_MERGE_MODE),
         MergeMode.OVERRIDE.toString());
     try {
@@ -120,6 +164,22 @@ public class XACMLAuthorizationService implements AuthorizationService {
     logger.debug("Merge mode set to {}", mergeMode);
   }
 
+  @Deactivate
+  public void deactivate() {
+    if (aclCacheMXBean != null) {
+      JmxUtil.unregisterMXBean(aclCacheMXBean);
+      aclCacheMXBean = null;
+    }
+  }
+
+  private static Cache<Tuple<URI, Checksum>, AccessControlList> createAclCache(int size) {
+    return CacheBuilder.newBuilder().maximumSize(Math.max(0, size)).recordStats().build();
+  }
+
+  AclCacheStatisticsMXBean getAclCacheStatistics() {
+    return aclCacheStatistics;
+  }
+
   @Reference(
       cardinality = ReferenceCardinality.OPTIONAL,
       policy = ReferencePolicy.DYNAMIC,
@@ -186,19 +246,23 @@ public class XACMLAuthorizationService implements AuthorizationService {
   private Optional<AccessControlList> getAclByFlavor(MediaPackage mp, MediaPackageElementFlavor xacmlPolicyFlavor) {
     Optional<AccessControlList> acl = Optional.empty();
     for (Attachment xacml : mp.getAttachments(xacmlPolicyFlavor)) {
-      URI uri = xacml.getURI();
-      try {
-        if (serializer != null) {
-          uri = serializer.decodeURI(uri);
-        }
-      } catch (URISyntaxException e) {
-        logger.warn("URI {} syntax error, skip decoding", uri);
-      }
-      acl = loadAcl(uri);
+      acl = loadAcl(decodeURI(xacml.getURI()), xacml.getChecksum());
     }
     return acl;
   }
 
+  /** Decode the URI of an attachment using the media package serializer, if available. */
+  private URI decodeURI(URI uri) {
+    try {
+      if (serializer != null) {
+        return serializer.decodeURI(uri);
+      }
+    } catch (URISyntaxException e) {
+      logger.warn("URI {} syntax error, skip decoding", uri);
+    }
+    return uri;
+  }
+
   @Override
   public Tuple<MediaPackage, Attachment> setAcl(
       final MediaPackage mp,
@@ -281,6 +345,7 @@ public class XACMLAuthorizationService implements AuthorizationService {
     Attachment attachment = null;
     for (Attachment a : mp.getAttachments(flavor)) {
       attachment = (Attachment) a.clone();
+      invalidateAcl(decodeURI(a.getURI()));
       try {
         workspace.delete(a.getURI());
       } catch (Exception e) {
@@ -291,6 +356,33 @@ public class XACMLAuthorizationService implements AuthorizationService {
     return Tuple.tuple(mp, attachment);
   }
 
+  /** Remove all parsed ACLs loaded from the given URI from the cache. */
+  private void invalidateAcl(final URI uri) {
+    aclCache.asMap().keySet().removeIf(key -> key.getA().equals(uri));
+  }
+
+  /**
+   * Load an ACL from the given URI, or take it from the cache if the attachment has a checksum. Since access control
+   * lists are mutable, a copy of the cached list is returned.
+   */
+  private Optional<AccessControlList> loadAcl(final URI uri, final Checksum checksum) {
+    if (checksum == null) {
+      return loadAcl(uri);
+    }
+    final Tuple<URI, Checksum> key = tuple(uri, checksum);
+    final Cache<Tuple<URI, Checksum>, AccessControlList> cache = aclCache;
+    AccessControlList acl = cache.getIfPresent(key);
+    if (acl == null) {
+      final Optional<AccessControlList> loaded = loadAcl(uri);
+      if (loaded.isEmpty()) {
+        return loaded;
+      }
+      acl = loaded.get();
+      cache.put(key, acl);
+    }
+    return Optional.of(new AccessControlList(acl.getEntries()));
+  }
+
   /** Load an ACL from the given URI. */
   private Optional<AccessControlList> loadAcl(final URI uri) {
     logger.debug("Load Acl from {}", uri);
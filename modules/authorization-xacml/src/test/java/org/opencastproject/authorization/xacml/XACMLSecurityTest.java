@@ -21,6 +21,7 @@
 
 package org.opencastproject.authorization.xacml;
 
+import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
 import org.opencastproject.security.api.AccessControlEntry;
@@ -31,6 +32,8 @@ import org.opencastproject.security.api.JaxbOrganization;
 import org.opencastproject.security.api.JaxbRole;
 import org.opencastproject.security.api.JaxbUser;
 import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.workspace.api.Workspace;
 
 import org.apache.commons.io.FileUtils;
@@ -201,4 +204,38 @@ public class XACMLSecurityTest {
     Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
     Assert.assertFalse(authzService.hasPermission(mediapackage, "comment"));
   }
+
+  @Test
+  public void testAclCache() throws Exception {
+    final MediaPackage mediapackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    final AccessControlList acl = new AccessControlList(new AccessControlEntry("admin", "read", true));
+    final AclCacheStatisticsMXBean stats = authzService.getAclCacheStatistics();
+
+    // ACLs of attachments without checksum are not cached
+    Attachment attachment = authzService.setAcl(mediapackage, AclScope.Episode, acl).getB();
+    Assert.assertEquals(acl.getEntries(), authzService.getActiveAcl(mediapackage).getA().getEntries());
+    Assert.assertEquals(0, stats.getHits() + stats.getMisses());
+
+    attachment.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, new File(attachment.getURI())));
+    Assert.assertEquals(acl.getEntries(), authzService.getActiveAcl(mediapackage).getA().getEntries());
+    final AccessControlList cached = authzService.getActiveAcl(mediapackage).getA();
+    Assert.assertEquals(acl.getEntries(), cached.getEntries());
+    Assert.assertEquals(1, stats.getMisses());
+    Assert.assertEquals(1, stats.getHits());
+    Assert.assertEquals(1, stats.getSize());
+
+    // Modifying a returned ACL does not modify the cached one
+    cached.getEntries().clear();
+    Assert.assertEquals(acl.getEntries(), authzService.getActiveAcl(mediapackage).getA().getEntries());
+
+    // Setting or removing an ACL invalidates the cached ACL of the replaced attachment
+    final AccessControlList update = new AccessControlList(new AccessControlEntry("admin", "write", true));
+    attachment = authzService.setAcl(mediapackage, AclScope.Episode, update).getB();
+    Assert.assertEquals(0, stats.getSize());
+    attachment.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, new File(attachment.getURI())));
+    Assert.assertEquals(update.getEntries(), authzService.getActiveAcl(mediapackage).getA().getEntries());
+    Assert.assertEquals(1, stats.getSize());
+    authzService.removeAcl(mediapackage, AclScope.Episode);
+    Assert.assertEquals(0, stats.getSize());
+  }
 }
@@ -0,0 +1,81 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.benchmarks;
+
+import org.opencastproject.scheduler.impl.EventIntervalIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conflict checking of a semester of recurring periods against the events of one capture agent, as done when
+ * scheduling recurring events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EventIntervalIndexBenchmark {
+
+  private static final long HOUR = 3600_000L;
+
+  private static final int EVENTS = 5000;
+
+  private EventIntervalIndex index;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(42);
+    final EventIntervalIndex.Builder builder = EventIntervalIndex.builder();
+    for (int i = 0; i < EVENTS; i++) {
+      final long start = random.nextInt(EVENTS * 4) * HOUR / 2;
+      builder.add(Integer.toString(i), start, start + (1 + random.nextInt(6)) * HOUR / 2);
+    }
+    index = builder.build();
+  }
+
+  @Benchmark
+  public Set<String> findRecurringConflicts() {
+    // a 90 minute lecture every 24 hours
+    final Set<String> conflicts = new HashSet<>();
+    for (long start = HOUR / 4; start < EVENTS * 2 * HOUR; start += 24 * HOUR) {
+      conflicts.addAll(index.findOverlapping(start, start + 3 * HOUR / 2));
+    }
+    return conflicts;
+  }
+
+}
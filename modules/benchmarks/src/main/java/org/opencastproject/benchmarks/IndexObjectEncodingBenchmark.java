@@ -0,0 +1,128 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.benchmarks;
+
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding;
+import org.opencastproject.elasticsearch.index.objects.event.Comment;
+import org.opencastproject.elasticsearch.index.objects.event.Event;
+import org.opencastproject.mediapackage.Publication;
+import org.opencastproject.mediapackage.PublicationImpl;
+import org.opencastproject.util.MimeTypes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * Writing and reading events in the XML and JSON encodings of the index documents, as done for every indexed event and
+ * every event in a search result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IndexObjectEncodingBenchmark {
+
+  private Event event;
+
+  private Unmarshaller unmarshaller;
+
+  private byte[] eventXml;
+
+  private String eventJson;
+
+  @Setup
+  public void setUp() throws Exception {
+    event = new Event("1a2b3c4d-5e6f-7a8b-9c0d-1e2f3a4b5c6d", "mh_default_org");
+    event.setTitle("Introduction to Algorithms, Lecture 12");
+    event.setDescription("Dynamic programming and memoization, with examples from sequence alignment.");
+    event.setSeriesId("series-algorithms");
+    event.setSeriesName("Introduction to Algorithms");
+    event.setLanguage("en");
+    event.setCreated("2026-04-14T10:00:00Z");
+    event.setRecordingStartDate("2026-04-14T10:00:00Z");
+    event.setRecordingEndDate("2026-04-14T11:30:00Z");
+    event.setDuration(5400000L);
+    event.setPresenters(Arrays.asList("Jane Doe", "John Roe"));
+    event.setContributors(Arrays.asList("Teaching Assistant"));
+    event.setAgentId("lecture-hall-3");
+    final Map<String, String> agentConfiguration = new HashMap<>();
+    agentConfiguration.put("capture.device.names", "presenter,presentation");
+    agentConfiguration.put("event.location", "lecture-hall-3");
+    event.setAgentConfiguration(agentConfiguration);
+    event.setArchiveVersion(7L);
+    event.setComments(Arrays.asList(new Comment("1", "cutting", "Please cut the first five minutes", false)));
+    final List<Publication> publications = new ArrayList<>();
+    for (String channel : Arrays.asList("engage-player", "api", "oaipmh-default")) {
+      publications.add(PublicationImpl.publication(channel + "-id", channel,
+          new URI("https://example.org/" + channel + "/1a2b3c4d"), MimeTypes.parseMimeType("text/html")));
+    }
+    event.setPublications(publications);
+
+    unmarshaller = Event.createUnmarshaller();
+    eventXml = event.toXML().getBytes(StandardCharsets.UTF_8);
+    eventJson = IndexObjectEncoding.toJson(event);
+  }
+
+  @Benchmark
+  public String toXml() {
+    return event.toXML();
+  }
+
+  @Benchmark
+  public String toJson() {
+    return IndexObjectEncoding.toJson(event);
+  }
+
+  @Benchmark
+  public Event fromXml() throws IOException {
+    return Event.valueOf(new ByteArrayInputStream(eventXml), unmarshaller);
+  }
+
+  @Benchmark
+  public Event fromJson() throws IOException {
+    return IndexObjectEncoding.fromJson(eventJson, Event.class);
+  }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.benchmarks;
+
+import org.opencastproject.job.api.Job;
+import org.opencastproject.job.api.JobBarrier;
+import org.opencastproject.job.api.JobCompletionListener;
+import org.opencastproject.serviceregistry.api.JobCompletionNotifier;
+import org.opencastproject.serviceregistry.api.ServiceRegistryException;
+import org.opencastproject.serviceregistry.api.ServiceRegistryInMemoryImpl;
+import org.opencastproject.util.NotFoundException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end latency of a workflow of 20 operations, each waiting on a job barrier for a job taking 100 ms, as done by
+ * workflow operation handlers waiting for the jobs of remote services. Compares a service registry which can only be
+ * polled, at the default polling interval, with one notifying about completed jobs.
+ * <p>
+ * Polling takes about 100 seconds per run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class JobBarrierBenchmark {
+
+  private static final String JOB_TYPE = "org.opencastproject.benchmark";
+
+  private static final int OPERATIONS = 20;
+
+  private static final long PROCESSING_TIME = 100L;
+
+  @Param({ "polling", "notification" })
+  private String completion;
+
+  private ServiceRegistryInMemoryImpl serviceRegistry;
+
+  private ScheduledExecutorService workers;
+
+  /** In-memory service registry notifying about completed jobs like the JPA service registry does */
+  private static final class NotifyingServiceRegistry extends ServiceRegistryInMemoryImpl
+          implements JobCompletionNotifier {
+    private final List<JobCompletionListener> listeners = new CopyOnWriteArrayList<>();
+
+    NotifyingServiceRegistry() throws ServiceRegistryException {
+      super(null, null, null, null, null);
+    }
+
+    @Override
+    public Job updateJob(Job job) throws NotFoundException, ServiceRegistryException {
+      final Job updated = super.updateJob(job);
+      if (updated.getStatus().isTerminated()) {
+        fireJobCompleted(updated.getId(), updated.getStatus());
+      }
+      return updated;
+    }
+
+    @Override
+    public void addJobCompletionListener(JobCompletionListener listener) {
+      listeners.add(listener);
+    }
+
+    @Override
+    public void removeJobCompletionListener(JobCompletionListener listener) {
+      listeners.remove(listener);
+    }
+
+    @Override
+    public void fireJobCompleted(long jobId, Job.Status status) {
+      for (JobCompletionListener listener : listeners) {
+        listener.jobCompleted(jobId, status);
+      }
+    }
+
+    @Override
+    public boolean notifiesRemoteCompletions() {
+      return true;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws ServiceRegistryException {
+    serviceRegistry = "notification".equals(completion)
+            ? new NotifyingServiceRegistry()
+            : new ServiceRegistryInMemoryImpl(null, null, null, null, null);
+    // The jobs are completed by the workers below rather than being dispatched
+    serviceRegistry.dispose();
+    serviceRegistry.registerService(JOB_TYPE, "localhost", "/benchmark");
+    workers = Executors.newScheduledThreadPool(4);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    workers.shutdownNow();
+  }
+
+  @Benchmark
+  public void workflow() throws Exception {
+    for (int i = 0; i < OPERATIONS; i++) {
+      final Job job = serviceRegistry.createJob(JOB_TYPE, "process", null, null, false);
+      workers.schedule(() -> {
+        job.setStatus(Job.Status.FINISHED);
+        return serviceRegistry.updateJob(job);
+      }, PROCESSING_TIME, TimeUnit.MILLISECONDS);
+      if (!new JobBarrier(null, serviceRegistry, job).waitForJobs().isSuccess()) {
+        throw new IllegalStateException("Job " + job.getId() + " did not finish");
+      }
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.benchmarks;
+
+import org.opencastproject.job.api.JaxbJob;
+import org.opencastproject.job.api.Job;
+import org.opencastproject.job.api.JobImpl;
+import org.opencastproject.job.api.JobParser;
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
+import org.opencastproject.mediapackage.MediaPackageParser;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing and parsing of jobs carrying a media package, as done whenever a job is dispatched or returned by a
+ * remote service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JobParserBenchmark {
+
+  private JaxbJob job;
+
+  private String jobXml;
+
+  @Setup
+  public void setUp() throws Exception {
+    final String xml = IOUtils.resourceToString("/mediapackage.xml", StandardCharsets.UTF_8);
+    final MediaPackage mediaPackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder()
+            .loadFromXml(xml);
+    final String payload = MediaPackageParser.getAsXml(mediaPackage);
+    final Date now = new Date();
+    job = new JaxbJob(new JobImpl(1L, "admin", "mh_default_org", 1L, "org.opencastproject.composer", "Encode",
+            Arrays.asList(payload, "mp4-hd"), Job.Status.FINISHED, "http://localhost:8080",
+            "http://localhost:8080", now, now, now, 0L, 1000L, payload, null, null, true, null, 1.0F));
+    jobXml = JobParser.toXml(job);
+  }
+
+  @Benchmark
+  public String toXml() throws IOException {
+    return JobParser.toXml(job);
+  }
+
+  @Benchmark
+  public Job parseJob() throws IOException {
+    return JobParser.parseJob(jobXml);
+  }
+
+}
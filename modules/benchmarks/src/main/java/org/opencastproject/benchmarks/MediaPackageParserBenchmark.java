@@ -0,0 +1,97 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.benchmarks;
+
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
+import org.opencastproject.mediapackage.MediaPackageElement;
+import org.opencastproject.mediapackage.MediaPackageElementParser;
+import org.opencastproject.mediapackage.MediaPackageException;
+import org.opencastproject.mediapackage.MediaPackageParser;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing and parsing of media packages and their elements, as done for every workflow update and job payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MediaPackageParserBenchmark {
+
+  private MediaPackage mediaPackage;
+
+  private String mediaPackageXml;
+
+  private String elementXml;
+
+  @Setup
+  public void setUp() throws IOException, MediaPackageException {
+    final String xml = IOUtils.resourceToString("/mediapackage.xml", StandardCharsets.UTF_8);
+    mediaPackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().loadFromXml(xml);
+    mediaPackageXml = MediaPackageParser.getAsXml(mediaPackage);
+    elementXml = MediaPackageElementParser.getAsXml(mediaPackage.getTracks()[0]);
+  }
+
+  @Benchmark
+  public String getAsXml() {
+    return MediaPackageParser.getAsXml(mediaPackage);
+  }
+
+  @Benchmark
+  public String getAsJson() {
+    return MediaPackageParser.getAsJSON(mediaPackage);
+  }
+
+  @Benchmark
+  public MediaPackage getFromXml() throws MediaPackageException {
+    return MediaPackageParser.getFromXml(mediaPackageXml);
+  }
+
+  @Benchmark
+  public Object cloneMediaPackage() {
+    return mediaPackage.clone();
+  }
+
+  @Benchmark
+  public MediaPackageElement getElementFromXml() throws MediaPackageException {
+    return MediaPackageElementParser.getFromXml(elementXml);
+  }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.benchmarks;
+
+import org.opencastproject.fsresources.StaticResourceServlet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+/**
+ * Concurrent single range requests for random parts of a file, as sent by players seeking in a video served by the
+ * static file servlet. Compares the file channel transfer with the previous stream copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class StaticResourceServletBenchmark {
+
+  private static final int FILE_LENGTH = 16 * 1024 * 1024;
+
+  @Param({ "65536", "262144", "1048576" })
+  private int rangeLength;
+
+  private File file;
+
+  private Servlet servlet;
+
+  /** Exposes the range copy methods of the servlet */
+  private static final class Servlet extends StaticResourceServlet {
+    IOException transfer(File file, ServletOutputStream out, long start, long end) {
+      return transferRange(file, out, start, end);
+    }
+
+    IOException copy(File file, ServletOutputStream out, long start, long end) throws IOException {
+      try (InputStream in = Files.newInputStream(file.toPath())) {
+        return copyRange(in, out, start, end);
+      }
+    }
+  }
+
+  /** Output stream discarding the response body */
+  private static final class NullOutputStream extends ServletOutputStream {
+    private long written;
+
+    @Override
+    public void write(int b) {
+      written++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      written += len;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    final byte[] content = new byte[FILE_LENGTH];
+    new Random(42).nextBytes(content);
+    file = File.createTempFile("segment", ".mp4");
+    Files.write(file.toPath(), content);
+    servlet = new Servlet();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Benchmark
+  public long transferRange() throws IOException {
+    final long start = ThreadLocalRandom.current().nextInt(FILE_LENGTH - rangeLength);
+    final NullOutputStream out = new NullOutputStream();
+    final IOException e = servlet.transfer(file, out, start, start + rangeLength - 1);
+    if (e != null) {
+      throw e;
+    }
+    return out.written;
+  }
+
+  @Benchmark
+  public long copyRange() throws IOException {
+    final long start = ThreadLocalRandom.current().nextInt(FILE_LENGTH - rangeLength);
+    final NullOutputStream out = new NullOutputStream();
+    final IOException e = servlet.copy(file, out, start, start + rangeLength - 1);
+    if (e != null) {
+      throw e;
+    }
+    return out.written;
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.benchmarks;
+
+import org.opencastproject.authorization.xacml.XACMLParsingException;
+import org.opencastproject.authorization.xacml.XACMLUtils;
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
+import org.opencastproject.security.api.AccessControlEntry;
+import org.opencastproject.security.api.AccessControlList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBException;
+
+/**
+ * Creating and parsing of XACML policies, as done for every access control change and authorization check of an event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class XACMLUtilsBenchmark {
+
+  private MediaPackage mediaPackage;
+
+  private AccessControlList acl;
+
+  private byte[] xacml;
+
+  @Setup
+  public void setUp() throws Exception {
+    mediaPackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    acl = new AccessControlList(
+            new AccessControlEntry("ROLE_ADMIN", "read", true),
+            new AccessControlEntry("ROLE_ADMIN", "write", true),
+            new AccessControlEntry("ROLE_USER_TEACHER", "read", true),
+            new AccessControlEntry("ROLE_USER_TEACHER", "write", true),
+            new AccessControlEntry("ROLE_ANONYMOUS", "read", true));
+    xacml = XACMLUtils.getXacml(mediaPackage, acl).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public String getXacml() throws JAXBException {
+    return XACMLUtils.getXacml(mediaPackage, acl);
+  }
+
+  @Benchmark
+  public AccessControlList parseXacml() throws XACMLParsingException {
+    return XACMLUtils.parseXacml(new ByteArrayInputStream(xacml));
+  }
+
+}
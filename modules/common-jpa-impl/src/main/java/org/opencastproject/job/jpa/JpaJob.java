@@ -107,6 +107,10 @@ import javax.persistence.Version;
     @NamedQuery(name = "Job.children", query = "SELECT j FROM Job j "
         + "WHERE j.parentJob.id = :id ORDER BY j.dateCreated"),
     @NamedQuery(name = "Job.withoutParent", query = "SELECT j FROM Job j WHERE j.parentJob IS NULL"),
+    @NamedQuery(name = "Job.parents.status", query = "SELECT DISTINCT j.parentJob.id FROM Job j "
+        + "WHERE j.status = :status AND j.parentJob IS NOT NULL"),
+    @NamedQuery(name = "Job.parents", query = "SELECT DISTINCT j.parentJob.id FROM Job j "
+        + "WHERE j.id IN :ids AND j.parentJob IS NOT NULL"),
     @NamedQuery(name = "Job.avgOperation", query = "SELECT j.operation, AVG(j.runTime), AVG(j.queueTime) "
         + "FROM Job j GROUP BY j.operation"),
 
@@ -143,7 +147,13 @@ import javax.persistence.Version;
         + "FROM Job j, ServiceRegistration s, HostRegistration h "
         + "WHERE ((j.processorServiceRegistration IS NOT NULL AND j.processorServiceRegistration = s) "
         + "OR (j.creatorServiceRegistration IS NOT NULL AND j.creatorServiceRegistration = s)) "
-        + "AND s.hostRegistration = h GROUP BY h.baseUrl, s.serviceType, j.status")
+        + "AND s.hostRegistration = h GROUP BY h.baseUrl, s.serviceType, j.status"),
+    @NamedQuery(name = "Job.countPerHostOrganization.statuses", query = "SELECT "
+        + "j.processorServiceRegistration.hostRegistration.baseUrl, j.organization, COUNT(j) FROM Job j "
+        + "WHERE j.status IN :statuses "
+        + "GROUP BY j.processorServiceRegistration.hostRegistration.baseUrl, j.organization"),
+    @NamedQuery(name = "Job.countPerOrganization.statuses.operation", query = "SELECT j.organization, COUNT(j) "
+        + "FROM Job j WHERE j.status IN :statuses AND j.operation = :operation GROUP BY j.organization")
 })
 public class JpaJob {
 
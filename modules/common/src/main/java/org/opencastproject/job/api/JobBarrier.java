@@ -22,6 +22,7 @@
 package org.opencastproject.job.api;
 
 import org.opencastproject.job.api.Job.Status;
+import org.opencastproject.serviceregistry.api.JobCompletionNotifier;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.util.JobCanceledException;
@@ -35,8 +36,10 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This class is a utility implementation that will wait for all given jobs to change their status to either one of:
@@ -45,6 +48,11 @@ import java.util.Map;
  * <li>{@link Job.Status#FAILED}</li>
  * <li>{@link Job.Status#DELETED}</li>
  * </ul>
+ * <p>
+ * If the service registry is a {@link JobCompletionNotifier}, the barrier is woken up as soon as one of the monitored
+ * jobs completes. Once a completion has been reported and the registry notifies about jobs completed on any node of
+ * the cluster, polling is only used as a fallback, at an interval of at least
+ * {@link #DEFAULT_FALLBACK_POLLING_INTERVAL}. Until then, the barrier keeps polling at its regular interval.
  */
 public final class JobBarrier {
   /** The logging facility */
@@ -53,6 +61,9 @@ public final class JobBarrier {
   /** Default polling interval is 5 seconds */
   public static final long DEFAULT_POLLING_INTERVAL = 5000L;
 
+  /** Polling interval used once the service registry has been seen notifying about completed jobs, 30 seconds */
+  public static final long DEFAULT_FALLBACK_POLLING_INTERVAL = 30000L;
+
   /** The service registry used to do the polling */
   private final ServiceRegistry serviceRegistry;
 
@@ -272,24 +283,99 @@ public final class JobBarrier {
       this.workTime = workTime;
     }
 
+    /** Identifiers of monitored jobs which have been reported as completed since the last look at the jobs */
+    private final Set<Long> completedJobIds = new HashSet<>();
+
     @Override
     public void run() {
+      final JobCompletionNotifier notifier = serviceRegistry instanceof JobCompletionNotifier
+              ? (JobCompletionNotifier) serviceRegistry
+              : null;
+      if (notifier == null) {
+        poll(null);
+        return;
+      }
+
+      final Set<Long> jobIds = new HashSet<>();
+      for (final Job job : jobs) {
+        jobIds.add(job.getId());
+      }
+      final JobCompletionListener listener = (jobId, status) -> {
+        if (jobIds.contains(jobId)) {
+          synchronized (completedJobIds) {
+            completedJobIds.add(jobId);
+            completedJobIds.notifyAll();
+          }
+        }
+      };
+      // Register before the first look at the jobs so that no completion can get lost in between
+      notifier.addJobCompletionListener(listener);
+      try {
+        poll(notifier);
+      } finally {
+        notifier.removeJobCompletionListener(listener);
+      }
+    }
+
+    /**
+     * Waits for the given amount of time or until a monitored job has been reported as completed.
+     *
+     * @param time
+     *          the maximum time to wait in milliseconds
+     * @return the identifiers of the jobs reported as completed, or <code>null</code> if none has been reported
+     */
+    private Set<Long> awaitCompletion(long time) throws InterruptedException {
+      synchronized (completedJobIds) {
+        if (completedJobIds.isEmpty()) {
+          completedJobIds.wait(Math.max(1L, time));
+        }
+        if (completedJobIds.isEmpty()) {
+          return null;
+        }
+        final Set<Long> completed = new HashSet<>(completedJobIds);
+        completedJobIds.clear();
+        return completed;
+      }
+    }
+
+    /**
+     * Keeps looking at the monitored jobs until all of them have finished, one has failed or the time is up.
+     *
+     * @param notifier
+     *          the service registry reporting completed jobs, or <code>null</code> if it does not
+     */
+    private void poll(JobCompletionNotifier notifier) {
+      final boolean notified = notifier != null;
       final long endTime = workTime > 0 ? System.currentTimeMillis() + workTime : 0;
       final Map<Job, Job.Status> finishedJobs = new HashMap<Job, Job.Status>();
+      long interval = pollingInterval;
+      // With notifications, take a first look right away since jobs may have completed before we started listening
+      boolean firstLook = notified;
       while (true) {
         final long time = System.currentTimeMillis();
         // Wait a little..
+        Set<Long> completed = null;
         try {
-          final long timeToSleep = Math.min(pollingInterval, Math.abs(endTime - time));
-          Thread.sleep(timeToSleep);
+          final long timeToSleep = Math.min(interval, Math.abs(endTime - time));
+          if (firstLook) {
+            firstLook = false;
+          } else if (notified) {
+            completed = awaitCompletion(timeToSleep);
+            // Only rely on notifications once they have been seen to work and cover jobs completed on other nodes
+            if (completed != null && notifier.notifiesRemoteCompletions()) {
+              interval = Math.max(pollingInterval, DEFAULT_FALLBACK_POLLING_INTERVAL);
+            }
+          } else {
+            Thread.sleep(timeToSleep);
+          }
         } catch (InterruptedException e) {
           logger.debug("Job polling thread was interrupted");
           return;
         }
         // Look at all jobs and make sure all of them have reached the expected status
         for (final Job job : jobs) {
-          // Don't ask if we already know
-          if (!finishedJobs.containsKey(job)) {
+          // Don't ask if we already know, or if we have been woken up because of other jobs
+          if (!finishedJobs.containsKey(job) && (completed == null || completed.contains(job.getId()))) {
             // Get the job status from the service registry
             try {
               final Job processedJob = serviceRegistry.getJob(job.getId());
@@ -343,7 +429,7 @@ public final class JobBarrier {
           if (finishedJobs.size() == jobs.size()) {
             updateAndNotify(finishedJobs);
             return;
-          } else if (workTime > 0 && endTime >= time) {
+          } else if (workTime > 0 && System.currentTimeMillis() >= endTime) {
             pollingException = new InterruptedException("Timeout waiting for job processing");
             updateAndNotify(finishedJobs);
             return;
@@ -0,0 +1,43 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.job.api;
+
+/**
+ * Listener which is notified as soon as a job reaches a terminal state.
+ *
+ * @see org.opencastproject.serviceregistry.api.JobCompletionNotifier
+ */
+public interface JobCompletionListener {
+
+  /**
+   * Called when the job with the given identifier has been updated to a terminal state. Implementations must return
+   * quickly, as they are called from the thread updating the job.
+   *
+   * @param jobId
+   *          the job identifier
+   * @param status
+   *          the terminal status of the job
+   */
+  void jobCompleted(long jobId, Job.Status status);
+
+}
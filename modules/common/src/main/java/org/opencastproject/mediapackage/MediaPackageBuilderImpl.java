@@ -102,6 +102,10 @@ public class MediaPackageBuilderImpl implements MediaPackageBuilder {
    * @see org.opencastproject.mediapackage.MediaPackageBuilder#loadFromXml(java.io.InputStream)
    */
   public MediaPackage loadFromXml(InputStream is) throws MediaPackageException {
+    if (serializer == null) {
+      // Without any urls to rewrite, the media package can be read as a stream
+      return MediaPackageImpl.valueOf(is);
+    }
     try {
       Document xml = XmlSafeParser.parse(is);
       return loadFromXml(xml);
@@ -131,6 +135,9 @@ public class MediaPackageBuilderImpl implements MediaPackageBuilder {
    */
   @Override
   public MediaPackage loadFromXml(String xml) throws MediaPackageException {
+    if (serializer == null) {
+      return MediaPackageImpl.valueOf(xml);
+    }
     InputStream in = null;
     try {
       in = IOUtils.toInputStream(xml, "UTF-8");
@@ -21,23 +21,15 @@
 
 package org.opencastproject.mediapackage;
 
-import static org.apache.commons.io.IOUtils.toInputStream;
-
-import org.opencastproject.util.XmlSafeParser;
 import org.opencastproject.util.data.Function;
 
-import org.xml.sax.SAXException;
-
-import java.io.IOException;
-import java.io.StringWriter;
+import java.io.StringReader;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 
 /**
  * Convenience implementation that supports serializing and deserializing media package elements.
@@ -63,13 +55,8 @@ public final class MediaPackageElementParser {
   public static String getAsXml(MediaPackageElement element) throws MediaPackageException {
     if (element == null)
       throw new IllegalArgumentException("Mediapackage element must not be null");
-    StringWriter writer = new StringWriter();
-    Marshaller m = null;
     try {
-      m = MediaPackageImpl.context.createMarshaller();
-      m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
-      m.marshal(element, writer);
-      return writer.toString();
+      return MediaPackageXml.write(element);
     } catch (JAXBException e) {
       throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
     }
@@ -94,14 +81,10 @@ public final class MediaPackageElementParser {
    *         if de-serializing the element fails
    */
   public static MediaPackageElement getFromXml(String xml) throws MediaPackageException {
-    Unmarshaller m = null;
     try {
-      m = MediaPackageImpl.context.createUnmarshaller();
-      return (MediaPackageElement) m.unmarshal(XmlSafeParser.parse(toInputStream(xml)));
+      return (MediaPackageElement) MediaPackageXml.readElement(new StringReader(xml));
     } catch (JAXBException e) {
       throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
-    } catch (IOException | SAXException e) {
-      throw new MediaPackageException(e);
     }
   }
 
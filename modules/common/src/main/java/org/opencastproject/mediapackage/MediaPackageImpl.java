@@ -30,9 +30,7 @@ import org.opencastproject.mediapackage.identifier.Id;
 import org.opencastproject.mediapackage.identifier.IdImpl;
 import org.opencastproject.util.DateTimeSupport;
 import org.opencastproject.util.IoSupport;
-import org.opencastproject.util.XmlSafeParser;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,12 +39,11 @@ import org.w3c.dom.bootstrap.DOMImplementationRegistry;
 import org.w3c.dom.ls.DOMImplementationLS;
 import org.w3c.dom.ls.LSOutput;
 import org.w3c.dom.ls.LSSerializer;
-import org.xml.sax.SAXException;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -1121,9 +1118,9 @@ public final class MediaPackageImpl implements MediaPackage {
    */
   public static MediaPackageImpl valueOf(String xml) throws MediaPackageException {
     try {
-      return MediaPackageImpl.valueOf(IOUtils.toInputStream(xml, "UTF-8"));
-    } catch (IOException e) {
-      throw new MediaPackageException(e);
+      return MediaPackageXml.readMediaPackage(new StringReader(xml));
+    } catch (JAXBException e) {
+      throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
     }
   }
 
@@ -1197,12 +1194,9 @@ public final class MediaPackageImpl implements MediaPackage {
    */
   public static MediaPackageImpl valueOf(InputStream xml) throws MediaPackageException {
     try {
-      Unmarshaller unmarshaller = context.createUnmarshaller();
-      return unmarshaller.unmarshal(XmlSafeParser.parse(xml), MediaPackageImpl.class).getValue();
+      return MediaPackageXml.readMediaPackage(xml);
     } catch (JAXBException e) {
       throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
-    } catch (IOException | SAXException e) {
-      throw new MediaPackageException(e);
     } finally {
       IoSupport.closeQuietly(xml);
     }
@@ -40,7 +40,6 @@ import java.util.LinkedList;
 import java.util.List;
 
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -70,11 +69,7 @@ public final class MediaPackageParser {
     if (mediaPackage == null)
       throw new IllegalArgumentException("Mediapackage must not be null");
     try {
-      Marshaller marshaller = MediaPackageImpl.context.createMarshaller();
-      marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
-      StringWriter writer = new StringWriter();
-      marshaller.marshal(mediaPackage, writer);
-      return writer.toString();
+      return MediaPackageXml.write(mediaPackage);
     } catch (JAXBException e) {
       throw new IllegalStateException(e.getLinkedException() != null ? e.getLinkedException() : e);
     }
@@ -92,8 +87,6 @@ public final class MediaPackageParser {
       throw new IllegalArgumentException("Mediapackage must not be null");
     }
     try {
-      Marshaller marshaller = MediaPackageImpl.context.createMarshaller();
-
       Configuration config = new Configuration();
       config.setSupressAtAttributes(true);
       MappedNamespaceConvention con = new MappedNamespaceConvention(config);
@@ -118,7 +111,10 @@ public final class MediaPackageParser {
         }
       };
 
-      marshaller.marshal(mediaPackage, xmlStreamWriter);
+      MediaPackageXml.withMarshaller(marshaller -> {
+        marshaller.marshal(mediaPackage, xmlStreamWriter);
+        return null;
+      });
       return writer.toString();
     } catch (JAXBException e) {
       throw new IllegalStateException(e.getLinkedException() != null ? e.getLinkedException() : e);
@@ -128,9 +124,11 @@ public final class MediaPackageParser {
   /** Serializes a media package to a {@link Document} without any further processing. */
   public static Document getAsXmlDocument(MediaPackage mp) {
     try {
-      final Marshaller marshaller = MediaPackageImpl.context.createMarshaller();
       final Document doc = newDocument();
-      marshaller.marshal(mp, doc);
+      MediaPackageXml.withMarshaller(marshaller -> {
+        marshaller.marshal(mp, doc);
+        return null;
+      });
       return doc;
     } catch (JAXBException e) {
       return chuck(e);
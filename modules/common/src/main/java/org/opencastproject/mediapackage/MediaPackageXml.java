@@ -0,0 +1,202 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.mediapackage;
+
+import org.opencastproject.util.XmlSafeParser;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.JAXBIntrospector;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming XML serialization of media packages and their elements.
+ * <p>
+ * Documents are read from a StAX stream which is guarded against XXE and billion laugh attacks, so that they do not
+ * need to be parsed into a DOM first to check them before they are unmarshalled. Marshallers and unmarshallers are
+ * not thread safe but can be reused, so every thread keeps one of each instead of creating them for every document.
+ * The serialized form is created by JAXB and therefore does not change.
+ */
+final class MediaPackageXml {
+
+  /** Safe factory for the StAX readers, which is thread safe once configured */
+  // CHECKSTYLE:OFF
+  private static final javax.xml.stream.XMLInputFactory inputFactory = XmlSafeParser.newXMLInputFactory();
+  // CHECKSTYLE:ON
+
+  /** Idle marshaller of each thread, <code>null</code> while it is in use */
+  private static final ThreadLocal<Marshaller> marshallers = new ThreadLocal<>();
+
+  /** Idle unmarshaller of each thread, <code>null</code> while it is in use */
+  private static final ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<>();
+
+  private MediaPackageXml() {
+  }
+
+  /**
+   * Serializes a media package or a media package element.
+   *
+   * @param object
+   *          the media package or element
+   * @return the serialized object
+   * @throws JAXBException
+   *           if marshalling fails
+   */
+  static String write(Object object) throws JAXBException {
+    final Marshaller marshaller = acquireMarshaller();
+    try {
+      final StringWriter writer = new StringWriter();
+      marshaller.marshal(object, writer);
+      return writer.toString();
+    } finally {
+      marshallers.set(marshaller);
+    }
+  }
+
+  /**
+   * Runs a function with a marshaller of the current thread.
+   *
+   * @param function
+   *          the function using the marshaller
+   * @return the result of the function
+   * @throws JAXBException
+   *           if the function fails
+   */
+  static <A> A withMarshaller(MarshallerFunction<A> function) throws JAXBException {
+    final Marshaller marshaller = acquireMarshaller();
+    try {
+      return function.apply(marshaller);
+    } finally {
+      marshallers.set(marshaller);
+    }
+  }
+
+  /**
+   * Reads a serialized media package.
+   *
+   * @param in
+   *          the serialized media package
+   * @return the deserialized media package
+   * @throws JAXBException
+   *           if the document is malformed or cannot be unmarshalled
+   */
+  static MediaPackageImpl readMediaPackage(InputStream in) throws JAXBException {
+    try {
+      return read(inputFactory.createXMLStreamReader(in), MediaPackageImpl.class);
+    } catch (XMLStreamException e) {
+      throw new JAXBException(e);
+    }
+  }
+
+  /**
+   * Reads a serialized media package.
+   *
+   * @param in
+   *          the serialized media package
+   * @return the deserialized media package
+   * @throws JAXBException
+   *           if the document is malformed or cannot be unmarshalled
+   */
+  static MediaPackageImpl readMediaPackage(Reader in) throws JAXBException {
+    try {
+      return read(inputFactory.createXMLStreamReader(in), MediaPackageImpl.class);
+    } catch (XMLStreamException e) {
+      throw new JAXBException(e);
+    }
+  }
+
+  /**
+   * Reads a serialized media package element. The type of the element is determined by its root element.
+   *
+   * @param in
+   *          the serialized element
+   * @return the deserialized element
+   * @throws JAXBException
+   *           if the document is malformed or cannot be unmarshalled
+   */
+  static Object readElement(Reader in) throws JAXBException {
+    try {
+      return read(inputFactory.createXMLStreamReader(in), null);
+    } catch (XMLStreamException e) {
+      throw new JAXBException(e);
+    }
+  }
+
+  /**
+   * Unmarshals a document as the given type or, if no type is given, as the type bound to its root element.
+   */
+  @SuppressWarnings("unchecked")
+  private static <A> A read(XMLStreamReader reader, Class<A> type) throws JAXBException {
+    Unmarshaller unmarshaller = unmarshallers.get();
+    if (unmarshaller == null) {
+      unmarshaller = MediaPackageImpl.context.createUnmarshaller();
+    } else {
+      unmarshallers.set(null);
+    }
+    try {
+      // CHECKSTYLE:OFF
+      // The reader has been created by the safe factory
+      final A result = type != null
+              ? unmarshaller.unmarshal(reader, type).getValue()
+              : (A) JAXBIntrospector.getValue(unmarshaller.unmarshal(reader));
+      // CHECKSTYLE:ON
+      // Make sure the rest of the document is well-formed as well, as it would be when parsing it into a DOM
+      while (reader.hasNext()) {
+        reader.next();
+      }
+      return result;
+    } catch (XMLStreamException e) {
+      throw new JAXBException(e);
+    } finally {
+      unmarshallers.set(unmarshaller);
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        // The underlying source is closed by the caller
+      }
+    }
+  }
+
+  private static Marshaller acquireMarshaller() throws JAXBException {
+    final Marshaller marshaller = marshallers.get();
+    if (marshaller == null) {
+      final Marshaller created = MediaPackageImpl.context.createMarshaller();
+      created.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+      return created;
+    }
+    // Nested calls on the same thread, e.g. from adapters, create their own marshaller
+    marshallers.set(null);
+    return marshaller;
+  }
+
+  /** A function using a marshaller. */
+  interface MarshallerFunction<A> {
+    A apply(Marshaller marshaller) throws JAXBException;
+  }
+
+}
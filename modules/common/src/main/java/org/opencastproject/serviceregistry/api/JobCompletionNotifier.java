@@ -0,0 +1,68 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.serviceregistry.api;
+
+import org.opencastproject.job.api.Job;
+import org.opencastproject.job.api.JobCompletionListener;
+
+/**
+ * Implemented by service registries which are able to push job completion notifications to interested parties, so
+ * that they do not have to poll the registry for the status of the jobs they are waiting for.
+ */
+public interface JobCompletionNotifier {
+
+  /**
+   * Registers a listener which is notified whenever a job reaches a terminal state.
+   *
+   * @param listener
+   *          the listener
+   */
+  void addJobCompletionListener(JobCompletionListener listener);
+
+  /**
+   * Removes a previously registered listener.
+   *
+   * @param listener
+   *          the listener
+   */
+  void removeJobCompletionListener(JobCompletionListener listener);
+
+  /**
+   * Notifies the local listeners about a completed job. This is used to forward notifications from other nodes.
+   *
+   * @param jobId
+   *          the job identifier
+   * @param status
+   *          the terminal status of the job
+   */
+  void fireJobCompleted(long jobId, Job.Status status);
+
+  /**
+   * Whether listeners are also notified about jobs completed on other nodes. If not, parties waiting for jobs which
+   * may be processed anywhere in the cluster must not rely on notifications.
+   *
+   * @return whether jobs completed on other nodes are reported
+   */
+  boolean notifiesRemoteCompletions();
+
+}
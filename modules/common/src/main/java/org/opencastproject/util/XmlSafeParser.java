@@ -97,6 +97,30 @@ public final class XmlSafeParser {
     return f;
   }
 
+  /**
+   * Creates a preconfigured XMLInputFactory, which is guarded against XXE and billion laugh attacks. Document type
+   * declarations are not processed and external entities are not resolved.
+   * @return the preconfigured XMLInputFactory
+   */
+  // CHECKSTYLE:OFF
+  public static javax.xml.stream.XMLInputFactory newXMLInputFactory() {
+    javax.xml.stream.XMLInputFactory f = javax.xml.stream.XMLInputFactory.newInstance();
+
+    try {
+      f.setProperty(javax.xml.stream.XMLInputFactory.SUPPORT_DTD, false);
+      f.setProperty(javax.xml.stream.XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      f.setProperty(javax.xml.stream.XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    }
+    catch (Exception e) {
+      // this shouldn't occur
+      logger.error("Failed to configure safe XMLInputFactory to prevent XXE.");
+      throw new AssertionError("Failed to configure safe XMLInputFactory to prevent XXE.", e);
+    }
+
+    return f;
+  }
+  // CHECKSTYLE:ON
+
   /**
    * Creates a preconfigured default TransformerFactory, which is guarded against XXE and billion laugh attacks.
    * @return the preconfigured TransformerFactory
@@ -0,0 +1,79 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.util.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A counter which only ever goes up, e.g. the number of processed requests or transferred bytes. Increments are cheap
+ * and do not contend between threads.
+ */
+public final class Counter extends Metric<Counter.Child> {
+
+  Counter(String name, String help, String... labelNames) {
+    super(name, help, labelNames);
+  }
+
+  @Override
+  public Type getType() {
+    return Type.COUNTER;
+  }
+
+  @Override
+  Child newChild() {
+    return new Child();
+  }
+
+  /**
+   * The counter of a single combination of label values.
+   */
+  public static final class Child {
+
+    private final DoubleAdder value = new DoubleAdder();
+
+    private Child() {
+    }
+
+    public void inc() {
+      value.add(1);
+    }
+
+    /**
+     * Increments the counter.
+     *
+     * @param amount
+     *          the amount to add, must not be negative
+     */
+    public void inc(double amount) {
+      if (amount < 0) {
+        throw new IllegalArgumentException("Counters cannot be decreased");
+      }
+      value.add(amount);
+    }
+
+    public double get() {
+      return value.sum();
+    }
+  }
+
+}
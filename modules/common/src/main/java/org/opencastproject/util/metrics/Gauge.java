@@ -0,0 +1,85 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A gauge which can go up and down, e.g. the number of active jobs. Services maintain gauges as the measured state
+ * changes instead of computing the value whenever it is requested.
+ */
+public final class Gauge extends Metric<Gauge.Child> {
+
+  Gauge(String name, String help, String... labelNames) {
+    super(name, help, labelNames);
+  }
+
+  @Override
+  public Type getType() {
+    return Type.GAUGE;
+  }
+
+  @Override
+  Child newChild() {
+    return new Child();
+  }
+
+  /**
+   * The gauge of a single combination of label values.
+   */
+  public static final class Child {
+
+    /** The bits of the current value */
+    private final AtomicLong value = new AtomicLong(Double.doubleToLongBits(0));
+
+    private Child() {
+    }
+
+    public void inc() {
+      inc(1);
+    }
+
+    public void dec() {
+      inc(-1);
+    }
+
+    /**
+     * Changes the gauge.
+     *
+     * @param amount
+     *          the amount to add, which may be negative
+     */
+    public void inc(double amount) {
+      value.getAndUpdate(bits -> Double.doubleToLongBits(Double.longBitsToDouble(bits) + amount));
+    }
+
+    public void set(double value) {
+      this.value.set(Double.doubleToLongBits(value));
+    }
+
+    public double get() {
+      return Double.longBitsToDouble(value.get());
+    }
+  }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.util.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram counting observations, e.g. durations in seconds, in buckets with fixed upper bounds. Observations are
+ * cheap and do not contend between threads.
+ */
+public final class Histogram extends Metric<Histogram.Child> {
+
+  /** Buckets for durations of requests, in seconds */
+  public static final double[] DEFAULT_BUCKETS = { .005, .01, .025, .05, .075, .1, .25, .5, .75, 1, 2.5, 5, 7.5, 10 };
+
+  /** Buckets for durations of long running processing, in seconds */
+  public static final double[] PROCESSING_BUCKETS = { 1, 5, 15, 30, 60, 120, 300, 600, 1800, 3600, 7200, 14400 };
+
+  /** Upper bounds of the buckets, without the implicit infinite bucket */
+  private final double[] buckets;
+
+  Histogram(String name, String help, double[] buckets, String... labelNames) {
+    super(name, help, labelNames);
+    if (buckets.length == 0) {
+      throw new IllegalArgumentException("Histogram " + name + " needs at least one bucket");
+    }
+    for (int i = 1; i < buckets.length; i++) {
+      if (buckets[i] <= buckets[i - 1]) {
+        throw new IllegalArgumentException("Buckets of histogram " + name + " must be in increasing order");
+      }
+    }
+    this.buckets = buckets.clone();
+  }
+
+  @Override
+  public Type getType() {
+    return Type.HISTOGRAM;
+  }
+
+  /**
+   * Returns the upper bounds of the buckets, without the implicit infinite bucket.
+   */
+  public double[] getBuckets() {
+    return buckets.clone();
+  }
+
+  @Override
+  Child newChild() {
+    return new Child(buckets);
+  }
+
+  @Override
+  boolean isCompatible(Metric<?> other) {
+    return super.isCompatible(other) && Arrays.equals(buckets, ((Histogram) other).buckets);
+  }
+
+  /**
+   * The histogram of a single combination of label values.
+   */
+  public static final class Child {
+
+    private final double[] buckets;
+
+    /** Number of observations per bucket, the last one being the infinite bucket */
+    private final LongAdder[] counts;
+
+    private final DoubleAdder sum = new DoubleAdder();
+
+    private Child(double[] buckets) {
+      this.buckets = buckets;
+      this.counts = new LongAdder[buckets.length + 1];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = new LongAdder();
+      }
+    }
+
+    /**
+     * Records an observation.
+     *
+     * @param value
+     *          the observed value
+     */
+    public void observe(double value) {
+      int bucket = Arrays.binarySearch(buckets, value);
+      if (bucket < 0) {
+        bucket = -bucket - 1;
+      }
+      counts[bucket].increment();
+      sum.add(value);
+    }
+
+    /**
+     * Records the seconds passed since the given time.
+     *
+     * @param startNanos
+     *          the start time as returned by {@link System#nanoTime()}
+     */
+    public void observeSince(long startNanos) {
+      observe((System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Returns the cumulative number of observations up to and including each bucket, the last one being the infinite
+     * bucket and thus the total number of observations.
+     */
+    public long[] getCumulativeCounts() {
+      final long[] result = new long[counts.length];
+      long total = 0;
+      for (int i = 0; i < counts.length; i++) {
+        total += counts[i].sum();
+        result[i] = total;
+      }
+      return result;
+    }
+
+    public double getSum() {
+      return sum.sum();
+    }
+  }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.util.metrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A metric with a child for each combination of label values. Children are created on first use and kept as long as
+ * the metric exists, so label values must come from a small, bounded set.
+ *
+ * @param <C>
+ *          the type of the children
+ */
+public abstract class Metric<C> {
+
+  /** The type of a metric */
+  public enum Type {
+    COUNTER, GAUGE, HISTOGRAM
+  }
+
+  private final String name;
+  private final String help;
+  private final List<String> labelNames;
+  private final Map<List<String>, C> children = new ConcurrentHashMap<>();
+
+  Metric(String name, String help, String... labelNames) {
+    this.name = name;
+    this.help = help;
+    this.labelNames = Collections.unmodifiableList(Arrays.asList(labelNames.clone()));
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getHelp() {
+    return help;
+  }
+
+  public List<String> getLabelNames() {
+    return labelNames;
+  }
+
+  public abstract Type getType();
+
+  /**
+   * Returns the child for the given label values, creating it if necessary.
+   *
+   * @param labelValues
+   *          one value for each label name, in the same order
+   * @return the child
+   * @throws IllegalArgumentException
+   *           if the number of values does not match the number of label names
+   */
+  public C labels(String... labelValues) {
+    if (labelValues.length != labelNames.size()) {
+      throw new IllegalArgumentException("Metric " + name + " expects labels " + labelNames + " but got "
+              + Arrays.toString(labelValues));
+    }
+    final List<String> key = Arrays.asList(labelValues.clone());
+    for (int i = 0; i < labelValues.length; i++) {
+      if (labelValues[i] == null) {
+        key.set(i, "");
+      }
+    }
+    C child = children.get(key);
+    if (child == null) {
+      child = children.computeIfAbsent(Collections.unmodifiableList(key), k -> newChild());
+    }
+    return child;
+  }
+
+  /**
+   * Returns the children by their label values.
+   */
+  public Map<List<String>, C> getChildren() {
+    return Collections.unmodifiableMap(children);
+  }
+
+  abstract C newChild();
+
+  /** Returns whether the metric has been registered with the same definition. */
+  boolean isCompatible(Metric<?> other) {
+    return getType() == other.getType() && labelNames.equals(other.labelNames);
+  }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.util.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the metrics recorded by the services of this node.
+ * <p>
+ * Services record metrics where the measured work happens, which keeps the cost of exposing them independent of the
+ * amount of work. The registry does not depend on any metrics library, the metrics endpoint converts the registered
+ * metrics into its own format when they are requested. Registering a metric which already exists returns the existing
+ * one, so that metrics survive restarts of the services recording them.
+ */
+public final class Metrics {
+
+  private static final Map<String, Metric<?>> metrics = new ConcurrentHashMap<>();
+
+  private Metrics() {
+  }
+
+  /**
+   * Returns the counter with the given name, registering it if necessary.
+   *
+   * @param name
+   *          the metric name, without the <code>_total</code> suffix
+   * @param help
+   *          the description of the metric
+   * @param labelNames
+   *          the label names
+   * @return the counter
+   * @throws IllegalArgumentException
+   *           if a different metric with the same name has already been registered
+   */
+  public static Counter counter(String name, String help, String... labelNames) {
+    return register(new Counter(name, help, labelNames));
+  }
+
+  /**
+   * Returns the gauge with the given name, registering it if necessary.
+   *
+   * @param name
+   *          the metric name
+   * @param help
+   *          the description of the metric
+   * @param labelNames
+   *          the label names
+   * @return the gauge
+   * @throws IllegalArgumentException
+   *           if a different metric with the same name has already been registered
+   */
+  public static Gauge gauge(String name, String help, String... labelNames) {
+    return register(new Gauge(name, help, labelNames));
+  }
+
+  /**
+   * Returns the histogram with the given name, registering it if necessary.
+   *
+   * @param name
+   *          the metric name
+   * @param help
+   *          the description of the metric
+   * @param buckets
+   *          the upper bounds of the buckets in increasing order
+   * @param labelNames
+   *          the label names
+   * @return the histogram
+   * @throws IllegalArgumentException
+   *           if a different metric with the same name has already been registered
+   */
+  public static Histogram histogram(String name, String help, double[] buckets, String... labelNames) {
+    return register(new Histogram(name, help, buckets, labelNames));
+  }
+
+  /**
+   * Returns all registered metrics.
+   */
+  public static Collection<Metric<?>> getMetrics() {
+    return Collections.unmodifiableCollection(metrics.values());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <M extends Metric<?>> M register(M metric) {
+    final Metric<?> registered = metrics.putIfAbsent(metric.getName(), metric);
+    if (registered == null) {
+      return metric;
+    }
+    if (!registered.isCompatible(metric)) {
+      throw new IllegalArgumentException("Metric " + metric.getName() + " has already been registered differently");
+    }
+    return (M) registered;
+  }
+
+}
@@ -171,4 +171,40 @@ public class MediaPackageJaxbSerializationTest {
     assertEquals(title, unmarshalled.getTitle());
     assertEquals("s1", unmarshalled.getSeriesTitle());
   }
+
+  @Test
+  public void testStreamingRoundTrip() throws Exception {
+    InputStream in = null;
+    try {
+      in = this.getClass().getResourceAsStream("/manifest.xml");
+      MediaPackage mp = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().loadFromXml(in);
+      String xml = MediaPackageParser.getAsXml(mp);
+      // Reading and writing again must not change the serialized form
+      assertEquals(xml, MediaPackageParser.getAsXml(MediaPackageParser.getFromXml(xml)));
+      assertEquals(xml, MediaPackageParser.getAsXml(MediaPackageImpl.valueOf(IOUtils.toInputStream(xml, "UTF-8"))));
+      // Marshallers are reused, so serializing the media package again must yield the same result
+      assertEquals(xml, MediaPackageParser.getAsXml(mp));
+      for (MediaPackageElement element : mp.getElements()) {
+        String elementXml = MediaPackageElementParser.getAsXml(element);
+        assertEquals(elementXml, MediaPackageElementParser.getAsXml(MediaPackageElementParser.getFromXml(elementXml)));
+      }
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+  }
+
+  @Test(expected = MediaPackageException.class)
+  public void testExternalEntitiesAreNotResolved() throws Exception {
+    String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<!DOCTYPE foo [ <!ENTITY xxe SYSTEM \"file:///etc/passwd\"> ]>"
+            + "<mediapackage id=\"123\" xmlns=\"http://mediapackage.opencastproject.org\"><title>&xxe;</title>"
+            + "</mediapackage>";
+    MediaPackageParser.getFromXml(xml);
+  }
+
+  @Test(expected = MediaPackageException.class)
+  public void testTrailingContentIsRejected() throws Exception {
+    String xml = "<mediapackage id=\"123\" xmlns=\"http://mediapackage.opencastproject.org\"></mediapackage><foo>";
+    MediaPackageParser.getFromXml(xml);
+  }
 }
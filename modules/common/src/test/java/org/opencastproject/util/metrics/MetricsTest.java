@@ -0,0 +1,108 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.util.metrics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class MetricsTest {
+
+  @Test
+  public void testCounter() {
+    final Counter counter = Metrics.counter("test_counter", "Test counter", "method");
+    counter.labels("get").inc();
+    counter.labels("get").inc(2.5);
+    counter.labels("put").inc();
+
+    // Registering again returns the existing counter
+    assertSame(counter, Metrics.counter("test_counter", "Test counter", "method"));
+    assertEquals(3.5, counter.labels("get").get(), 0);
+    assertEquals(1, counter.labels("put").get(), 0);
+    assertEquals(2, counter.getChildren().size());
+    assertEquals(3.5, counter.getChildren().get(Arrays.asList("get")).get(), 0);
+
+    try {
+      Metrics.histogram("test_counter", "Test counter", Histogram.DEFAULT_BUCKETS, "method");
+      fail("A metric must not be registered with a different type");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      counter.labels("get", "too many");
+      fail("Label values must match the label names");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testGauge() {
+    final Gauge gauge = Metrics.gauge("test_gauge", "Test gauge", "organization");
+    gauge.labels("org").inc();
+    gauge.labels("org").inc(2);
+    gauge.labels("org").dec();
+    assertEquals(2, gauge.labels("org").get(), 0);
+    gauge.labels("org").inc(-3);
+    assertEquals(-1, gauge.labels("org").get(), 0);
+    gauge.labels("org").set(5);
+    assertEquals(5, gauge.labels("org").get(), 0);
+    assertSame(gauge, Metrics.gauge("test_gauge", "Test gauge", "organization"));
+
+    try {
+      Metrics.counter("test_gauge", "Test gauge", "organization");
+      fail("A metric must not be registered with a different type");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testHistogram() {
+    final Histogram histogram = Metrics.histogram("test_histogram", "Test histogram", new double[] { 1, 5, 10 });
+    final Histogram.Child child = histogram.labels();
+    child.observe(0.5);
+    child.observe(1);
+    child.observe(7);
+    child.observe(100);
+
+    assertArrayEquals(new long[] { 2, 2, 3, 4 }, child.getCumulativeCounts());
+    assertEquals(108.5, child.getSum(), 0);
+
+    child.observeSince(System.nanoTime());
+    assertEquals(5, child.getCumulativeCounts()[0]);
+
+    try {
+      Metrics.histogram("test_histogram", "Test histogram", new double[] { 1, 2 });
+      fail("A histogram must not be registered with different buckets");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+}
@@ -96,7 +96,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
@@ -514,12 +513,12 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
         }
       }
 
-      // Put the file in the workspace
+      // Move the file into the workspace
       final List<String> tags = profile.getTags();
-      try (InputStream in = new FileInputStream(file)) {
+      try {
         var encodedFileName = file.getName();
         var workspaceFilename = fileMapping.get(encodedFileName);
-        var url = workspace.putInCollection(COLLECTION, workspaceFilename, in);
+        var url = workspace.adoptInCollection(COLLECTION, workspaceFilename, file);
         returnURLs.add(url);
 
         var tagsForUrl = new ArrayList<String>();
@@ -530,7 +529,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
         }
         tagsForUrls.add(tagsForUrl);
 
-        logger.info("Copied the encoded file to the workspace at {}", url);
+        logger.info("Moved the encoded file to the workspace at {}", url);
       } catch (Exception e) {
         throw new EncoderException("Unable to put the encoded file into the workspace", e);
       }
@@ -547,14 +546,8 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
       encodedTracks.add(inspectedTrack);
     }
 
-    // Clean up workspace
-    for (File encodingOutput: outputFiles) {
-      if (encodingOutput.delete()) {
-        logger.info("Deleted the local copy of the encoded file at {}", encodingOutput.getAbsolutePath());
-      } else {
-        logger.warn("Unable to delete the encoding output at {}", encodingOutput);
-      }
-    }
+    // Clean up what has not been moved to the workspace
+    cleanup(outputFiles.toArray(new File[0]));
 
     return encodedTracks;
   }
@@ -1265,12 +1258,12 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
         throw new EncoderException("Extracted image " + output.toString() + " is empty!");
       }
 
-      // Put the file in the workspace
+      // Move the file into the workspace
 
-      try (InputStream in = new FileInputStream(output)) {
-        URI returnURL = workspace.putInCollection(COLLECTION,
-                job.getId() + "_" + i++ + "." + FilenameUtils.getExtension(output.getAbsolutePath()), in);
-        logger.debug("Copied image file to the workspace at {}", returnURL);
+      try {
+        URI returnURL = workspace.adoptInCollection(COLLECTION,
+                job.getId() + "_" + i++ + "." + FilenameUtils.getExtension(output.getAbsolutePath()), output);
+        logger.debug("Moved image file to the workspace at {}", returnURL);
         workspaceURIs.add(returnURL);
       } catch (Exception e) {
         cleanup(encodingOutput.toArray(new File[encodingOutput.size()]));
@@ -1843,9 +1836,9 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   private List<URI> putToCollection(Job job, List<File> files, String description) throws EncoderException {
     List<URI> returnURLs = new ArrayList<>(files.size());
     for (File file: files) {
-      try (InputStream in = new FileInputStream(file)) {
-        URI newFileURI = workspace.putInCollection(COLLECTION, renameJobFile(job.getId(), file), in);
-        logger.info("Copied the {} to the workspace at {}", description, newFileURI);
+      try {
+        URI newFileURI = workspace.adoptInCollection(COLLECTION, renameJobFile(job.getId(), file), file);
+        logger.info("Moved the {} to the workspace at {}", description, newFileURI);
         returnURLs.add(newFileURI);
       } catch (Exception e) {
         incident().recordFailure(job, WORKSPACE_PUT_COLLECTION_IO_EXCEPTION, e,
@@ -220,6 +220,13 @@ public class ComplexCmdsEncoderEngineTest {
           return (f1.toURI());
         }).anyTimes();
 
+    EasyMock.expect(workspace.adoptInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
+        .andAnswer(() -> {
+          File f1 = new File(workingDirectory, (String) EasyMock.getCurrentArguments()[1]);
+          FileUtils.moveFile((File) EasyMock.getCurrentArguments()[2], f1);
+          return (f1.toURI());
+        }).anyTimes();
+
     profileScanner = new EncodingProfileScanner();
     File encodingProfile = getFile("/encodingprofiles.properties");
     Assert.assertNotNull("Encoding profile must exist", encodingProfile);
@@ -277,6 +277,8 @@ public class ComposerServiceTest {
     EasyMock.expect(workspace.get(EasyMock.anyObject(), EasyMock.anyBoolean())).andReturn(sourceVideoOnly).anyTimes();
     EasyMock.expect(workspace.putInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
             .andReturn(sourceVideoOnly.toURI()).anyTimes();
+    EasyMock.expect(workspace.adoptInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
+            .andReturn(sourceVideoOnly.toURI()).anyTimes();
     composerService.setWorkspace(workspace);
     EasyMock.replay(workspace);
 
@@ -293,6 +295,8 @@ public class ComposerServiceTest {
     EasyMock.expect(workspace.get(EasyMock.anyObject(), EasyMock.anyBoolean())).andReturn(sourceVideoOnly).anyTimes();
     EasyMock.expect(workspace.putInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
             .andReturn(sourceVideoOnly.toURI()).anyTimes();
+    EasyMock.expect(workspace.adoptInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
+            .andReturn(sourceVideoOnly.toURI()).anyTimes();
     composerService.setWorkspace(workspace);
     EasyMock.replay(workspace);
 
@@ -310,6 +314,8 @@ public class ComposerServiceTest {
     EasyMock.expect(workspace.get(EasyMock.anyObject(), EasyMock.anyBoolean())).andReturn(sourceVideoOnly).anyTimes();
     EasyMock.expect(workspace.putInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
             .andReturn(sourceVideoOnly.toURI()).anyTimes();
+    EasyMock.expect(workspace.adoptInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
+            .andReturn(sourceVideoOnly.toURI()).anyTimes();
     composerService.setWorkspace(workspace);
     EasyMock.replay(workspace);
 
@@ -328,6 +334,8 @@ public class ComposerServiceTest {
     EasyMock.expect(workspace.get(EasyMock.anyObject(), EasyMock.anyBoolean())).andReturn(sourceAudioOnly).once();
     EasyMock.expect(workspace.putInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
             .andReturn(sourceVideoOnly.toURI()).anyTimes();
+    EasyMock.expect(workspace.adoptInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
+            .andReturn(sourceVideoOnly.toURI()).anyTimes();
     composerService.setWorkspace(workspace);
     EasyMock.replay(workspace);
 
@@ -348,6 +356,8 @@ public class ComposerServiceTest {
     EasyMock.expect(workspace.get(EasyMock.anyObject())).andReturn(sourceImage).anyTimes();
     EasyMock.expect(workspace.putInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
             .andReturn(sourceImage.toURI()).anyTimes();
+    EasyMock.expect(workspace.adoptInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
+            .andReturn(sourceImage.toURI()).anyTimes();
     composerService.setWorkspace(workspace);
     EasyMock.replay(workspace);
 
@@ -584,6 +594,8 @@ public class ComposerServiceTest {
     EasyMock.expect(workspace.get(EasyMock.anyObject())).andReturn(sourceImage).anyTimes();
     EasyMock.expect(workspace.putInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
             .andReturn(sourceImage.toURI()).anyTimes();
+    EasyMock.expect(workspace.adoptInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
+            .andReturn(sourceImage.toURI()).anyTimes();
     composerService.setWorkspace(workspace);
     EasyMock.replay(workspace);
 
@@ -0,0 +1,266 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.distribution.download;
+
+import org.opencastproject.util.Checksum;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.UUID;
+
+/**
+ * Content addressed index of the files distributed for the media packages of an organization, which allows to find a
+ * file with the same content as a media package element without comparing it to all distributed files.
+ * <p>
+ * The index is kept next to the distribution directory, in a directory with the same name and the suffix
+ * <code>-index</code>, so that it is shared by all nodes distributing to it but not served along with the distributed
+ * files. For every media package and checksum there is a directory <code>{orgId}/{mpId}/{type}-{value}</code>
+ * containing a marker file per distributed file with that checksum. The name of a marker is the encoded path of the
+ * distributed file relative to the organization's distribution directory. A marker contains the size, modification
+ * date and file key the distributed file had when it was recorded, and it is only used as long as the file still has
+ * them. Markers of files which have been removed or replaced without going through the index are removed when they are
+ * found during a lookup.
+ */
+final class DistributionChecksumIndex {
+
+  private static final Logger logger = LoggerFactory.getLogger(DistributionChecksumIndex.class);
+
+  /** Suffix of the name of the index directory, which is a sibling of the distribution directory */
+  static final String INDEX_DIRECTORY_SUFFIX = "-index";
+
+  /** Prefix of markers which are being written, which never occurs in encoded paths */
+  private static final String TEMPORARY_PREFIX = "~";
+
+  /** The distribution directory of the organization */
+  private final Path organizationDir;
+
+  /** The index directory of the organization */
+  private final Path indexDir;
+
+  /**
+   * @param distributionDirectory
+   *          the distribution directory
+   * @param orgId
+   *          the organization identifier
+   */
+  DistributionChecksumIndex(File distributionDirectory, String orgId) {
+    this.organizationDir = distributionDirectory.toPath().toAbsolutePath().normalize().resolve(orgId);
+    this.indexDir = getIndexDirectory(distributionDirectory).toPath().toAbsolutePath().normalize().resolve(orgId);
+  }
+
+  /**
+   * Returns the index directory of a distribution directory.
+   *
+   * @param distributionDirectory
+   *          the distribution directory
+   */
+  static File getIndexDirectory(File distributionDirectory) {
+    final File dir = distributionDirectory.getAbsoluteFile();
+    return new File(dir.getParentFile(), dir.getName() + INDEX_DIRECTORY_SUFFIX);
+  }
+
+  /**
+   * Returns whether files of the media package have been recorded in the index. Media packages distributed before the
+   * index existed are not.
+   *
+   * @param mpId
+   *          the media package identifier
+   */
+  boolean contains(String mpId) {
+    return Files.isDirectory(indexDir.resolve(mpId));
+  }
+
+  /**
+   * Looks up a distributed file of the media package with the given checksum and size, which has not been changed since
+   * it was recorded.
+   *
+   * @param mpId
+   *          the media package identifier
+   * @param checksum
+   *          the checksum of the content
+   * @param size
+   *          the size of the content in bytes
+   * @return the distributed file or <code>null</code> if there is none
+   * @throws IOException
+   *           if reading the index fails
+   */
+  File find(String mpId, Checksum checksum, long size) throws IOException {
+    final Path checksumDir = indexDir.resolve(mpId).resolve(entryName(checksum));
+    try (DirectoryStream<Path> markers = Files.newDirectoryStream(checksumDir, DistributionChecksumIndex::isMarker)) {
+      for (Path marker : markers) {
+        final Path file = decode(marker.getFileName().toString());
+        if (file != null) {
+          final String attributes = describe(file);
+          if (attributes != null && attributes.startsWith(size + " ") && attributes.equals(read(marker))) {
+            return file.toFile();
+          }
+        }
+        logger.debug("Removing stale distribution index entry {}", marker);
+        Files.deleteIfExists(marker);
+      }
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+    return null;
+  }
+
+  /**
+   * Records a distributed file of the media package. Entries of the same path with another checksum, which it had been
+   * distributed with before, are removed.
+   *
+   * @param mpId
+   *          the media package identifier
+   * @param checksum
+   *          the checksum of the file
+   * @param file
+   *          the distributed file
+   * @throws IOException
+   *           if writing the index fails
+   */
+  void add(String mpId, Checksum checksum, File file) throws IOException {
+    final String entry = entryName(checksum);
+    final String name = encode(file);
+    removeEntries(mpId, name, entry);
+
+    final String attributes = describe(file.toPath());
+    if (attributes == null) {
+      throw new NoSuchFileException(file.getPath());
+    }
+    final Path checksumDir = indexDir.resolve(mpId).resolve(entry);
+    // The directories may be removed concurrently if the last file with the same content is retracted
+    for (int attempt = 0;; attempt++) {
+      Files.createDirectories(checksumDir);
+      final Path temporary = checksumDir.resolve(TEMPORARY_PREFIX + UUID.randomUUID());
+      try {
+        // Write the marker completely before it can be found
+        Files.write(temporary, attributes.getBytes(StandardCharsets.UTF_8));
+        Files.move(temporary, checksumDir.resolve(name), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        return;
+      } catch (NoSuchFileException e) {
+        if (attempt > 0) {
+          throw e;
+        }
+      } finally {
+        Files.deleteIfExists(temporary);
+      }
+    }
+  }
+
+  /**
+   * Removes a distributed file of the media package from the index. Directories of the index which become empty are
+   * removed as well.
+   *
+   * @param mpId
+   *          the media package identifier
+   * @param file
+   *          the distributed file
+   * @throws IOException
+   *           if writing the index fails
+   */
+  void remove(String mpId, File file) throws IOException {
+    removeEntries(mpId, encode(file), null);
+    deleteIfEmpty(indexDir.resolve(mpId));
+  }
+
+  /** Removes the markers with the given name from all checksum directories of the media package but one. */
+  private void removeEntries(String mpId, String name, String keep) throws IOException {
+    try (DirectoryStream<Path> checksumDirs = Files.newDirectoryStream(indexDir.resolve(mpId))) {
+      for (Path checksumDir : checksumDirs) {
+        if (!checksumDir.getFileName().toString().equals(keep) && Files.deleteIfExists(checksumDir.resolve(name))) {
+          logger.debug("Removing outdated distribution index entry {}", checksumDir.resolve(name));
+          deleteIfEmpty(checksumDir);
+        }
+      }
+    } catch (NoSuchFileException e) {
+      logger.trace("No distribution index entries of media package {}", mpId);
+    }
+  }
+
+  private static String entryName(Checksum checksum) {
+    return checksum.getType().getName() + "-" + checksum.getValue();
+  }
+
+  private static boolean isMarker(Path path) {
+    return !path.getFileName().toString().startsWith(TEMPORARY_PREFIX);
+  }
+
+  /** Returns the attributes of a file which are recorded in its marker or <code>null</code> if it is no file. */
+  private static String describe(Path file) throws IOException {
+    final BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+    if (!attributes.isRegularFile()) {
+      return null;
+    }
+    return attributes.size() + " " + attributes.lastModifiedTime().toMillis() + " " + attributes.fileKey();
+  }
+
+  /** Returns the content of a marker or <code>null</code> if it has been removed. */
+  private static String read(Path marker) throws IOException {
+    try {
+      return new String(Files.readAllBytes(marker), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  private String encode(File file) {
+    final String relative = organizationDir.relativize(file.toPath().toAbsolutePath().normalize()).toString();
+    return URLEncoder.encode(relative, StandardCharsets.UTF_8);
+  }
+
+  /** Returns the distributed file of a marker or <code>null</code> if the marker is not valid. */
+  private Path decode(String marker) {
+    try {
+      final Path file = organizationDir.resolve(URLDecoder.decode(marker, StandardCharsets.UTF_8)).normalize();
+      return file.startsWith(organizationDir) ? file : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static void deleteIfEmpty(Path dir) {
+    try {
+      Files.deleteIfExists(dir);
+    } catch (IOException e) {
+      // Not empty or concurrently written to, which is fine
+      logger.trace("Not removing distribution index directory {}: {}", dir, e.getMessage());
+    }
+  }
+
+}
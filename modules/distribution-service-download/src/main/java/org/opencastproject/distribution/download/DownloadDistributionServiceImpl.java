@@ -329,7 +329,7 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
 
       // Try to find a duplicated element source
       try {
-        source = findDuplicatedElementSource(source, mediapackageId);
+        source = findDuplicatedElementSource(source, mediapackageId, element);
       } catch (IOException e) {
         logger.warn("Unable to find duplicated source {}: {}", source, ExceptionUtils.getMessage(e));
       }
@@ -351,6 +351,7 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
           throw new DistributionException(format("Unable to copy %s to %s", source, destination), e);
         }
       }
+      indexDistributedFile(mediapackageId, element, destination);
       // Create a media package element representation of the distributed file
       MediaPackageElement distributedElement = (MediaPackageElement) element.clone();
       try {
@@ -453,7 +454,7 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
 
     // Try to find a duplicated element source
     try {
-      source = findDuplicatedElementSource(source, mediapackageId);
+      source = findDuplicatedElementSource(source, mediapackageId, element);
     } catch (IOException e) {
       logger.warn("Unable to find duplicated source {}: {}", source, ExceptionUtils.getMessage(e));
     }
@@ -479,6 +480,7 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
         throw new DistributionException(format("Unable to copy %s to %s", source, destination), e);
       }
     }
+    indexDistributedFile(mediapackageId, element, destination);
 
     MediaPackageElement distributeElement = (MediaPackageElement) element.clone();
     // Create a media package element representation of the distributed file
@@ -670,6 +672,13 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
 
       logger.debug("Retracting element {} ({})", element, elementFile);
 
+      try {
+        getChecksumIndex().remove(mediapackageId, elementFile);
+      } catch (IOException e) {
+        logger.warn("Unable to remove {} from the distribution index: {}", elementFile,
+            ExceptionUtils.getMessage(e));
+      }
+
       // Try to remove the file and its parent folder representing the mediapackage element id
       if (!FileUtils.deleteQuietly(elementFile.getParentFile())) {
         // TODO Removing a folder containing deleted files may fail on NFS volumes. This needs a cleanup strategy.
@@ -757,17 +766,22 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
   }
 
   /**
-   * Try to find the same file being already distributed in one of the other channels
+   * Try to find the same file being already distributed in one of the other channels. Tracks with a checksum are looked
+   * up in the checksum index if the media package has been recorded in it. Otherwise all distributed files of the media
+   * package with the same size are compared to the source.
    *
    * @param source
    *          the source file
    * @param mpId
    *          the element's mediapackage id
+   * @param element
+   *          the element to distribute
    * @return the found duplicated file or the given source if nothing has been found
    * @throws IOException
    *           if an I/O error occurs
    */
-  private File findDuplicatedElementSource(final File source, final String mpId) throws IOException {
+  private File findDuplicatedElementSource(final File source, final String mpId, final MediaPackageElement element)
+          throws IOException {
     String orgId = securityService.getOrganization().getId();
     final Path rootPath = Paths.get(distributionDirectory.getAbsolutePath(), orgId);
 
@@ -775,6 +789,16 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
       return source;
     }
 
+    final DistributionChecksumIndex index = getChecksumIndex();
+    if (isIndexable(element, source) && index.contains(mpId)) {
+      final File duplicate = index.find(mpId, element.getChecksum(), Files.size(source.toPath()));
+      if (duplicate != null) {
+        logger.debug("Found duplicated source {} of {} in the distribution index", duplicate, source);
+        return duplicate;
+      }
+      return source;
+    }
+
     List<Path> mediaPackageDirectories = new ArrayList<>();
     try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(rootPath)) {
       for (Path path : directoryStream) {
@@ -818,12 +842,55 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
       }
     }
     if (result[0] != null) {
+      // Files distributed before the index existed are recorded once they are found
+      indexDistributedFile(mpId, element, result[0]);
       return result[0];
     }
 
     return source;
   }
 
+  /**
+   * Records a distributed file in the checksum index, so that it can be found by
+   * {@link #findDuplicatedElementSource(File, String, MediaPackageElement)}. A file which is not indexable is removed
+   * from the index, since its path may have been recorded with other content before.
+   *
+   * @param mpId
+   *          the element's mediapackage id
+   * @param element
+   *          the distributed element
+   * @param destination
+   *          the distributed file
+   */
+  private void indexDistributedFile(final String mpId, final MediaPackageElement element, final File destination) {
+    try {
+      if (isIndexable(element, destination)) {
+        getChecksumIndex().add(mpId, element.getChecksum(), destination);
+      } else {
+        getChecksumIndex().remove(mpId, destination);
+      }
+    } catch (IOException e) {
+      logger.warn("Unable to add {} to the distribution index: {}", destination, ExceptionUtils.getMessage(e));
+    }
+  }
+
+  /**
+   * Only tracks with a checksum are indexed. Tracks are the large files which are expensive to compare and, unlike
+   * catalogs, their content does not change without a new checksum being calculated. Playlists are not indexed either
+   * since their distributed copies are rewritten and no longer match the checksum.
+   */
+  private static boolean isIndexable(MediaPackageElement element, File file) {
+    return element.getElementType() == MediaPackageElement.Type.Track && element.getChecksum() != null
+            && !AdaptivePlaylist.isPlaylist(file);
+  }
+
+  /**
+   * Gets the checksum index of the distributed files of the current organization.
+   */
+  private DistributionChecksumIndex getChecksumIndex() {
+    return new DistributionChecksumIndex(distributionDirectory, securityService.getOrganization().getId());
+  }
+
   /**
    * Gets the destination file to copy the contents of a mediapackage element.
    *
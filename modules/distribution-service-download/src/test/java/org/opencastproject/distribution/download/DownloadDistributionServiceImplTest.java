@@ -178,6 +178,7 @@ public class DownloadDistributionServiceImplTest {
   @After
   public void tearDown() throws Exception {
     FileUtils.deleteDirectory(distributionRoot);
+    FileUtils.deleteDirectory(DistributionChecksumIndex.getIndexDirectory(distributionRoot));
     ((ServiceRegistryInMemoryImpl) serviceRegistry).dispose();
   }
 
@@ -321,6 +322,78 @@ public class DownloadDistributionServiceImplTest {
     Assert.assertTrue(service.getDistributionFile("oai-pmh", mp, mp.getElementById("notes")).isFile());
   }
 
+  @Test
+  public void testChecksumIndex() throws Exception {
+    final File checksumDir = new File(DistributionChecksumIndex.getIndexDirectory(distributionRoot),
+            PathSupport.path(defaultOrganization.getId(), mp.getIdentifier().toString(),
+            "md5-" + mp.getElementById("track-1").getChecksum().getValue()));
+
+    Job job1 = service.distribute("engage-player", mp, "track-1");
+    Job job2 = service.distribute("engage-player", mp, "catalog-1");
+    JobBarrier jobBarrier = new JobBarrier(null, serviceRegistry, 500, job1, job2);
+    jobBarrier.waitForJobs();
+
+    // Only tracks are indexed
+    Assert.assertArrayEquals(new String[] { "engage-player%2F" + mp.getIdentifier() + "%2Ftrack-1%2Fmedia.mov" },
+            checksumDir.list());
+    Assert.assertEquals(1, checksumDir.getParentFile().list().length);
+
+    // Distribute to another channel after the indexed file has been removed without retracting it
+    File engageFile = service.getDistributionFile("engage-player", mp, mp.getElementById("track-1"));
+    Assert.assertTrue(engageFile.delete());
+    Job job3 = service.distribute("oai-pmh", mp, "track-1");
+    jobBarrier = new JobBarrier(null, serviceRegistry, 500, job3);
+    jobBarrier.waitForJobs();
+    Assert.assertEquals(Job.Status.FINISHED, serviceRegistry.getJob(job3.getId()).getStatus());
+    Assert.assertTrue(service.getDistributionFile("oai-pmh", mp, mp.getElementById("track-1")).isFile());
+    Assert.assertArrayEquals(new String[] { "oai-pmh%2F" + mp.getIdentifier() + "%2Ftrack-1%2Fmedia.mov" },
+            checksumDir.list());
+
+    // Retracting the last indexed file removes the index of the media package
+    Job job4 = service.retract("oai-pmh", mp, "track-1");
+    jobBarrier = new JobBarrier(null, serviceRegistry, 500, job4);
+    jobBarrier.waitForJobs();
+    Assert.assertFalse(service.getDistributionFile("oai-pmh", mp, mp.getElementById("track-1")).isFile());
+    Assert.assertFalse(checksumDir.getParentFile().exists());
+  }
+
+  @Test
+  public void testChecksumIndexLinksDuplicates() throws Exception {
+    // The workspace provides a new copy of an element every time, so that only the index can find a duplicate
+    final File copies = Files.createTempDirectory(distributionRoot.getParentFile().toPath(), "copies").toFile();
+    final File track = new File(distributionRoot.getParentFile(), "media.mov");
+    final Workspace workspace = EasyMock.createNiceMock(Workspace.class);
+    EasyMock.expect(workspace.get((URI) EasyMock.anyObject())).andAnswer(() -> {
+      final File copy = new File(Files.createTempDirectory(copies.toPath(), "copy").toFile(), track.getName());
+      FileUtils.copyFile(track, copy);
+      return copy;
+    }).anyTimes();
+    EasyMock.replay(workspace);
+    service.setWorkspace(workspace);
+
+    try {
+      final MediaPackageElement element = mp.getElementById("track-1");
+      JobBarrier jobBarrier = new JobBarrier(null, serviceRegistry, 500,
+              service.distribute("engage-player", mp, "track-1"));
+      jobBarrier.waitForJobs();
+      jobBarrier = new JobBarrier(null, serviceRegistry, 500, service.distribute("oai-pmh", mp, "track-1"));
+      jobBarrier.waitForJobs();
+      final File engageFile = service.getDistributionFile("engage-player", mp, element);
+      final File oaiFile = service.getDistributionFile("oai-pmh", mp, element);
+      Assert.assertTrue(Files.isSameFile(engageFile.toPath(), oaiFile.toPath()));
+
+      // A distributed file which has been changed since it was indexed is not linked
+      Assert.assertTrue(oaiFile.delete());
+      Assert.assertTrue(engageFile.setLastModified(engageFile.lastModified() - 60000L));
+      jobBarrier = new JobBarrier(null, serviceRegistry, 500, service.distribute("oai-pmh", mp, "track-1"));
+      jobBarrier.waitForJobs();
+      Assert.assertTrue(oaiFile.isFile());
+      Assert.assertFalse(Files.isSameFile(engageFile.toPath(), oaiFile.toPath()));
+    } finally {
+      FileUtils.deleteDirectory(copies);
+    }
+  }
+
   @Test
   public void testHLSDistribution() throws Exception {
     // Distribute only some of the elements in the mediapackage
@@ -0,0 +1,48 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.elasticsearch.api;
+
+/**
+ * Defines when a document written to the index becomes visible to searches.
+ */
+public enum RefreshPolicy {
+
+  /**
+   * The index is refreshed as part of the write, so the document can be found by searches as soon as the write
+   * returns. Refreshing is expensive and should be limited to writes whose result is read right away, e.g. by the user
+   * who made a change.
+   */
+  IMMEDIATE,
+
+  /**
+   * The write returns once the next periodic refresh of the index has made the document visible to searches, without
+   * forcing a refresh.
+   */
+  WAIT_UNTIL,
+
+  /**
+   * The write returns without waiting for the document to become visible to searches. Index implementations may
+   * defer and combine such writes.
+   */
+  NONE
+
+}
@@ -24,12 +24,15 @@ package org.opencastproject.elasticsearch.impl;
 
 import static org.opencastproject.util.data.functions.Misc.chuck;
 
+import org.opencastproject.elasticsearch.api.RefreshPolicy;
 import org.opencastproject.elasticsearch.api.SearchIndex;
 import org.opencastproject.elasticsearch.api.SearchIndexException;
 import org.opencastproject.elasticsearch.api.SearchMetadata;
 import org.opencastproject.elasticsearch.api.SearchQuery;
 import org.opencastproject.elasticsearch.api.SearchResult;
 import org.opencastproject.elasticsearch.api.SearchResultItem;
+import org.opencastproject.util.metrics.Histogram;
+import org.opencastproject.util.metrics.Metrics;
 import org.opencastproject.util.requests.SortCriterion;
 
 import org.apache.commons.io.IOUtils;
@@ -42,6 +45,8 @@ import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
@@ -90,6 +95,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * A search index implementation based on ElasticSearch.
@@ -99,6 +105,10 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   /** Logging facility */
   private static final Logger logger = LoggerFactory.getLogger(AbstractElasticsearchIndex.class);
 
+  /** Duration of the requests to Elasticsearch */
+  private static final Histogram requestDuration = Metrics.histogram("opencast_elasticsearch_request_seconds",
+      "Time it took Elasticsearch to answer a request", Histogram.DEFAULT_BUCKETS, "index", "request");
+
   /** The Elasticsearch maximum results window size */
   private static final int ELASTICSEARCH_INDEX_MAX_RESULT_WINDOW = Integer.MAX_VALUE;
 
@@ -242,6 +252,22 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     }
   }
 
+  /**
+   * Returns an identifier of the current generation of the index. It changes whenever the index is cleared, since the
+   * Elasticsearch indices are deleted and created again.
+   *
+   * @return the identifiers of the Elasticsearch indices backing this index
+   * @throws IOException
+   *           if the settings of the indices cannot be requested
+   */
+  public String getIndexGeneration() throws IOException {
+    final String[] indices = Arrays.stream(getDocumentTypes()).map(this::getSubIndexIdentifier).toArray(String[]::new);
+    final GetSettingsRequest request = new GetSettingsRequest().indices(indices).names("index.uuid");
+    final GetSettingsResponse response = client.indices().getSettings(request, RequestOptions.DEFAULT);
+    return Arrays.stream(indices).map(idx -> response.getSetting(idx, "index.uuid"))
+            .collect(Collectors.joining(","));
+  }
+
   /**
    * Posts the input document to the search index.
    *
@@ -260,15 +286,43 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
    */
   protected IndexResponse update(int maxRetryAttempts, int retryWaitingPeriod, ElasticsearchDocument document)
           throws IOException, InterruptedException {
+    return update(maxRetryAttempts, retryWaitingPeriod, document, RefreshPolicy.IMMEDIATE);
+  }
+
+  /**
+   * Posts the input document to the search index.
+   *
+   * @param maxRetryAttempts
+   *          How often to retry update in case of ElasticsearchStatusException
+   * @param retryWaitingPeriod
+   *          How long to wait (in ms) between retries
+   * @param document
+   *          The Elasticsearch document
+   * @param refreshPolicy
+   *          When the document has to become visible to searches
+   * @return the query response
+   *
+   * @throws IOException
+   *         If updating the index fails
+   * @throws InterruptedException
+   *         If waiting during retry is interrupted
+   */
+  protected IndexResponse update(int maxRetryAttempts, int retryWaitingPeriod, ElasticsearchDocument document,
+          RefreshPolicy refreshPolicy) throws IOException, InterruptedException {
 
     final IndexRequest indexRequest = new IndexRequest(getSubIndexIdentifier(document.getType())).id(document.getUID())
-            .source(document).setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+            .source(document).setRefreshPolicy(toWriteRefreshPolicy(refreshPolicy));
 
     IndexResponse indexResponse = null;
     int retryAttempts = 0;
     do {
       try {
-        indexResponse = client.index(indexRequest, RequestOptions.DEFAULT);
+        final long start = System.nanoTime();
+        try {
+          indexResponse = client.index(indexRequest, RequestOptions.DEFAULT);
+        } finally {
+          recordRequest("index", start);
+        }
       } catch (ElasticsearchStatusException e) {
         retryAttempts++;
 
@@ -308,7 +362,31 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   protected BulkResponse bulkUpdate(int maxRetryAttempts, int retryWaitingPeriod,
       List<ElasticsearchDocument> documents)
           throws IOException, InterruptedException {
-    BulkRequest bulkRequest = new BulkRequest().setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+    return bulkUpdate(maxRetryAttempts, retryWaitingPeriod, documents, RefreshPolicy.IMMEDIATE);
+  }
+
+  /**
+   * Posts the input documents to the search index.
+   *
+   * @param maxRetryAttempts
+   *          How often to retry update in case of ElasticsearchStatusException
+   * @param retryWaitingPeriod
+   *          How long to wait (in ms) between retries
+   * @param documents
+   *          The Elasticsearch documents
+   * @param refreshPolicy
+   *          When the documents have to become visible to searches
+   * @return the query response
+   *
+   * @throws IOException
+   *         If updating the index fails
+   * @throws InterruptedException
+   *         If waiting during retry is interrupted
+   */
+  protected BulkResponse bulkUpdate(int maxRetryAttempts, int retryWaitingPeriod,
+      List<ElasticsearchDocument> documents, RefreshPolicy refreshPolicy)
+          throws IOException, InterruptedException {
+    BulkRequest bulkRequest = new BulkRequest().setRefreshPolicy(toWriteRefreshPolicy(refreshPolicy));
 
     for (ElasticsearchDocument document: documents) {
       bulkRequest.add(new IndexRequest(getSubIndexIdentifier(document.getType())).id(document.getUID())
@@ -319,7 +397,12 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     int retryAttempts = 0;
     do {
       try {
-        bulkResponse = client.bulk(bulkRequest, RequestOptions.DEFAULT);
+        final long start = System.nanoTime();
+        try {
+          bulkResponse = client.bulk(bulkRequest, RequestOptions.DEFAULT);
+        } finally {
+          recordRequest("bulk", start);
+        }
       } catch (ElasticsearchStatusException e) {
         retryAttempts++;
 
@@ -357,13 +440,40 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
    */
   protected DeleteResponse delete(String type, String id, int maxRetryAttempts, int retryWaitingPeriod)
           throws IOException, InterruptedException {
+    return delete(type, id, maxRetryAttempts, retryWaitingPeriod, RefreshPolicy.IMMEDIATE);
+  }
+
+  /**
+   * Delete document from index.
+   *
+   * @param type
+   *         The type of document we want to delete
+   * @param id
+   *         The identifier of the document
+   * @param refreshPolicy
+   *         When the deletion has to become visible to searches
+   * @return
+   *         The delete response
+   *
+   * @throws IOException
+   *         If deleting from the index fails
+   * @throws InterruptedException
+   *         If waiting during retry is interrupted
+   */
+  protected DeleteResponse delete(String type, String id, int maxRetryAttempts, int retryWaitingPeriod,
+          RefreshPolicy refreshPolicy) throws IOException, InterruptedException {
     final DeleteRequest deleteRequest = new DeleteRequest(getSubIndexIdentifier(type), id).setRefreshPolicy(
-            WriteRequest.RefreshPolicy.IMMEDIATE);
+            toWriteRefreshPolicy(refreshPolicy));
     DeleteResponse deleteResponse = null;
     int retryAttempts = 0;
     do {
       try {
-        deleteResponse = getClient().delete(deleteRequest, RequestOptions.DEFAULT);
+        final long start = System.nanoTime();
+        try {
+          deleteResponse = getClient().delete(deleteRequest, RequestOptions.DEFAULT);
+        } finally {
+          recordRequest("delete", start);
+        }
       } catch (ElasticsearchStatusException e) {
         retryAttempts++;
 
@@ -658,7 +768,12 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     int retryAttempts = 0;
     do {
       try {
-        searchResponse = getClient().search(request, RequestOptions.DEFAULT);
+        final long start = System.nanoTime();
+        try {
+          searchResponse = getClient().search(request, RequestOptions.DEFAULT);
+        } finally {
+          recordRequest("search", start);
+        }
       } catch (ElasticsearchStatusException e) {
         retryAttempts++;
 
@@ -746,7 +861,13 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     final SearchSourceBuilder searchSource = new SearchSourceBuilder().aggregation(aggBuilder);
     final SearchRequest searchRequest = new SearchRequest(this.getSubIndexIdentifier(type)).source(searchSource);
     try {
-      final SearchResponse response = getClient().search(searchRequest, RequestOptions.DEFAULT);
+      final long start = System.nanoTime();
+      final SearchResponse response;
+      try {
+        response = getClient().search(searchRequest, RequestOptions.DEFAULT);
+      } finally {
+        recordRequest("terms", start);
+      }
 
       final List<String> terms = new ArrayList<>();
       final Terms aggs = response.getAggregations().get(facetName);
@@ -760,4 +881,29 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
       return chuck(e);
     }
   }
+
+  /** Maps a refresh policy to the one of the Elasticsearch client. */
+  private static WriteRequest.RefreshPolicy toWriteRefreshPolicy(RefreshPolicy refreshPolicy) {
+    switch (refreshPolicy) {
+      case WAIT_UNTIL:
+        return WriteRequest.RefreshPolicy.WAIT_UNTIL;
+      case NONE:
+        return WriteRequest.RefreshPolicy.NONE;
+      case IMMEDIATE:
+      default:
+        return WriteRequest.RefreshPolicy.IMMEDIATE;
+    }
+  }
+
+  /**
+   * Records the duration of a request to Elasticsearch.
+   *
+   * @param request
+   *          the kind of request
+   * @param startNanos
+   *          the start of the request as returned by {@link System#nanoTime()}
+   */
+  private void recordRequest(String request, long startNanos) {
+    requestDuration.labels(getIndexName(), request).observeSince(startNanos);
+  }
 }
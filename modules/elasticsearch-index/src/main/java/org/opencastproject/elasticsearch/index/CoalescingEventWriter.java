@@ -0,0 +1,247 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.elasticsearch.index;
+
+import org.opencastproject.elasticsearch.api.RefreshPolicy;
+import org.opencastproject.elasticsearch.api.SearchIndexException;
+import org.opencastproject.elasticsearch.impl.ElasticsearchDocument;
+import org.opencastproject.elasticsearch.impl.SearchMetadataCollection;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes event documents to the index in bulk requests.
+ * <p>
+ * Writes which do not need to be visible to searches right away are queued for a short time. Further writes of the
+ * same event within that time replace the queued document, so that only its latest state is sent. Queued documents
+ * are written with {@link RefreshPolicy#WAIT_UNTIL} and remain available through {@link #get(String)} until the
+ * write returns, so that updates reading the current state of an event always see the latest one, even before it can
+ * be found by searches.
+ * <p>
+ * Writes which have to be visible right away are sent immediately together with all queued documents. Only one bulk
+ * request is sent at a time, so that documents are written in the order they have been queued.
+ */
+final class CoalescingEventWriter {
+
+  private static final Logger logger = LoggerFactory.getLogger(CoalescingEventWriter.class);
+
+  /** Writes documents to the index */
+  interface BulkWriter {
+    BulkResponse write(List<ElasticsearchDocument> documents, RefreshPolicy refreshPolicy)
+            throws IOException, InterruptedException;
+  }
+
+  private final BulkWriter bulkWriter;
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "index-event-writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** Ensures that only one bulk request is sent at a time */
+  private final Lock flushLock = new ReentrantLock();
+
+  /** Queued documents by their identifier, guarded by this */
+  private final Map<String, SearchMetadataCollection> queued = new LinkedHashMap<>();
+
+  /** Documents which are being written, guarded by this */
+  private final Map<String, SearchMetadataCollection> writing = new LinkedHashMap<>();
+
+  /** Whether a flush of the queued documents has been scheduled, guarded by this */
+  private boolean scheduled = false;
+
+  /** Time in milliseconds documents are queued for */
+  private volatile long window;
+
+  /** Number of queued documents which causes them to be written right away */
+  private volatile int maxQueued;
+
+  /**
+   * @param bulkWriter
+   *          writes the documents to the index
+   * @param window
+   *          time in milliseconds documents are queued for
+   * @param maxQueued
+   *          number of queued documents which causes them to be written right away
+   */
+  CoalescingEventWriter(BulkWriter bulkWriter, long window, int maxQueued) {
+    this.bulkWriter = bulkWriter;
+    configure(window, maxQueued);
+  }
+
+  /**
+   * Changes the time documents are queued for and the number of queued documents causing them to be written.
+   */
+  void configure(long window, int maxQueued) {
+    this.window = Math.max(0, window);
+    this.maxQueued = Math.max(1, maxQueued);
+  }
+
+  /**
+   * Returns the latest state of an event document which has not yet been written or is being written.
+   *
+   * @param identifier
+   *          the document identifier
+   * @return the document, if it has not been written yet
+   */
+  synchronized Optional<SearchMetadataCollection> get(String identifier) {
+    final SearchMetadataCollection document = queued.get(identifier);
+    return document != null ? Optional.of(document) : Optional.ofNullable(writing.get(identifier));
+  }
+
+  /**
+   * Writes an event document.
+   *
+   * @param document
+   *          the document
+   * @param refreshPolicy
+   *          when the document has to become visible to searches. Documents written with {@link RefreshPolicy#NONE}
+   *          are queued, all others are written before this method returns.
+   * @throws SearchIndexException
+   *           if the document is written right away and writing fails
+   */
+  void write(SearchMetadataCollection document, RefreshPolicy refreshPolicy) throws SearchIndexException {
+    synchronized (this) {
+      queued.put(document.getIdentifier(), document);
+      if (refreshPolicy == RefreshPolicy.NONE && !executor.isShutdown()) {
+        if (queued.size() >= maxQueued) {
+          executor.execute(this::flushQueued);
+        } else if (!scheduled) {
+          scheduled = true;
+          executor.schedule(this::flushQueued, window, TimeUnit.MILLISECONDS);
+        }
+        return;
+      }
+    }
+    flush(refreshPolicy, document.getIdentifier());
+  }
+
+  /**
+   * Removes a queued event document, e.g. because the event is deleted. Waits for the document to be written if it
+   * is already being written.
+   *
+   * @param identifier
+   *          the document identifier
+   */
+  void discard(String identifier) {
+    flushLock.lock();
+    try {
+      synchronized (this) {
+        queued.remove(identifier);
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Writes all queued documents and stops accepting further queued writes.
+   */
+  void close() {
+    executor.shutdown();
+    flushQueued();
+  }
+
+  private void flushQueued() {
+    try {
+      flush(RefreshPolicy.WAIT_UNTIL, null);
+    } catch (SearchIndexException e) {
+      // Only thrown for documents which are not queued
+      logger.error("Unable to write queued events to index", e);
+    }
+  }
+
+  /**
+   * Writes all queued documents.
+   *
+   * @param refreshPolicy
+   *          when the documents have to become visible to searches
+   * @param required
+   *          identifier of a document whose write has to succeed or <code>null</code>
+   * @throws SearchIndexException
+   *           if the required document could not be written
+   */
+  private void flush(RefreshPolicy refreshPolicy, String required) throws SearchIndexException {
+    flushLock.lock();
+    try {
+      final List<ElasticsearchDocument> documents = new ArrayList<>();
+      synchronized (this) {
+        scheduled = false;
+        if (queued.isEmpty()) {
+          // The required document has been written by a flush which finished while waiting for the lock
+          return;
+        }
+        writing.putAll(queued);
+        queued.clear();
+        for (SearchMetadataCollection document : writing.values()) {
+          documents.add(new ElasticsearchDocument(document.getIdentifier(), document.getDocumentType(),
+                  document.getMetadata()));
+        }
+      }
+
+      try {
+        final BulkResponse response = bulkWriter.write(documents, refreshPolicy);
+        for (BulkItemResponse item : response.getItems()) {
+          if (!item.isFailed()) {
+            continue;
+          }
+          if (item.getId().equals(required)) {
+            throw new SearchIndexException("Cannot write event " + required + " to index: "
+                    + item.getFailureMessage());
+          }
+          logger.error("Unable to write event {} to index: {}", item.getId(), item.getFailureMessage());
+        }
+      } catch (IOException | InterruptedException e) {
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        if (required != null) {
+          throw new SearchIndexException("Cannot write event " + required + " to index", e);
+        }
+        logger.error("Unable to write {} events to index", documents.size(), e);
+      } finally {
+        synchronized (this) {
+          writing.clear();
+        }
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+}
@@ -23,12 +23,16 @@ package org.opencastproject.elasticsearch.index;
 
 import static org.opencastproject.util.data.functions.Misc.chuck;
 
+import org.opencastproject.elasticsearch.api.RefreshPolicy;
 import org.opencastproject.elasticsearch.api.SearchIndexException;
 import org.opencastproject.elasticsearch.api.SearchMetadata;
 import org.opencastproject.elasticsearch.api.SearchResult;
+import org.opencastproject.elasticsearch.api.SearchResultItem;
 import org.opencastproject.elasticsearch.impl.AbstractElasticsearchIndex;
 import org.opencastproject.elasticsearch.impl.ElasticsearchDocument;
 import org.opencastproject.elasticsearch.impl.SearchMetadataCollection;
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding;
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding.Encoding;
 import org.opencastproject.elasticsearch.index.objects.event.Event;
 import org.opencastproject.elasticsearch.index.objects.event.EventIndexUtils;
 import org.opencastproject.elasticsearch.index.objects.event.EventQueryBuilder;
@@ -59,6 +63,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -98,6 +104,22 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
   private static final String RETRY_WAITING_PERIOD_UPDATE_PROPERTY = "retry.waiting.period.update";
   private static final int DEFAULT_RETRY_WAITING_PERIOD_UPDATE = 1000;
 
+  /** Encoding of the objects stored in the index documents */
+  private volatile Encoding objectEncoding = Encoding.XML;
+  private static final String OBJECT_ENCODING_PROPERTY = "index.object.encoding";
+
+  /** Coalescing of event updates which do not need to be visible to searches right away */
+  private static final String EVENT_UPDATE_WINDOW_PROPERTY = "event.update.coalescing.window";
+  private static final long DEFAULT_EVENT_UPDATE_WINDOW = 100;
+  private static final String EVENT_UPDATE_MAX_QUEUED_PROPERTY = "event.update.coalescing.max.queued";
+  private static final int DEFAULT_EVENT_UPDATE_MAX_QUEUED = 500;
+
+  /** Writes the event documents */
+  private final CoalescingEventWriter eventWriter = new CoalescingEventWriter(
+      (documents, refreshPolicy) -> bulkUpdate(maxRetryAttemptsUpdate, retryWaitingPeriodUpdate, documents,
+              refreshPolicy),
+      DEFAULT_EVENT_UPDATE_WINDOW, DEFAULT_EVENT_UPDATE_MAX_QUEUED);
+
   /** The required index version */
   private static final int INDEX_VERSION = 101;
 
@@ -145,6 +167,7 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
    */
   @Deactivate
   public void deactivate() throws IOException {
+    eventWriter.close();
     close();
   }
 
@@ -172,6 +195,22 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
     logger.info("Max retry attempts for update requests set to {}, timeout set to {} ms.", maxRetryAttemptsUpdate,
             retryWaitingPeriodUpdate);
 
+    try {
+      objectEncoding = IndexObjectEncoding.parse((String) properties.get(OBJECT_ENCODING_PROPERTY), Encoding.XML);
+    } catch (IllegalArgumentException e) {
+      logger.warn("Unknown object encoding '{}', falling back to XML", properties.get(OBJECT_ENCODING_PROPERTY));
+      objectEncoding = Encoding.XML;
+    }
+    logger.info("Index objects are written using {} encoding", objectEncoding);
+
+    final long eventUpdateWindow = NumberUtils.toLong((String) properties.get(EVENT_UPDATE_WINDOW_PROPERTY),
+            DEFAULT_EVENT_UPDATE_WINDOW);
+    final int eventUpdateMaxQueued = NumberUtils.toInt((String) properties.get(EVENT_UPDATE_MAX_QUEUED_PROPERTY),
+            DEFAULT_EVENT_UPDATE_MAX_QUEUED);
+    eventWriter.configure(eventUpdateWindow, eventUpdateMaxQueued);
+    logger.info("Background event updates are coalesced for {} ms or up to {} events", eventUpdateWindow,
+            eventUpdateMaxQueued);
+
     if (maxRetryAttemptsGet < 0 || maxRetryAttemptsUpdate < 0 || retryWaitingPeriodGet < 0
             || retryWaitingPeriodUpdate < 0) {
       logger.warn("You have configured negative values for max attempts or retry periods. Is this intended? This is "
@@ -245,6 +284,41 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
     }
   }
 
+  /**
+   * Loads multiple events from the search index in a single request.
+   *
+   * @param mediaPackageIds
+   *          The media package identifiers
+   * @param organization
+   *          The organization
+   * @param user
+   *          The user
+   * @return the events found in the index, mapped by their identifier
+   *
+   * @throws SearchIndexException
+   *          If querying the search index fails
+   */
+  public Map<String, Event> getEvents(Collection<String> mediaPackageIds, String organization, User user)
+          throws SearchIndexException {
+    final Map<String, Event> events = new HashMap<>();
+    if (mediaPackageIds.isEmpty()) {
+      return events;
+    }
+    EventSearchQuery query = new EventSearchQuery(organization, user).withoutActions();
+    for (String mediaPackageId : mediaPackageIds) {
+      query.withIdentifier(mediaPackageId);
+    }
+    query.withLimit(mediaPackageIds.size());
+    SearchResult<Event> searchResult = getByQuery(query, maxRetryAttemptsGet, retryWaitingPeriodGet);
+    for (SearchResultItem<Event> item : searchResult.getItems()) {
+      if (events.put(item.getSource().getIdentifier(), item.getSource()) != null) {
+        throw new IllegalStateException(
+                "Multiple events with identifier " + item.getSource().getIdentifier() + " found in search index");
+      }
+    }
+    return events;
+  }
+
   /**
    * Loads the series from the search index if it exists.
    *
@@ -359,7 +433,8 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
    */
 
   /**
-   * Adds or updates the event in the search index. Uses a locking mechanism to avoid issues like Lost Update.
+   * Adds or updates the event in the search index. Uses a locking mechanism to avoid issues like Lost Update. The
+   * update is visible to searches once this method returns.
    *
    * @param id
    *          The id of the event to update
@@ -375,16 +450,45 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
    */
   public Optional<Event> addOrUpdateEvent(String id, Function<Optional<Event>, Optional<Event>> updateFunction,
           String orgId, User user) throws SearchIndexException {
+    return addOrUpdateEvent(id, updateFunction, orgId, user, RefreshPolicy.IMMEDIATE);
+  }
+
+  /**
+   * Adds or updates the event in the search index. Uses a locking mechanism to avoid issues like Lost Update.
+   * <p>
+   * Updates using {@link RefreshPolicy#NONE} are queued for a short time and written in bulk together with other
+   * updates. Later updates of the same event within that time replace the queued update. Further calls of this method
+   * always see the latest update, even if it has not been written yet.
+   *
+   * @param id
+   *          The id of the event to update
+   * @param updateFunction
+   *          The function that does the actual updating
+   * @param orgId
+   *          The organization the event belongs to
+   * @param user
+   *          The user
+   * @param refreshPolicy
+   *          When the update has to be visible to searches
+   *
+   * @throws SearchIndexException
+   *          Thrown if unable to update the event.
+   */
+  public Optional<Event> addOrUpdateEvent(String id, Function<Optional<Event>, Optional<Event>> updateFunction,
+          String orgId, User user, RefreshPolicy refreshPolicy) throws SearchIndexException {
     final Lock lock = this.locks.get(id);
     lock.lock();
     logger.debug("Locked event '{}'", id);
 
     try {
-      Optional<Event> eventOpt = getEvent(id, orgId, user, maxRetryAttemptsUpdate, retryWaitingPeriodUpdate);
+      Optional<Event> eventOpt = getQueuedEvent(id.concat(orgId));
+      if (eventOpt.isEmpty()) {
+        eventOpt = getEvent(id, orgId, user, maxRetryAttemptsUpdate, retryWaitingPeriodUpdate);
+      }
       Optional<Event> updatedEventOpt = updateFunction.apply(eventOpt);
 
       if (updatedEventOpt.isPresent()) {
-        update(updatedEventOpt.get());
+        update(updatedEventOpt.get(), refreshPolicy);
       }
       return updatedEventOpt;
     } finally {
@@ -393,29 +497,42 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
     }
   }
 
+  /**
+   * Returns an event whose latest update has not been written to the index yet.
+   *
+   * @param documentId
+   *          The identifier of the event document
+   * @return a copy of the event (optional)
+   *
+   * @throws SearchIndexException
+   *          If the event cannot be read
+   */
+  private Optional<Event> getQueuedEvent(String documentId) throws SearchIndexException {
+    final Optional<SearchMetadataCollection> document = eventWriter.get(documentId);
+    if (document.isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(EventIndexUtils.toRecordingEvent(document.get(), Event.createUnmarshaller()));
+    } catch (IOException e) {
+      throw new SearchIndexException("Cannot read queued event " + documentId, e);
+    }
+  }
+
   /**
    * Adds the recording event to the search index or updates it accordingly if it is there.
    *
    * @param event
    *          The event to update
+   * @param refreshPolicy
+   *          When the update has to be visible to searches
    *
    * @throws SearchIndexException
    *          If the event cannot be added or updated
    */
-  private void update(Event event) throws SearchIndexException {
+  private void update(Event event, RefreshPolicy refreshPolicy) throws SearchIndexException {
     logger.debug("Adding event {} to search index", event.getIdentifier());
-
-    // Add the resource to the index
-    SearchMetadataCollection inputDocument = EventIndexUtils.toSearchMetadata(event);
-    List<SearchMetadata<?>> resourceMetadata = inputDocument.getMetadata();
-    ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
-            inputDocument.getDocumentType(), resourceMetadata);
-
-    try {
-      update(maxRetryAttemptsUpdate, retryWaitingPeriodUpdate, doc);
-    } catch (Throwable t) {
-      throw new SearchIndexException("Cannot write event " + event + " to index", t);
-    }
+    eventWriter.write(EventIndexUtils.toSearchMetadata(event, objectEncoding), refreshPolicy);
   }
 
   /**
@@ -432,7 +549,7 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
     for (Event event: eventList) {
       logger.debug("Adding event {} to search index", event.getIdentifier());
       // Add the resource to the index
-      SearchMetadataCollection inputDocument = EventIndexUtils.toSearchMetadata(event);
+      SearchMetadataCollection inputDocument = EventIndexUtils.toSearchMetadata(event, objectEncoding);
       List<SearchMetadata<?>> resourceMetadata = inputDocument.getMetadata();
       docs.add(new ElasticsearchDocument(inputDocument.getIdentifier(),
               inputDocument.getDocumentType(), resourceMetadata));
@@ -491,7 +608,7 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
     logger.debug("Adding series {} to search index", series.getIdentifier());
 
     // Add the resource to the index
-    SearchMetadataCollection inputDocument = SeriesIndexUtils.toSearchMetadata(series);
+    SearchMetadataCollection inputDocument = SeriesIndexUtils.toSearchMetadata(series, objectEncoding);
     List<SearchMetadata<?>> resourceMetadata = inputDocument.getMetadata();
     ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
             inputDocument.getDocumentType(), resourceMetadata);
@@ -517,7 +634,7 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
     for (Series series: seriesList) {
       logger.debug("Adding series {} to search index", series.getIdentifier());
       // Add the resource to the index
-      SearchMetadataCollection inputDocument = SeriesIndexUtils.toSearchMetadata(series);
+      SearchMetadataCollection inputDocument = SeriesIndexUtils.toSearchMetadata(series, objectEncoding);
       List<SearchMetadata<?>> resourceMetadata = inputDocument.getMetadata();
       docs.add(new ElasticsearchDocument(inputDocument.getIdentifier(),
               inputDocument.getDocumentType(), resourceMetadata));
@@ -576,7 +693,7 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
     logger.debug("Adding theme {} to search index", theme.getIdentifier());
 
     // Add the resource to the index
-    SearchMetadataCollection inputDocument = theme.toSearchMetadata();
+    SearchMetadataCollection inputDocument = theme.toSearchMetadata(objectEncoding);
     List<SearchMetadata<?>> resourceMetadata = inputDocument.getMetadata();
     ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
             inputDocument.getDocumentType(), resourceMetadata);
@@ -603,7 +720,7 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
       logger.debug("Adding theme {} to search index", theme.getIdentifier());
 
       // Add the resource to the index
-      SearchMetadataCollection inputDocument = theme.toSearchMetadata();
+      SearchMetadataCollection inputDocument = theme.toSearchMetadata(objectEncoding);
       List<SearchMetadata<?>> resourceMetadata = inputDocument.getMetadata();
       docs.add(new ElasticsearchDocument(inputDocument.getIdentifier(),
               inputDocument.getDocumentType(), resourceMetadata));
@@ -688,6 +805,10 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
     logger.debug("Locked {} '{}'.", type, id);
     try {
       String idWithOrgId = id.concat(orgId);
+      if (Event.DOCUMENT_TYPE.equals(type)) {
+        // Do not write queued updates after the event has been removed
+        eventWriter.discard(idWithOrgId);
+      }
       logger.debug("Removing element with id '{}' from search index '{}'", idWithOrgId, getSubIndexIdentifier(type));
 
       DeleteResponse deleteResponse = delete(type, idWithOrgId, maxRetryAttemptsUpdate, retryWaitingPeriodUpdate);
@@ -0,0 +1,186 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.elasticsearch.index.objects;
+
+import org.opencastproject.mediapackage.MediaPackageElementParser;
+import org.opencastproject.mediapackage.MediaPackageException;
+import org.opencastproject.mediapackage.Publication;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Encodes index objects for storage in the <code>object</code> field of the index documents.
+ * <p>
+ * Objects have been stored as JAXB XML ever since, which is expensive to unmarshal for every search hit. The JSON
+ * encoding stores the same fields with a version tag, so that the format can evolve. Both encodings can always be
+ * read, which means that documents written before the encoding has been switched stay readable until they are written
+ * again, e.g. by an index rebuild.
+ */
+public final class IndexObjectEncoding {
+
+  /** The supported encodings */
+  public enum Encoding {
+    XML, JSON
+  }
+
+  /** The version of the JSON encoding */
+  public static final int JSON_VERSION = 1;
+
+  private static final Gson gson = new GsonBuilder()
+      .registerTypeAdapter(Date.class, new DateAdapter().nullSafe())
+      .registerTypeHierarchyAdapter(Publication.class, new PublicationAdapter().nullSafe())
+      .create();
+
+  /**
+   * This is a utility class and should therefore not be instantiated.
+   */
+  private IndexObjectEncoding() {
+  }
+
+  /**
+   * Parses the name of an encoding.
+   *
+   * @param value
+   *          the encoding name, case insensitive
+   * @param defaultEncoding
+   *          the encoding to use if the value is blank
+   * @return the encoding
+   * @throws IllegalArgumentException
+   *           if the value is not a known encoding
+   */
+  public static Encoding parse(String value, Encoding defaultEncoding) {
+    if (StringUtils.isBlank(value)) {
+      return defaultEncoding;
+    }
+    return Encoding.valueOf(value.trim().toUpperCase());
+  }
+
+  /**
+   * Returns whether the serialized object uses the JSON encoding.
+   *
+   * @param serialized
+   *          the serialized object
+   * @return <code>true</code> if the object has been serialized with {@link #toJson(IndexObject)}
+   */
+  public static boolean isJson(String serialized) {
+    return StringUtils.startsWith(StringUtils.stripStart(serialized, null), "{");
+  }
+
+  /**
+   * Serializes an index object to JSON.
+   *
+   * @param object
+   *          the index object
+   * @return the versioned JSON representation
+   */
+  public static String toJson(IndexObject object) {
+    return gson.toJson(new Envelope(JSON_VERSION, gson.toJsonTree(object)));
+  }
+
+  /**
+   * Deserializes an index object from JSON.
+   *
+   * @param json
+   *          the JSON as created by {@link #toJson(IndexObject)}
+   * @param type
+   *          the type of the index object
+   * @return the index object
+   * @throws IOException
+   *           if the JSON cannot be parsed or has an unsupported version
+   */
+  public static <A extends IndexObject> A fromJson(String json, Class<A> type) throws IOException {
+    try {
+      final Envelope envelope = gson.fromJson(json, Envelope.class);
+      if (envelope == null || envelope.object == null) {
+        throw new IOException("No " + type.getSimpleName() + " found in index object");
+      }
+      if (envelope.version != JSON_VERSION) {
+        throw new IOException("Unsupported index object version " + envelope.version);
+      }
+      return gson.fromJson(envelope.object, type);
+    } catch (JsonParseException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /** Wrapper adding the version tag */
+  private static final class Envelope {
+    private int version;
+    private JsonElement object;
+
+    private Envelope(int version, JsonElement object) {
+      this.version = version;
+      this.object = object;
+    }
+  }
+
+  /** Stores dates as milliseconds, independent of the locale */
+  private static final class DateAdapter extends TypeAdapter<Date> {
+    @Override
+    public void write(JsonWriter out, Date value) throws IOException {
+      out.value(value.getTime());
+    }
+
+    @Override
+    public Date read(JsonReader in) throws IOException {
+      return new Date(in.nextLong());
+    }
+  }
+
+  /** Publications are media package elements which keep their own XML representation */
+  private static final class PublicationAdapter extends TypeAdapter<Publication> {
+    @Override
+    public void write(JsonWriter out, Publication value) throws IOException {
+      try {
+        out.value(MediaPackageElementParser.getAsXml(value));
+      } catch (MediaPackageException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public Publication read(JsonReader in) throws IOException {
+      if (in.peek() != JsonToken.STRING) {
+        throw new IOException("Publication expected at " + in.getPath());
+      }
+      try {
+        return (Publication) MediaPackageElementParser.getFromXml(in.nextString());
+      } catch (MediaPackageException | ClassCastException e) {
+        throw new IOException(e);
+      }
+    }
+  }
+
+}
@@ -26,6 +26,8 @@ import org.opencastproject.elasticsearch.api.SearchMetadata;
 import org.opencastproject.elasticsearch.api.SearchResult;
 import org.opencastproject.elasticsearch.impl.SearchMetadataCollection;
 import org.opencastproject.elasticsearch.index.ElasticsearchIndex;
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding;
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding.Encoding;
 import org.opencastproject.elasticsearch.index.objects.series.Series;
 import org.opencastproject.elasticsearch.index.objects.series.SeriesIndexSchema;
 import org.opencastproject.elasticsearch.index.objects.series.SeriesSearchQuery;
@@ -98,6 +100,9 @@ public final class EventIndexUtils {
           throws IOException {
     Map<String, SearchMetadata<?>> metadataMap = metadata.toMap();
     String eventJson = (String) metadataMap.get(EventIndexSchema.OBJECT).getValue();
+    if (IndexObjectEncoding.isJson(eventJson)) {
+      return IndexObjectEncoding.fromJson(eventJson, Event.class);
+    }
     return Event.valueOf(IOUtils.toInputStream(eventJson, Charset.defaultCharset()), unmarshaller);
   }
 
@@ -109,11 +114,25 @@ public final class EventIndexUtils {
    * @return the set of metadata
    */
   public static SearchMetadataCollection toSearchMetadata(Event event) {
+    return toSearchMetadata(event, Encoding.XML);
+  }
+
+  /**
+   * Creates search metadata from a recording event such that the event can be stored in the search index.
+   *
+   * @param event
+   *          the recording event
+   * @param encoding
+   *          the encoding of the stored event object
+   * @return the set of metadata
+   */
+  public static SearchMetadataCollection toSearchMetadata(Event event, Encoding encoding) {
     SearchMetadataCollection metadata = new SearchMetadataCollection(
             event.getIdentifier().concat(event.getOrganization()), Event.DOCUMENT_TYPE);
     metadata.addField(EventIndexSchema.UID, event.getIdentifier(), true);
     metadata.addField(EventIndexSchema.ORGANIZATION, event.getOrganization(), false);
-    metadata.addField(EventIndexSchema.OBJECT, event.toXML(), false);
+    metadata.addField(EventIndexSchema.OBJECT,
+            encoding == Encoding.JSON ? IndexObjectEncoding.toJson(event) : event.toXML(), false);
     if (StringUtils.isNotBlank(event.getTitle())) {
       metadata.addField(EventIndexSchema.TITLE, event.getTitle(), true);
     }
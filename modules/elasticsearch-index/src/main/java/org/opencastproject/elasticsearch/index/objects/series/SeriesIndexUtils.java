@@ -23,6 +23,8 @@ package org.opencastproject.elasticsearch.index.objects.series;
 
 import org.opencastproject.elasticsearch.api.SearchMetadata;
 import org.opencastproject.elasticsearch.impl.SearchMetadataCollection;
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding;
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding.Encoding;
 import org.opencastproject.security.api.AccessControlEntry;
 import org.opencastproject.security.api.AccessControlList;
 import org.opencastproject.security.api.AccessControlParser;
@@ -70,6 +72,9 @@ public final class SeriesIndexUtils {
   public static Series toSeries(SearchMetadataCollection metadata, Unmarshaller unmarshaller) throws IOException {
     Map<String, SearchMetadata<?>> metadataMap = metadata.toMap();
     String seriesXml = (String) metadataMap.get(SeriesIndexSchema.OBJECT).getValue();
+    if (IndexObjectEncoding.isJson(seriesXml)) {
+      return IndexObjectEncoding.fromJson(seriesXml, Series.class);
+    }
     return Series.valueOf(IOUtils.toInputStream(seriesXml, Charset.defaultCharset()), unmarshaller);
   }
 
@@ -81,11 +86,25 @@ public final class SeriesIndexUtils {
    * @return the set of metadata
    */
   public static SearchMetadataCollection toSearchMetadata(Series series) {
+    return toSearchMetadata(series, Encoding.XML);
+  }
+
+  /**
+   * Creates search metadata from a series such that the event can be stored in the search index.
+   *
+   * @param series
+   *          the series
+   * @param encoding
+   *          the encoding of the stored series object
+   * @return the set of metadata
+   */
+  public static SearchMetadataCollection toSearchMetadata(Series series, Encoding encoding) {
     SearchMetadataCollection metadata = new SearchMetadataCollection(
             series.getIdentifier().concat(series.getOrganization()), Series.DOCUMENT_TYPE);
     metadata.addField(SeriesIndexSchema.UID, series.getIdentifier(), true);
     metadata.addField(SeriesIndexSchema.ORGANIZATION, series.getOrganization(), false);
-    metadata.addField(SeriesIndexSchema.OBJECT, series.toXML(), false);
+    metadata.addField(SeriesIndexSchema.OBJECT,
+            encoding == Encoding.JSON ? IndexObjectEncoding.toJson(series) : series.toXML(), false);
     metadata.addField(SeriesIndexSchema.TITLE, series.getTitle(), true);
     if (StringUtils.trimToNull(series.getDescription()) != null) {
       metadata.addField(SeriesIndexSchema.DESCRIPTION, series.getDescription(), true);
@@ -24,6 +24,8 @@ package org.opencastproject.elasticsearch.index.objects.theme;
 import org.opencastproject.elasticsearch.api.SearchMetadata;
 import org.opencastproject.elasticsearch.impl.SearchMetadataCollection;
 import org.opencastproject.elasticsearch.index.objects.IndexObject;
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding;
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding.Encoding;
 import org.opencastproject.util.DateTimeSupport;
 import org.opencastproject.util.DateTimeSupport.UtcTimestampAdapter;
 import org.opencastproject.util.IoSupport;
@@ -382,6 +384,9 @@ public class IndexTheme implements IndexObject {
   public static IndexTheme fromSearchMetadata(SearchMetadataCollection metadata) throws IOException {
     Map<String, SearchMetadata<?>> metadataMap = metadata.toMap();
     String themeXml = (String) metadataMap.get(ThemeIndexSchema.OBJECT).getValue();
+    if (IndexObjectEncoding.isJson(themeXml)) {
+      return IndexObjectEncoding.fromJson(themeXml, IndexTheme.class);
+    }
     return IndexTheme.valueOf(IOUtils.toInputStream(themeXml));
   }
 
@@ -391,12 +396,24 @@ public class IndexTheme implements IndexObject {
    * @return the set of metadata
    */
   public SearchMetadataCollection toSearchMetadata() {
+    return toSearchMetadata(Encoding.XML);
+  }
+
+  /**
+   * Creates search metadata from a theme such that the theme can be stored in the search index.
+   *
+   * @param encoding
+   *          the encoding of the stored theme object
+   * @return the set of metadata
+   */
+  public SearchMetadataCollection toSearchMetadata(Encoding encoding) {
     SearchMetadataCollection metadata = new SearchMetadataCollection(Long.toString(getIdentifier()).concat(
             getOrganization()), IndexTheme.DOCUMENT_TYPE);
     // Mandatory fields
     metadata.addField(ThemeIndexSchema.ID, getIdentifier(), true);
     metadata.addField(ThemeIndexSchema.ORGANIZATION, getOrganization(), false);
-    metadata.addField(ThemeIndexSchema.OBJECT, toXML(), false);
+    metadata.addField(ThemeIndexSchema.OBJECT, encoding == Encoding.JSON ? IndexObjectEncoding.toJson(this) : toXML(),
+            false);
 
     // Optional fields
     if (StringUtils.isNotBlank(getName())) {
@@ -0,0 +1,110 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.elasticsearch.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.elasticsearch.api.RefreshPolicy;
+import org.opencastproject.elasticsearch.impl.ElasticsearchDocument;
+import org.opencastproject.elasticsearch.impl.SearchMetadataCollection;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class CoalescingEventWriterTest {
+
+  /** The bulk requests which have been sent */
+  private final List<List<String>> requests = new CopyOnWriteArrayList<>();
+
+  /** The refresh policies of the bulk requests */
+  private final List<RefreshPolicy> policies = new CopyOnWriteArrayList<>();
+
+  private CoalescingEventWriter writer;
+
+  @Before
+  public void setUp() {
+    writer = new CoalescingEventWriter(this::write, 60000, 3);
+  }
+
+  @After
+  public void tearDown() {
+    writer.close();
+  }
+
+  private BulkResponse write(List<ElasticsearchDocument> documents, RefreshPolicy refreshPolicy) {
+    final List<String> ids = new ArrayList<>();
+    for (ElasticsearchDocument document : documents) {
+      ids.add(document.getUID());
+    }
+    requests.add(ids);
+    policies.add(refreshPolicy);
+    return new BulkResponse(new BulkItemResponse[0], 0);
+  }
+
+  private static SearchMetadataCollection document(String id, String title) {
+    final SearchMetadataCollection document = new SearchMetadataCollection(id, "event");
+    document.addField("title", title, false);
+    return document;
+  }
+
+  @Test
+  public void testQueuedUpdatesAreMerged() throws Exception {
+    writer.write(document("a", "first"), RefreshPolicy.NONE);
+    writer.write(document("a", "second"), RefreshPolicy.NONE);
+    assertTrue(requests.isEmpty());
+    assertEquals("second", writer.get("a").get().toMap().get("title").getValue());
+
+    writer.write(document("b", "first"), RefreshPolicy.IMMEDIATE);
+    assertEquals(1, requests.size());
+    assertEquals(List.of("a", "b"), requests.get(0));
+    assertEquals(RefreshPolicy.IMMEDIATE, policies.get(0));
+    assertFalse(writer.get("a").isPresent());
+    assertFalse(writer.get("b").isPresent());
+  }
+
+  @Test
+  public void testQueuedUpdatesAreWrittenWhenClosing() throws Exception {
+    writer.write(document("a", "first"), RefreshPolicy.NONE);
+    writer.close();
+    assertEquals(List.of(List.of("a")), requests);
+    assertEquals(RefreshPolicy.WAIT_UNTIL, policies.get(0));
+  }
+
+  @Test
+  public void testDiscardedUpdatesAreNotWritten() throws Exception {
+    writer.write(document("a", "first"), RefreshPolicy.NONE);
+    writer.discard("a");
+    assertFalse(writer.get("a").isPresent());
+    writer.close();
+    assertTrue(requests.isEmpty());
+  }
+
+}
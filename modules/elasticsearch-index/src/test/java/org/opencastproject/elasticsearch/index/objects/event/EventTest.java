@@ -27,8 +27,13 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import org.opencastproject.elasticsearch.impl.SearchMetadataCollection;
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding;
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding.Encoding;
+import org.opencastproject.mediapackage.PublicationImpl;
 import org.opencastproject.scheduler.api.RecordingState;
 import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.util.MimeTypes;
 
 import org.apache.commons.io.IOUtils;
 import org.json.simple.JSONArray;
@@ -41,11 +46,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.xml.bind.Unmarshaller;
+
 import uk.co.datumedge.hamcrest.json.SameJSONAs;
 
 public class EventTest {
@@ -158,6 +167,31 @@ public class EventTest {
     assertThat(eventCAConfigJson, SameJSONAs.sameJSONAs(entryArray.toJSONString()).allowingAnyArrayOrdering());
   }
 
+  @Test
+  public void testObjectEncoding() throws Exception {
+    Event event = new Event(id, defaultOrganization);
+    event.setTitle(title);
+    event.setPresenters(presenters);
+    event.setAgentConfiguration(agentConfiguration);
+    event.setArchiveVersion(3L);
+    event.setComments(Arrays.asList(new Comment("1", "reason", "text", false)));
+    event.setPublications(Arrays.asList(PublicationImpl.publication("pub-1", "engage-player",
+            new URI("http://localhost/engage"), MimeTypes.parseMimeType("text/html"))));
+
+    // Both encodings are read back into the same event
+    Unmarshaller unmarshaller = Event.createUnmarshaller();
+    for (Encoding encoding : Encoding.values()) {
+      SearchMetadataCollection metadata = EventIndexUtils.toSearchMetadata(event, encoding);
+      Event decoded = EventIndexUtils.toRecordingEvent(metadata, unmarshaller);
+      assertEquals(event.toXML(), decoded.toXML());
+    }
+
+    String json = IndexObjectEncoding.toJson(event);
+    assertTrue(IndexObjectEncoding.isJson(json));
+    assertFalse(IndexObjectEncoding.isJson(event.toXML()));
+    assertTrue(json.length() < event.toXML().length());
+  }
+
   @Test
   public void testHasRecordingStarted() {
     Event event = new Event(id, defaultOrganization);
@@ -24,6 +24,7 @@ package org.opencastproject.elasticsearch.index.objects.series;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import org.opencastproject.elasticsearch.index.objects.IndexObjectEncoding.Encoding;
 import org.opencastproject.util.DateTimeSupport;
 
 import org.apache.commons.io.IOUtils;
@@ -41,6 +42,8 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import javax.xml.bind.Unmarshaller;
+
 public class SeriesTest {
   private static final Logger logger = LoggerFactory.getLogger(SeriesTest.class);
   private static final String ACCESS_POLICY_KEY = "access_policy";
@@ -151,4 +154,21 @@ public class SeriesTest {
     assertEquals(contributor2, contributorsArray.get(1));
     assertEquals(contributor3, contributorsArray.get(2));
   }
+
+  @Test
+  public void testObjectEncoding() throws Exception {
+    Series series = new Series(id, organization);
+    series.setTitle(title);
+    series.setDescription(description);
+    series.setCreatedDateTime(createdDateTime);
+    series.setOrganizers(organizers);
+    series.setContributors(contributors);
+
+    // Documents written in either encoding are read back into the same series
+    Unmarshaller unmarshaller = Series.createUnmarshaller();
+    for (Encoding encoding : Encoding.values()) {
+      Series decoded = SeriesIndexUtils.toSeries(SeriesIndexUtils.toSearchMetadata(series, encoding), unmarshaller);
+      assertEquals(series.toXML(), decoded.toXML());
+    }
+  }
 }
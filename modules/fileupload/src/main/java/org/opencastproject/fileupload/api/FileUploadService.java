@@ -61,6 +61,26 @@ public interface FileUploadService {
   FileUploadJob createJob(String filename, long fileSize, int chunkSize, MediaPackage mp,
           MediaPackageElementFlavor flavor) throws FileUploadException;
 
+  /**
+   * Creates a new upload job with the given metadata. The chunks of a parallel upload job may be uploaded in any order
+   * and concurrently. Parallel uploads require the file size and chunk size to be known in advance.
+   *
+   * @param filename
+   *          name of the file to be uploaded
+   * @param fileSize
+   *          size of the file
+   * @param chunkSize
+   *          size of the file parts that will be uploaded
+   * @param mp
+   *          the mediapackage this file should belong to
+   * @param parallel
+   *          whether chunks may be uploaded in any order and concurrently
+   * @return FileUploadJob the job object
+   * @throws FileUploadException
+   */
+  FileUploadJob createJob(String filename, long fileSize, int chunkSize, MediaPackage mp,
+          MediaPackageElementFlavor flavor, boolean parallel) throws FileUploadException;
+
   /**
    * Returns the upload job with the given ID, throws <code>FileUploadException</code> if the job can not be found.
    *
@@ -86,7 +106,8 @@ public interface FileUploadService {
   void deleteJob(String id) throws FileUploadException;
 
   /**
-   * Appends the next part to the payload and updates the upload job accordingly.
+   * Appends the next part to the payload and updates the upload job accordingly. Parts of parallel upload jobs are
+   * written to their position in the payload instead, and the job is completed once all parts have been received.
    *
    * @param job
    *          the job object for the upload
@@ -99,7 +120,8 @@ public interface FileUploadService {
   void acceptChunk(FileUploadJob job, long chunk, InputStream content) throws FileUploadException;
 
   /**
-   * Returns an <code>InputStream</code> containing the data from the payload.
+   * Returns an <code>InputStream</code> containing the data from the payload. The payload of a parallel upload is only
+   * available once the upload is complete.
    *
    * @param job
    *          job to retrieve payload data from
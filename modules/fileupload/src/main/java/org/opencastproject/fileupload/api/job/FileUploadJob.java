@@ -24,6 +24,8 @@ package org.opencastproject.fileupload.api.job;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageElementFlavor;
 
+import java.util.Base64;
+import java.util.BitSet;
 import java.util.UUID;
 
 import javax.xml.bind.annotation.XmlAccessType;
@@ -65,6 +67,11 @@ public class FileUploadJob {
   private long chunksTotal = 1; // total number of chunks the upload consists of
   @XmlElement(name = "current-chunk")
   private Chunk currentChunk = new Chunk(); // information about the current chunk
+  @XmlElement(name = "parallel")
+  private boolean parallel = false; // whether chunks may be uploaded in any order and in parallel
+  @XmlElement(name = "chunks-received")
+  private String chunksReceived; // Base64 encoded bitmap of the chunks received by a parallel upload
+  private BitSet receivedChunks; // decoded bitmap of the received chunks
 
   public FileUploadJob() {
     this.id = UUID.randomUUID().toString();
@@ -78,6 +85,17 @@ public class FileUploadJob {
       int chunksize,
       MediaPackage mp,
       MediaPackageElementFlavor flavor
+  ) {
+    this(filename, filesize, chunksize, mp, flavor, false);
+  }
+
+  public FileUploadJob(
+      String filename,
+      long filesize,
+      int chunksize,
+      MediaPackage mp,
+      MediaPackageElementFlavor flavor,
+      boolean parallel
   ) {
     this.id = UUID.randomUUID().toString();
     this.modified = System.currentTimeMillis();
@@ -91,6 +109,7 @@ public class FileUploadJob {
       }
     }
     this.payload = new Payload(filename, filesize, mp, flavor);
+    this.parallel = parallel;
   }
 
   public String getId() {
@@ -135,6 +154,53 @@ public class FileUploadJob {
     this.currentChunk = currentChunk;
   }
 
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * Returns whether a chunk of a parallel upload has already been received.
+   *
+   * @param number
+   *          the number of the chunk
+   * @return true if the chunk has been received
+   */
+  public synchronized boolean isChunkReceived(long number) {
+    return getReceivedChunks().get(Math.toIntExact(number));
+  }
+
+  /**
+   * Marks a chunk of a parallel upload as received.
+   *
+   * @param number
+   *          the number of the chunk
+   * @return false if the chunk had already been received before
+   */
+  public synchronized boolean markChunkReceived(long number) {
+    final BitSet received = getReceivedChunks();
+    final int index = Math.toIntExact(number);
+    if (received.get(index)) {
+      return false;
+    }
+    received.set(index);
+    chunksReceived = Base64.getEncoder().encodeToString(received.toByteArray());
+    return true;
+  }
+
+  /** Returns the number of chunks of a parallel upload which have been received. */
+  public synchronized long getChunksReceived() {
+    return getReceivedChunks().cardinality();
+  }
+
+  private BitSet getReceivedChunks() {
+    if (receivedChunks == null) {
+      receivedChunks = chunksReceived == null
+          ? new BitSet()
+          : BitSet.valueOf(Base64.getDecoder().decode(chunksReceived));
+    }
+    return receivedChunks;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder().append("FileUploadJob(id=").append(this.id).append(", filename=")
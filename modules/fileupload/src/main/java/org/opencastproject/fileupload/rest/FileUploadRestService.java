@@ -97,6 +97,7 @@ public class FileUploadRestService {
   static final String REQUESTFIELD_CHUNKNUM = "chunknumber";
   static final String REQUESTFIELD_MEDIAPACKAGE = "mediapackage";
   static final String REQUESTFIELD_FLAVOR = "flavor";
+  static final String REQUESTFIELD_PARALLEL = "parallel";
   private static final Logger log = LoggerFactory.getLogger(FileUploadRestService.class);
   private FileUploadService uploadService;
   private MediaPackageBuilderFactory factory = null;
@@ -164,6 +165,14 @@ public class FileUploadRestService {
               isRequired = false,
               type = RestParameter.Type.TEXT
           ),
+          @RestParameter(
+              name = REQUESTFIELD_PARALLEL,
+              description = "Whether the chunks may be uploaded in any order and concurrently. Requires the file size "
+                  + "and chunk size to be set.",
+              isRequired = false,
+              defaultValue = "false",
+              type = RestParameter.Type.BOOLEAN
+          ),
       },
       responses = {
           @RestResponse(
@@ -182,7 +191,8 @@ public class FileUploadRestService {
           @FormParam(REQUESTFIELD_FILESIZE) long filesize,
           @FormParam(REQUESTFIELD_CHUNKSIZE) int chunksize,
           @FormParam(REQUESTFIELD_MEDIAPACKAGE) String mediapackage,
-          @FormParam(REQUESTFIELD_FLAVOR) String flav) {
+          @FormParam(REQUESTFIELD_FLAVOR) String flav,
+          @FormParam(REQUESTFIELD_PARALLEL) boolean parallel) {
     try {
       if (StringUtils.isBlank(filename)) {
         filename = "john.doe";
@@ -203,7 +213,7 @@ public class FileUploadRestService {
         flavor = new MediaPackageElementFlavor(flav.split("/")[0], flav.split("/")[1]);
       }
 
-      FileUploadJob job = uploadService.createJob(filename, filesize, chunksize, mp, flavor);
+      FileUploadJob job = uploadService.createJob(filename, filesize, chunksize, mp, flavor, parallel);
       return Response.ok(job.getId()).build();
     } catch (FileUploadException e) {
       log.error(e.getMessage(), e);
@@ -268,7 +278,8 @@ public class FileUploadRestService {
   @Path("job/{jobID}")
   @RestQuery(
       name = "newjob",
-      description = "Appends the next chunk of data to the file on the server.",
+      description = "Appends the next chunk of data to the file on the server. Chunks of parallel upload jobs may be "
+          + "sent in any order and concurrently.",
       pathParameters = {
           @RestParameter(
               name = "jobID",
@@ -33,11 +33,8 @@ import org.opencastproject.ingest.api.IngestService;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageElementFlavor;
 import org.opencastproject.mediapackage.Track;
-import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.XmlSafeParser;
-import org.opencastproject.util.data.Function2;
-import org.opencastproject.util.data.Option;
-import org.opencastproject.util.data.functions.Functions;
 import org.opencastproject.workspace.api.Workspace;
 
 import org.apache.commons.io.FileUtils;
@@ -55,19 +52,24 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Dictionary;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
@@ -90,9 +92,8 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
   static final String DEFAULT_UPLOAD_WORKDIR = "tmp/fileupload"; /* The default location is the storage dir */
   static final String UPLOAD_COLLECTION = "uploaded";
   static final String FILEEXT_DATAFILE = ".payload";
-  static final String FILENAME_CHUNKFILE = "chunk.part";
   static final String FILENAME_JOBFILE = "job.xml";
-  static final int READ_BUFFER_LENGTH = 512;
+  static final int READ_BUFFER_LENGTH = 64 * 1024;
   static final int DEFAULT_CLEANER_MAXTTL = 6;
 
   private File workRoot = null;
@@ -100,7 +101,9 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
   private Workspace workspace;
   private Marshaller jobMarshaller;
   private Unmarshaller jobUnmarshaller;
-  private HashMap<String, FileUploadJob> jobCache = new HashMap<String, FileUploadJob>();
+  private Map<String, FileUploadJob> jobCache = new ConcurrentHashMap<String, FileUploadJob>();
+  /** Chunks of parallel uploads currently being written, guarded by the lock of the respective job */
+  private final Map<String, Set<Long>> chunksInProgress = new ConcurrentHashMap<>();
   private FileUploadServiceCleaner cleaner;
   private int jobMaxTTL = DEFAULT_CLEANER_MAXTTL;
 
@@ -174,7 +177,22 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
   @Override
   public FileUploadJob createJob(String filename, long filesize, int chunksize, MediaPackage mp,
           MediaPackageElementFlavor flavor) throws FileUploadException {
-    FileUploadJob job = new FileUploadJob(filename, filesize, chunksize, mp, flavor);
+    return createJob(filename, filesize, chunksize, mp, flavor, false);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.fileupload.api.FileUploadService#createJob(String, long, int,
+   *      org.opencastproject.mediapackage.MediaPackage, org.opencastproject.mediapackage.MediaPackageElementFlavor,
+   *      boolean)
+   */
+  @Override
+  public FileUploadJob createJob(String filename, long filesize, int chunksize, MediaPackage mp,
+          MediaPackageElementFlavor flavor, boolean parallel) throws FileUploadException {
+    // chunks can only be placed at their offset if the chunk size and file size are known
+    FileUploadJob job = new FileUploadJob(filename, filesize, chunksize, mp, flavor,
+            parallel && chunksize > 0 && filesize > 0);
     logger.info("Creating new upload job: {}", job);
 
     try {
@@ -225,12 +243,20 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
     } else { // job not in cache?
       try { // try to load job from filesystem
         synchronized (this) {
+          FileUploadJob cached = jobCache.get(id);
+          if (cached != null) { // loaded by a concurrent request in the meantime
+            return cached;
+          }
           File jobFile = getJobFile(id);
           FileUploadJob job = null;
           try (FileInputStream jobFileStream = new FileInputStream(jobFile)) {
             job = (FileUploadJob) jobUnmarshaller.unmarshal(XmlSafeParser.parse(jobFileStream));
           }
           job.setLastModified(jobFile.lastModified()); // get last modified time from job file
+          if (job.isParallel() && !job.getState().equals(FileUploadJob.JobState.COMPLETE)) {
+            // concurrent chunks of a parallel upload need to update the same job
+            jobCache.put(id, job);
+          }
           return job;
         } // if loading from fs also fails
       } catch (Exception e) { // we could not find the job and throw an Exception
@@ -306,6 +332,11 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
 
   @Override
   public void acceptChunk(FileUploadJob job, long chunkNumber, InputStream content) throws FileUploadException {
+    if (job.isParallel()) {
+      acceptParallelChunk(job, chunkNumber, content);
+      return;
+    }
+
     // job already completed?
     if (job.getState().equals(FileUploadJob.JobState.COMPLETE)) {
       removeFromCache(job);
@@ -329,76 +360,30 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
     }
     logger.debug("Receiving chunk #" + chunkNumber + " of job {}", job);
 
-    // write chunk to temp file
+    // write chunk directly to the end of the payload file
     job.getCurrentChunk().incrementNumber();
-    File chunkFile = null;
+    Payload payload = job.getPayload();
+    long offset = payload.getCurrentSize();
+    long supposedSize = getChunkSize(job, chunkNumber);
+    long actualSize;
     try {
-      chunkFile = ensureExists(getChunkFile(job.getId()));
+      actualSize = writeChunk(job, offset, supposedSize, content, job.getCurrentChunk());
     } catch (IOException e) {
-      throw fileUploadException(Severity.error, "Cannot create chunk file", e);
-    }
-    OutputStream out = null;
-    try {
-      byte[] readBuffer = new byte[READ_BUFFER_LENGTH];
-      out = new FileOutputStream(chunkFile, false);
-      int bytesRead = 0;
-      long bytesReadTotal = 0L;
-      Chunk currentChunk = job.getCurrentChunk(); // copy manually (instead of using IOUtils.copy()) so we can count the
-      // number of bytes
-      do {
-        bytesRead = content.read(readBuffer);
-        if (bytesRead > 0) {
-          out.write(readBuffer, 0, bytesRead);
-          bytesReadTotal += bytesRead;
-          currentChunk.setReceived(bytesReadTotal);
-        }
-      } while (bytesRead != -1);
-      if (job.getPayload().getTotalSize() == -1 && job.getChunksTotal() == 1) { // set totalSize in case of ordinary
-        // from submit
-        job.getPayload().setTotalSize(bytesReadTotal);
-      }
-    } catch (Exception e) {
+      truncatePayloadFile(job.getId(), offset);
       removeFromCache(job);
       throw fileUploadException(Severity.error, "Failed to store chunk data", e);
-    } finally {
-      IOUtils.closeQuietly(content);
-      IOUtils.closeQuietly(out);
+    }
+    if (payload.getTotalSize() == -1 && job.getChunksTotal() == 1) { // set totalSize in case of ordinary
+      // from submit
+      payload.setTotalSize(actualSize);
     }
 
     // check if chunk has right size
-    long actualSize = chunkFile.length();
-    long supposedSize;
-    if (chunkNumber == job.getChunksTotal() - 1) {
-      supposedSize = job.getPayload().getTotalSize() % job.getChunksize();
-      supposedSize = supposedSize == 0 ? job.getChunksize() : supposedSize; // a not so nice workaround for the rare
-      // case that file size is a multiple of the
-      // chunk size
-    } else {
-      supposedSize = job.getChunksize();
-    }
     if (actualSize == supposedSize || (job.getChunksTotal() == 1 && job.getChunksize() == -1)) {
-
-      // append chunk to payload file
-      FileInputStream in = null;
-      try {
-        File payloadFile = getPayloadFile(job.getId());
-        in = new FileInputStream(chunkFile);
-        out = new FileOutputStream(payloadFile, true);
-        IOUtils.copy(in, out);
-        Payload payload = job.getPayload();
-        payload.setCurrentSize(payload.getCurrentSize() + actualSize);
-
-      } catch (IOException e) {
-        removeFromCache(job);
-        throw fileUploadException(Severity.error, "Failed to append chunk data", e);
-
-      } finally {
-        IOUtils.closeQuietly(in);
-        IOUtils.closeQuietly(out);
-        deleteChunkFile(job.getId());
-      }
-
+      payload.setCurrentSize(offset + actualSize);
     } else {
+      // drop the data of the rejected chunk
+      truncatePayloadFile(job.getId(), offset);
       removeFromCache(job);
       throw fileUploadException(Severity.warn,
               format("Chunk has wrong size. Awaited: %d bytes, received: %d bytes.", supposedSize, actualSize));
@@ -415,18 +400,218 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
     removeFromCache(job);
   }
 
+  /**
+   * Accepts a chunk of a parallel upload. Chunks may arrive in any order and concurrently. Each chunk is written to its
+   * offset in the payload file and recorded in the job's bitmap of received chunks. The request completing the last
+   * missing chunk finalizes the job.
+   * <p>
+   * The state of the job and the chunks received or in progress are only checked and changed while holding the lock of
+   * the job, so that a chunk is written by one request at a time and the job is finalized exactly once.
+   *
+   * @param job
+   *          the upload job, which is shared by all concurrent requests
+   * @param chunkNumber
+   *          the number of the chunk
+   * @param content
+   *          the chunk data
+   * @throws FileUploadException
+   *           if the chunk is not accepted
+   */
+  private void acceptParallelChunk(FileUploadJob job, long chunkNumber, InputStream content)
+          throws FileUploadException {
+    boolean complete;
+    try {
+      synchronized (job) {
+        if (job.getState().equals(FileUploadJob.JobState.COMPLETE)
+                || job.getState().equals(FileUploadJob.JobState.FINALIZING)) {
+          throw fileUploadException(Severity.warn, "Job is already complete.");
+        }
+        if (chunkNumber < 0 || chunkNumber >= job.getChunksTotal()) {
+          throw fileUploadException(Severity.error,
+                  format("Wrong chunk number. Awaiting #0 to #%d but #%d was offered.", job.getChunksTotal() - 1,
+                          chunkNumber));
+        }
+        if (job.isChunkReceived(chunkNumber)) {
+          logger.debug("Ignoring chunk #{} of job {} which has already been received", chunkNumber, job);
+          return;
+        }
+        if (!chunksInProgress.computeIfAbsent(job.getId(), id -> new HashSet<>()).add(chunkNumber)) {
+          throw fileUploadException(Severity.warn,
+                  format("Chunk #%d is already being uploaded by another request.", chunkNumber));
+        }
+      }
+      logger.debug("Receiving chunk #" + chunkNumber + " of job {}", job);
+
+      try {
+        // chunks other than the last one have the full chunk size, so the offset can be computed from the number
+        long supposedSize = getChunkSize(job, chunkNumber);
+        long actualSize;
+        try {
+          actualSize = writeChunk(job, chunkNumber * job.getChunksize(), supposedSize, content, null);
+        } catch (IOException e) {
+          throw fileUploadException(Severity.error, "Failed to store chunk data", e);
+        }
+        if (actualSize != supposedSize) {
+          // the data written so far is overwritten once the chunk is uploaded again
+          throw fileUploadException(Severity.warn,
+                  format("Chunk has wrong size. Awaited: %d bytes, received: %d bytes.", supposedSize, actualSize));
+        }
+
+        synchronized (job) {
+          if (job.markChunkReceived(chunkNumber)) {
+            Payload payload = job.getPayload();
+            payload.setCurrentSize(payload.getCurrentSize() + supposedSize);
+          }
+          complete = job.getChunksReceived() == job.getChunksTotal()
+                  && job.getState().equals(FileUploadJob.JobState.READY);
+          if (complete) {
+            job.setState(FileUploadJob.JobState.FINALIZING);
+          } else {
+            job.setLastModified(System.currentTimeMillis());
+          }
+          storeJob(job);
+        }
+      } finally {
+        synchronized (job) {
+          final Set<Long> inProgress = chunksInProgress.get(job.getId());
+          inProgress.remove(chunkNumber);
+          if (inProgress.isEmpty()) {
+            chunksInProgress.remove(job.getId());
+          }
+        }
+      }
+    } finally {
+      IOUtils.closeQuietly(content);
+    }
+
+    if (complete) {
+      try {
+        finalizeJob(job);
+        logger.info("Upload job completed: {}", job);
+      } catch (FileUploadException e) {
+        // allow the client to retry the finalization by uploading the last chunk again
+        synchronized (job) {
+          job.setState(FileUploadJob.JobState.READY);
+          storeJob(job);
+        }
+        removeFromCache(job);
+        throw e;
+      }
+      storeJob(job);
+      removeFromCache(job);
+    }
+  }
+
+  /**
+   * Returns the size a chunk is supposed to have.
+   *
+   * @param job
+   *          the upload job
+   * @param chunkNumber
+   *          the number of the chunk
+   * @return the size of the chunk in bytes, -1 for ordinary uploads
+   */
+  private long getChunkSize(FileUploadJob job, long chunkNumber) {
+    if (job.getChunksize() == -1) {
+      return -1;
+    }
+    if (chunkNumber == job.getChunksTotal() - 1) {
+      long size = job.getPayload().getTotalSize() % job.getChunksize();
+      return size == 0 ? job.getChunksize() : size; // the file size may be a multiple of the chunk size
+    }
+    return job.getChunksize();
+  }
+
+  /**
+   * Writes the content of a chunk directly to its offset in the payload file. Data exceeding the supposed size of the
+   * chunk is read and counted, but not written, so that it cannot overwrite the data of the following chunk.
+   *
+   * @param job
+   *          the upload job
+   * @param offset
+   *          the offset of the chunk in the payload file
+   * @param supposedSize
+   *          the supposed size of the chunk, -1 if unknown
+   * @param content
+   *          the chunk data, which is closed afterwards
+   * @param chunk
+   *          the chunk information to update with the number of received bytes, may be <code>null</code>
+   * @return the number of bytes received
+   * @throws IOException
+   *           if reading the content or writing the payload file fails
+   */
+  private long writeChunk(FileUploadJob job, long offset, long supposedSize, InputStream content, Chunk chunk)
+          throws IOException {
+    final long limit = supposedSize < 0 ? Long.MAX_VALUE : supposedSize;
+    try (FileChannel channel = FileChannel.open(getPayloadFile(job.getId()).toPath(), StandardOpenOption.WRITE)) {
+      final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_LENGTH);
+      long bytesReadTotal = 0L;
+      int bytesRead;
+      while ((bytesRead = content.read(buffer.array())) != -1) {
+        final long writable = Math.min(bytesRead, Math.max(0, limit - bytesReadTotal));
+        buffer.position(0).limit((int) writable);
+        long position = offset + bytesReadTotal;
+        while (buffer.hasRemaining()) {
+          position += channel.write(buffer, position);
+        }
+        bytesReadTotal += bytesRead;
+        if (chunk != null) {
+          chunk.setReceived(bytesReadTotal);
+        }
+      }
+      return bytesReadTotal;
+    } finally {
+      IOUtils.closeQuietly(content);
+    }
+  }
+
+  /**
+   * Truncates the payload file of a job, dropping the data of a rejected chunk.
+   *
+   * @param id
+   *          ID of the job
+   * @param size
+   *          the size to truncate the payload file to
+   */
+  private void truncatePayloadFile(String id, long size) {
+    try (FileChannel channel = FileChannel.open(getPayloadFile(id).toPath(), StandardOpenOption.WRITE)) {
+      channel.truncate(size);
+    } catch (IOException e) {
+      logger.warn("Could not truncate payload file of job {}", id, e);
+    }
+  }
+
   @Override
   public InputStream getPayload(FileUploadJob job) throws FileUploadException {
-    // job not locked?
-    if (isLocked(job.getId())) {
+    if (!job.isParallel()) {
+      // job not locked?
+      if (isLocked(job.getId())) {
+        throw fileUploadException(Severity.warn,
+                "Job is locked. Download is only permitted while no upload to this job is in progress.");
+      }
+
+      try {
+        FileInputStream payload = new FileInputStream(getPayloadFile(job.getId()));
+        return payload;
+      } catch (FileNotFoundException e) {
+        throw fileUploadException(Severity.error, "Failed to retrieve file from job " + job.getId(), e);
+      }
+    }
+
+    // chunks of a parallel upload are written concurrently, only the payload of a complete upload is consistent
+    if (!job.getState().equals(FileUploadJob.JobState.COMPLETE)) {
       throw fileUploadException(Severity.warn,
-              "Job is locked. Download is only permitted while no upload to this job is in progress.");
+              "Job is not complete. Download is only permitted once all data has been uploaded.");
     }
 
     try {
-      FileInputStream payload = new FileInputStream(getPayloadFile(job.getId()));
-      return payload;
-    } catch (FileNotFoundException e) {
+      final File payloadFile = getPayloadFile(job.getId());
+      if (payloadFile.exists()) {
+        return new FileInputStream(payloadFile);
+      }
+      // the payload has been moved to its final destination
+      return workspace.read(job.getPayload().getUrl().toURI());
+    } catch (IOException | NotFoundException | URISyntaxException e) {
       throw fileUploadException(Severity.error, "Failed to retrieve file from job " + job.getId(), e);
     }
   }
@@ -484,31 +669,14 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
     } else {
       job.getPayload().setUrl(putPayloadIntoMediaPackage(job)); // else add file to target MP
     }
-    deletePayloadFile(job.getId()); // delete payload in temp directory
+    deletePayloadFile(job.getId()); // delete payload in temp directory, unless it has been moved
 
     job.setState(FileUploadJob.JobState.COMPLETE);
   }
 
-  /** Function that writes the given file to the uploaded collection. */
-  private Function2<InputStream, File, Option<URI>> putInCollection = new Function2<InputStream, File, Option<URI>>() {
-
-    @Override
-    public Option<URI> apply(InputStream is, File f) {
-      try {
-        URI uri = workspace.putInCollection(UPLOAD_COLLECTION, f.getName(), is); // storing file with jod id as name
-        // instead of original filename to
-        // avoid collisions (original filename
-        // can be obtained from upload job)
-        return Option.some(uri);
-      } catch (IOException e) {
-        logger.error("Could not add file to collection.", e);
-        return Option.none();
-      }
-    }
-  };
-
   /**
-   * Puts the payload of an upload job into the upload collection in the WFR and returns the URL to the file in the WFR.
+   * Moves the payload of an upload job into the upload collection in the WFR and returns the URL to the file in the
+   * WFR. The payload file is handed over to the workspace, which avoids copying it wherever possible.
    *
    * @param job
    * @return URL of the file in the WFR
@@ -516,16 +684,19 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
    */
   private URL putPayloadIntoCollection(FileUploadJob job) throws FileUploadException {
     logger.info("Moving payload of job " + job.getId() + " to collection " + UPLOAD_COLLECTION);
-    Option<URI> result = IoSupport.withFile(getPayloadFile(job.getId()), putInCollection).flatMap(
-            Functions.<Option<URI>> identity());
-    if (result.isSome()) {
-      try {
-        return result.get().toURL();
-      } catch (MalformedURLException e) {
-        throw fileUploadException(Severity.error, "Unable to return URL of payloads final destination.", e);
-      }
-    } else {
-      throw fileUploadException(Severity.error, "Failed to put payload in collection.");
+    File payloadFile = getPayloadFile(job.getId());
+    URI uri;
+    try {
+      // storing file with job id as name instead of original filename to avoid collisions (original filename can be
+      // obtained from upload job)
+      uri = workspace.adoptInCollection(UPLOAD_COLLECTION, payloadFile.getName(), payloadFile);
+    } catch (IOException e) {
+      throw fileUploadException(Severity.error, "Failed to put payload in collection.", e);
+    }
+    try {
+      return uri.toURL();
+    } catch (MalformedURLException e) {
+      throw fileUploadException(Severity.error, "Unable to return URL of payloads final destination.", e);
     }
   }
 
@@ -562,20 +733,6 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
     }
   }
 
-  /**
-   * Deletes the chunk file from working directory.
-   *
-   * @param id
-   *          ID of the job of which the chunk file should be deleted
-   */
-  private void deleteChunkFile(String id) {
-    final File chunkFile = getChunkFile(id);
-    logger.debug("Attempting to delete chunk file of job " + id);
-    if (!chunkFile.delete()) {
-      logger.warn("Could not delete chunk file " + chunkFile.getAbsolutePath());
-    }
-  }
-
   /**
    * Deletes the payload file from working directory.
    *
@@ -585,7 +742,7 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
   private void deletePayloadFile(String id) {
     final File payloadFile = getPayloadFile(id);
     logger.debug("Attempting to delete payload file of job " + id);
-    if (!payloadFile.delete()) {
+    if (payloadFile.exists() && !payloadFile.delete()) {
       logger.warn("Could not delete payload file " + payloadFile.getAbsolutePath());
     }
   }
@@ -621,19 +778,6 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
     return new File(sb.toString());
   }
 
-  /**
-   * Returns the chunk file for a given job ID.
-   *
-   * @param id
-   *          ID for which a chunk file name should be generated
-   * @return File chunk file
-   */
-  private File getChunkFile(String id) {
-    final StringBuilder sb = new StringBuilder().append(workRoot.getAbsolutePath()).append(File.separator).append(id)
-            .append(File.separator).append(FILENAME_CHUNKFILE);
-    return new File(sb.toString());
-  }
-
   /**
    * Returns the payload file for a given job ID.
    *
@@ -0,0 +1,215 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.fileupload.service;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.eq;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.opencastproject.fileupload.api.exception.FileUploadException;
+import org.opencastproject.fileupload.api.job.FileUploadJob;
+import org.opencastproject.workspace.api.Workspace;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.service.component.ComponentContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class FileUploadServiceImplTest {
+
+  private static final int CHUNK_SIZE = 4;
+
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
+  private FileUploadServiceImpl service;
+  private Workspace workspace;
+  private File collection;
+
+  @Before
+  public void setUp() throws Exception {
+    collection = testFolder.newFolder("collection");
+
+    // the workspace moves the payload into the collection
+    workspace = EasyMock.createMock(Workspace.class);
+    EasyMock.expect(workspace.adoptInCollection(eq(FileUploadServiceImpl.UPLOAD_COLLECTION), anyString(),
+            anyObject(File.class))).andAnswer(() -> {
+              final File dst = new File(collection, (String) EasyMock.getCurrentArguments()[1]);
+              FileUtils.moveFile((File) EasyMock.getCurrentArguments()[2], dst);
+              return dst.toURI();
+            }).once();
+    EasyMock.expect(workspace.read(anyObject(URI.class)))
+            .andAnswer(() -> new FileInputStream(new File((URI) EasyMock.getCurrentArguments()[0]))).anyTimes();
+    EasyMock.replay(workspace);
+
+    service = new FileUploadServiceImpl();
+    service.setWorkspace(workspace);
+    Hashtable<String, String> properties = new Hashtable<>();
+    properties.put(FileUploadServiceImpl.PROPKEY_UPLOAD_WORKDIR, testFolder.newFolder("work").getAbsolutePath());
+    properties.put(FileUploadServiceImpl.PROPKEY_CLEANER_MAXTTL, "6");
+    service.updated(properties);
+    ComponentContext cc = EasyMock.createNiceMock(ComponentContext.class);
+    EasyMock.replay(cc);
+    service.activate(cc);
+  }
+
+  @After
+  public void tearDown() {
+    service.deactivate(null);
+  }
+
+  @Test
+  public void testParallelChunksOutOfOrder() throws Exception {
+    final byte[] data = "0123456789".getBytes();
+    final String id = service.createJob("video.mp4", data.length, CHUNK_SIZE, null, null, true).getId();
+
+    service.acceptChunk(service.getJob(id), 2, chunk(data, 2));
+    service.acceptChunk(service.getJob(id), 0, chunk(data, 0));
+    assertEquals(FileUploadJob.JobState.READY, service.getJob(id).getState());
+    service.acceptChunk(service.getJob(id), 1, chunk(data, 1));
+
+    final FileUploadJob job = service.getJob(id);
+    assertEquals(FileUploadJob.JobState.COMPLETE, job.getState());
+    assertArrayEquals(data, payload(job));
+    EasyMock.verify(workspace);
+  }
+
+  @Test
+  public void testDuplicateChunkIsIgnored() throws Exception {
+    final byte[] data = "0123456789".getBytes();
+    final String id = service.createJob("video.mp4", data.length, CHUNK_SIZE, null, null, true).getId();
+
+    service.acceptChunk(service.getJob(id), 0, chunk(data, 0));
+    // the same chunk with other data must not overwrite the chunk or be counted twice
+    service.acceptChunk(service.getJob(id), 0, new ByteArrayInputStream("xxxx".getBytes()));
+    assertEquals(1, service.getJob(id).getChunksReceived());
+    assertEquals(CHUNK_SIZE, service.getJob(id).getPayload().getCurrentSize());
+
+    service.acceptChunk(service.getJob(id), 1, chunk(data, 1));
+    service.acceptChunk(service.getJob(id), 2, chunk(data, 2));
+    assertArrayEquals(data, payload(service.getJob(id)));
+
+    // chunks of a complete job are refused
+    try {
+      service.acceptChunk(service.getJob(id), 2, chunk(data, 2));
+      fail("Chunk of a complete job should have been refused");
+    } catch (FileUploadException e) {
+      // expected
+    }
+    EasyMock.verify(workspace);
+  }
+
+  @Test
+  public void testConcurrentChunks() throws Exception {
+    final byte[] data = new byte[64 * CHUNK_SIZE - 1];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    final String id = service.createJob("video.mp4", data.length, CHUNK_SIZE, null, null, true).getId();
+
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final CountDownLatch start = new CountDownLatch(1);
+      final List<Future<Void>> uploads = new ArrayList<>();
+      for (int i = 0; i < 64; i++) {
+        final int number = i;
+        uploads.add(executor.submit((Callable<Void>) () -> {
+          start.await();
+          service.acceptChunk(service.getJob(id), number, chunk(data, number));
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<Void> upload : uploads) {
+        upload.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    final FileUploadJob job = service.getJob(id);
+    assertEquals(FileUploadJob.JobState.COMPLETE, job.getState());
+    assertEquals(64, job.getChunksReceived());
+    assertArrayEquals(data, payload(job));
+    // finalized exactly once
+    EasyMock.verify(workspace);
+  }
+
+  @Test
+  public void testIncompletePayloadIsRefused() throws Exception {
+    final byte[] data = "0123456789".getBytes();
+    final String id = service.createJob("video.mp4", data.length, CHUNK_SIZE, null, null, true).getId();
+    service.acceptChunk(service.getJob(id), 0, chunk(data, 0));
+    service.acceptChunk(service.getJob(id), 2, chunk(data, 2));
+
+    try {
+      service.getPayload(service.getJob(id));
+      fail("Payload of an incomplete job should have been refused");
+    } catch (FileUploadException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testIncompleteSequentialPayloadIsReturned() throws Exception {
+    final byte[] data = "0123456789".getBytes();
+    final String id = service.createJob("video.mp4", data.length, CHUNK_SIZE, null, null, false).getId();
+    service.acceptChunk(service.getJob(id), 0, chunk(data, 0));
+
+    assertArrayEquals(Arrays.copyOf(data, CHUNK_SIZE), payload(service.getJob(id)));
+  }
+
+  private static InputStream chunk(byte[] data, int number) {
+    final int from = number * CHUNK_SIZE;
+    return new ByteArrayInputStream(Arrays.copyOfRange(data, from, Math.min(from + CHUNK_SIZE, data.length)));
+  }
+
+  private byte[] payload(FileUploadJob job) throws Exception {
+    try (InputStream in = service.getPayload(job)) {
+      return IOUtils.toByteArray(in);
+    }
+  }
+
+}
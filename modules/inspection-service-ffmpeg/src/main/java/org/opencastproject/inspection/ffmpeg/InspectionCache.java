@@ -0,0 +1,163 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.inspection.ffmpeg;
+
+import org.opencastproject.inspection.ffmpeg.api.MediaContainerMetadata;
+import org.opencastproject.util.Checksum;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Remembers the results of earlier media inspections, so that inspecting unchanged media again neither needs to run
+ * ffprobe nor to read the whole file again to compute its checksum.
+ * <p>
+ * Inspections are looked up in two ways:
+ * <ul>
+ * <li>By the identity of the file, i.e. its path, file key (the inode on most file systems), size and modification
+ * time. Hits require neither a checksum nor ffprobe.</li>
+ * <li>By the content of the file, i.e. its checksum and size. Hits avoid running ffprobe, e.g. for the same media in
+ * another location of the workspace.</li>
+ * </ul>
+ * Since the mime type and the adaptive playlist flag of the metadata are derived from the file name, both keys include
+ * the file name extension. Cached metadata must not be modified.
+ */
+final class InspectionCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(InspectionCache.class);
+
+  /** Default number of inspections to keep */
+  static final int DEFAULT_SIZE = 1000;
+
+  /** The result of an inspection */
+  static final class Inspection {
+    private final Checksum checksum;
+    private final MediaContainerMetadata metadata;
+
+    Inspection(Checksum checksum, MediaContainerMetadata metadata) {
+      this.checksum = checksum;
+      this.metadata = metadata;
+    }
+
+    /** Returns the checksum of the file, or <code>null</code> if it has not been computed. */
+    Checksum getChecksum() {
+      return checksum;
+    }
+
+    MediaContainerMetadata getMetadata() {
+      return metadata;
+    }
+  }
+
+  private final Cache<List<Object>, Inspection> byFile;
+
+  private final Cache<List<Object>, MediaContainerMetadata> byContent;
+
+  /**
+   * Creates a new cache.
+   *
+   * @param size
+   *          the maximum number of inspections to keep, 0 to disable caching
+   */
+  InspectionCache(int size) {
+    byFile = CacheBuilder.newBuilder().maximumSize(Math.max(0, size)).build();
+    byContent = CacheBuilder.newBuilder().maximumSize(Math.max(0, size)).build();
+  }
+
+  /**
+   * Returns the inspection of an unchanged file.
+   *
+   * @param file
+   *          the file
+   * @param accurateFrameCount
+   *          whether the frames have been counted accurately
+   * @return the inspection or <code>null</code> if the file has not been inspected or changed since
+   */
+  Inspection get(File file, boolean accurateFrameCount) {
+    final List<Object> key = fileKey(file, accurateFrameCount);
+    return key == null ? null : byFile.getIfPresent(key);
+  }
+
+  /**
+   * Returns the metadata of a file with the given content.
+   *
+   * @param file
+   *          the file
+   * @param checksum
+   *          the checksum computed from the file, never a checksum which has not been verified
+   * @param accurateFrameCount
+   *          whether the frames have been counted accurately
+   * @return the metadata or <code>null</code> if no file with the same content has been inspected
+   */
+  MediaContainerMetadata get(File file, Checksum checksum, boolean accurateFrameCount) {
+    return byContent.getIfPresent(contentKey(file, checksum, accurateFrameCount));
+  }
+
+  /**
+   * Stores the inspection of a file.
+   *
+   * @param file
+   *          the file
+   * @param inspection
+   *          the inspection, which is only stored by content if it contains a computed checksum
+   * @param accurateFrameCount
+   *          whether the frames have been counted accurately
+   */
+  void put(File file, Inspection inspection, boolean accurateFrameCount) {
+    final List<Object> key = fileKey(file, accurateFrameCount);
+    if (key != null) {
+      byFile.put(key, inspection);
+    }
+    if (inspection.checksum != null) {
+      byContent.put(contentKey(file, inspection.checksum, accurateFrameCount), inspection.metadata);
+    }
+  }
+
+  private static List<Object> fileKey(File file, boolean accurateFrameCount) {
+    final BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    } catch (IOException e) {
+      logger.debug("Unable to read attributes of {}", file, e);
+      return null;
+    }
+    return Arrays.asList(file.getAbsolutePath(), attributes.fileKey(), attributes.size(),
+        attributes.lastModifiedTime().toMillis(), accurateFrameCount);
+  }
+
+  private static List<Object> contentKey(File file, Checksum checksum, boolean accurateFrameCount) {
+    return Arrays.asList(checksum, file.length(), FilenameUtils.getExtension(file.getName()).toLowerCase(),
+        accurateFrameCount);
+  }
+
+}
@@ -37,6 +37,7 @@ import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.workspace.api.Workspace;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -50,6 +51,7 @@ import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /** Inspects media via ffprobe. */
 @Component(
@@ -74,6 +76,9 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
   /** The key to look for in the service configuration file to override the {@link DEFAULT_ENRICH_JOB_LOAD} */
   public static final String ENRICH_JOB_LOAD_KEY = "job.load.enrich";
 
+  /** The key to look for in the service configuration file for the number of inspections to cache */
+  public static final String INSPECTION_CACHE_SIZE_KEY = "inspection.cache.size";
+
   /** The load introduced on the system by creating an inspect job */
   private float inspectJobLoad = DEFAULT_INSPECT_JOB_LOAD;
 
@@ -114,7 +119,14 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
       logger.debug("FFprobe config binary: {}", path);
       ffprobeBinary = path;
     }
-    inspector = new MediaInspector(workspace, ffprobeBinary);
+    int cacheSize = InspectionCache.DEFAULT_SIZE;
+    final Dictionary<String, Object> properties = cc.getProperties();
+    if (properties != null) {
+      cacheSize = NumberUtils.toInt(Objects.toString(properties.get(INSPECTION_CACHE_SIZE_KEY), null),
+              InspectionCache.DEFAULT_SIZE);
+    }
+    logger.debug("Caching up to {} inspections", cacheSize);
+    inspector = new MediaInspector(workspace, ffprobeBinary, new InspectionCache(cacheSize));
   }
 
   @Modified
@@ -76,10 +76,16 @@ public class MediaInspector {
 
   private final Workspace workspace;
   private final String ffprobePath;
+  private final InspectionCache cache;
 
   public MediaInspector(Workspace workspace, String ffprobePath) {
+    this(workspace, ffprobePath, new InspectionCache(InspectionCache.DEFAULT_SIZE));
+  }
+
+  MediaInspector(Workspace workspace, String ffprobePath, InspectionCache cache) {
     this.workspace = workspace;
     this.ffprobePath = ffprobePath;
+    this.cache = cache;
   }
 
   /**
@@ -112,7 +118,8 @@ public class MediaInspector {
         throw new MediaInspectionException("Can not inspect files without a filename extension");
       }
 
-      MediaContainerMetadata metadata = getFileMetadata(file, getAccurateFrameCount(options));
+      InspectionCache.Inspection inspection = inspectFile(file, getAccurateFrameCount(options), null);
+      MediaContainerMetadata metadata = inspection.getMetadata();
       if (metadata == null) {
         throw new MediaInspectionException("Media analyzer returned no metadata from " + file);
       } else {
@@ -131,11 +138,7 @@ public class MediaInspector {
           track.setDuration(metadata.getDuration());
 
         // Checksum
-        try {
-          track.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, file));
-        } catch (IOException e) {
-          throw new MediaInspectionException("Unable to read " + file, e);
-        }
+        track.setChecksum(inspection.getChecksum());
 
         // Mimetype
         track.setMimeType(metadata.getMimeType());
@@ -233,7 +236,10 @@ public class MediaInspector {
         throw new MediaInspectionException("Can not inspect files without a filename extension");
       }
 
-      MediaContainerMetadata metadata = getFileMetadata(file, getAccurateFrameCount(options));
+      // The checksum is only computed if it is missing or overridden
+      Checksum knownChecksum = override ? null : originalTrack.getChecksum();
+      InspectionCache.Inspection inspection = inspectFile(file, getAccurateFrameCount(options), knownChecksum);
+      MediaContainerMetadata metadata = inspection.getMetadata();
       if (metadata == null) {
         throw new MediaInspectionException("Unable to acquire media metadata for " + originalTrackUrl);
       } else {
@@ -268,11 +274,7 @@ public class MediaInspector {
         if (track.getDuration() == null || override)
           track.setDuration(metadata.getDuration());
         if (track.getChecksum() == null || override) {
-          try {
-            track.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, file));
-          } catch (IOException e) {
-            throw new MediaInspectionException("Unable to read " + file, e);
-          }
+          track.setChecksum(inspection.getChecksum());
         }
 
         // Add the mime type if it's not already present
@@ -375,6 +377,59 @@ public class MediaInspector {
     }
   }
 
+  /**
+   * Inspects a file, reusing the result of an earlier inspection of the same file or of a file with the same content.
+   * Files are read at most once to compute their checksum, which also brings them into the page cache for the media
+   * analyzer. Files with a known checksum are not read to compute one, so they are only found in the cache by file.
+   *
+   * @param file
+   *          the file
+   * @param accurateFrameCount
+   *          whether to count the frames accurately
+   * @param knownChecksum
+   *          the checksum of the file if already known, <code>null</code> to compute it
+   * @return the inspection containing the file's checksum and metadata, which must not be modified
+   * @throws MediaInspectionException
+   *           if reading the file or metadata extraction fails
+   */
+  private InspectionCache.Inspection inspectFile(File file, boolean accurateFrameCount, Checksum knownChecksum)
+          throws MediaInspectionException {
+    InspectionCache.Inspection inspection = cache.get(file, accurateFrameCount);
+    if (inspection != null && (inspection.getChecksum() != null || knownChecksum != null)) {
+      logger.debug("Using cached inspection of unchanged file {}", file);
+      return inspection;
+    }
+
+    Checksum checksum = null;
+    if (knownChecksum == null) {
+      try {
+        checksum = Checksum.create(ChecksumType.DEFAULT_TYPE, file);
+      } catch (IOException e) {
+        throw new MediaInspectionException("Unable to read " + file, e);
+      }
+    }
+
+    MediaContainerMetadata metadata = inspection != null ? inspection.getMetadata() : null;
+    // Inspections are only looked up by content with a checksum computed from the file, since a known checksum taken
+    // from the media package is not verified and must not select the metadata of other content
+    if (metadata == null && checksum != null) {
+      metadata = cache.get(file, checksum, accurateFrameCount);
+      if (metadata != null) {
+        logger.debug("Using cached inspection of media with checksum {} for {}", checksum, file);
+      }
+    }
+    if (metadata == null) {
+      metadata = getFileMetadata(file, accurateFrameCount);
+    }
+
+    // Only computed checksums are cached, since known checksums are not verified
+    inspection = new InspectionCache.Inspection(checksum, metadata);
+    if (metadata != null) {
+      cache.put(file, inspection, accurateFrameCount);
+    }
+    return knownChecksum == null ? inspection : new InspectionCache.Inspection(knownChecksum, metadata);
+  }
+
   /**
    * Asks the media analyzer to extract the file's metadata.
    *
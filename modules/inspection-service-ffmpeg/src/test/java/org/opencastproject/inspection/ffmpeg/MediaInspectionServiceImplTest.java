@@ -26,11 +26,13 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.opencastproject.util.MimeType.mimeType;
 import static org.opencastproject.util.data.Option.none;
 import static org.opencastproject.util.data.Option.some;
 import static org.opencastproject.util.data.functions.Misc.chuck;
 
+import org.opencastproject.inspection.api.MediaInspectionException;
 import org.opencastproject.inspection.api.util.Options;
 import org.opencastproject.mediapackage.AudioStream;
 import org.opencastproject.mediapackage.Track;
@@ -42,10 +44,13 @@ import org.opencastproject.util.MimeType;
 import org.opencastproject.util.data.Option;
 import org.opencastproject.workspace.api.Workspace;
 
+import org.apache.commons.io.FileUtils;
 import org.easymock.EasyMock;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +64,9 @@ public class MediaInspectionServiceImplTest {
   /** True to run the tests */
   private static Option<String> ffprobePath;
 
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
   @BeforeClass
   public static void setupClass() {
     try {
@@ -189,4 +197,57 @@ public class MediaInspectionServiceImplTest {
     }
   }
 
+
+  @Test
+  public void testInspectionCache() throws Exception {
+    final URI trackUri = getResource("/test.mp4");
+    final File copy = testFolder.newFile("copy.mp4");
+    FileUtils.copyFile(new File(trackUri), copy);
+    final File renamed = testFolder.newFile("copy.mov");
+    FileUtils.copyFile(new File(trackUri), renamed);
+    final File other = testFolder.newFile("other.mp4");
+    FileUtils.copyFile(new File(getResource("/nostreams.mp4")), other);
+
+    for (String binary : ffprobePath) {
+      final Workspace workspace = EasyMock.createNiceMock(Workspace.class);
+      EasyMock.expect(workspace.get(trackUri)).andReturn(new File(trackUri)).anyTimes();
+      EasyMock.expect(workspace.get(copy.toURI())).andReturn(copy).anyTimes();
+      EasyMock.expect(workspace.get(renamed.toURI())).andReturn(renamed).anyTimes();
+      EasyMock.expect(workspace.get(other.toURI())).andReturn(other).anyTimes();
+      EasyMock.replay(workspace);
+
+      final InspectionCache cache = new InspectionCache(InspectionCache.DEFAULT_SIZE);
+      final Track track = new MediaInspector(workspace, binary, cache).inspectTrack(trackUri, Options.NO_OPTION);
+
+      // An inspector without a working ffprobe binary can only inspect media found in the cache
+      final MediaInspector cachedOnly = new MediaInspector(workspace, "/nonexistent/ffprobe", cache);
+      final Track cached = cachedOnly.inspectTrack(trackUri, Options.NO_OPTION);
+      assertEquals(track.getChecksum(), cached.getChecksum());
+      assertEquals(track.getDuration(), cached.getDuration());
+      assertEquals(track.getStreams().length, cached.getStreams().length);
+
+      // Same content in another file
+      final Track copied = cachedOnly.inspectTrack(copy.toURI(), Options.NO_OPTION);
+      assertEquals(track.getChecksum(), copied.getChecksum());
+      assertEquals(track.getMimeType(), copied.getMimeType());
+
+      // Same content with a different file name extension needs to be inspected again
+      try {
+        cachedOnly.inspectTrack(renamed.toURI(), Options.NO_OPTION);
+        fail("Inspection should fail without ffprobe");
+      } catch (MediaInspectionException e) {
+        // expected
+      }
+
+      // Other content claiming the checksum of cached content is not taken from the cache
+      final Track claimed = (Track) track.clone();
+      claimed.setURI(other.toURI());
+      try {
+        cachedOnly.enrich(claimed, false, Options.NO_OPTION);
+        fail("Inspection should fail without ffprobe");
+      } catch (MediaInspectionException e) {
+        // expected
+      }
+    }
+  }
 }
@@ -27,4 +27,22 @@ package org.opencastproject.kernel.security;
 public interface HttpConnectionMXBean {
   /** Gets the number of open http connections */
   int getOpenConnections();
+
+  /** Gets the number of pooled connections currently in use */
+  int getLeasedConnections();
+
+  /** Gets the number of idle pooled connections ready to be reused */
+  int getAvailableConnections();
+
+  /** Gets the number of requests waiting for a pooled connection */
+  int getPendingConnections();
+
+  /** Gets the maximum number of pooled connections */
+  int getMaxConnections();
+
+  /** Gets the number of requests which have been authenticated with a cached digest nonce */
+  long getDigestNonceReuses();
+
+  /** Gets the number of digest nonces which have been requested from remote servers */
+  long getDigestNonceRequests();
 }
@@ -41,21 +41,32 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.http.Header;
 import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.AuthSchemes;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
 import org.apache.http.impl.auth.DigestScheme;
+import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -71,6 +82,8 @@ import java.lang.management.ManagementFactory;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -118,6 +131,27 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   public static final String NONCE_TIMEOUT_RETRY_MAXIMUM_VARIABLE_TIME_KEY =
     "org.opencastproject.security.digest.nonce.variable.time";
 
+  /** The configuration property enabling a shared, pooled http client with cached digest authentication */
+  public static final String POOL_ENABLED_KEY = "org.opencastproject.security.http.client.pool.enabled";
+
+  /** The configuration property specifying the maximum number of pooled connections */
+  public static final String POOL_MAX_TOTAL_KEY = "org.opencastproject.security.http.client.pool.max.total";
+
+  /** The configuration property specifying the maximum number of pooled connections per remote host */
+  public static final String POOL_MAX_PER_ROUTE_KEY = "org.opencastproject.security.http.client.pool.max.per.route";
+
+  /** The configuration property specifying the time in seconds after which idle pooled connections are closed */
+  public static final String POOL_IDLE_TIMEOUT_KEY = "org.opencastproject.security.http.client.pool.idle.timeout";
+
+  /** The default maximum number of pooled connections */
+  public static final int DEFAULT_POOL_MAX_TOTAL = 200;
+
+  /** The default maximum number of pooled connections per remote host */
+  public static final int DEFAULT_POOL_MAX_PER_ROUTE = 20;
+
+  /** The default time in seconds after which idle pooled connections are closed */
+  public static final int DEFAULT_POOL_IDLE_TIMEOUT = 60;
+
   /** The default time until a connection attempt fails */
   public static final int DEFAULT_CONNECTION_TIMEOUT = 60 * 1000;
 
@@ -175,6 +209,27 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   /** The url signing service */
   protected UrlSigningService urlSigningService = null;
 
+  /** The connection manager of the shared http client, or <code>null</code> if a client is built for each request */
+  private PoolingHttpClientConnectionManager connectionManager = null;
+
+  /** The shared http client, or <code>null</code> if a client is built for each request */
+  private CloseableHttpClient pooledClient = null;
+
+  /** The responses of the shared http client, which need to be closed to release their connection */
+  protected Map<HttpResponse, CloseableHttpResponse> pooledResponseMap = new ConcurrentHashMap<>();
+
+  /** Digest authentication state of GET and HEAD requests sent through the shared http client */
+  private final AuthCache authCache = new BasicAuthCache();
+
+  /** Digest challenges per remote host, reused for requests which are not GET or HEAD until they are rejected */
+  private final Map<HttpHost, DigestScheme> digestSchemes = new ConcurrentHashMap<>();
+
+  /** The number of requests authenticated with a cached digest nonce */
+  private final AtomicLong digestNonceReuses = new AtomicLong();
+
+  /** The number of digest nonces requested from remote hosts */
+  private final AtomicLong digestNonceRequests = new AtomicLong();
+
   @Activate
   public void activate(ComponentContext cc) {
     logger.debug("activate");
@@ -187,6 +242,24 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     getRetryBaseTime(cc);
     getRetryMaximumVariableTime(cc);
 
+    if (pooledClient == null
+            && Boolean.parseBoolean(StringUtils.trimToNull(cc.getBundleContext().getProperty(POOL_ENABLED_KEY)))) {
+      connectionManager = new PoolingHttpClientConnectionManager();
+      connectionManager.setMaxTotal(getIntFromComponentContext(cc, POOL_MAX_TOTAL_KEY, DEFAULT_POOL_MAX_TOTAL));
+      connectionManager.setDefaultMaxPerRoute(
+          getIntFromComponentContext(cc, POOL_MAX_PER_ROUTE_KEY, DEFAULT_POOL_MAX_PER_ROUTE));
+      final int idleTimeout = getIntFromComponentContext(cc, POOL_IDLE_TIMEOUT_KEY, DEFAULT_POOL_IDLE_TIMEOUT);
+      pooledClient = makeHttpClientBuilder(DEFAULT_CONNECTION_TIMEOUT, DEFAULT_SOCKET_TIMEOUT)
+          .setConnectionManager(connectionManager)
+          // Requests of all users and organizations share the client, so they must not share cookies
+          .disableCookieManagement()
+          .evictExpiredConnections()
+          .evictIdleConnections(idleTimeout, TimeUnit.SECONDS)
+          .build();
+      logger.info("Using pooled http connections, at most {} in total and {} per host",
+          connectionManager.getMaxTotal(), connectionManager.getDefaultMaxPerRoute());
+    }
+
     // register with jmx
     try {
       MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
@@ -320,6 +393,16 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   @Deactivate
   public void deactivate() {
     logger.debug("deactivate");
+    if (pooledClient != null) {
+      try {
+        pooledClient.close();
+      } catch (IOException e) {
+        logger.warn("Unable to close pooled http client", e);
+      }
+      pooledClient = null;
+      connectionManager = null;
+      digestSchemes.clear();
+    }
   }
 
   public TrustedHttpClientImpl() {
@@ -369,6 +452,10 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
       }
     }
 
+    if (pooledClient != null) {
+      return executePooled(httpUriRequest, connectionTimeout, socketTimeout);
+    }
+
     final HttpClientBuilder clientBuilder = makeHttpClientBuilder(connectionTimeout, socketTimeout);
     if ("GET".equalsIgnoreCase(httpUriRequest.getMethod()) || "HEAD".equalsIgnoreCase(httpUriRequest.getMethod())) {
       // Set the user/pass
@@ -421,6 +508,198 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     }
   }
 
+  /**
+   * Executes a request through the shared http client. GET and HEAD requests are authenticated by the http client
+   * itself, sharing the digest authentication state across requests. Other requests are authenticated with a digest
+   * challenge cached per host, so the additional round trip to get a nonce is only necessary once the server rejects
+   * the cached one. Requests with a body which cannot be repeated always ask for a fresh challenge first.
+   */
+  private HttpResponse executePooled(HttpUriRequest httpUriRequest, int connectionTimeout, int socketTimeout)
+          throws TrustedHttpClientException {
+    CloseableHttpResponse response = null;
+    try {
+      if ("GET".equalsIgnoreCase(httpUriRequest.getMethod()) || "HEAD".equalsIgnoreCase(httpUriRequest.getMethod())) {
+        CredentialsProvider provider = new BasicCredentialsProvider();
+        provider.setCredentials(
+            new AuthScope(AuthScope.ANY_HOST, AuthScope.ANY_PORT, AuthScope.ANY_REALM, AuthSchemes.DIGEST),
+            new UsernamePasswordCredentials(user, pass));
+        HttpClientContext context = createContext(connectionTimeout, socketTimeout, provider);
+        context.setAuthCache(authCache);
+        httpUriRequest = getSignedUrl(httpUriRequest);
+        response = pooledClient.execute(httpUriRequest, context);
+        return registerPooledResponse(response);
+      }
+
+      // Keep the http client from handling authentication on its own, we take care of it. A request body which cannot
+      // be sent twice is always sent with a fresh nonce, since it could not be repeated if a cached one was rejected.
+      final HttpHost host = URIUtils.extractHost(httpUriRequest.getURI());
+      DigestScheme digestScheme = isRepeatable(httpUriRequest) ? digestSchemes.get(host) : null;
+      final boolean reused = digestScheme != null;
+      if (reused) {
+        digestNonceReuses.incrementAndGet();
+      } else {
+        digestScheme = requestDigestScheme(httpUriRequest, host, connectionTimeout, socketTimeout);
+      }
+      authenticate(httpUriRequest, digestScheme);
+      response = pooledClient.execute(httpUriRequest,
+          createContext(connectionTimeout, socketTimeout, new BasicCredentialsProvider()));
+
+      if (digestScheme != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED) {
+        digestSchemes.remove(host, digestScheme);
+        if (reused) {
+          logger.debug("Cached digest nonce for {} has been rejected, requesting a new one", host);
+          closeQuietly(response);
+          response = null;
+          digestScheme = requestDigestScheme(httpUriRequest, host, connectionTimeout, socketTimeout);
+          authenticate(httpUriRequest, digestScheme);
+          response = pooledClient.execute(httpUriRequest,
+              createContext(connectionTimeout, socketTimeout, new BasicCredentialsProvider()));
+        }
+      }
+
+      for (int i = 0; i < nonceTimeoutRetries && hadNonceTimeoutResponse(response); i++) {
+        closeQuietly(response);
+        response = null;
+        sleepBeforeNonceTimeoutRetry(httpUriRequest);
+        digestScheme = requestDigestScheme(httpUriRequest, host, connectionTimeout, socketTimeout);
+        authenticate(httpUriRequest, digestScheme);
+        response = pooledClient.execute(httpUriRequest,
+            createContext(connectionTimeout, socketTimeout, new BasicCredentialsProvider()));
+      }
+      return registerPooledResponse(response);
+    } catch (TrustedHttpClientException e) {
+      closeQuietly(response);
+      throw e;
+    } catch (Exception e) {
+      closeQuietly(response);
+      throw new TrustedHttpClientException(e);
+    }
+  }
+
+  /** Creates the context for a single request through the shared http client. */
+  private HttpClientContext createContext(int connectionTimeout, int socketTimeout, CredentialsProvider provider) {
+    HttpClientContext context = HttpClientContext.create();
+    context.setRequestConfig(RequestConfig.custom()
+        .setConnectionRequestTimeout(connectionTimeout)
+        .setSocketTimeout(socketTimeout).build());
+    context.setCredentialsProvider(provider);
+    return context;
+  }
+
+  private HttpResponse registerPooledResponse(CloseableHttpResponse response) {
+    HttpResponse wrapper = new HttpResponseWrapper(response);
+    pooledResponseMap.put(wrapper, response);
+    return wrapper;
+  }
+
+  /**
+   * Closes a response. If its body has been read completely, the connection has already been released back to the
+   * pool. Otherwise, the connection is shut down rather than reading the rest of a possibly large body.
+   */
+  private void closeQuietly(CloseableHttpResponse response) {
+    if (response == null) {
+      return;
+    }
+    try {
+      response.close();
+    } catch (IOException e) {
+      logger.debug("Unable to close response", e);
+    }
+  }
+
+  /** Whether the request can be sent a second time, which is not the case for streamed request bodies. */
+  private boolean isRepeatable(HttpUriRequest httpUriRequest) {
+    if (!(httpUriRequest instanceof HttpEntityEnclosingRequest)) {
+      return true;
+    }
+    final HttpEntityEnclosingRequest request = (HttpEntityEnclosingRequest) httpUriRequest;
+    return request.getEntity() == null || request.getEntity().isRepeatable();
+  }
+
+  /**
+   * Sets the digest authentication header on the request. The scheme is shared between requests to the same host, so
+   * the nonce count is incremented for each of them.
+   */
+  private void authenticate(HttpUriRequest httpUriRequest, DigestScheme digestScheme)
+          throws TrustedHttpClientException {
+    httpUriRequest.removeHeaders(AUTHORIZATION_HEADER_NAME);
+    if (digestScheme == null) {
+      return;
+    }
+    try {
+      synchronized (digestScheme) {
+        httpUriRequest.setHeader(digestScheme.authenticate(new UsernamePasswordCredentials(user, pass),
+            httpUriRequest));
+      }
+    } catch (Exception e) {
+      throw new TrustedHttpClientException(e);
+    }
+  }
+
+  /**
+   * Asks the remote host for a new digest challenge and caches it for subsequent requests to that host.
+   *
+   * @return the digest scheme or <code>null</code> if the host does not ask for digest authentication
+   */
+  private DigestScheme requestDigestScheme(HttpUriRequest httpUriRequest, HttpHost host, int connectionTimeout,
+          int socketTimeout) throws TrustedHttpClientException {
+    HttpRequestBase digestRequest;
+    try {
+      digestRequest = (HttpRequestBase) httpUriRequest.getClass().newInstance();
+    } catch (Exception e) {
+      throw new IllegalStateException("Can not create a new " + httpUriRequest.getClass().getName());
+    }
+    digestRequest.setURI(httpUriRequest.getURI());
+    digestRequest.setHeader(REQUESTED_AUTH_HEADER, DIGEST_AUTH);
+    digestNonceRequests.incrementAndGet();
+
+    CloseableHttpResponse response = null;
+    try {
+      response = pooledClient.execute(digestRequest,
+          createContext(connectionTimeout, socketTimeout, new BasicCredentialsProvider()));
+      for (Header header : response.getHeaders("WWW-Authenticate")) {
+        if (StringUtils.startsWithIgnoreCase(header.getValue(), AuthSchemes.DIGEST)) {
+          DigestScheme digestScheme = new DigestScheme();
+          digestScheme.processChallenge(header);
+          digestSchemes.put(host, digestScheme);
+          return digestScheme;
+        }
+      }
+      logger.warn("URI {} does not support digest authentication", httpUriRequest.getURI());
+      return null;
+    } catch (Exception e) {
+      throw new TrustedHttpClientException(e);
+    } finally {
+      // The short body of the challenge is read so that the connection can be reused for the actual request
+      if (response != null) {
+        EntityUtils.consumeQuietly(response.getEntity());
+      }
+      closeQuietly(response);
+    }
+  }
+
+  /**
+   * Waits for the configured amount of time before retrying a request after a nonce timeout.
+   */
+  private void sleepBeforeNonceTimeoutRetry(HttpUriRequest httpUriRequest) {
+    int variableDelay = 0;
+    // Make sure that we have a variable delay greater than 0.
+    if (retryMaximumVariableTime > 0) {
+      variableDelay = generator.nextInt(retryMaximumVariableTime * MILLISECONDS_IN_SECONDS);
+    }
+
+    long totalDelay = (retryBaseDelay * MILLISECONDS_IN_SECONDS + variableDelay);
+    if (totalDelay > 0) {
+      logger.info("Sleeping {}ms before trying request {} again due to a nonce timeout", totalDelay,
+          httpUriRequest.getURI());
+      try {
+        Thread.sleep(totalDelay);
+      } catch (InterruptedException e) {
+        logger.error("Suffered InteruptedException while trying to sleep until next retry.", e);
+      }
+    }
+  }
+
   /**
    * If the request is a GET, sign the URL and return a new {@link HttpUriRequest} that is signed.
    *
@@ -569,6 +848,11 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   @Override
   public void close(HttpResponse response) throws IOException {
     if (response != null) {
+      CloseableHttpResponse pooledResponse = pooledResponseMap.remove(response);
+      if (pooledResponse != null) {
+        closeQuietly(pooledResponse);
+        return;
+      }
       CloseableHttpClient httpClient = responseMap.remove(response);
       if (httpClient != null) {
         httpClient.close();
@@ -617,7 +901,45 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
 
   @Override
   public int getOpenConnections() {
-    return responseMap.size();
+    return responseMap.size() + pooledResponseMap.size();
+  }
+
+  @Override
+  public int getLeasedConnections() {
+    return getPoolStats().getLeased();
+  }
+
+  @Override
+  public int getAvailableConnections() {
+    return getPoolStats().getAvailable();
+  }
+
+  @Override
+  public int getPendingConnections() {
+    return getPoolStats().getPending();
+  }
+
+  @Override
+  public int getMaxConnections() {
+    return getPoolStats().getMax();
+  }
+
+  @Override
+  public long getDigestNonceReuses() {
+    return digestNonceReuses.get();
+  }
+
+  @Override
+  public long getDigestNonceRequests() {
+    return digestNonceRequests.get();
+  }
+
+  private PoolStats getPoolStats() {
+    final PoolingHttpClientConnectionManager cm = connectionManager;
+    if (cm == null) {
+      return new PoolStats(0, 0, 0, 0);
+    }
+    return cm.getTotalStats();
   }
 
   /**
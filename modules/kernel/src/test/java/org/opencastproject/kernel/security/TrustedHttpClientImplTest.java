@@ -39,6 +39,8 @@ import org.opencastproject.security.urlsigning.exception.UrlSigningException;
 import org.opencastproject.security.urlsigning.service.UrlSigningService;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 
+import com.sun.net.httpserver.HttpServer;
+
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.ProtocolVersion;
@@ -48,10 +50,13 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.message.BasicStatusLine;
+import org.apache.http.util.EntityUtils;
 import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.junit.Assert;
@@ -60,7 +65,15 @@ import org.junit.Test;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.ComponentContext;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class TrustedHttpClientImplTest {
 
@@ -638,4 +651,146 @@ public class TrustedHttpClientImplTest {
     assertEquals(client.getSignedUrl(notGetOrHead), notGetOrHead);
     assertEquals(client.getSignedUrl(ok).getURI().toString(), signedOk);
   }
+
+  /** Starts a server which sets a session cookie and records the client port and cookies of each request. */
+  private HttpServer startServer(List<Integer> ports, List<String> cookies) throws IOException {
+    final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", exchange -> {
+      ports.add(exchange.getRemoteAddress().getPort());
+      cookies.add(String.valueOf(exchange.getRequestHeaders().getFirst("Cookie")));
+      exchange.getResponseHeaders().add("Set-Cookie", "JSESSIONID=" + ports.size() + "; Path=/");
+      final byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.start();
+    return server;
+  }
+
+  private TrustedHttpClientImpl createPooledClient() {
+    final BundleContext bundleContext = createNiceMock(BundleContext.class);
+    expect(bundleContext.getProperty(TrustedHttpClientImpl.DIGEST_AUTH_USER_KEY)).andReturn("u").anyTimes();
+    expect(bundleContext.getProperty(TrustedHttpClientImpl.DIGEST_AUTH_PASS_KEY)).andReturn("p").anyTimes();
+    expect(bundleContext.getProperty(TrustedHttpClientImpl.POOL_ENABLED_KEY)).andReturn("true").anyTimes();
+    replay(bundleContext);
+    final ComponentContext cc = createNiceMock(ComponentContext.class);
+    expect(cc.getBundleContext()).andReturn(bundleContext).anyTimes();
+    replay(cc);
+    final UrlSigningService urlSigningService = createNiceMock(UrlSigningService.class);
+    replay(urlSigningService);
+
+    final TrustedHttpClientImpl pooledClient = new TrustedHttpClientImpl("u", "p");
+    pooledClient.setServiceRegistry(serviceRegistry);
+    pooledClient.setSecurityService(securityService);
+    pooledClient.setUrlSigningService(urlSigningService);
+    pooledClient.activate(cc);
+    return pooledClient;
+  }
+
+  @Test
+  public void testPooledConnectionsAreReused() throws Exception {
+    final List<Integer> ports = new CopyOnWriteArrayList<>();
+    final HttpServer server = startServer(ports, new CopyOnWriteArrayList<>());
+    final TrustedHttpClientImpl pooledClient = createPooledClient();
+    try {
+      final String url = "http://localhost:" + server.getAddress().getPort() + "/";
+      for (int i = 0; i < 3; i++) {
+        final HttpResponse response = pooledClient.execute(new HttpGet(url));
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        EntityUtils.consume(response.getEntity());
+        pooledClient.close(response);
+        assertEquals(0, pooledClient.getLeasedConnections());
+      }
+      assertEquals(3, ports.size());
+      assertEquals(1, new HashSet<>(ports).size());
+      assertEquals(0, pooledClient.getOpenConnections());
+    } finally {
+      pooledClient.deactivate();
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void testPooledConnectionIsClosedIfBodyIsNotRead() throws Exception {
+    final List<Integer> ports = new CopyOnWriteArrayList<>();
+    final HttpServer server = startServer(ports, new CopyOnWriteArrayList<>());
+    final TrustedHttpClientImpl pooledClient = createPooledClient();
+    try {
+      final String url = "http://localhost:" + server.getAddress().getPort() + "/";
+      for (int i = 0; i < 2; i++) {
+        final HttpResponse response = pooledClient.execute(new HttpGet(url));
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        // the rest of the body is not read on close, so the connection cannot be reused
+        pooledClient.close(response);
+        assertEquals(0, pooledClient.getLeasedConnections());
+      }
+      assertEquals(2, new HashSet<>(ports).size());
+    } finally {
+      pooledClient.deactivate();
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void testPooledStreamedRequestsUseFreshNonce() throws Exception {
+    final List<String> requests = new CopyOnWriteArrayList<>();
+    final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", exchange -> {
+      exchange.getRequestBody().readAllBytes();
+      if (exchange.getRequestHeaders().containsKey("Authorization")) {
+        requests.add("request");
+        exchange.sendResponseHeaders(204, -1);
+      } else {
+        requests.add("challenge");
+        exchange.getResponseHeaders().add("WWW-Authenticate",
+            "Digest realm=\"test\", qop=\"auth\", nonce=\"" + requests.size() + "\"");
+        exchange.sendResponseHeaders(401, -1);
+      }
+      exchange.close();
+    });
+    server.start();
+    final TrustedHttpClientImpl pooledClient = createPooledClient();
+    try {
+      final String url = "http://localhost:" + server.getAddress().getPort() + "/";
+      for (int i = 0; i < 2; i++) {
+        final HttpPost post = new HttpPost(url);
+        post.setEntity(new StringEntity("repeatable"));
+        pooledClient.close(pooledClient.execute(post));
+      }
+      // the cached nonce is reused for repeatable requests
+      assertEquals(Arrays.asList("challenge", "request", "request"), requests);
+
+      requests.clear();
+      for (int i = 0; i < 2; i++) {
+        final HttpPost post = new HttpPost(url);
+        post.setEntity(new InputStreamEntity(new ByteArrayInputStream("streamed".getBytes(StandardCharsets.UTF_8))));
+        pooledClient.close(pooledClient.execute(post));
+      }
+      // streamed bodies cannot be sent again if a cached nonce is rejected
+      assertEquals(Arrays.asList("challenge", "request", "challenge", "request"), requests);
+    } finally {
+      pooledClient.deactivate();
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void testPooledRequestsDoNotShareCookies() throws Exception {
+    final List<String> cookies = new CopyOnWriteArrayList<>();
+    final HttpServer server = startServer(new CopyOnWriteArrayList<>(), cookies);
+    final TrustedHttpClientImpl pooledClient = createPooledClient();
+    try {
+      final String url = "http://localhost:" + server.getAddress().getPort() + "/";
+      for (int i = 0; i < 2; i++) {
+        final HttpResponse response = pooledClient.execute(new HttpGet(url));
+        assertEquals("ok", EntityUtils.toString(response.getEntity()));
+        pooledClient.close(response);
+      }
+      assertEquals(Arrays.asList("null", "null"), cookies);
+    } finally {
+      pooledClient.deactivate();
+      server.stop(0);
+    }
+  }
 }
@@ -22,7 +22,6 @@
 package org.opencastproject.metrics.impl;
 
 import org.opencastproject.assetmanager.api.AssetManager;
-import org.opencastproject.job.api.Job;
 import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.OrganizationDirectoryService;
 import org.opencastproject.serviceregistry.api.ServiceRegistration;
@@ -32,11 +31,13 @@ import org.opencastproject.serviceregistry.api.SystemLoad;
 import org.opencastproject.util.doc.rest.RestQuery;
 import org.opencastproject.util.doc.rest.RestResponse;
 import org.opencastproject.util.doc.rest.RestService;
+import org.opencastproject.util.metrics.Metrics;
 
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Version;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
@@ -44,9 +45,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.StringWriter;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletResponse;
@@ -105,16 +104,6 @@ public class MetricsExporter {
       .help("Maximum job load")
       .labelNames("host")
       .register();
-  private final Gauge jobsActive = Gauge.build()
-      .name("opencast_job_active")
-      .help("Active jobs")
-      .labelNames("host", "organization")
-      .register();
-  private final Gauge workflowsActive = Gauge.build()
-      .name("opencast_workflow_active")
-      .help("Active workflows")
-      .labelNames("organization")
-      .register();
   private final Gauge servicesTotal = Gauge.build()
       .name("opencast_services_total")
       .help("Number of services in a cluster")
@@ -125,7 +114,17 @@ public class MetricsExporter {
       .help("Version of Opencast (based on metrics module)")
       .labelNames("part")
       .register();
-  private Gauge eventsInAssetManager;
+
+  // Maintained by the service registry and the asset manager as jobs and snapshots change
+  private final org.opencastproject.util.metrics.Gauge jobsActive = Metrics.gauge("opencast_job_active",
+      "Active jobs", "host", "organization");
+  private final org.opencastproject.util.metrics.Gauge workflowsActive = Metrics.gauge("opencast_workflow_active",
+      "Active workflows", "organization");
+  private final org.opencastproject.util.metrics.Gauge eventsInAssetManager = Metrics.gauge(
+      "opencast_asset_manager_events", "Events in Asset Manager", "organization");
+
+  /** Metrics recorded by the Opencast services */
+  private OpencastMetricsCollector opencastMetrics;
 
   /** OSGi services */
   private ServiceRegistry serviceRegistry;
@@ -138,6 +137,15 @@ public class MetricsExporter {
     this.version.labels("major").set(version.getMajor());
     this.version.labels("minor").set(version.getMinor());
     DefaultExports.initialize();
+    opencastMetrics = new OpencastMetricsCollector().register(registry);
+  }
+
+  @Deactivate
+  public void deactivate() {
+    if (opencastMetrics != null) {
+      registry.unregister(opencastMetrics);
+      opencastMetrics = null;
+    }
   }
 
   @GET
@@ -161,54 +169,21 @@ public class MetricsExporter {
     servicesTotal.labels(ServiceState.WARNING.name()).set(warn);
     servicesTotal.labels(ServiceState.ERROR.name()).set(error);
 
-    // prepare series for jobs and workflows so we get a zero value if there is no job
-    Map<String, Integer> workflows = new HashMap<>();
-    Map<String, Map<String, Integer>> jobs = new HashMap<>();
-    for (Organization organization: organizationDirectoryService.getOrganizations()) {
-      workflows.put(organization.getId(), 0);
-      jobs.put(organization.getId(), new HashMap<>());
-    }
-
     // track host loads
-    for (SystemLoad.NodeLoad nodeLoad: serviceRegistry.getCurrentHostLoads().getNodeLoads()) {
+    final List<SystemLoad.NodeLoad> nodeLoads = serviceRegistry.getCurrentHostLoads().getNodeLoads();
+    for (SystemLoad.NodeLoad nodeLoad: nodeLoads) {
       jobLoadCurrent.labels(nodeLoad.getHost()).set(nodeLoad.getCurrentLoad());
       jobLoadMax.labels(nodeLoad.getHost()).set(nodeLoad.getMaxLoad());
-
-      // initialize job hosts
-      for (Map.Entry<String, Map<String, Integer>> entry: jobs.entrySet()) {
-        entry.getValue().put(nodeLoad.getHost(), 0);
-      }
-    }
-
-    // count jobs and workflows
-    for (Job job: serviceRegistry.getActiveJobs()) {
-      Map<String, Integer> orgJobs = jobs.getOrDefault(job.getOrganization(), null);
-      if (orgJobs != null) {
-        orgJobs.computeIfPresent(job.getProcessingHost(), (k, v) -> v + 1);
-      }
-      if ("START_WORKFLOW".equals(job.getOperation())) {
-        workflows.computeIfPresent(job.getOrganization(), (k, v) -> v + 1);
-      }
     }
 
-    // set workflows by organization
-    for (Map.Entry<String, Integer> entry: workflows.entrySet()) {
-      workflowsActive.labels(entry.getKey()).set(entry.getValue());
-    }
-
-    // set jobs by organization and host
-    for (Map.Entry<String, Map<String, Integer>> entry: jobs.entrySet()) {
-      for (Map.Entry<String, Integer> orgEntry: entry.getValue().entrySet()) {
-        jobsActive.labels(orgEntry.getKey(), entry.getKey()).set(orgEntry.getValue());
+    // prepare series for jobs, workflows and events so we get a zero value if there is none
+    for (Organization organization: organizationDirectoryService.getOrganizations()) {
+      workflowsActive.labels(organization.getId());
+      for (SystemLoad.NodeLoad nodeLoad: nodeLoads) {
+        jobsActive.labels(nodeLoad.getHost(), organization.getId());
       }
-    }
-
-    // Get numbers from asset manager
-    if (assetManager != null) {
-      for (Organization organization: organizationDirectoryService.getOrganizations()) {
-        eventsInAssetManager
-            .labels(organization.getId())
-            .set(assetManager.countEvents(organization.getId()));
+      if (assetManager != null) {
+        eventsInAssetManager.labels(organization.getId());
       }
     }
 
@@ -235,16 +210,10 @@ public class MetricsExporter {
   )
   public void setAssetManager(AssetManager assetManager) {
     this.assetManager = assetManager;
-    eventsInAssetManager = Gauge.build()
-        .name("opencast_asset_manager_events")
-        .help("Events in Asset Manager")
-        .labelNames("organization")
-        .register();
   }
 
   public void unsetAssetManager(AssetManager assetManager) {
     this.assetManager = null;
-    registry.unregister(eventsInAssetManager);
   }
 
 }
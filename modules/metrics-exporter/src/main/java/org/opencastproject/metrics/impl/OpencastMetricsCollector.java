@@ -0,0 +1,96 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.metrics.impl;
+
+import org.opencastproject.util.metrics.Counter;
+import org.opencastproject.util.metrics.Gauge;
+import org.opencastproject.util.metrics.Histogram;
+import org.opencastproject.util.metrics.Metric;
+import org.opencastproject.util.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.prometheus.client.Collector;
+
+/**
+ * Exposes the metrics recorded by the Opencast services in {@link Metrics}.
+ */
+public class OpencastMetricsCollector extends Collector {
+
+  @Override
+  public List<MetricFamilySamples> collect() {
+    final List<MetricFamilySamples> result = new ArrayList<>();
+    for (Metric<?> metric : Metrics.getMetrics()) {
+      if (metric instanceof Counter) {
+        result.add(collect((Counter) metric));
+      } else if (metric instanceof Gauge) {
+        result.add(collect((Gauge) metric));
+      } else if (metric instanceof Histogram) {
+        result.add(collect((Histogram) metric));
+      }
+    }
+    return result;
+  }
+
+  private MetricFamilySamples collect(Counter counter) {
+    final List<MetricFamilySamples.Sample> samples = new ArrayList<>();
+    for (Map.Entry<List<String>, Counter.Child> child : counter.getChildren().entrySet()) {
+      samples.add(new MetricFamilySamples.Sample(counter.getName() + "_total", counter.getLabelNames(),
+              child.getKey(), child.getValue().get()));
+    }
+    return new MetricFamilySamples(counter.getName(), Type.COUNTER, counter.getHelp(), samples);
+  }
+
+  private MetricFamilySamples collect(Gauge gauge) {
+    final List<MetricFamilySamples.Sample> samples = new ArrayList<>();
+    for (Map.Entry<List<String>, Gauge.Child> child : gauge.getChildren().entrySet()) {
+      samples.add(new MetricFamilySamples.Sample(gauge.getName(), gauge.getLabelNames(), child.getKey(),
+              child.getValue().get()));
+    }
+    return new MetricFamilySamples(gauge.getName(), Type.GAUGE, gauge.getHelp(), samples);
+  }
+
+  private MetricFamilySamples collect(Histogram histogram) {
+    final List<MetricFamilySamples.Sample> samples = new ArrayList<>();
+    final double[] buckets = histogram.getBuckets();
+    final List<String> bucketLabelNames = new ArrayList<>(histogram.getLabelNames());
+    bucketLabelNames.add("le");
+    for (Map.Entry<List<String>, Histogram.Child> child : histogram.getChildren().entrySet()) {
+      final long[] counts = child.getValue().getCumulativeCounts();
+      for (int i = 0; i < counts.length; i++) {
+        final List<String> bucketLabelValues = new ArrayList<>(child.getKey());
+        bucketLabelValues.add(i < buckets.length ? doubleToGoString(buckets[i]) : "+Inf");
+        samples.add(new MetricFamilySamples.Sample(histogram.getName() + "_bucket", bucketLabelNames,
+                bucketLabelValues, counts[i]));
+      }
+      samples.add(new MetricFamilySamples.Sample(histogram.getName() + "_count", histogram.getLabelNames(),
+              child.getKey(), counts[counts.length - 1]));
+      samples.add(new MetricFamilySamples.Sample(histogram.getName() + "_sum", histogram.getLabelNames(),
+              child.getKey(), child.getValue().getSum()));
+    }
+    return new MetricFamilySamples(histogram.getName(), Type.HISTOGRAM, histogram.getHelp(), samples);
+  }
+
+}
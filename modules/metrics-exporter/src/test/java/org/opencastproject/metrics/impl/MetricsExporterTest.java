@@ -22,8 +22,6 @@
 package org.opencastproject.metrics.impl;
 
 import org.opencastproject.assetmanager.api.AssetManager;
-import org.opencastproject.job.api.Job;
-import org.opencastproject.job.api.JobImpl;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.OrganizationDirectoryService;
@@ -32,6 +30,8 @@ import org.opencastproject.serviceregistry.api.ServiceRegistrationInMemoryImpl;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceState;
 import org.opencastproject.serviceregistry.api.SystemLoad;
+import org.opencastproject.util.metrics.Histogram;
+import org.opencastproject.util.metrics.Metrics;
 
 import org.easymock.EasyMock;
 import org.junit.Assert;
@@ -40,9 +40,12 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+import java.io.StringWriter;
 import java.util.Collections;
 
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+
 /**
  * Test the metrics endpoint
  */
@@ -67,20 +70,11 @@ public class MetricsExporterTest {
     nodeLoad.setCurrentLoad(1.23F);
     systemLoad.addNodeLoad(nodeLoad);
 
-    // prepare job
-    Job job1 = new JobImpl();
-    job1.setJobLoad(1.2F);
-    job1.setOperation("START_WORKFLOW");
-    job1.setOrganization("mh_default_org");
-    job1.setProcessingHost("opencast.org");
-    Job job2 = new JobImpl();
-
     // mock service registry
     ServiceRegistration serviceRegistration = new ServiceRegistrationInMemoryImpl("service.type", "opencast.org",
         ServiceState.ERROR.name(), false);
     ServiceRegistry serviceRegistry = EasyMock.createMock(ServiceRegistry.class);
     EasyMock.expect(serviceRegistry.getCurrentHostLoads()).andReturn(systemLoad).anyTimes();
-    EasyMock.expect(serviceRegistry.getActiveJobs()).andReturn(Arrays.asList(job1, job2)).anyTimes();
     EasyMock.expect(serviceRegistry.getServiceRegistrations())
         .andReturn(Collections.singletonList(serviceRegistration)).anyTimes();
 
@@ -89,9 +83,10 @@ public class MetricsExporterTest {
     OrganizationDirectoryService directoryService = EasyMock.createMock(OrganizationDirectoryService.class);
     EasyMock.expect(directoryService.getOrganizations()).andReturn(Collections.singletonList(organization)).anyTimes();
 
-    // prepare asset manager
+    // prepare asset manager, which maintains the number of events itself
     AssetManager assetManager = EasyMock.createMock(AssetManager.class);
-    EasyMock.expect(assetManager.countEvents(EasyMock.anyString())).andReturn(5L);
+    Metrics.gauge("opencast_asset_manager_events", "Events in Asset Manager", "organization")
+        .labels("mh_default_org").set(5);
 
     // prepare exporter
     EasyMock.replay(serviceRegistry, directoryService, assetManager);
@@ -100,8 +95,42 @@ public class MetricsExporterTest {
     exporter.setAssetManager(assetManager);
 
     // test exporter
-    final String body = exporter.metrics().getEntity().toString();
+    final OpencastMetricsCollector opencastMetrics = new OpencastMetricsCollector()
+        .register(CollectorRegistry.defaultRegistry);
+    final String body;
+    try {
+      body = exporter.metrics().getEntity().toString();
+    } finally {
+      CollectorRegistry.defaultRegistry.unregister(opencastMetrics);
+    }
     Assert.assertTrue(body.contains("opencast_job_load_max{host=\"opencast.org\",} 12.3"));
     Assert.assertTrue(body.contains("opencast_asset_manager_events{organization=\"mh_default_org\",} 5.0"));
+    // series without active jobs are exported as well
+    Assert.assertTrue(body.contains("opencast_job_active{host=\"opencast.org\",organization=\"mh_default_org\",} 0.0"));
+    Assert.assertTrue(body.contains("opencast_workflow_active{organization=\"mh_default_org\",} 0.0"));
+    // scrapes do not query the asset manager
+    EasyMock.verify(assetManager);
+  }
+
+  @Test
+  public void testOpencastMetrics() throws Exception {
+    Metrics.counter("opencast_test_bytes", "Test bytes", "method").labels("get").inc(42);
+    Metrics.histogram("opencast_test_seconds", "Test durations", new double[] { 1, 10 }, "method")
+        .labels("put").observe(5);
+
+    final CollectorRegistry registry = new CollectorRegistry();
+    new OpencastMetricsCollector().register(registry);
+    final StringWriter writer = new StringWriter();
+    TextFormat.write004(writer, registry.metricFamilySamples());
+    final String body = writer.toString();
+    logger.debug(body);
+
+    Assert.assertTrue(body.contains("opencast_test_bytes_total{method=\"get\",} 42.0"));
+    Assert.assertTrue(body.contains("# TYPE opencast_test_seconds histogram"));
+    Assert.assertTrue(body.contains("opencast_test_seconds_bucket{method=\"put\",le=\"1.0\",} 0.0"));
+    Assert.assertTrue(body.contains("opencast_test_seconds_bucket{method=\"put\",le=\"10.0\",} 1.0"));
+    Assert.assertTrue(body.contains("opencast_test_seconds_bucket{method=\"put\",le=\"+Inf\",} 1.0"));
+    Assert.assertTrue(body.contains("opencast_test_seconds_count{method=\"put\",} 1.0"));
+    Assert.assertTrue(body.contains("opencast_test_seconds_sum{method=\"put\",} 5.0"));
   }
 }
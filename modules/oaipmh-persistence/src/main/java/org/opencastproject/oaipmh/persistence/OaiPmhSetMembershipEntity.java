@@ -0,0 +1,161 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.oaipmh.persistence;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * The sets an OAI-PMH record is a member of, computed from a specific version of the set definitions of its
+ * repository. The membership of a record is removed whenever the record is stored again and is recomputed once it is
+ * missing or the set definitions have changed.
+ */
+@Entity(name = "OaiPmhSetMembership")
+@IdClass(OaiPmhEntityId.class)
+@Table(name = "oc_oaipmh_set_membership")
+@NamedQueries({
+    @NamedQuery(name = "OaiPmhSetMembership.findById",
+        query = "SELECT m FROM OaiPmhSetMembership m "
+                + "WHERE m.mediaPackageId=:mediaPackageId"
+                + " AND m.repositoryId=:repository"
+                + " AND m.organization=:organization"),
+    @NamedQuery(name = "OaiPmhSetMembership.findByIds",
+        query = "SELECT m FROM OaiPmhSetMembership m "
+                + "WHERE m.mediaPackageId IN :mediaPackageIds"
+                + " AND m.repositoryId=:repository"
+                + " AND m.organization=:organization"
+                + " AND m.definitions=:definitions"),
+    @NamedQuery(name = "OaiPmhSetMembership.findOutdatedRecords",
+        query = "SELECT o FROM OaiPmhEntity o "
+                + "WHERE o.repositoryId=:repository"
+                + " AND o.organization=:organization"
+                + " AND NOT EXISTS (SELECT m FROM OaiPmhSetMembership m"
+                + " WHERE m.mediaPackageId=o.mediaPackageId"
+                + " AND m.repositoryId=o.repositoryId"
+                + " AND m.organization=o.organization"
+                + " AND m.definitions=:definitions)") })
+public class OaiPmhSetMembershipEntity {
+
+  /** media package id, primary key */
+  @Id
+  @Column(name = "mp_id", length = 64)
+  private String mediaPackageId;
+
+  /** Organization id */
+  @Id
+  @Column(name = "organization", length = 96)
+  private String organization;
+
+  /** Repository id */
+  @Id
+  @Column(name = "repo_id", length = 12)
+  private String repositoryId;
+
+  /** Digest of the set definitions the membership has been computed from */
+  @Column(name = "definitions", length = 64, nullable = false)
+  private String definitions;
+
+  /** The specs of the sets the record is a member of */
+  @ElementCollection(fetch = FetchType.EAGER)
+  @CollectionTable(name = "oc_oaipmh_set",
+      joinColumns = {
+          @JoinColumn(name = "mp_id", referencedColumnName = "mp_id"),
+          @JoinColumn(name = "organization", referencedColumnName = "organization"),
+          @JoinColumn(name = "repo_id", referencedColumnName = "repo_id") },
+      indexes = { @Index(name = "IX_oc_oaipmh_set_spec", columnList = "set_spec") })
+  @Column(name = "set_spec", length = 128, nullable = false)
+  private Set<String> setSpecs = new HashSet<>();
+
+  /**
+   * Default constructor without any import.
+   */
+  public OaiPmhSetMembershipEntity() {
+  }
+
+  /**
+   * @param mediaPackageId
+   *          the media package id of the record
+   * @param repositoryId
+   *          the repository of the record
+   * @param organization
+   *          the organization of the record
+   */
+  public OaiPmhSetMembershipEntity(String mediaPackageId, String repositoryId, String organization) {
+    this.mediaPackageId = mediaPackageId;
+    this.repositoryId = repositoryId;
+    this.organization = organization;
+  }
+
+  public String getMediaPackageId() {
+    return mediaPackageId;
+  }
+
+  public String getOrganization() {
+    return organization;
+  }
+
+  public String getRepositoryId() {
+    return repositoryId;
+  }
+
+  /**
+   * @return the digest of the set definitions the membership has been computed from
+   */
+  public String getDefinitions() {
+    return definitions;
+  }
+
+  /**
+   * @return the specs of the sets the record is a member of
+   */
+  public Set<String> getSetSpecs() {
+    return setSpecs;
+  }
+
+  /**
+   * Replaces the set membership of the record.
+   *
+   * @param definitions
+   *          digest of the set definitions the membership has been computed from
+   * @param setSpecs
+   *          the specs of the sets the record is a member of
+   */
+  public void setMembership(String definitions, Collection<String> setSpecs) {
+    this.definitions = definitions;
+    this.setSpecs.clear();
+    this.setSpecs.addAll(setSpecs);
+  }
+
+}
@@ -41,6 +41,12 @@ public interface Query {
   /** The date is inclusive. */
   Option<Date> getModifiedBefore();
 
+  /**
+   * Media package id of the last record of the previous page. A subsequent request continues after the record with
+   * this id and the modification date given by {@link #getModifiedAfter()}.
+   */
+  Option<String> getLastMediaPackageId();
+
   Option<Integer> getLimit();
 
   Option<Integer> getOffset();
@@ -38,6 +38,7 @@ public class QueryBuilder {
   private Option<Boolean> deleted = none();
   private Option<Date> modifiedAfter = none();
   private Option<Date> modifiedBefore = none();
+  private Option<String> lastMediaPackageId = none();
   private Option<Integer> limit = none();
   private Option<Integer> offset = none();
   private Option<String> setSpec = none();
@@ -56,6 +57,7 @@ public class QueryBuilder {
     queryBuilder.deleted = query.isDeleted();
     queryBuilder.modifiedAfter = query.getModifiedAfter();
     queryBuilder.modifiedBefore = query.getModifiedBefore();
+    queryBuilder.lastMediaPackageId = query.getLastMediaPackageId();
     queryBuilder.limit = query.getLimit();
     queryBuilder.offset = query.getOffset();
     queryBuilder.setDefinitions = query.getSetDefinitions();
@@ -128,6 +130,18 @@ public class QueryBuilder {
     return this;
   }
 
+  /** Continue a subsequent request after the record with this id and the modifiedAfter date. */
+  public QueryBuilder lastMediaPackageId(Option<String> lastMediaPackageId) {
+    this.lastMediaPackageId = lastMediaPackageId;
+    return this;
+  }
+
+  /** Continue a subsequent request after the record with this id and the modifiedAfter date. */
+  public QueryBuilder lastMediaPackageId(String lastMediaPackageId) {
+    this.lastMediaPackageId = some(lastMediaPackageId);
+    return this;
+  }
+
   public QueryBuilder isDeleted(boolean deleted) {
     this.deleted = some(deleted);
     return this;
@@ -174,6 +188,7 @@ public class QueryBuilder {
     final Option<Boolean> deleted = this.deleted;
     final Option<Date> modifiedAfter = this.modifiedAfter;
     final Option<Date> modifiedBefore = this.modifiedBefore;
+    final Option<String> lastMediaPackageId = this.lastMediaPackageId;
     final Option<Integer> limit = this.limit;
     final Option<Integer> offset = this.offset;
     final Option<String> setSpec = this.setSpec;
@@ -205,6 +220,10 @@ public class QueryBuilder {
         return modifiedBefore;
       }
 
+      @Override public Option<String> getLastMediaPackageId() {
+        return lastMediaPackageId;
+      }
+
       @Override public Option<Integer> getLimit() {
         return limit;
       }
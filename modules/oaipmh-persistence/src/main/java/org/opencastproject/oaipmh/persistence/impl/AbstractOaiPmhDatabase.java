@@ -30,12 +30,14 @@ import org.opencastproject.oaipmh.persistence.OaiPmhElementEntity;
 import org.opencastproject.oaipmh.persistence.OaiPmhEntity;
 import org.opencastproject.oaipmh.persistence.OaiPmhSetDefinition;
 import org.opencastproject.oaipmh.persistence.OaiPmhSetDefinitionFilter;
+import org.opencastproject.oaipmh.persistence.OaiPmhSetMembershipEntity;
 import org.opencastproject.oaipmh.persistence.Query;
 import org.opencastproject.oaipmh.persistence.QueryBuilder;
 import org.opencastproject.oaipmh.persistence.SearchResult;
 import org.opencastproject.oaipmh.persistence.SearchResultElementItem;
 import org.opencastproject.oaipmh.persistence.SearchResultItem;
 import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.util.Checksum;
 import org.opencastproject.util.MimeTypes;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.XmlUtil;
@@ -47,10 +49,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
@@ -60,15 +71,26 @@ import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 
 public abstract class AbstractOaiPmhDatabase implements OaiPmhDatabase {
   /** Logging utilities */
   private static final Logger logger = LoggerFactory.getLogger(AbstractOaiPmhDatabase.class);
 
+  /** Number of records whose set membership is updated in one transaction */
+  private static final int SET_MEMBERSHIP_CHUNK_SIZE = 100;
+
   private ReadWriteLock dbAccessLock = new ReentrantReadWriteLock();
 
+  /**
+   * Digest of the set definitions the set membership of all records has last been updated for, by organization and
+   * repository. Records stored since then have no set membership, which is computed when they are found.
+   */
+  private final Map<String, String> syncedSetDefinitions = new ConcurrentHashMap<>();
+
   public abstract DBSession getDBSession();
 
   public abstract SecurityService getSecurityService();
@@ -99,6 +121,12 @@ public abstract class AbstractOaiPmhDatabase implements OaiPmhDatabase {
           updateEntity(entity, mediaPackage, repository);
           em.merge(entity);
         }
+        // the set membership depends on the stored catalogs and is recomputed on the next search
+        OaiPmhSetMembershipEntity membership = getSetMembership(mediaPackage.getIdentifier().toString(), repository,
+                em);
+        if (membership != null) {
+          em.remove(membership);
+        }
       });
     } catch (Exception e) {
       logger.error("Could not store mediapackage '{}' to OAI-PMH repository '{}'", mediaPackage.getIdentifier(),
@@ -183,64 +211,230 @@ public abstract class AbstractOaiPmhDatabase implements OaiPmhDatabase {
 
   @Override
   public SearchResult search(Query query) {
+    // Searches of a repository use the stored set membership of its records, which is brought up to date with the
+    // set definitions of the query first. The membership of other searches is computed from the stored catalogs.
+    final String repository = query.getRepositoryId().getOrElseNull();
+    String definitions = null;
+    if (repository != null && !query.getSetDefinitions().isEmpty()) {
+      definitions = digestSetDefinitions(query.getSetDefinitions());
+    }
+    if (definitions != null && !definitions.equals(syncedSetDefinitions.get(getSyncKey(repository)))) {
+      dbAccessLock.writeLock().lock();
+      try {
+        if (!updateSetMembership(repository, query.getSetDefinitions(), definitions)) {
+          definitions = null;
+        }
+        // downgrade to the read lock, so that no record can be stored between the update and the search
+        dbAccessLock.readLock().lock();
+      } finally {
+        dbAccessLock.writeLock().unlock();
+      }
+    } else {
+      dbAccessLock.readLock().lock();
+    }
     try {
       final int chunkSize = query.getLimit().getOrElse(-1);
-      dbAccessLock.readLock().lock();
+      if (definitions != null) {
+        return searchSetMembership(query, chunkSize, definitions);
+      }
       return searchInternal(query, chunkSize);
     } finally {
       dbAccessLock.readLock().unlock();
     }
   }
 
-  private SearchResult searchInternal(Query query, int chunkSize) {
+  /**
+   * Searches records using their stored set membership. The set membership of records which have none for the set
+   * definitions of the query, because they have been stored since it has been updated, is computed from their
+   * catalogs.
+   *
+   * @param query
+   *          the query
+   * @param chunkSize
+   *          the maximum number of records to return or -1
+   * @param definitions
+   *          digest of the set definitions of the query
+   * @return the search result
+   */
+  private SearchResult searchSetMembership(Query query, int chunkSize, String definitions) {
     final String requestSetSpec = query.getSetSpec().getOrElseNull();
-    final List<SearchResultItem> filteredItems = new ArrayList<>();
-    Date lastDate = new Date();
-    long resultSize;
-    long resultOffset;
-    long resultLimit;
-    SearchResult result = getDBSession().exec(em -> {
-      CriteriaBuilder cb = em.getCriteriaBuilder();
-      CriteriaQuery<OaiPmhEntity> q = cb.createQuery(OaiPmhEntity.class);
-      Root<OaiPmhEntity> c = q.from(OaiPmhEntity.class);
-      q.select(c);
-
-      // create predicates joined in an "and" expression
-      final List<Predicate> predicates = new ArrayList<>();
-      predicates.add(cb.equal(c.get("organization"), getSecurityService().getOrganization().getId()));
-
-      for (String p : query.getMediaPackageId())
-        predicates.add(cb.equal(c.get("mediaPackageId"), p));
-      for (String p : query.getRepositoryId())
-        predicates.add(cb.equal(c.get("repositoryId"), p));
-      for (String p : query.getSeriesId())
-        predicates.add(cb.equal(c.get("series"), p));
-      for (Boolean p : query.isDeleted())
-        predicates.add(cb.equal(c.get("deleted"), p));
-      if (query.isSubsequentRequest()) {
-        for (Date p : query.getModifiedAfter())
-          predicates.add(cb.greaterThan(c.get("modificationDate").as(Date.class), p));
-      } else {
-        for (Date p : query.getModifiedAfter())
-          predicates.add(cb.greaterThanOrEqualTo(c.get("modificationDate").as(Date.class), p));
+    if (requestSetSpec != null && query.getSetDefinitions().stream()
+            .noneMatch(def -> StringUtils.equals(def.getSetSpec(), requestSetSpec))) {
+      // return empty result if there is no definition for a requested setSpec
+      return new SearchResultImpl(query.getOffset().getOrElse(0), chunkSize > 0 ? chunkSize : 0, new ArrayList<>());
+    }
+
+    final String repository = query.getRepositoryId().get();
+    final SearchResult result = getDBSession().exec(em -> {
+      final SearchResult records = createSearchResult(createSearchQuery(em, query, chunkSize, requestSetSpec,
+              definitions));
+      if (records.getItems().isEmpty()) {
+        return records;
       }
-      for (Date p : query.getModifiedBefore())
-        predicates.add(cb.lessThanOrEqualTo(c.get("modificationDate").as(Date.class), p));
 
-      q.where(cb.and(predicates.toArray(new Predicate[0])));
-      q.orderBy(cb.asc(c.get("modificationDate")));
+      final List<String> ids = new ArrayList<>();
+      for (SearchResultItem item : records.getItems()) {
+        ids.add(item.getId());
+      }
+      final Map<String, Set<String>> setSpecs = new HashMap<>();
+      em.createNamedQuery("OaiPmhSetMembership.findByIds", OaiPmhSetMembershipEntity.class)
+              .setParameter("mediaPackageIds", ids)
+              .setParameter("repository", repository)
+              .setParameter("organization", getSecurityService().getOrganization().getId())
+              .setParameter("definitions", definitions)
+              .getResultList()
+              .forEach(membership -> setSpecs.put(membership.getMediaPackageId(), membership.getSetSpecs()));
+
+      for (SearchResultItem item : records.getItems()) {
+        final Collection<String> itemSetSpecs = setSpecs.containsKey(item.getId())
+                ? setSpecs.get(item.getId())
+                : matchSetDefs(query.getSetDefinitions(), item.getElements());
+        for (OaiPmhSetDefinition setDef : query.getSetDefinitions()) {
+          if (itemSetSpecs.contains(setDef.getSetSpec())) {
+            item.addSetSpec(setDef.getSetSpec());
+          }
+        }
+      }
+      return records;
+    });
+    if (requestSetSpec == null) {
+      return result;
+    }
 
-      TypedQuery<OaiPmhEntity> typedQuery = em.createQuery(q);
-      if (chunkSize > 0) {
-        typedQuery.setMaxResults(chunkSize);
+    // records without a stored set membership are only filtered now
+    final List<SearchResultItem> filteredItems = new ArrayList<>();
+    for (SearchResultItem item : result.getItems()) {
+      if (item.getSetSpecs().contains(requestSetSpec)) {
+        filteredItems.add(item);
       }
-      for (int startPosition : query.getOffset()) {
-        logger.warn("I'm pretty sure things break if this is used");
-        typedQuery.setFirstResult(startPosition);
+    }
+    final int limit = query.getLimit().getOrElse(-1);
+    if (chunkSize > 0 && result.size() == chunkSize && filteredItems.size() < limit) {
+      // request the next range to fill up the filtered results
+      final SearchResultItem last = result.getItems().get(result.getItems().size() - 1);
+      final Query subQuery = QueryBuilder.query(query).modifiedAfter(last.getModificationDate())
+              .lastMediaPackageId(last.getId())
+              .limit(limit - filteredItems.size())
+              .subsequentRequest(true)
+              .build();
+      filteredItems.addAll(searchSetMembership(subQuery, chunkSize, definitions).getItems());
+    }
+    if (limit > 0 && filteredItems.size() > limit) {
+      return new SearchResultImpl(result.getOffset(), limit, filteredItems.subList(0, limit));
+    }
+    return new SearchResultImpl(result.getOffset(), result.getLimit(), filteredItems);
+  }
+
+  /**
+   * Computes the set membership of all records of a repository which have none for the given set definitions, unless
+   * this has already been done for the same set definitions. Has to be called holding the write lock.
+   *
+   * @param repository
+   *          the repository
+   * @param setDefs
+   *          the set definitions
+   * @param definitions
+   *          digest of the set definitions
+   * @return whether the set membership of all records is up to date
+   */
+  private boolean updateSetMembership(String repository, List<OaiPmhSetDefinition> setDefs, String definitions) {
+    final String organization = getSecurityService().getOrganization().getId();
+    final String syncKey = getSyncKey(repository);
+    if (definitions.equals(syncedSetDefinitions.get(syncKey))) {
+      // updated by a concurrent search in the meantime
+      return true;
+    }
+    try {
+      int updated = 0;
+      int chunk;
+      do {
+        chunk = getDBSession().execTx(em -> {
+          final List<OaiPmhEntity> records = em
+                  .createNamedQuery("OaiPmhSetMembership.findOutdatedRecords", OaiPmhEntity.class)
+                  .setParameter("repository", repository)
+                  .setParameter("organization", organization)
+                  .setParameter("definitions", definitions)
+                  .setMaxResults(SET_MEMBERSHIP_CHUNK_SIZE)
+                  .getResultList();
+          for (OaiPmhEntity entity : records) {
+            final List<SearchResultElementItem> elements = new ArrayList<>();
+            for (OaiPmhElementEntity element : entity.getMediaPackageElements()) {
+              elements.add(new SearchResultElementItemImpl(element));
+            }
+            OaiPmhSetMembershipEntity membership = getSetMembership(entity.getMediaPackageId(), repository, em);
+            if (membership == null) {
+              membership = new OaiPmhSetMembershipEntity(entity.getMediaPackageId(), repository, organization);
+              membership.setMembership(definitions, matchSetDefs(setDefs, elements));
+              em.persist(membership);
+            } else {
+              membership.setMembership(definitions, matchSetDefs(setDefs, elements));
+              em.merge(membership);
+            }
+          }
+          return records.size();
+        });
+        updated += chunk;
+      } while (chunk == SET_MEMBERSHIP_CHUNK_SIZE);
+      if (updated > 0) {
+        logger.debug("Updated set membership of {} records in OAI-PMH repository '{}'", updated, repository);
       }
+      syncedSetDefinitions.put(syncKey, definitions);
+      return true;
+    } catch (Exception e) {
+      logger.error("Could not update set membership of OAI-PMH repository '{}'", repository, e);
+      return false;
+    }
+  }
 
-      return createSearchResult(typedQuery);
-    });
+  /** Returns the key of a repository of the current organization in {@link #syncedSetDefinitions}. */
+  private String getSyncKey(String repository) {
+    return getSecurityService().getOrganization().getId() + '\u0000' + repository;
+  }
+
+  /**
+   * Returns a digest of the set definitions which changes whenever the definitions change in a way affecting the set
+   * membership of records. Names and descriptions of the sets and the order of the definitions do not affect it.
+   *
+   * @param setDefs
+   *          the set definitions
+   * @return the digest
+   */
+  static String digestSetDefinitions(List<OaiPmhSetDefinition> setDefs) {
+    final List<String> sets = new ArrayList<>();
+    for (OaiPmhSetDefinition setDef : setDefs) {
+      final List<String> filters = new ArrayList<>();
+      for (OaiPmhSetDefinitionFilter filter : setDef.getFilters()) {
+        final List<String> criteria = new ArrayList<>();
+        for (Map.Entry<String, List<String>> criterion : filter.getCriteria().entrySet()) {
+          final List<String> values = new ArrayList<>(criterion.getValue());
+          Collections.sort(values);
+          criteria.add(criterion.getKey() + '\u0003' + String.join("\u0003", values));
+        }
+        Collections.sort(criteria);
+        filters.add(filter.getFlavor() + '\u0002' + String.join("\u0002", criteria));
+      }
+      Collections.sort(filters);
+      sets.add(setDef.getSetSpec() + '\u0001' + String.join("\u0001", filters));
+    }
+    Collections.sort(sets);
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return Checksum.convertToHex(digest.digest(String.join("\u0000", sets).getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private SearchResult searchInternal(Query query, int chunkSize) {
+    final String requestSetSpec = query.getSetSpec().getOrElseNull();
+    final List<SearchResultItem> filteredItems = new ArrayList<>();
+    Date lastDate = new Date();
+    String lastId = null;
+    long resultSize;
+    long resultOffset;
+    long resultLimit;
+    SearchResult result = getDBSession().exec(em -> createSearchResult(createSearchQuery(em, query, chunkSize,
+            null, null)));
 
     if (requestSetSpec != null) {
       Optional<OaiPmhSetDefinition> requestedSetDef = query.getSetDefinitions().stream()
@@ -267,6 +461,7 @@ public abstract class AbstractOaiPmhDatabase implements OaiPmhDatabase {
     resultLimit = result.getLimit();
     if (requestSetSpec != null && resultSize == chunkSize) {
       lastDate = result.getItems().get(result.getItems().size() - 1).getModificationDate();
+      lastId = result.getItems().get(result.getItems().size() - 1).getId();
     }
 
     if (requestSetSpec != null) {
@@ -279,6 +474,7 @@ public abstract class AbstractOaiPmhDatabase implements OaiPmhDatabase {
         if (filteredItems.size() == 0 || filteredItems.size() < limit) {
           // No results left after filtering. Automatically request the next range to avoid returning empty results.
           QueryBuilder subQuery = QueryBuilder.query(query).modifiedAfter(lastDate)
+                  .lastMediaPackageId(lastId)
                   .limit(limit - filteredItems.size())
                   .subsequentRequest(true);
           filteredItems.addAll(searchInternal(subQuery.build(), chunkSize).getItems());
@@ -294,6 +490,111 @@ public abstract class AbstractOaiPmhDatabase implements OaiPmhDatabase {
     return new SearchResultImpl(resultOffset, resultLimit, filteredItems);
   }
 
+  /**
+   * Creates a JPA query for the records matching a query.
+   *
+   * @param em
+   *          an open entity manager
+   * @param query
+   *          the query
+   * @param chunkSize
+   *          the maximum number of records to return or -1
+   * @param setSpec
+   *          the set the records have to be a member of according to their stored set membership, if they have one, or
+   *          <code>null</code>
+   * @param definitions
+   *          digest of the set definitions the stored set membership has to be computed from, if a set is given
+   * @return the JPA query
+   */
+  private TypedQuery<OaiPmhEntity> createSearchQuery(EntityManager em, Query query, int chunkSize, String setSpec,
+          String definitions) {
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<OaiPmhEntity> q = cb.createQuery(OaiPmhEntity.class);
+    Root<OaiPmhEntity> c = q.from(OaiPmhEntity.class);
+    q.select(c);
+
+    // create predicates joined in an "and" expression
+    final List<Predicate> predicates = new ArrayList<>();
+    predicates.add(cb.equal(c.get("organization"), getSecurityService().getOrganization().getId()));
+
+    for (String p : query.getMediaPackageId())
+      predicates.add(cb.equal(c.get("mediaPackageId"), p));
+    for (String p : query.getRepositoryId())
+      predicates.add(cb.equal(c.get("repositoryId"), p));
+    for (String p : query.getSeriesId())
+      predicates.add(cb.equal(c.get("series"), p));
+    for (Boolean p : query.isDeleted())
+      predicates.add(cb.equal(c.get("deleted"), p));
+    if (query.isSubsequentRequest()) {
+      for (Date p : query.getModifiedAfter()) {
+        Predicate after = cb.greaterThan(c.get("modificationDate").as(Date.class), p);
+        // continue after the last record of the previous page
+        for (String id : query.getLastMediaPackageId())
+          after = cb.or(after, cb.and(cb.equal(c.get("modificationDate").as(Date.class), p),
+                  cb.greaterThan(c.get("mediaPackageId").as(String.class), id)));
+        predicates.add(after);
+      }
+    } else {
+      for (Date p : query.getModifiedAfter())
+        predicates.add(cb.greaterThanOrEqualTo(c.get("modificationDate").as(Date.class), p));
+    }
+    for (Date p : query.getModifiedBefore())
+      predicates.add(cb.lessThanOrEqualTo(c.get("modificationDate").as(Date.class), p));
+
+    if (setSpec != null) {
+      // only records which are a member of the set according to the given set definitions or have no set membership
+      // for them yet, which is computed for the results
+      Subquery<String> membership = q.subquery(String.class);
+      Root<OaiPmhSetMembershipEntity> m = membership.from(OaiPmhSetMembershipEntity.class);
+      Join<OaiPmhSetMembershipEntity, String> setSpecs = m.join("setSpecs");
+      membership.select(m.get("mediaPackageId")).where(
+              cb.equal(m.get("mediaPackageId"), c.get("mediaPackageId")),
+              cb.equal(m.get("repositoryId"), c.get("repositoryId")),
+              cb.equal(m.get("organization"), c.get("organization")),
+              cb.equal(m.get("definitions"), definitions),
+              cb.equal(setSpecs, setSpec));
+      Subquery<String> anyMembership = q.subquery(String.class);
+      Root<OaiPmhSetMembershipEntity> a = anyMembership.from(OaiPmhSetMembershipEntity.class);
+      anyMembership.select(a.get("mediaPackageId")).where(
+              cb.equal(a.get("mediaPackageId"), c.get("mediaPackageId")),
+              cb.equal(a.get("repositoryId"), c.get("repositoryId")),
+              cb.equal(a.get("organization"), c.get("organization")),
+              cb.equal(a.get("definitions"), definitions));
+      predicates.add(cb.or(cb.exists(membership), cb.not(cb.exists(anyMembership))));
+    }
+
+    q.where(cb.and(predicates.toArray(new Predicate[0])));
+    q.orderBy(cb.asc(c.get("modificationDate")), cb.asc(c.get("mediaPackageId")));
+
+    TypedQuery<OaiPmhEntity> typedQuery = em.createQuery(q);
+    if (chunkSize > 0) {
+      typedQuery.setMaxResults(chunkSize);
+    }
+    for (int startPosition : query.getOffset()) {
+      logger.warn("I'm pretty sure things break if this is used");
+      typedQuery.setFirstResult(startPosition);
+    }
+
+    return typedQuery;
+  }
+
+  /**
+   * Returns the specs of all sets whose definition matches.
+   *
+   * @param setDefs set definitions to test
+   * @param elements media package elements to test
+   * @return the specs of the matching sets
+   */
+  private List<String> matchSetDefs(List<OaiPmhSetDefinition> setDefs, List<SearchResultElementItem> elements) {
+    final List<String> setSpecs = new ArrayList<>();
+    for (OaiPmhSetDefinition setDef : setDefs) {
+      if (matchSetDef(setDef, elements)) {
+        setSpecs.add(setDef.getSetSpec());
+      }
+    }
+    return setSpecs;
+  }
+
   /**
    * Returns true if all set definition filters matches.
    *
@@ -388,6 +689,30 @@ public abstract class AbstractOaiPmhDatabase implements OaiPmhDatabase {
     }
   }
 
+  /**
+   * Gets the set membership of a OAI-PMH record, using the current organizational context.
+   *
+   * @param id
+   *          the media package identifier
+   * @param repository
+   *          the OAI-PMH repository
+   * @param em
+   *          an open entity manager
+   * @return the set membership, or null if not found
+   */
+  private OaiPmhSetMembershipEntity getSetMembership(String id, String repository, EntityManager em) {
+    final String orgId = getSecurityService().getOrganization().getId();
+    try {
+      return em.createNamedQuery("OaiPmhSetMembership.findById", OaiPmhSetMembershipEntity.class)
+              .setParameter("mediaPackageId", id)
+              .setParameter("repository", repository)
+              .setParameter("organization", orgId)
+              .getSingleResult();
+    } catch (NoResultException e) {
+      return null;
+    }
+  }
+
   /**
    * Creates a search result from a given JPA query
    *
@@ -30,6 +30,10 @@ import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageElement;
 import org.opencastproject.mediapackage.MediaPackageSupport;
 import org.opencastproject.mediapackage.identifier.IdImpl;
+import org.opencastproject.oaipmh.persistence.OaiPmhSetDefinition;
+import org.opencastproject.oaipmh.persistence.OaiPmhSetDefinitionFilter;
+import org.opencastproject.oaipmh.persistence.OaiPmhSetDefinitionImpl;
+import org.opencastproject.oaipmh.persistence.OaiPmhSetMembershipEntity;
 import org.opencastproject.oaipmh.persistence.SearchResult;
 import org.opencastproject.oaipmh.persistence.SearchResultElementItem;
 import org.opencastproject.oaipmh.persistence.SearchResultItem;
@@ -47,6 +51,7 @@ import org.junit.Test;
 
 import java.net.URI;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Tests persistence: storing, merging, retrieving and removing.
@@ -268,4 +273,58 @@ public class OaiPmhPersistenceTest {
     }
     Assert.assertEquals(1, count);
   }
+
+  @Test
+  public void testSetMembership() throws Exception {
+    oaiPmhDatabase.store(mp1, REPOSITORY_ID_1);
+
+    OaiPmhSetDefinitionImpl openVideos = OaiPmhSetDefinitionImpl.build("open_videos", "Open Videos", null);
+    openVideos.addFilter("filter1", "dublincore/episode", OaiPmhSetDefinitionFilter.CRITERION_CONTAINS,
+            "license>CC-BY<");
+    OaiPmhSetDefinitionImpl closedVideos = OaiPmhSetDefinitionImpl.build("closed_videos", "Closed Videos", null);
+    closedVideos.addFilter("filter1", "dublincore/episode", OaiPmhSetDefinitionFilter.CRITERION_CONTAINS,
+            "license>ALLRIGHTS<");
+    List<OaiPmhSetDefinition> setDefs = List.of(openVideos, closedVideos);
+
+    SearchResult search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).setDefinitions(setDefs)
+            .setSpec("open_videos").build());
+    Assert.assertEquals(1, search.size());
+    Assert.assertEquals(List.of("open_videos"), search.getItems().get(0).getSetSpecs());
+    search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).setDefinitions(setDefs)
+            .setSpec("closed_videos").build());
+    Assert.assertEquals(0, search.size());
+    search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).setDefinitions(setDefs).build());
+    Assert.assertEquals(1, search.size());
+    Assert.assertEquals(List.of("open_videos"), search.getItems().get(0).getSetSpecs());
+
+    // changed set definitions
+    closedVideos.addFilter("filter1", "dublincore/episode", OaiPmhSetDefinitionFilter.CRITERION_CONTAINS,
+            "license>CC-BY<");
+    search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).setDefinitions(setDefs)
+            .setSpec("closed_videos").build());
+    Assert.assertEquals(1, search.size());
+
+    // stored again since the set membership has been updated, which is computed without updating it again
+    oaiPmhDatabase.store(mp1, REPOSITORY_ID_1);
+    search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).setDefinitions(setDefs)
+            .setSpec("open_videos").build());
+    Assert.assertEquals(1, search.size());
+    Assert.assertEquals(List.of("open_videos", "closed_videos"), search.getItems().get(0).getSetSpecs());
+    Assert.assertTrue(oaiPmhDatabase.getDBSession().exec(em -> em
+            .createNamedQuery("OaiPmhSetMembership.findById", OaiPmhSetMembershipEntity.class)
+            .setParameter("mediaPackageId", mp1.getIdentifier().toString())
+            .setParameter("repository", REPOSITORY_ID_1)
+            .setParameter("organization", DefaultOrganization.DEFAULT_ORGANIZATION_ID)
+            .getResultList()).isEmpty());
+
+    // changed record
+    mp1.removeElementById("catalog-1");
+    oaiPmhDatabase.store(mp1, REPOSITORY_ID_1);
+    search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).setDefinitions(setDefs)
+            .setSpec("open_videos").build());
+    Assert.assertEquals(0, search.size());
+    search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).setDefinitions(setDefs).build());
+    Assert.assertEquals(1, search.size());
+    Assert.assertTrue(search.getItems().get(0).getSetSpecs().isEmpty());
+  }
 }
@@ -26,17 +26,23 @@ import org.opencastproject.oaipmh.Granularity;
 import org.opencastproject.oaipmh.matterhorn.MatterhornInlinedMetadataProvider;
 import org.opencastproject.oaipmh.matterhorn.MatterhornMetadataProvider;
 import org.opencastproject.oaipmh.persistence.OaiPmhDatabase;
-import org.opencastproject.oaipmh.util.ResumptionTokenStore;
 import org.opencastproject.util.data.Collections;
 import org.opencastproject.util.data.Option;
 
+import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Factory for the default OAI-PMH repository that ships with each Opencast installation serving the
@@ -51,11 +57,19 @@ import java.util.List;
     }
 )
 public class DefaultRepository extends OaiPmhRepository {
+  private static final Logger logger = LoggerFactory.getLogger(DefaultRepository.class);
+
   private static final String PROP_ADMIN_EMAIL = "org.opencastproject.admin.email";
 
+  /** Configuration key for the secret resumption tokens are signed with */
+  private static final String CONF_KEY_RESUMPTION_TOKEN_KEY = "oaipmh.resumption.token.key";
+
+  /** Time resumption tokens stay valid */
+  private static final long RESUMPTION_TOKEN_TTL = TimeUnit.DAYS.toMillis(1);
+
   private OaiPmhDatabase persistence;
   private String adminEmail;
-  private final ResumptionTokenStore tokenStore = ResumptionTokenStore.create();
+  private ResumptionTokenCodec tokenCodec;
   private final List<MetadataProvider> metadataProviders =
           Collections.list(new MatterhornMetadataProvider(), new MatterhornInlinedMetadataProvider());
 
@@ -69,6 +83,18 @@ public class DefaultRepository extends OaiPmhRepository {
   @Activate
   public void activate(ComponentContext cc) {
     adminEmail = getContextProperty(cc, PROP_ADMIN_EMAIL);
+    final String secret = cc.getProperties() == null ? null
+            : StringUtils.trimToNull(Objects.toString(cc.getProperties().get(CONF_KEY_RESUMPTION_TOKEN_KEY), null));
+    final byte[] key;
+    if (secret == null) {
+      logger.warn("No {} configured. OAI-PMH resumption tokens are only valid on this node until it is restarted.",
+              CONF_KEY_RESUMPTION_TOKEN_KEY);
+      key = new byte[32];
+      new SecureRandom().nextBytes(key);
+    } else {
+      key = secret.getBytes(StandardCharsets.UTF_8);
+    }
+    tokenCodec = new ResumptionTokenCodec(getRepositoryId(), key, RESUMPTION_TOKEN_TTL);
   }
 
   @Override
@@ -98,12 +124,12 @@ public class DefaultRepository extends OaiPmhRepository {
 
   @Override
   public String saveQuery(ResumableQuery query) {
-    return tokenStore.put(query);
+    return tokenCodec.encode(query, currentDate());
   }
 
   @Override
   public Option<ResumableQuery> getSavedQuery(String resumptionToken) {
-    return tokenStore.get(resumptionToken);
+    return tokenCodec.decode(resumptionToken, currentDate());
   }
 
   @Override
@@ -604,6 +604,7 @@ public abstract class OaiPmhRepository implements ManagedService {
                                 .setDefinitions(sets)
                                 .setSpec(rq.getSet().getOrElseNull())
                                 .modifiedAfter(rq.getLastResult())
+                                .lastMediaPackageId(rq.getLastMediaPackageId())
                                 .modifiedBefore(rq.getUntil())
                                 .limit(getResultLimit())
                                 .subsequentRequest(true).build());
@@ -144,7 +144,7 @@ public abstract class OaiXmlGen extends XmlGen {
       SearchResultItem lastResult = result.getItems().get((int) (result.size() - 1));
       // more to come...
       token = some(some(repository.saveQuery(new ResumableQuery(metadataPrefix, lastResult.getModificationDate(),
-                                                                until, set))));
+                                                                some(lastResult.getId()), until, set))));
     } else if (resumptionToken.isSome()) {
       // last page reached
       token = some(Option.<String>none());
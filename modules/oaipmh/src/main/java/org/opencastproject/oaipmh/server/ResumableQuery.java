@@ -34,12 +34,19 @@ public class ResumableQuery {
   private final String metadataPrefix;
   private final Date until;
   private final Date lastResult;
+  private final Option<String> lastMediaPackageId;
   private final Option<String> set;
 
   ResumableQuery(String metadataPrefix, Date lastResult, Date until, Option<String> set) {
+    this(metadataPrefix, lastResult, Option.<String>none(), until, set);
+  }
+
+  ResumableQuery(String metadataPrefix, Date lastResult, Option<String> lastMediaPackageId, Date until,
+          Option<String> set) {
     this.until = until;
     this.metadataPrefix = metadataPrefix;
     this.lastResult = lastResult;
+    this.lastMediaPackageId = lastMediaPackageId;
     this.set = set;
   }
 
@@ -55,6 +62,11 @@ public class ResumableQuery {
     return lastResult;
   }
 
+  /** Media package id of the last result, used to continue after it if other results share its date. */
+  Option<String> getLastMediaPackageId() {
+    return lastMediaPackageId;
+  }
+
   Option<String> getSet() {
     return set;
   }
@@ -0,0 +1,151 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.oaipmh.server;
+
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.option;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencastproject.util.data.Option;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Date;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Encodes resumable queries into self-contained resumption tokens, so that a listing can be continued on any node
+ * sharing the same key without keeping any state on the server.
+ * <p>
+ * A token contains the query, the modification date and media package id of the last result and the time the token
+ * expires. It is signed with an HMAC so that harvesters cannot alter it.
+ * <p>
+ * Use in {@link OaiPmhRepository#saveQuery(ResumableQuery)} and {@link OaiPmhRepository#getSavedQuery(String)}.
+ */
+public final class ResumptionTokenCodec {
+  private static final String VERSION = "1";
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final String SEPARATOR = "\n";
+
+  private final String repositoryId;
+  private final SecretKeySpec key;
+  private final long timeToLive;
+
+  /**
+   * @param repositoryId
+   *          the repository the tokens are valid for
+   * @param key
+   *          the key to sign the tokens with, which has to be the same on all nodes serving the repository
+   * @param timeToLive
+   *          time in milliseconds a token stays valid
+   */
+  public ResumptionTokenCodec(String repositoryId, byte[] key, long timeToLive) {
+    this.repositoryId = repositoryId;
+    this.key = new SecretKeySpec(key, ALGORITHM);
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * Creates a resumption token.
+   *
+   * @param query
+   *          the query to resume
+   * @param now
+   *          the current date
+   * @return the resumption token
+   */
+  public String encode(ResumableQuery query, Date now) {
+    final String payload = String.join(SEPARATOR,
+            VERSION,
+            encode(repositoryId),
+            encode(query.getMetadataPrefix()),
+            Long.toString(query.getLastResult().getTime()),
+            encode(query.getLastMediaPackageId().getOrElse("")),
+            Long.toString(query.getUntil().getTime()),
+            encode(query.getSet().getOrElse("")),
+            Long.toString(now.getTime() + timeToLive));
+    final Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+    final byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+    return base64.encodeToString(data) + "." + base64.encodeToString(sign(data));
+  }
+
+  /**
+   * Reads a resumption token.
+   *
+   * @param token
+   *          the resumption token
+   * @param now
+   *          the current date
+   * @return the query to resume or none if the token is malformed, has been altered, belongs to another repository or
+   *         has expired
+   */
+  public Option<ResumableQuery> decode(String token, Date now) {
+    try {
+      final int separator = token.indexOf('.');
+      if (separator < 0) {
+        return none();
+      }
+      final byte[] data = Base64.getUrlDecoder().decode(token.substring(0, separator));
+      final byte[] signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+      if (!MessageDigest.isEqual(sign(data), signature)) {
+        return none();
+      }
+      final String[] fields = StringUtils.splitPreserveAllTokens(new String(data, StandardCharsets.UTF_8), SEPARATOR);
+      if (fields.length != 8 || !VERSION.equals(fields[0]) || !repositoryId.equals(decode(fields[1]))
+              || Long.parseLong(fields[7]) < now.getTime()) {
+        return none();
+      }
+      final Option<String> lastMediaPackageId = option(StringUtils.trimToNull(decode(fields[4])));
+      final String set = decode(fields[6]);
+      return some(new ResumableQuery(decode(fields[2]), new Date(Long.parseLong(fields[3])), lastMediaPackageId,
+              new Date(Long.parseLong(fields[5])), set.isEmpty() ? Option.<String>none() : some(set)));
+    } catch (IllegalArgumentException e) {
+      // malformed base64 or number
+      return none();
+    }
+  }
+
+  private byte[] sign(byte[] data) {
+    try {
+      final Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac.doFinal(data);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  private static String decode(String value) {
+    return URLDecoder.decode(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.oaipmh.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencastproject.util.data.Option;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+public class ResumptionTokenCodecTest {
+  private static final byte[] KEY = "secret".getBytes(StandardCharsets.UTF_8);
+  private static final long TTL = 60000L;
+
+  private final ResumptionTokenCodec codec = new ResumptionTokenCodec("default", KEY, TTL);
+  private final Date now = new Date(1700000000000L);
+
+  @Test
+  public void testRoundTrip() {
+    final ResumableQuery query = new ResumableQuery("oai_dc", new Date(1600000000123L), some("mp&1"),
+            new Date(1700000000000L), some("open videos"));
+    // another node with the same key
+    final ResumableQuery decoded = new ResumptionTokenCodec("default", KEY, TTL)
+            .decode(codec.encode(query, now), now).get();
+    assertEquals("oai_dc", decoded.getMetadataPrefix());
+    assertEquals(query.getLastResult(), decoded.getLastResult());
+    assertEquals(some("mp&1"), decoded.getLastMediaPackageId());
+    assertEquals(query.getUntil(), decoded.getUntil());
+    assertEquals(some("open videos"), decoded.getSet());
+
+    final ResumableQuery withoutSet = codec.decode(codec.encode(new ResumableQuery("oai_dc", new Date(),
+            new Date(), Option.<String>none()), now), now).get();
+    assertTrue(withoutSet.getSet().isNone());
+    assertTrue(withoutSet.getLastMediaPackageId().isNone());
+  }
+
+  @Test
+  public void testInvalidTokens() {
+    final String token = codec.encode(new ResumableQuery("oai_dc", new Date(), new Date(), some("set")), now);
+    // expired
+    assertEquals(none(), codec.decode(token, new Date(now.getTime() + TTL + 1)));
+    // other key or repository
+    assertEquals(none(), new ResumptionTokenCodec("default", new byte[] { 1 }, TTL).decode(token, now));
+    assertEquals(none(), new ResumptionTokenCodec("other", KEY, TTL).decode(token, now));
+    // altered or malformed
+    final String payload = token.substring(0, token.indexOf('.'));
+    final String signature = token.substring(token.indexOf('.'));
+    assertEquals(none(), codec.decode(payload.substring(1) + signature, now));
+    assertEquals(none(), codec.decode(payload, now));
+    assertEquals(none(), codec.decode("%%%.%%%", now));
+  }
+}
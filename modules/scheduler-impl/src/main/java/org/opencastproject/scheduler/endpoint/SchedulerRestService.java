@@ -549,8 +549,7 @@ public class SchedulerRestService {
       // If the etag matches the if-not-modified header,return a 304
       if (StringUtils.isNotBlank(captureAgentId)) {
         lastModified = service.getScheduleLastModified(captureAgentId);
-        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
-        if (StringUtils.isNotBlank(ifNoneMatch) && ifNoneMatch.equals(lastModified)) {
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), lastModified)) {
           return Response.notModified(lastModified).expires(null).build();
         }
       }
@@ -601,8 +600,7 @@ public class SchedulerRestService {
       // If the `etag` matches the if-not-modified header,return a 304
       if (agent.isSome()) {
         lastModified = service.getScheduleLastModified(agent.get());
-        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
-        if (StringUtils.isNotBlank(ifNoneMatch) && ifNoneMatch.equals(lastModified)) {
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), lastModified)) {
           return Response.notModified(lastModified).expires(null).build();
         }
       }
@@ -629,6 +627,29 @@ public class SchedulerRestService {
   }
 
 
+  /**
+   * Returns whether an <code>If-None-Match</code> header matches an entity tag. The header may contain a list of
+   * quoted or weak entity tags as well as the plain tag the calendar endpoints have always returned.
+   *
+   * @param ifNoneMatch
+   *          the header value, may be <code>null</code>
+   * @param etag
+   *          the current entity tag
+   * @return <code>true</code> if the header matches
+   */
+  static boolean etagMatches(String ifNoneMatch, String etag) {
+    if (StringUtils.isBlank(ifNoneMatch) || StringUtils.isBlank(etag)) {
+      return false;
+    }
+    for (String tag : StringUtils.split(ifNoneMatch, ',')) {
+      final String strongTag = StringUtils.removeStart(tag.trim(), "W/");
+      if ("*".equals(strongTag) || etag.equals(StringUtils.unwrap(strongTag, '"'))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @GET
   @Produces(MediaType.TEXT_PLAIN)
   @Path("{id}/lastmodified")
@@ -0,0 +1,140 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.scheduler.impl;
+
+import com.entwinemedia.fn.data.Opt;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.validate.ValidationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The calendar entries of the upcoming events of a capture agent, valid as long as the last modified marker of the
+ * agent does not change.
+ * <p>
+ * Creating the entries requires the media package, episode catalog and series catalog of every event. Rendering a
+ * calendar from them only selects the entries matching the request, so that polling capture agents do not cause the
+ * entries to be created again as long as their schedule does not change. The last rendered calendar is kept as well
+ * and returned again if the selected entries did not change either.
+ */
+final class AgentCalendar {
+
+  /** Time after its end an event is still part of the calendar */
+  private static final long PASSED_EVENT_MARGIN = TimeUnit.HOURS.toMillis(1);
+
+  /** A calendar entry of a single event */
+  static final class Entry {
+    private final String seriesId;
+    private final Date start;
+    private final Date end;
+    private final VEvent event;
+
+    Entry(String seriesId, Date start, Date end, VEvent event) {
+      this.seriesId = seriesId;
+      this.start = start;
+      this.end = end;
+      this.event = event;
+    }
+  }
+
+  /** A rendered calendar together with the entries it contains */
+  private static final class Rendered {
+    private final List<Entry> entries;
+    private final String calendar;
+
+    private Rendered(List<Entry> entries, String calendar) {
+      this.entries = entries;
+      this.calendar = calendar;
+    }
+  }
+
+  private final String lastModified;
+
+  private final List<Entry> entries;
+
+  private volatile Rendered rendered = null;
+
+  AgentCalendar(String lastModified, List<Entry> entries) {
+    this.lastModified = lastModified;
+    final List<Entry> sorted = new ArrayList<>(entries);
+    sorted.sort(Comparator.comparing(entry -> entry.start));
+    this.entries = Collections.unmodifiableList(sorted);
+  }
+
+  /** Returns the last modified marker of the capture agent the entries have been created for. */
+  String getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * Renders a calendar of the entries of events which have not passed more than an hour ago.
+   *
+   * @param seriesId
+   *          only include events of this series
+   * @param cutoff
+   *          only include events starting before this date
+   * @return the iCalendar
+   * @throws ValidationException
+   *           if the calendar is not valid
+   */
+  String render(Opt<String> seriesId, Opt<Date> cutoff) throws ValidationException {
+    final long now = System.currentTimeMillis();
+    final List<Entry> selected = new ArrayList<>();
+    for (Entry entry : entries) {
+      if (cutoff.isSome() && !entry.start.before(cutoff.get())) {
+        break;
+      }
+      if (seriesId.isSome() && !seriesId.get().equals(entry.seriesId)) {
+        continue;
+      }
+      if (entry.end.getTime() + PASSED_EVENT_MARGIN < now) {
+        continue;
+      }
+      selected.add(entry);
+    }
+
+    final Rendered last = rendered;
+    if (last != null && last.entries.equals(selected)) {
+      return last.calendar;
+    }
+
+    final Calendar calendar = new CalendarGenerator(null).getCalendar();
+    for (Entry entry : selected) {
+      calendar.getComponents().add(entry.event);
+    }
+    // Only validate calendars with events. Without any events, the iCalendar won't validate
+    if (!selected.isEmpty()) {
+      calendar.validate();
+    }
+    final String result = calendar.toString();
+    rendered = new Rendered(selected, result);
+    return result;
+  }
+
+}
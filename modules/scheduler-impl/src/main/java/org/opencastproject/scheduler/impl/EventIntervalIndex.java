@@ -0,0 +1,164 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.scheduler.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable index of the time intervals of scheduled events which allows to find the events overlapping a given
+ * interval without looking at all events.
+ * <p>
+ * The events are kept in arrays sorted by start time together with the running maximum of their end times. To find
+ * overlapping events, the last event starting before the end of the interval is looked up by binary search. From there
+ * the events are checked backwards until the running maximum shows that no earlier event ends after the start of the
+ * interval.
+ * <p>
+ * The backward scan also visits the non-overlapping events between the results. A single long event keeps the running
+ * maximum up for all events starting after it, so in the worst case a lookup takes linear time. For schedules of short
+ * events which rarely overlap, a lookup checks few more events than it returns.
+ */
+public final class EventIntervalIndex {
+
+  private static final EventIntervalIndex EMPTY = new EventIntervalIndex(new String[0], new long[0], new long[0]);
+
+  /** Media package identifiers of the events, sorted by start time */
+  private final String[] ids;
+
+  /** Start times of the events in milliseconds */
+  private final long[] starts;
+
+  /** End times of the events in milliseconds */
+  private final long[] ends;
+
+  /** Maximum end time of all events up to and including the one at the same index */
+  private final long[] maxEnds;
+
+  private EventIntervalIndex(String[] ids, long[] starts, long[] ends) {
+    this.ids = ids;
+    this.starts = starts;
+    this.ends = ends;
+    this.maxEnds = new long[ends.length];
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < ends.length; i++) {
+      max = Math.max(max, ends[i]);
+      maxEnds[i] = max;
+    }
+  }
+
+  /** Returns an index without any events. */
+  public static EventIntervalIndex empty() {
+    return EMPTY;
+  }
+
+  /** Returns a builder for a new index. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** Returns the number of indexed events. */
+  public int size() {
+    return ids.length;
+  }
+
+  /**
+   * Finds the events overlapping an interval. Events which only touch the interval, i.e. end at its start or start at
+   * its end, do not overlap.
+   *
+   * @param start
+   *          the start of the interval in milliseconds
+   * @param end
+   *          the end of the interval in milliseconds
+   * @return the media package identifiers of the overlapping events, ordered by start time descending
+   */
+  public List<String> findOverlapping(long start, long end) {
+    // index of the first event starting at or after the end of the interval
+    int low = 0;
+    int high = starts.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (starts[mid] < end) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    List<String> result = Collections.emptyList();
+    for (int i = low - 1; i >= 0 && maxEnds[i] > start; i--) {
+      if (ends[i] > start) {
+        if (result.isEmpty()) {
+          result = new ArrayList<>();
+        }
+        result.add(ids[i]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Collects the events of a new index.
+   */
+  public static final class Builder {
+
+    private final List<Object[]> events = new ArrayList<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Adds an event to the index.
+     *
+     * @param mediaPackageId
+     *          the media package identifier of the event
+     * @param start
+     *          the start of the event in milliseconds
+     * @param end
+     *          the end of the event in milliseconds
+     * @return this builder
+     */
+    public Builder add(String mediaPackageId, long start, long end) {
+      events.add(new Object[] { mediaPackageId, start, end });
+      return this;
+    }
+
+    public EventIntervalIndex build() {
+      if (events.isEmpty()) {
+        return EMPTY;
+      }
+      final Object[][] sorted = events.toArray(new Object[0][]);
+      Arrays.sort(sorted, Comparator.comparingLong(event -> (Long) event[1]));
+      final String[] ids = new String[sorted.length];
+      final long[] starts = new long[sorted.length];
+      final long[] ends = new long[sorted.length];
+      for (int i = 0; i < sorted.length; i++) {
+        ids[i] = (String) sorted[i][0];
+        starts[i] = (Long) sorted[i][1];
+        ends[i] = (Long) sorted[i][2];
+      }
+      return new EventIntervalIndex(ids, starts, ends);
+    }
+  }
+
+}
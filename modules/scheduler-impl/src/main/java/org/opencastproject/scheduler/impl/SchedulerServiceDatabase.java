@@ -135,6 +135,25 @@ public interface SchedulerServiceDatabase {
    */
   List<String> getEvents(String captureAgentId, Date start, Date end, int separationMillis) throws SchedulerServiceDatabaseException;
 
+  /**
+   * Get the time intervals of all events scheduled on the given capture agent between the given start/end time with a
+   * single query. Events which are only partially contained within the given interval are also included.
+   *
+   * @param captureAgentId
+   *          the capture agent ID of the capture agent to check
+   * @param start
+   *          the start date of the interval to check
+   * @param end
+   *          the end date of the interval to check
+   * @param separationMillis
+   *          number of milliseconds to prepend and append to given interval
+   * @return An index of the events between start and end scheduled on the given capture agent.
+   * @throws SchedulerServiceDatabaseException
+   *           If the database cannot be queried.
+   */
+  EventIntervalIndex getEventIntervals(String captureAgentId, Date start, Date end, int separationMillis)
+          throws SchedulerServiceDatabaseException;
+
   /**
    * Retrieve all events matching given filter ordered by start time ascending.
    *
@@ -45,6 +45,7 @@ import org.opencastproject.assetmanager.api.query.ARecord;
 import org.opencastproject.assetmanager.api.query.AResult;
 import org.opencastproject.assetmanager.api.query.ASelectQuery;
 import org.opencastproject.assetmanager.api.query.Predicate;
+import org.opencastproject.elasticsearch.api.RefreshPolicy;
 import org.opencastproject.elasticsearch.api.SearchIndexException;
 import org.opencastproject.elasticsearch.index.ElasticsearchIndex;
 import org.opencastproject.elasticsearch.index.objects.event.Event;
@@ -116,6 +117,7 @@ import com.google.gson.reflect.TypeToken;
 import net.fortuna.ical4j.model.Period;
 import net.fortuna.ical4j.model.TimeZoneRegistry;
 import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.component.VEvent;
 import net.fortuna.ical4j.model.property.RRule;
 
 import org.apache.commons.io.IOUtils;
@@ -146,6 +148,7 @@ import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -184,6 +187,12 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   /** The default cache expire time in seconds */
   private static final int DEFAULT_CACHE_EXPIRE = 60;
 
+  /** Maximum number of capture agents whose calendar entries are kept in memory */
+  private static final int CALENDAR_CACHE_SIZE = 1000;
+
+  /** Time in seconds after which the calendar entries of a capture agent are created again */
+  private static final int CALENDAR_CACHE_EXPIRE = 3600;
+
   /** The Etag for an empty calendar */
   private static final String EMPTY_CALENDAR_ETAG = "mod0";
 
@@ -208,6 +217,13 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   protected Cache<String, String> lastModifiedCache = CacheBuilder.newBuilder()
           .expireAfterWrite(DEFAULT_CACHE_EXPIRE, TimeUnit.SECONDS).build();
 
+  /**
+   * The calendar entries of capture agents by organization and agent identifier. Entries expire after a while to pick
+   * up changes of series metadata, which do not change the last modified marker of an agent.
+   */
+  private final Cache<String, AgentCalendar> calendarCache = CacheBuilder.newBuilder()
+          .maximumSize(CALENDAR_CACHE_SIZE).expireAfterWrite(CALENDAR_CACHE_EXPIRE, TimeUnit.SECONDS).build();
+
   /** Persistent storage for events */
   private SchedulerServiceDatabase persistence;
 
@@ -1136,17 +1152,45 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
     try {
       TimeZoneRegistry registry = TimeZoneRegistryFactory.getInstance().createRegistry();
 
-      Set<MediaPackage> events = new HashSet<>();
-
+      Date first = null;
+      Date last = null;
       for (Period event : periods) {
         event.setTimeZone(registry.getTimeZone(tz.getID()));
-        final Date startDate = event.getStart();
-        final Date endDate = event.getEnd();
-
-        events.addAll(findConflictingEvents(captureAgentId, startDate, endDate));
+        if (first == null || event.getStart().before(first)) {
+          first = event.getStart();
+        }
+        if (last == null || event.getEnd().after(last)) {
+          last = event.getEnd();
+        }
       }
+      final Date rangeStart = first;
+      final Date rangeEnd = last;
 
-      return new ArrayList<>(events);
+      // Load the scheduled events of the whole range at once and check each period against them in memory instead of
+      // querying the database for every single period
+      final Organization organization = securityService.getOrganization();
+      final User user = SecurityUtil.createSystemUser(systemUserName, organization);
+      final int separation = Util.EVENT_MINIMUM_SEPARATION_MILLISECONDS;
+      List<MediaPackage> conflictingEvents = new ArrayList<>();
+
+      SecurityUtil.runAs(securityService, organization, user, () -> {
+        try {
+          final EventIntervalIndex index = persistence.getEventIntervals(captureAgentId, rangeStart, rangeEnd,
+              separation);
+          final Set<String> ids = new LinkedHashSet<>();
+          for (Period event : periods) {
+            ids.addAll(index.findOverlapping(event.getStart().getTime() - separation,
+                event.getEnd().getTime() + separation));
+          }
+          ids.stream()
+              .map(id -> getEventMediaPackage(id, false))
+              .forEach(conflictingEvents::add);
+        } catch (SchedulerServiceDatabaseException e) {
+          logger.error("Failed to get conflicting events", e);
+        }
+      });
+
+      return conflictingEvents;
     } catch (Exception e) {
       throw new SchedulerException(e);
     }
@@ -1157,66 +1201,92 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
           throws SchedulerException {
 
     try {
-      final Map<String, ExtendedEventDto> searchResult = persistence.search(captureAgentId, Opt.none(), cutoff,
-          Opt.some(DateTime.now().minusHours(1).toDate()), Opt.none(), Opt.none()).stream()
-          .collect(Collectors.toMap(ExtendedEventDto::getMediaPackageId, Function.identity()));
-      final AQueryBuilder query = assetManager.createQuery();
-      final AResult result = query.select(query.snapshot())
-          .where(withOrganization(query).and(query.mediaPackageIds(searchResult.keySet().toArray(new String[0])))
-              .and(withOwner(query)).and(query.version().isLatest()))
-          .run();
-
-      final CalendarGenerator cal = new CalendarGenerator(seriesService);
-      for (final ARecord record : result.getRecords()) {
-        final Opt<MediaPackage> optMp = record.getSnapshot().map(episodeToMp);
-
-        // If the event media package is empty, skip the event
-        if (optMp.isNone()) {
-          logger.warn("Mediapackage for event '{}' can't be found, event is not recorded", record.getMediaPackageId());
-          continue;
-        }
+      if (captureAgentId.isNone()) {
+        return new AgentCalendar(null, createCalendarEntries(captureAgentId, seriesId, cutoff))
+            .render(Opt.none(), Opt.none());
+      }
 
-        if (seriesId.isSome() && !seriesId.get().equals(optMp.get().getSeries())) {
-          continue;
-        }
+      // The calendar entries of an agent only change with its schedule, so there is no need to create them again on
+      // every poll of the agent unless its last modified marker has changed
+      final String lastModified = getScheduleLastModified(captureAgentId.get());
+      final String key = calendarCacheKey(captureAgentId.get());
+      AgentCalendar calendar = calendarCache.getIfPresent(key);
+      if (calendar == null || !lastModified.equals(calendar.getLastModified())) {
+        logger.debug("Creating calendar entries of capture agent {}", captureAgentId.get());
+        calendar = new AgentCalendar(lastModified, createCalendarEntries(captureAgentId, Opt.none(), Opt.none()));
+        calendarCache.put(key, calendar);
+      }
+      return calendar.render(seriesId, cutoff);
 
-        Opt<DublinCoreCatalog> catalogOpt = loadEpisodeDublinCoreFromAsset(record.getSnapshot().get());
-        if (catalogOpt.isNone()) {
-          logger.warn("No episode catalog available, skipping!");
-          continue;
-        }
+    } catch (Exception e) {
+      throw new SchedulerException(e);
+    }
+  }
 
-        final Map<String, String> caMetadata = deserializeExtendedEventProperties(searchResult.get(record.getMediaPackageId()).getCaptureAgentProperties());
+  private String calendarCacheKey(String captureAgentId) {
+    return securityService.getOrganization().getId() + "/" + captureAgentId;
+  }
 
-        // If the even properties are empty, skip the event
-        if (caMetadata.isEmpty()) {
-          logger.warn("Properties for event '{}' can't be found, event is not recorded", record.getMediaPackageId());
-          continue;
-        }
+  /**
+   * Creates the calendar entries of the events which have not passed more than an hour ago.
+   */
+  private List<AgentCalendar.Entry> createCalendarEntries(Opt<String> captureAgentId, Opt<String> seriesId,
+          Opt<Date> cutoff) throws SchedulerServiceDatabaseException {
+    final Map<String, ExtendedEventDto> searchResult = persistence.search(captureAgentId, Opt.none(), cutoff,
+        Opt.some(DateTime.now().minusHours(1).toDate()), Opt.none(), Opt.none()).stream()
+        .collect(Collectors.toMap(ExtendedEventDto::getMediaPackageId, Function.identity()));
+    final AQueryBuilder query = assetManager.createQuery();
+    final AResult result = query.select(query.snapshot())
+        .where(withOrganization(query).and(query.mediaPackageIds(searchResult.keySet().toArray(new String[0])))
+            .and(withOwner(query)).and(query.version().isLatest()))
+        .run();
+
+    final List<AgentCalendar.Entry> entries = new ArrayList<>();
+    final CalendarGenerator cal = new CalendarGenerator(seriesService);
+    for (final ARecord record : result.getRecords()) {
+      final Opt<MediaPackage> optMp = record.getSnapshot().map(episodeToMp);
+
+      // If the event media package is empty, skip the event
+      if (optMp.isNone()) {
+        logger.warn("Mediapackage for event '{}' can't be found, event is not recorded", record.getMediaPackageId());
+        continue;
+      }
 
-        final String agentId = searchResult.get(record.getMediaPackageId()).getCaptureAgentId();
-        final Date start = searchResult.get(record.getMediaPackageId()).getStartDate();
-        final Date end = searchResult.get(record.getMediaPackageId()).getEndDate();
-        final Date lastModified = record.getSnapshot().get().getArchivalDate();
+      if (seriesId.isSome() && !seriesId.get().equals(optMp.get().getSeries())) {
+        continue;
+      }
 
-        // Add the entry to the calendar, skip it with a warning if adding fails
-        try {
-          cal.addEvent(optMp.get(), catalogOpt.get(), agentId, start, end, lastModified, toPropertyString(caMetadata));
-        } catch (Exception e) {
-          logger.warn("Error adding event '{}' to calendar, event is not recorded", record.getMediaPackageId(), e);
-        }
+      Opt<DublinCoreCatalog> catalogOpt = loadEpisodeDublinCoreFromAsset(record.getSnapshot().get());
+      if (catalogOpt.isNone()) {
+        logger.warn("No episode catalog available, skipping!");
+        continue;
       }
 
-      // Only validate calendars with events. Without any events, the iCalendar won't validate
-      if (cal.getCalendar().getComponents().size() > 0) {
-        cal.getCalendar().validate();
+      final Map<String, String> caMetadata = deserializeExtendedEventProperties(searchResult.get(record.getMediaPackageId()).getCaptureAgentProperties());
+
+      // If the even properties are empty, skip the event
+      if (caMetadata.isEmpty()) {
+        logger.warn("Properties for event '{}' can't be found, event is not recorded", record.getMediaPackageId());
+        continue;
       }
 
-      return cal.getCalendar().toString();
+      final String agentId = searchResult.get(record.getMediaPackageId()).getCaptureAgentId();
+      final Date start = searchResult.get(record.getMediaPackageId()).getStartDate();
+      final Date end = searchResult.get(record.getMediaPackageId()).getEndDate();
+      final Date lastModified = record.getSnapshot().get().getArchivalDate();
 
-    } catch (Exception e) {
-      throw new SchedulerException(e);
+      // Create the entry of the calendar, skip it with a warning if creating it fails
+      try {
+        final VEvent event = cal.createEvent(optMp.get(), catalogOpt.get(), agentId, start, end, lastModified,
+            toPropertyString(caMetadata));
+        if (event != null) {
+          entries.add(new AgentCalendar.Entry(optMp.get().getSeries(), start, end, event));
+        }
+      } catch (Exception e) {
+        logger.warn("Error adding event '{}' to calendar, event is not recorded", record.getMediaPackageId(), e);
+      }
     }
+    return entries;
   }
 
   @Override
@@ -1302,8 +1372,9 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
                 .updateRecordingStatus(r.getState(), r.getLastCheckinTime()))));
 
         // Update Elasticsearch index
+        // Recording states are reported continuously by the capture agents and do not need to be visible right away
         updateEventInIndex(r.getID(), Opt.none(), Opt.none(), Opt.none(), Opt.none(), Opt.none(),
-                Opt.none(), Opt.none(), Opt.some(r.getState()));
+                Opt.none(), Opt.none(), Opt.some(r.getState()), RefreshPolicy.NONE);
       } else {
         logger.debug("Recording state not changed");
       }
@@ -1428,6 +1499,29 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   private void updateEventInIndex(String mediaPackageId, Opt<AccessControlList> acl,
           Opt<DublinCoreCatalog> dublinCore, Opt<Date> startTime, Opt<Date> endTime, Opt<Set<String>> presenters,
           Opt<String> agentId, Opt<Map<String, String>> properties, Opt<String> recordingStatus) {
+    updateEventInIndex(mediaPackageId, acl, dublinCore, startTime, endTime, presenters, agentId, properties,
+            recordingStatus, RefreshPolicy.IMMEDIATE);
+  }
+
+  /**
+   * Update the event in the Elasticsearch index. Fields will only be updated of the corresponding Opt is not none.
+   *
+   * @param mediaPackageId
+   * @param acl
+   * @param dublinCore
+   * @param startTime
+   * @param endTime
+   * @param presenters
+   * @param agentId
+   * @param properties
+   * @param recordingStatus
+   * @param refreshPolicy
+   *          when the update has to be visible to searches
+   */
+  private void updateEventInIndex(String mediaPackageId, Opt<AccessControlList> acl,
+          Opt<DublinCoreCatalog> dublinCore, Opt<Date> startTime, Opt<Date> endTime, Opt<Set<String>> presenters,
+          Opt<String> agentId, Opt<Map<String, String>> properties, Opt<String> recordingStatus,
+          RefreshPolicy refreshPolicy) {
 
     String organization = getSecurityService().getOrganization().getId();
     User user = getSecurityService().getUser();
@@ -1476,7 +1570,7 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
     };
 
     try {
-      index.addOrUpdateEvent(mediaPackageId, updateFunction, organization, user);
+      index.addOrUpdateEvent(mediaPackageId, updateFunction, organization, user, refreshPolicy);
       logger.debug("Scheduled event {} updated in the {} index.", mediaPackageId, index.getIndexName());
     } catch (SearchIndexException e) {
       logger.error("Error updating the scheduled event {} in the {} index.", mediaPackageId, index.getIndexName(), e);
@@ -1591,6 +1685,7 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
     try {
       logger.debug("Marking calendar feed for {} as modified", captureAgentId);
       persistence.touchLastEntry(captureAgentId);
+      calendarCache.invalidate(calendarCacheKey(captureAgentId));
       populateLastModifiedCache();
     } catch (SchedulerServiceDatabaseException e) {
       logger.error("Failed to update last modified entry of agent '{}':", captureAgentId, e);
@@ -25,6 +25,7 @@ import static org.opencastproject.db.Queries.namedQuery;
 
 import org.opencastproject.db.DBSession;
 import org.opencastproject.db.DBSessionFactory;
+import org.opencastproject.scheduler.impl.EventIntervalIndex;
 import org.opencastproject.scheduler.impl.SchedulerServiceDatabase;
 import org.opencastproject.scheduler.impl.SchedulerServiceDatabaseException;
 import org.opencastproject.security.api.SecurityService;
@@ -233,6 +234,30 @@ public class SchedulerServiceDatabaseImpl implements SchedulerServiceDatabase {
     }
   }
 
+  @Override
+  public EventIntervalIndex getEventIntervals(String captureAgentId, Date start, Date end, int separationMillis)
+      throws SchedulerServiceDatabaseException {
+    final Date extendedStart = Date.from(start.toInstant().minusMillis(separationMillis));
+    final Date extendedEnd = Date.from(end.toInstant().plusMillis(separationMillis));
+    try {
+      final List<Object[]> events = db.exec(namedQuery.findAll(
+          "ExtendedEvent.findEventIntervals",
+          Object[].class,
+          Pair.of("org", securityService.getOrganization().getId()),
+          Pair.of("ca", captureAgentId),
+          Pair.of("start", extendedStart),
+          Pair.of("end", extendedEnd)
+      ));
+      final EventIntervalIndex.Builder index = EventIntervalIndex.builder();
+      for (Object[] event : events) {
+        index.add((String) event[0], ((Date) event[1]).getTime(), ((Date) event[2]).getTime());
+      }
+      return index.build();
+    } catch (Exception e) {
+      throw new SchedulerServiceDatabaseException(e);
+    }
+  }
+
   @Override
   public List<ExtendedEventDto> search(
       Opt<String> captureAgentId,
@@ -0,0 +1,101 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.scheduler.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class EventIntervalIndexTest {
+
+  private static final long HOUR = 3600_000L;
+
+  @Test
+  public void testFindOverlapping() {
+    EventIntervalIndex index = EventIntervalIndex.builder()
+        .add("c", 4 * HOUR, 6 * HOUR)
+        .add("a", 0, HOUR)
+        .add("b", HOUR, 2 * HOUR)
+        .add("long", 0, 10 * HOUR)
+        .build();
+    Assert.assertEquals(4, index.size());
+
+    Assert.assertEquals(set("a", "b", "long"), new HashSet<>(index.findOverlapping(HOUR - 1, HOUR + 1)));
+    // touching intervals do not overlap
+    Assert.assertEquals(set("long"), new HashSet<>(index.findOverlapping(2 * HOUR, 4 * HOUR)));
+    Assert.assertEquals(set("c", "long"), new HashSet<>(index.findOverlapping(5 * HOUR, 20 * HOUR)));
+    Assert.assertTrue(index.findOverlapping(10 * HOUR, 11 * HOUR).isEmpty());
+    Assert.assertTrue(EventIntervalIndex.empty().findOverlapping(0, HOUR).isEmpty());
+  }
+
+  /**
+   * Checks a semester of recurring periods against 5000 events of one capture agent.
+   */
+  @Test
+  public void testRecurringPeriodsAgainstManyEvents() {
+    final Random random = new Random(42);
+    final int eventCount = 5000;
+    final long[][] events = new long[eventCount][];
+    final EventIntervalIndex.Builder builder = EventIntervalIndex.builder();
+    for (int i = 0; i < eventCount; i++) {
+      final long start = random.nextInt(eventCount * 4) * HOUR / 2;
+      final long end = start + (1 + random.nextInt(6)) * HOUR / 2;
+      events[i] = new long[] { start, end };
+      builder.add(Integer.toString(i), start, end);
+    }
+    final EventIntervalIndex index = builder.build();
+
+    // a 90 minute lecture every 24 hours
+    final List<long[]> periods = new ArrayList<>();
+    for (long start = HOUR / 4; start < eventCount * 2 * HOUR; start += 24 * HOUR) {
+      periods.add(new long[] { start, start + 3 * HOUR / 2 });
+    }
+
+    final Set<String> conflicts = new HashSet<>();
+    for (long[] period : periods) {
+      conflicts.addAll(index.findOverlapping(period[0], period[1]));
+    }
+
+    // compare with checking every single event
+    final Set<String> expected = new HashSet<>();
+    for (long[] period : periods) {
+      for (int i = 0; i < eventCount; i++) {
+        if (events[i][0] < period[1] && events[i][1] > period[0]) {
+          expected.add(Integer.toString(i));
+        }
+      }
+    }
+    Assert.assertFalse(expected.isEmpty());
+    Assert.assertEquals(expected, conflicts);
+  }
+
+  private static Set<String> set(String... ids) {
+    return new HashSet<>(Arrays.asList(ids));
+  }
+
+}
@@ -629,6 +629,19 @@ public class SchedulerServiceImplTest {
     assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
     Assert.assertNull(response.getEntity());
 
+    // Quoted and weak entity tags match as well
+    EasyMock.reset(request);
+    EasyMock.expect(request.getHeader("If-None-Match")).andReturn("W/\"" + etag + "\"").anyTimes();
+    EasyMock.replay(request);
+    response = restService.getCalendar(device, null, null, request);
+    assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+
+    // The calendar of the agent is reused as long as its schedule does not change
+    final String calendar = schedSvc.getCalendar(Opt.some(device), Opt.<String> none(), Opt.<Date> none());
+    Assert.assertSame(calendar, schedSvc.getCalendar(Opt.some(device), Opt.<String> none(), Opt.<Date> none()));
+    Assert.assertFalse(schedSvc.getCalendar(Opt.some(device), Opt.<String> none(), Opt.some(new Date(0)))
+        .contains("BEGIN:VEVENT"));
+
     // Update the event and clear to cache to make sure it's reloaded
     schedSvc.updateEvent(mediaPackage.getIdentifier().toString(), Opt.<Date> none(), Opt.<Date> none(),
             Opt.<String> none(), Opt.<Set<String>> none(), Opt.<MediaPackage> none(), Opt.some(wfPropertiesUpdated),
@@ -638,6 +651,7 @@ public class SchedulerServiceImplTest {
     response = restService.getCalendar(device, null, null, request);
     assertEquals(HttpServletResponse.SC_OK, response.getStatus());
     Assert.assertNotNull(response.getEntity());
+    Assert.assertNotSame(calendar, schedSvc.getCalendar(Opt.some(device), Opt.<String> none(), Opt.<Date> none()));
   }
 
   @Test
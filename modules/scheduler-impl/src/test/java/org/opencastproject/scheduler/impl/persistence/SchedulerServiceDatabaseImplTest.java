@@ -24,6 +24,7 @@ package org.opencastproject.scheduler.impl.persistence;
 import static org.opencastproject.db.DBTestEnv.getDbSessionFactory;
 import static org.opencastproject.db.DBTestEnv.newEntityManagerFactory;
 
+import org.opencastproject.scheduler.impl.EventIntervalIndex;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.util.NotFoundException;
@@ -262,6 +263,14 @@ public class SchedulerServiceDatabaseImplTest {
     Assert.assertTrue(eventIds.contains(mpId + 1));
     Assert.assertTrue(eventIds.contains(mpId + 2));
     Assert.assertTrue(eventIds.contains(mpId + 3));
+
+    final EventIntervalIndex index = schedulerDatabase.getEventIntervals(agentId, intervalStart, intervalEnd,
+        separationMillis);
+    Assert.assertEquals(3, index.size());
+    Assert.assertEquals(Collections.singletonList(mpId + 2),
+        index.findOverlapping(nowMillis + 2 * oneHourMillis, nowMillis + 3 * oneHourMillis));
+    Assert.assertTrue(schedulerDatabase.getEventIntervals("other", intervalStart, intervalEnd, 0).findOverlapping(
+        intervalStart.getTime(), intervalEnd.getTime()).isEmpty());
   }
 
   @Test
@@ -38,6 +38,7 @@ import org.opencastproject.search.api.SearchResult;
 import org.opencastproject.search.api.SearchService;
 import org.opencastproject.search.impl.persistence.SearchServiceDatabase;
 import org.opencastproject.search.impl.persistence.SearchServiceDatabaseException;
+import org.opencastproject.search.impl.solr.Schema;
 import org.opencastproject.search.impl.solr.SolrIndexManager;
 import org.opencastproject.search.impl.solr.SolrRequester;
 import org.opencastproject.security.api.AccessControlList;
@@ -69,6 +70,7 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.solr.client.solrj.SolrServer;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
 import org.osgi.framework.ServiceException;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
@@ -95,6 +97,7 @@ import java.util.Date;
 import java.util.Dictionary;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -137,12 +140,39 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
   /** The key to look for in the service configuration file to override the {@link DEFAULT_DELETE_JOB_LOAD} */
   public static final String DELETE_JOB_LOAD_KEY = "job.load.delete";
 
+  /** Configuration key for the time in milliseconds within which index updates have to become searchable */
+  public static final String COMMIT_WITHIN_KEY = "index.commit.within";
+
+  /** Configuration key for the number of uncommitted index updates after which a commit is forced */
+  public static final String COMMIT_MAX_PENDING_KEY = "index.commit.max.pending";
+
+  /** Configuration key for the number of media packages posted to the index at once while populating it */
+  public static final String POPULATE_BATCH_SIZE_KEY = "index.populate.batch.size";
+
+  /** By default, every index update is committed immediately */
+  public static final int DEFAULT_COMMIT_WITHIN = 0;
+
+  /** The default number of uncommitted index updates after which a commit is forced */
+  public static final int DEFAULT_COMMIT_MAX_PENDING = 1000;
+
+  /** The default number of media packages posted to the index at once while populating it */
+  public static final int DEFAULT_POPULATE_BATCH_SIZE = 100;
+
   /** The load introduced on the system by creating an add job */
   private float addJobLoad = DEFAULT_ADD_JOB_LOAD;
 
   /** The load introduced on the system by creating a delete job */
   private float deleteJobLoad = DEFAULT_DELETE_JOB_LOAD;
 
+  /** Time in milliseconds within which index updates have to become searchable, zero to commit immediately */
+  private int commitWithin = DEFAULT_COMMIT_WITHIN;
+
+  /** Number of uncommitted index updates after which a commit is forced */
+  private int commitMaxPending = DEFAULT_COMMIT_MAX_PENDING;
+
+  /** Number of media packages posted to the index at once while populating it */
+  private int populateBatchSize = DEFAULT_POPULATE_BATCH_SIZE;
+
   /** counter how often the index has already been tried to populate */
   private int retriesToPopulateIndex = 0;
 
@@ -271,6 +301,7 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     solrRequester = new SolrRequester(solrServer, securityService, serializer);
     indexManager = new SolrIndexManager(solrServer, workspace, mdServices, seriesService, mpeg7CatalogService,
             securityService);
+    indexManager.setCommitWithin(commitWithin, commitMaxPending);
 
     String systemUserName = cc.getBundleContext().getProperty(SecurityUtil.PROPERTY_KEY_SYS_USER);
     populateIndex(systemUserName);
@@ -281,6 +312,13 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
    */
   @Deactivate
   public void deactivate() {
+    if (indexManager != null) {
+      try {
+        indexManager.flush();
+      } catch (SolrServerException e) {
+        logger.warn("Unable to commit pending search index updates", e);
+      }
+    }
     SolrServerFactory.shutdown(solrServer);
   }
 
@@ -476,6 +514,8 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     try {
       SearchQuery q = new SearchQuery().withId(mediaPackageId);
       User user = securityService.getUser();
+      // Make sure we see the latest version of the media package
+      indexManager.flush();
       // allow ca users to retract live publications without putting them into the ACL
       if (user.hasRole(GLOBAL_CAPTURE_AGENT_ROLE)) {
         result = solrRequester.getForAdministrativeRead(q); // action doesn't matter here
@@ -541,6 +581,7 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
       searchQuery.withId(seriesId);
       searchQuery.includeSeries(true);
 
+      indexManager.flush();
       result = solrRequester.getForWrite(searchQuery);
       if (result.getItems().length == 0) {
         logger.warn(
@@ -626,6 +667,8 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
       }
       int errors = 0;
       int current = 0;
+      // The index documents of each media package of the current batch
+      final List<List<SolrInputDocument>> batch = new ArrayList<>(populateBatchSize);
       while (mediaPackages.hasNext()) {
         current++;
         try {
@@ -647,7 +690,8 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
               .reduce(new AccessControlList(acl.getEntries()), AccessControlList::mergeActions);
           logger.debug("Updating series with merged access control list: {}", seriesAcl);
 
-          indexManager.add(episode.getA(), acl, seriesAcl, deletionDate, modificationDate);
+          batch.add(indexManager.createInputDocuments(episode.getA(), acl, seriesAcl, deletionDate,
+              modificationDate));
         } catch (Exception e) {
           logger.error("Unable to index search instances", e);
           if (retryToPopulateIndex(systemUserName)) {
@@ -660,11 +704,37 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
           securityService.setUser(null);
         }
 
+        // Post the documents in batches
+        if (batch.size() >= populateBatchSize) {
+          final int failed = postBatch(batch);
+          if (failed == batch.size() && retryToPopulateIndex(systemUserName)) {
+            logger.warn("Trying to re-index search index later. Aborting for now.");
+            return;
+          }
+          errors += failed;
+          batch.clear();
+        }
+
         // log progress
         if (current % 100 == 0) {
           logger.info("Indexing search {}/{} ({} percent done)", current, total, current * 100 / total);
         }
       }
+      final int failed = postBatch(batch);
+      if (!batch.isEmpty() && failed == batch.size() && retryToPopulateIndex(systemUserName)) {
+        logger.warn("Trying to re-index search index later. Aborting for now.");
+        return;
+      }
+      errors += failed;
+      try {
+        indexManager.flush();
+      } catch (SolrServerException e) {
+        logger.error("Unable to commit the search index", e);
+        if (retryToPopulateIndex(systemUserName)) {
+          logger.warn("Trying to re-index search index later. Aborting for now.");
+          return;
+        }
+      }
       if (errors > 0) {
         logger.error("Skipped {} erroneous search entries while populating the search index", errors);
       }
@@ -672,6 +742,39 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     }
   }
 
+  /**
+   * Posts the index documents of a batch of media packages in a single request. If the request fails, the media
+   * packages of the batch are posted one by one so that a single erroneous media package does not keep the others
+   * from being indexed.
+   *
+   * @param batch
+   *          the index documents of each media package
+   * @return the number of media packages which could not be indexed
+   */
+  private int postBatch(List<List<SolrInputDocument>> batch) {
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    final List<SolrInputDocument> documents = new ArrayList<>(batch.size() * 2);
+    batch.forEach(documents::addAll);
+    try {
+      indexManager.addAll(documents);
+      return 0;
+    } catch (SolrServerException e) {
+      logger.warn("Unable to index a batch of {} search entries, indexing them one by one", batch.size(), e);
+    }
+    int failed = 0;
+    for (List<SolrInputDocument> mediaPackageDocuments : batch) {
+      try {
+        indexManager.addAll(mediaPackageDocuments);
+      } catch (SolrServerException e) {
+        logger.error("Unable to index search entry {}", mediaPackageDocuments.get(0).getFieldValue(Schema.ID), e);
+        failed++;
+      }
+    }
+    return failed;
+  }
+
   private boolean retryToPopulateIndex(final String systemUserName) {
     if (retriesToPopulateIndex > 0) {
       return false;
@@ -894,6 +997,31 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     addJobLoad = LoadUtil.getConfiguredLoadValue(properties, ADD_JOB_LOAD_KEY, DEFAULT_ADD_JOB_LOAD, serviceRegistry);
     deleteJobLoad = LoadUtil.getConfiguredLoadValue(
         properties, DELETE_JOB_LOAD_KEY, DEFAULT_DELETE_JOB_LOAD, serviceRegistry);
+
+    commitWithin = getConfiguredInt(properties, COMMIT_WITHIN_KEY, DEFAULT_COMMIT_WITHIN);
+    commitMaxPending = getConfiguredInt(properties, COMMIT_MAX_PENDING_KEY, DEFAULT_COMMIT_MAX_PENDING);
+    populateBatchSize = Math.max(1, getConfiguredInt(properties, POPULATE_BATCH_SIZE_KEY,
+        DEFAULT_POPULATE_BATCH_SIZE));
+    if (indexManager != null) {
+      indexManager.setCommitWithin(commitWithin, commitMaxPending);
+    }
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static int getConfiguredInt(Dictionary properties, String key, int defaultValue)
+          throws ConfigurationException {
+    if (properties == null) {
+      return defaultValue;
+    }
+    String value = StringUtils.trimToNull(Objects.toString(properties.get(key), null));
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new ConfigurationException(key, "Not an integer: " + value, e);
+    }
   }
 
   @Override
@@ -78,6 +78,7 @@ import org.opencastproject.workspace.api.Workspace;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServer;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
@@ -90,6 +91,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -102,6 +104,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -138,6 +141,18 @@ public class SolrIndexManager {
 
   private SecurityService securityService;
 
+  /**
+   * Time in milliseconds within which Solr has to make an update searchable. If zero or less, every update is followed
+   * by an immediate commit.
+   */
+  private int commitWithin = 0;
+
+  /** Number of uncommitted updates after which a commit is forced, zero or less for no limit */
+  private int maxPendingUpdates = 0;
+
+  /** Number of updates posted since the last commit issued by this manager */
+  private final AtomicInteger pendingUpdates = new AtomicInteger(0);
+
   /** Convert a DublinCoreValue into a date. */
   private static Function<DublinCoreValue, Option<Date>> toDateF = new Function<DublinCoreValue, Option<Date>>() {
     @Override
@@ -192,6 +207,93 @@ public class SolrIndexManager {
     setStaticMetadataServices(notNull(mdServices, "metadata service"));
   }
 
+  /**
+   * Switches between committing every update immediately and leaving the commit to Solr. In the latter mode, updates
+   * are posted with a <code>commitWithin</code> time, so that Solr can combine the commits of many updates into one. A
+   * commit is still forced by this manager once <code>maxPendingUpdates</code> updates have been posted, or whenever
+   * {@link #flush()} is called.
+   *
+   * @param commitWithin
+   *          the time in milliseconds within which an update has to become searchable, zero to commit immediately
+   * @param maxPendingUpdates
+   *          the number of uncommitted updates after which a commit is forced, zero for no limit
+   */
+  public void setCommitWithin(int commitWithin, int maxPendingUpdates) {
+    this.commitWithin = commitWithin;
+    this.maxPendingUpdates = maxPendingUpdates;
+    logger.info("Search index updates are {}", commitWithin > 0
+        ? "committed within " + commitWithin + "ms or after " + maxPendingUpdates + " updates"
+        : "committed immediately");
+  }
+
+  /**
+   * Commits all updates which have been posted but not yet committed by this manager. Callers which need to read
+   * their own writes right away call this method before querying the index.
+   *
+   * @throws SolrServerException
+   *           if an errors occurs while talking to solr
+   */
+  public void flush() throws SolrServerException {
+    if (pendingUpdates.getAndSet(0) > 0) {
+      try {
+        solrServer.commit();
+      } catch (IOException e) {
+        throw new SolrServerException(e);
+      }
+    }
+  }
+
+  /**
+   * Posts the given documents in a single request and commits them according to the configured commit mode.
+   *
+   * @param documents
+   *          the documents to post
+   */
+  private void post(SolrInputDocument... documents) throws SolrServerException, IOException {
+    post(Arrays.asList(documents), commitWithin <= 0);
+  }
+
+  /**
+   * Posts the given documents in a single request.
+   *
+   * @param documents
+   *          the documents to post
+   * @param commitNow
+   *          whether to commit the documents right away
+   */
+  private void post(Collection<SolrInputDocument> documents, boolean commitNow)
+          throws SolrServerException, IOException {
+    UpdateRequest request = new UpdateRequest();
+    for (SolrInputDocument document : documents) {
+      if (document != null) {
+        request.add(document);
+      }
+    }
+    if (request.getDocuments() == null || request.getDocuments().isEmpty()) {
+      return;
+    }
+    if (commitWithin > 0) {
+      request.setCommitWithin(commitWithin);
+    }
+    request.process(solrServer);
+    updated(request.getDocuments().size(), commitNow);
+  }
+
+  /**
+   * Keeps track of posted updates and issues a commit if required.
+   *
+   * @param count
+   *          the number of updated documents
+   * @param commitNow
+   *          whether the updates have to be committed right away
+   */
+  private void updated(int count, boolean commitNow) throws SolrServerException {
+    final int pending = pendingUpdates.addAndGet(count);
+    if (commitNow || maxPendingUpdates > 0 && pending >= maxPendingUpdates) {
+      flush();
+    }
+  }
+
   /**
    * Clears the search index. Make sure you know what you are doing.
    *
@@ -202,6 +304,7 @@ public class SolrIndexManager {
     try {
       solrServer.deleteByQuery("*:*");
       solrServer.commit();
+      pendingUpdates.set(0);
     } catch (IOException e) {
       throw new SolrServerException(e);
     }
@@ -219,6 +322,8 @@ public class SolrIndexManager {
    */
   public boolean deleteSeries(String seriesid, Date deletionDate) throws SolrServerException {
     try {
+      // Make sure pending updates of this series are visible
+      flush();
       QueryResponse solrResponse = null;
       try {
         SolrQuery query = new SolrQuery(Schema.ID + ":" + ClientUtils.escapeQueryChars(seriesid) + " AND -"
@@ -242,8 +347,7 @@ public class SolrIndexManager {
 
       // Set the oc_deleted field to the current date, then update
       Schema.setOcDeleted(inputDocument, deletionDate);
-      solrServer.add(inputDocument);
-      solrServer.commit();
+      post(inputDocument);
       return true;
     } catch (IOException e) {
       throw new SolrServerException(e);
@@ -262,7 +366,8 @@ public class SolrIndexManager {
    */
   public boolean delete(String id, Date deletionDate) throws SolrServerException {
     try {
-      // Load the existing episode
+      // Make sure pending updates of this entry are visible, then load the existing entry
+      flush();
       QueryResponse solrResponse = null;
       try {
         SolrQuery query = new SolrQuery(Schema.ID + ":" + ClientUtils.escapeQueryChars(id) + " AND -"
@@ -288,8 +393,7 @@ public class SolrIndexManager {
       // Set the oc_deleted and oc_modified field to the given date, then update
       Schema.setOcDeleted(inputDocument, deletionDate);
       Schema.setOcModified(inputDocument, deletionDate);
-      solrServer.add(inputDocument);
-      solrServer.commit();
+      post(inputDocument);
       return true;
     } catch (IOException e) {
       throw new SolrServerException(e);
@@ -323,11 +427,7 @@ public class SolrIndexManager {
       }
 
       // Post everything to the search index
-      solrServer.add(episodeDocument);
-      if (seriesDocument != null) {
-        solrServer.add(seriesDocument);
-      }
-      solrServer.commit();
+      post(episodeDocument, seriesDocument);
       return true;
     } catch (Exception e) {
       throw new SolrServerException(
@@ -348,10 +448,7 @@ public class SolrIndexManager {
   public void addSeries(final String seriesId, final AccessControlList acl) throws SolrServerException {
     try {
       SolrInputDocument seriesDocument = createSeriesInputDocument(seriesId, acl);
-      if (seriesDocument != null) {
-        solrServer.add(seriesDocument);
-        solrServer.commit();
-      }
+      post(seriesDocument);
     } catch (Exception e) {
       throw new SolrServerException(String.format("Unable to add series %s to index", seriesId), e);
     }
@@ -381,6 +478,44 @@ public class SolrIndexManager {
       AccessControlList seriesAcl, Date deletionDate,
       Date modificationDate)
           throws SolrServerException {
+    try {
+      post(createInputDocuments(sourceMediaPackage, acl, seriesAcl, deletionDate, modificationDate),
+          commitWithin <= 0);
+      return true;
+    } catch (Exception e) {
+      logger.error("Unable to add mediapackage {} to index", sourceMediaPackage.getIdentifier());
+      // Rolling back would discard the pending updates of other callers as well
+      if (commitWithin <= 0) {
+        try {
+          solrServer.rollback();
+        } catch (IOException e1) {
+          throw new SolrServerException(e1);
+        }
+      }
+      throw new SolrServerException(e);
+    }
+  }
+
+  /**
+   * Creates the input documents for a media package without posting them. Depending on what is referenced in the media
+   * package, the list contains the episode document and the document of the series that the episode belongs to.
+   *
+   * @param sourceMediaPackage
+   *          the media package
+   * @param acl
+   *          the access control list for this mediapackage
+   * @param seriesAcl
+   *          the access control list for the series
+   * @param deletionDate
+   *          the deletion date
+   * @param modificationDate
+   *          the modification date
+   * @return the input documents, ready to be passed to {@link #addAll(Collection)}
+   * @throws SolrServerException
+   *           if the documents cannot be created
+   */
+  public List<SolrInputDocument> createInputDocuments(MediaPackage sourceMediaPackage, AccessControlList acl,
+      AccessControlList seriesAcl, Date deletionDate, Date modificationDate) throws SolrServerException {
     try {
       SolrInputDocument episodeDocument = createEpisodeInputDocument(sourceMediaPackage, acl);
 
@@ -394,17 +529,33 @@ public class SolrIndexManager {
         Schema.setOcDeleted(episodeDocument, deletionDate);
       }
 
-      solrServer.add(episodeDocument);
-      solrServer.add(seriesDocument);
-      solrServer.commit();
-      return true;
-    } catch (Exception e) {
-      logger.error("Unable to add mediapackage {} to index", sourceMediaPackage.getIdentifier());
-      try {
-        solrServer.rollback();
-      } catch (IOException e1) {
-        throw new SolrServerException(e1);
+      List<SolrInputDocument> documents = new ArrayList<>(2);
+      documents.add(episodeDocument);
+      if (seriesDocument != null) {
+        documents.add(seriesDocument);
       }
+      return documents;
+    } catch (Exception e) {
+      throw new SolrServerException(
+          String.format("Unable to create index documents for media package %s", sourceMediaPackage.getIdentifier()),
+          e);
+    }
+  }
+
+  /**
+   * Posts a batch of input documents in a single request. The documents are not committed right away, callers have to
+   * call {@link #flush()} once they are done unless write-behind mode has been enabled using
+   * {@link #setCommitWithin(int, int)}.
+   *
+   * @param documents
+   *          the documents to post
+   * @throws SolrServerException
+   *           if an errors occurs while talking to solr
+   */
+  public void addAll(Collection<SolrInputDocument> documents) throws SolrServerException {
+    try {
+      post(documents, false);
+    } catch (IOException e) {
       throw new SolrServerException(e);
     }
   }
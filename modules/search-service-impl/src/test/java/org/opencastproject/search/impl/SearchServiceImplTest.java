@@ -24,6 +24,7 @@ package org.opencastproject.search.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.opencastproject.db.DBTestEnv.getDbSessionFactory;
 import static org.opencastproject.db.DBTestEnv.newEntityManagerFactory;
 import static org.opencastproject.security.api.Permissions.Action.READ;
@@ -49,6 +50,7 @@ import org.opencastproject.search.api.SearchQuery;
 import org.opencastproject.search.api.SearchResult;
 import org.opencastproject.search.api.SearchResultItem;
 import org.opencastproject.search.impl.persistence.SearchServiceDatabaseImpl;
+import org.opencastproject.search.impl.solr.Schema;
 import org.opencastproject.search.impl.solr.SolrIndexManager;
 import org.opencastproject.search.impl.solr.SolrRequester;
 import org.opencastproject.security.api.AccessControlEntry;
@@ -76,6 +78,8 @@ import org.opencastproject.workspace.api.Workspace;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.junit.After;
@@ -89,10 +93,13 @@ import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -120,6 +127,9 @@ public class SearchServiceImplTest {
   /** The authorization service */
   private AuthorizationService authorizationService = null;
 
+  /** Identifier of a media package the index refuses to add */
+  private String unindexableMediaPackageId = null;
+
   /** Student role */
   private static final String ROLE_STUDENT = "ROLE_STUDENT";
 
@@ -232,7 +242,17 @@ public class SearchServiceImplTest {
     service.setPersistence(searchDatabase);
     SolrServer solrServer = SearchServiceImpl.setupSolr(new File(solrRoot));
     service.testSetup(solrServer, new SolrRequester(solrServer, securityService), new SolrIndexManager(solrServer,
-            workspace, Arrays.asList(mdService), seriesService, mpeg7CatalogService, securityService));
+            workspace, Arrays.asList(mdService), seriesService, mpeg7CatalogService, securityService) {
+      @Override
+      public void addAll(Collection<SolrInputDocument> documents) throws SolrServerException {
+        for (SolrInputDocument document : documents) {
+          if (Objects.equals(unindexableMediaPackageId, document.getFieldValue(Schema.ID))) {
+            throw new SolrServerException("Unable to index " + unindexableMediaPackageId);
+          }
+        }
+        super.addAll(documents);
+      }
+    });
 
     // acl
     String anonymousRole = securityService.getOrganization().getAnonymousRole();
@@ -521,6 +541,42 @@ public class SearchServiceImplTest {
     assertEquals(1, service.getByQuery(q).size());
   }
 
+  /**
+   * Tests that updates are deferred in write-behind mode and still seen when deleting.
+   */
+  @Test
+  public void testCommitWithin() throws Exception {
+    service.getSolrIndexManager().setCommitWithin(60000, 0);
+    MediaPackage mediaPackage = getMediaPackage("/manifest-simple.xml");
+
+    // Make sure our mocked ACL has the read and write permission
+    acl.getEntries().add(new AccessControlEntry(ROLE_STUDENT, READ.toString(), true));
+    acl.getEntries().add(new AccessControlEntry(ROLE_STUDENT, WRITE.toString(), true));
+
+    Job job = service.add(mediaPackage);
+    JobBarrier barrier = new JobBarrier(null, serviceRegistry, 1000, job);
+    barrier.waitForJobs();
+    assertEquals("Job to add mediapackage did not finish", Job.Status.FINISHED, job.getStatus());
+
+    SearchQuery q = new SearchQuery();
+    q.includeEpisodes(true);
+    q.includeSeries(false);
+    q.withId("10.0000/1");
+
+    // The update has not been committed yet
+    assertEquals(0, service.getByQuery(q).size());
+    service.getSolrIndexManager().flush();
+    assertEquals(1, service.getByQuery(q).size());
+
+    // Deleting has to see a pending update as well
+    job = service.add(mediaPackage);
+    barrier = new JobBarrier(null, serviceRegistry, 1000, job);
+    barrier.waitForJobs();
+    assertTrue(service.deleteSynchronously(mediaPackage.getIdentifier().toString()));
+    service.getSolrIndexManager().flush();
+    assertEquals(0, service.getByQuery(q).size());
+  }
+
   /**
    * Test removal from the search index.
    */
@@ -706,4 +762,31 @@ public class SearchServiceImplTest {
     // This time we should have 10 results
     assertEquals(10, service.getByQuery(new SearchQuery()).size());
   }
+
+  /**
+   * Tests that a media package the index refuses does not keep the rest of its batch from being indexed.
+   */
+  @Test
+  public void testPopulateIndexWithFailingBatch() throws Exception {
+    final Hashtable<String, String> properties = new Hashtable<>();
+    properties.put(SearchServiceImpl.POPULATE_BATCH_SIZE_KEY, "5");
+    service.updated(properties);
+
+    for (int i = 0; i < 10; i++) {
+      MediaPackage mediaPackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+      mediaPackage.setIdentifier(IdImpl.fromUUID());
+      searchDatabase.storeMediaPackage(mediaPackage, acl, new Date());
+      if (i == 3) {
+        unindexableMediaPackageId = mediaPackage.getIdentifier().toString();
+      }
+    }
+
+    service.populateIndex("System Admin");
+
+    // Only the refused media package is missing
+    assertEquals(9, service.getByQuery(new SearchQuery()).size());
+    SearchQuery q = new SearchQuery();
+    q.withId(unindexableMediaPackageId);
+    assertEquals(0, service.getByQuery(q).size());
+  }
 }
@@ -0,0 +1,138 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import org.opencastproject.db.DBSession;
+import org.opencastproject.job.api.Job;
+import org.opencastproject.job.jpa.JpaJob;
+import org.opencastproject.serviceregistry.api.HostRegistration;
+import org.opencastproject.serviceregistry.api.ServiceRegistration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In-memory view of the data the {@link JobDispatcher} needs to decide where a job may be dispatched to.
+ * <p>
+ * Instead of querying service registrations, host registrations and the child jobs of a job's parent for every single
+ * queued job, the dispatcher keeps this view and only touches the database to accept or update jobs. Host and service
+ * registrations are reloaded whenever the service registry reports a write to them, and in any case after the
+ * reconciliation interval has passed. The set of jobs with running children is loaded once per dispatching round and
+ * updated in memory as jobs get dispatched during that round.
+ * <p>
+ * Instances are not thread safe and are meant to be used from the dispatcher thread only.
+ */
+final class DispatchState {
+
+  private static final Logger logger = LoggerFactory.getLogger(DispatchState.class);
+
+  private final ServiceRegistryJpaImpl serviceRegistry;
+
+  private final DBSession db;
+
+  /** Interval after which the registrations are reloaded even if no change has been reported, in milliseconds */
+  private final long reconcileIntervalMs;
+
+  private List<ServiceRegistration> services = Collections.emptyList();
+
+  private List<HostRegistration> hosts = Collections.emptyList();
+
+  /** Identifiers of jobs which have at least one running descendant */
+  private Set<Long> jobsWithRunningChildren = new HashSet<>();
+
+  /** Registrations version as reported by the service registry when the registrations were last loaded */
+  private long registrationsVersion = -1;
+
+  /** Time of the last registrations reload */
+  private long lastReconciled = 0;
+
+  DispatchState(ServiceRegistryJpaImpl serviceRegistry, DBSession db, long reconcileIntervalMs) {
+    this.serviceRegistry = serviceRegistry;
+    this.db = db;
+    this.reconcileIntervalMs = reconcileIntervalMs;
+  }
+
+  /**
+   * Prepares the view for a new round of dispatching. Registrations are reloaded if they have been changed or if the
+   * reconciliation interval has passed, the running state of child jobs is always reloaded.
+   */
+  void refresh() {
+    final long version = serviceRegistry.getRegistrationsVersion();
+    final long now = System.currentTimeMillis();
+    if (version != registrationsVersion || now - lastReconciled >= reconcileIntervalMs) {
+      logger.debug("Reloading service and host registrations for dispatching");
+      services = db.exec(serviceRegistry.getServiceRegistrationsQuery());
+      hosts = db.exec(serviceRegistry.getHostRegistrationsQuery());
+      registrationsVersion = version;
+      lastReconciled = now;
+    }
+    jobsWithRunningChildren = new HashSet<>(db.exec(serviceRegistry.getJobsWithChildrenInStatusQuery(
+        Job.Status.RUNNING)));
+  }
+
+  /**
+   * Forces the registrations to be reloaded on the next call to {@link #refresh()}.
+   */
+  void invalidate() {
+    registrationsVersion = -1;
+  }
+
+  List<ServiceRegistration> getServiceRegistrations() {
+    return services;
+  }
+
+  List<HostRegistration> getHostRegistrations() {
+    return hosts;
+  }
+
+  /**
+   * Returns whether the given job has at least one running child job.
+   *
+   * @param jobId
+   *          the parent job identifier
+   * @return <code>true</code> if a running child is known
+   */
+  boolean hasRunningChildren(long jobId) {
+    return jobsWithRunningChildren.contains(jobId);
+  }
+
+  /**
+   * Records that the given job has been handed to a service, which marks all of its ancestors as having running
+   * children for the remainder of this dispatching round.
+   *
+   * @param job
+   *          the dispatched job
+   */
+  void jobDispatched(JpaJob job) {
+    // Ancestors of a job already known to have running children are known as well
+    JpaJob parent = job.getParentJob();
+    while (parent != null && jobsWithRunningChildren.add(parent.getId())) {
+      parent = parent.getParentJob();
+    }
+  }
+
+}
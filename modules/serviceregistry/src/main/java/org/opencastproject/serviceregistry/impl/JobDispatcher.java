@@ -44,8 +44,11 @@ import org.opencastproject.serviceregistry.api.SystemLoad;
 import org.opencastproject.serviceregistry.impl.jpa.ServiceRegistrationJpaImpl;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.UrlSupport;
+import org.opencastproject.util.metrics.Histogram;
+import org.opencastproject.util.metrics.Metrics;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.HttpResponse;
@@ -110,8 +113,25 @@ public class JobDispatcher {
   /** Multiplicative factor to transform dispatch interval captured in seconds to milliseconds */
   static final long DISPATCH_INTERVAL_MS_FACTOR = 1000;
 
+  /** Configuration key for enabling the in-memory dispatch state */
+  protected static final String OPT_DISPATCHSTATECACHE = "dispatch.state.cache";
+
+  /** Configuration key for the interval after which the in-memory dispatch state is reconciled, in seconds */
+  protected static final String OPT_DISPATCHSTATERECONCILEINTERVAL = "dispatch.state.reconcile.interval";
+
+  /** Default interval after which the in-memory dispatch state is reconciled, in seconds */
+  static final long DEFAULT_DISPATCH_STATE_RECONCILE_INTERVAL = 60;
+
   private static final Logger logger = LoggerFactory.getLogger(JobDispatcher.class);
 
+  /** Duration of the dispatching rounds */
+  private static final Histogram dispatchRoundDuration = Metrics.histogram("opencast_job_dispatch_round_seconds",
+      "Duration of a job dispatching round", Histogram.DEFAULT_BUCKETS);
+
+  /** Time from the creation of queued jobs until they have been dispatched */
+  private static final Histogram dispatchLatency = Metrics.histogram("opencast_job_dispatch_latency_seconds",
+      "Time from the creation of a job until it has been dispatched", Histogram.PROCESSING_BUCKETS, "type");
+
   private ServiceRegistryJpaImpl serviceRegistry;
 
   private OrganizationDirectoryService organizationDirectoryService;
@@ -139,6 +159,9 @@ public class JobDispatcher {
   /** The dispatcher priority list */
   protected final Map<Long, String> dispatchPriorityList = new HashMap<>();
 
+  /** The in-memory dispatch state, or <code>null</code> if registrations are loaded from the database for each job */
+  protected volatile DispatchState dispatchState = null;
+
   /** OSGi DI */
   @Reference(target = "(osgi.unit.name=org.opencastproject.common)")
   void setEntityManagerFactory(EntityManagerFactory emf) {
@@ -223,11 +246,32 @@ public class JobDispatcher {
       }
     }
 
+    boolean dispatchStateCache = BooleanUtils.toBoolean(StringUtils.trimToNull(
+        (String) properties.get(OPT_DISPATCHSTATECACHE)));
+    long reconcileInterval = DEFAULT_DISPATCH_STATE_RECONCILE_INTERVAL;
+    String reconcileIntervalString = StringUtils.trimToNull(
+        (String) properties.get(OPT_DISPATCHSTATERECONCILEINTERVAL));
+    if (reconcileIntervalString != null) {
+      try {
+        reconcileInterval = Long.parseLong(reconcileIntervalString);
+      } catch (NumberFormatException e) {
+        logger.warn("Dispatch state reconcile interval '{}' is malformed, setting to {}", reconcileIntervalString,
+            DEFAULT_DISPATCH_STATE_RECONCILE_INTERVAL);
+      }
+    }
+
     // Stop the current dispatch thread so we can configure a new one
     if (jdfuture != null) {
       jdfuture.cancel(true);
     }
 
+    if (dispatchStateCache) {
+      logger.info("Using in-memory dispatch state, reconciled every {} seconds", reconcileInterval);
+      dispatchState = new DispatchState(serviceRegistry, db, reconcileInterval * DISPATCH_INTERVAL_MS_FACTOR);
+    } else {
+      dispatchState = null;
+    }
+
     // Schedule the job dispatching.
     if (dispatchInterval > 0) {
       long dispatchIntervalMs = Math.round(dispatchInterval * DISPATCH_INTERVAL_MS_FACTOR);
@@ -246,6 +290,9 @@ public class JobDispatcher {
 
   public class JobDispatcherRunner implements Runnable {
 
+    /** The dispatch state of the current round, fixed for the round in case the dispatcher is reconfigured */
+    private DispatchState state;
+
     /**
      * {@inheritDoc}
      *
@@ -254,6 +301,7 @@ public class JobDispatcher {
     @Override
     public void run() {
       logger.debug("Starting job dispatch");
+      final long start = System.nanoTime();
 
       undispatchableJobTypes = new ArrayList<>();
       try {
@@ -263,6 +311,11 @@ public class JobDispatcher {
           serviceRegistry.updateStatisticsJobData();
         }
 
+        state = dispatchState;
+        if (state != null) {
+          state.refresh();
+        }
+
         if (!dispatchPriorityList.isEmpty()) {
           logger.trace("Checking for outdated jobs in dispatchPriorityList's '{}' jobs", dispatchPriorityList.size());
           // Remove outdated jobs from priority list
@@ -329,6 +382,7 @@ public class JobDispatcher {
         logger.warn("Error dispatching jobs", t);
       } finally {
         undispatchableJobTypes = null;
+        dispatchRoundDuration.labels().observeSince(start);
       }
 
       logger.debug("Finished job dispatch");
@@ -378,30 +432,47 @@ public class JobDispatcher {
 
         // Start dispatching
         try {
-          List<ServiceRegistration> services = db.exec(serviceRegistry.getServiceRegistrationsQuery());
-          List<HostRegistration> hosts = db.exec(serviceRegistry.getHostRegistrationsQuery()).stream()
-                                           .filter(host -> !dispatchPriorityList.containsValue(host.getBaseUrl())
-                                               || host.getBaseUrl().equals(dispatchPriorityList.get(job.getId())))
-                                           .collect(Collectors.toList());
+          List<ServiceRegistration> services;
+          List<HostRegistration> hosts;
+          if (state != null) {
+            services = state.getServiceRegistrations();
+            hosts = state.getHostRegistrations();
+          } else {
+            services = db.exec(serviceRegistry.getServiceRegistrationsQuery());
+            hosts = db.exec(serviceRegistry.getHostRegistrationsQuery());
+          }
+          hosts = hosts.stream()
+                       .filter(host -> !dispatchPriorityList.containsValue(host.getBaseUrl())
+                           || host.getBaseUrl().equals(dispatchPriorityList.get(job.getId())))
+                       .collect(Collectors.toList());
           List<ServiceRegistration> candidateServices;
 
           // Depending on whether this running job is trying to reach out to other services or whether this is an
           // attempt to execute the next operation in a workflow, choose either from a limited or from the full list
           // of services
-          Job parentJob = null;
-          try {
+          Long parentJobId = null;
+          if (state != null) {
+            // The parent is known from the queued job itself, no need to ask the database whether it still exists
             if (job.getParentJob() != null) {
-              parentJob = serviceRegistry.getJob(job.getParentJob().getId());
+              parentJobId = job.getParentJob().getId();
+            }
+          } else {
+            try {
+              if (job.getParentJob() != null) {
+                parentJobId = serviceRegistry.getJob(job.getParentJob().getId()).getId();
+              }
+            } catch (NotFoundException e) {
+              // That's ok
             }
-          } catch (NotFoundException e) {
-            // That's ok
           }
 
           // When a job A starts a series of child jobs, then those child jobs should only be dispatched at the
           // same time if there is processing capacity available.
           boolean parentHasRunningChildren = false;
-          if (parentJob != null) {
-            for (Job child : serviceRegistry.getChildJobs(parentJob.getId())) {
+          if (parentJobId != null && state != null) {
+            parentHasRunningChildren = state.hasRunningChildren(parentJobId);
+          } else if (parentJobId != null) {
+            for (Job child : serviceRegistry.getChildJobs(parentJobId)) {
               if (Job.Status.RUNNING.equals(child.getStatus())) {
                 parentHasRunningChildren = true;
                 break;
@@ -411,7 +482,7 @@ public class JobDispatcher {
 
           // If this is a root job (a new workflow or a new workflow operation), then only dispatch if there is
           // capacity, i. e. the workflow service is ok dispatching the next workflow or the next workflow operation.
-          if (parentJob == null || ServiceRegistryJpaImpl.TYPE_WORKFLOW.equals(jobType) || parentHasRunningChildren) {
+          if (parentJobId == null || ServiceRegistryJpaImpl.TYPE_WORKFLOW.equals(jobType) || parentHasRunningChildren) {
             logger.trace("Using available capacity only for dispatching of {} to a service of type '{}'", job, jobType);
             candidateServices = serviceRegistry.getServiceRegistrationsWithCapacity(jobType, services, hosts, systemLoad);
           } else {
@@ -421,8 +492,13 @@ public class JobDispatcher {
 
           // Try to dispatch the job
           String hostAcceptingJob;
+          final boolean queued = Job.Status.QUEUED.equals(job.getStatus());
           try {
             hostAcceptingJob = dispatchJob(job, candidateServices);
+            if (queued && job.getDateCreated() != null) {
+              dispatchLatency.labels(jobType)
+                  .observe((System.currentTimeMillis() - job.getDateCreated().getTime()) / 1000.0);
+            }
             try {
               systemLoad.updateNodeLoad(hostAcceptingJob, job.getJobLoad());
             } catch (NotFoundException e) {
@@ -430,6 +506,9 @@ public class JobDispatcher {
             }
 
             dispatchPriorityList.remove(job.getId());
+            if (state != null) {
+              state.jobDispatched(job);
+            }
           } catch (ServiceUnavailableException e) {
             logger.debug("Jobs of type {} currently cannot be dispatched", job.getOperation());
             // Don't mark workflow jobs as undispatchable to not impact worklfow operations
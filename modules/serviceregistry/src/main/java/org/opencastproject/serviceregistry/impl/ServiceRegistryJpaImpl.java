@@ -22,6 +22,7 @@
 package org.opencastproject.serviceregistry.impl;
 
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.opencastproject.db.Queries.namedQuery;
 import static org.opencastproject.job.api.AbstractJobProducer.ACCEPT_JOB_LOADS_EXCEEDING_PROPERTY;
@@ -37,6 +38,7 @@ import org.opencastproject.db.DBSession;
 import org.opencastproject.db.DBSessionFactory;
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
+import org.opencastproject.job.api.JobCompletionListener;
 import org.opencastproject.job.jpa.JpaJob;
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.security.api.Organization;
@@ -49,6 +51,7 @@ import org.opencastproject.serviceregistry.api.HostStatistics;
 import org.opencastproject.serviceregistry.api.IncidentService;
 import org.opencastproject.serviceregistry.api.Incidents;
 import org.opencastproject.serviceregistry.api.JaxbServiceStatistics;
+import org.opencastproject.serviceregistry.api.JobCompletionNotifier;
 import org.opencastproject.serviceregistry.api.ServiceRegistration;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
@@ -66,13 +69,20 @@ import org.opencastproject.util.UrlSupport;
 import org.opencastproject.util.data.functions.Strings;
 import org.opencastproject.util.function.ThrowingConsumer;
 import org.opencastproject.util.jmx.JmxUtil;
+import org.opencastproject.util.metrics.Gauge;
+import org.opencastproject.util.metrics.Histogram;
+import org.opencastproject.util.metrics.Metrics;
 
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.message.BasicNameValuePair;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
@@ -90,6 +100,7 @@ import org.osgi.util.tracker.ServiceTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -100,13 +111,19 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -127,7 +144,7 @@ import javax.persistence.TypedQuery;
   immediate = true,
   service = { ManagedService.class, ServiceRegistry.class, ServiceRegistryJpaImpl.class }
 )
-public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
+public class ServiceRegistryJpaImpl implements ServiceRegistry, JobCompletionNotifier, ManagedService {
 
   /** JPA persistence unit name */
   public static final String PERSISTENCE_UNIT = "org.opencastproject.common";
@@ -158,6 +175,24 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Jobs statistics JMX type */
   private static final String JMX_JOBS_STATISTICS_TYPE = "JobsStatistics";
 
+  /** Time jobs started on this node have been queued */
+  private static final Histogram jobQueueTime = Metrics.histogram("opencast_job_queue_seconds",
+      "Time from the creation of a job until it started running", Histogram.PROCESSING_BUCKETS,
+      "type", "operation");
+
+  /** Time jobs completed on this node have been running */
+  private static final Histogram jobRunTime = Metrics.histogram("opencast_job_run_seconds",
+      "Time from the start of a job until it completed", Histogram.PROCESSING_BUCKETS,
+      "type", "operation", "status");
+
+  /** Active jobs of the cluster, maintained as jobs change on this node and reconciled with the database */
+  private static final Gauge activeJobs = Metrics.gauge("opencast_job_active", "Active jobs", "host",
+      "organization");
+
+  /** Active workflows of the cluster, maintained as jobs change on this node and reconciled with the database */
+  private static final Gauge activeWorkflows = Metrics.gauge("opencast_workflow_active", "Active workflows",
+      "organization");
+
   /** The JMX business object for hosts statistics */
   private HostsStatistics hostsStatistics;
 
@@ -188,6 +223,12 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Configuration key for the encoding workers load threshold */
   protected static final String OPT_ENCODING_THRESHOLD = "org.opencastproject.encoding.workers.threshold";
 
+  /** Configuration key for notifying the node processing the parent job once a job is completed on another node */
+  protected static final String OPT_JOB_COMPLETION_NOTIFY_REMOTE = "job.completion.notify.remote";
+
+  /** Configuration key for the interval to reconcile the active job metrics with the database, in seconds */
+  protected static final String OPT_METRICS_RECONCILE_INTERVAL = "metrics.reconcile.interval";
+
   /** The http client to use when connecting to remote servers */
   protected TrustedHttpClient client = null;
 
@@ -198,6 +239,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Default setting on job statistics collection */
   static final boolean DEFAULT_JOB_STATISTICS = false;
 
+  /** Default setting on remote job completion notifications */
+  static final boolean DEFAULT_JOB_COMPLETION_NOTIFY_REMOTE = true;
+
+  /** Default interval to reconcile the active job metrics with the database, in seconds */
+  static final long DEFAULT_METRICS_RECONCILE_INTERVAL = 300;
+
+  /** Path of the service registry endpoint receiving job completion notifications from other nodes */
+  static final String JOB_COMPLETED_PATH = "/services/jobcompleted";
+
   /** Default setting on service statistics retrieval */
   static final int DEFAULT_SERVICE_STATISTICS_MAX_JOB_AGE = 14;
 
@@ -214,6 +264,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Default value for {@link #maxAttemptsBeforeErrorState} */
   private static final int DEFAULT_MAX_ATTEMPTS_BEFORE_ERROR_STATE = 10;
 
+  /** Maximum number of job identifiers passed to a single query */
+  private static final int MAX_IN_CLAUSE_SIZE = 1000;
+
   /** Default value for {@link #errorStatesEnabled} */
   private static final boolean DEFAULT_ERROR_STATES_ENABLED = true;
 
@@ -266,6 +319,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Whether to collect detailed job statistics */
   protected boolean collectJobstats = DEFAULT_JOB_STATISTICS;
 
+  /** Whether to notify the node processing the parent job once a job is completed on this node */
+  protected boolean notifyRemoteJobCompletion = DEFAULT_JOB_COMPLETION_NOTIFY_REMOTE;
+
+  /** Listeners waiting for jobs to complete */
+  private final List<JobCompletionListener> jobCompletionListeners = new CopyOnWriteArrayList<>();
+
+  /** The executor used to send job completion notifications to other nodes */
+  protected ExecutorService notificationExecutor = null;
+
   /** Maximum age of jobs being considering for service statistics */
   protected int maxJobAge = DEFAULT_SERVICE_STATISTICS_MAX_JOB_AGE;
 
@@ -282,6 +344,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     JOB_STATUSES_INFLUENCING_LOAD_BALANCING.add(Status.RUNNING);
   }
 
+  /** Incremented whenever a host or service registration is written, see {@link #getRegistrationsVersion()} */
+  private final AtomicLong registrationsVersion = new AtomicLong();
+
   /** Whether to accept a job whose load exceeds the host’s max load */
   protected Boolean acceptJobLoadsExeedingMaxLoad = true;
 
@@ -389,6 +454,10 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
               .getOrElse(DEFAULT_ACCEPT_JOB_LOADS_EXCEEDING);
     }
 
+    if (notificationExecutor == null) {
+      notificationExecutor = Executors.newSingleThreadExecutor();
+    }
+
     localSystemLoad = 0;
     logger.info("Activated");
   }
@@ -420,6 +489,11 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    if (notificationExecutor != null) {
+      notificationExecutor.shutdown();
+      notificationExecutor = null;
+    }
+
     for (ObjectInstance mbean : jmxBeans) {
       JmxUtil.unregisterMXBean(mbean);
     }
@@ -587,7 +661,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     });
 
     setJobUri(jpaJob);
-    return jpaJob.toJob();
+    final Job created = jpaJob.toJob();
+    countActiveJob(created, 1);
+    return created;
   }
 
   @Override
@@ -751,6 +827,13 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    notifyRemoteJobCompletion = DEFAULT_JOB_COMPLETION_NOTIFY_REMOTE;
+    String notifyRemoteString = StringUtils.trimToNull((String) properties.get(OPT_JOB_COMPLETION_NOTIFY_REMOTE));
+    if (notifyRemoteString != null) {
+      notifyRemoteJobCompletion = Boolean.parseBoolean(notifyRemoteString);
+      logger.info("Notification of remote nodes about completed jobs set to {}", notifyRemoteJobCompletion);
+    }
+
     // get the encoding worker nodes defined in the configuration file and parse the comma-separated list
     String encodingWorkersString = (String) properties.get(OPT_ENCODING_WORKERS);
     if (StringUtils.isNotBlank(encodingWorkersString)) {
@@ -788,6 +871,17 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    long metricsReconcileInterval = DEFAULT_METRICS_RECONCILE_INTERVAL;
+    String metricsReconcileString = StringUtils.trimToNull((String) properties.get(OPT_METRICS_RECONCILE_INTERVAL));
+    if (metricsReconcileString != null) {
+      try {
+        metricsReconcileInterval = Long.parseLong(metricsReconcileString);
+      } catch (NumberFormatException e) {
+        logger.warn("Metrics reconcile interval '{}' is malformed, setting to {}", metricsReconcileString,
+                DEFAULT_METRICS_RECONCILE_INTERVAL);
+      }
+    }
+
     scheduledExecutor = Executors.newScheduledThreadPool(1);
 
     // Schedule the service heartbeat if the interval is > 0
@@ -796,6 +890,14 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       scheduledExecutor.scheduleWithFixedDelay(new JobProducerHeartbeat(), heartbeatInterval, heartbeatInterval,
               TimeUnit.SECONDS);
     }
+
+    // Count the active jobs once and then reconcile the counts maintained by this node with the changes of others
+    if (metricsReconcileInterval > 0) {
+      scheduledExecutor.scheduleWithFixedDelay(this::reconcileActiveJobMetrics, 0, metricsReconcileInterval,
+              TimeUnit.SECONDS);
+    } else {
+      scheduledExecutor.execute(this::reconcileActiveJobMetrics);
+    }
   }
 
   /**
@@ -855,11 +957,13 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
   JpaJob updateJob(JpaJob job) throws ServiceRegistryException {
     try {
+      final AtomicBoolean servicesChanged = new AtomicBoolean(false);
+      final AtomicReference<Job> oldJob = new AtomicReference<>();
       // tx context is opened in
       //   updateInternal
       //   updateServiceForFailover
-      return db.execChecked(em -> {
-        Job oldJob = getJob(job.getId());
+      final JpaJob updated = db.execChecked(em -> {
+        oldJob.set(getJob(job.getId()));
         JpaJob jpaJob = updateInternal(job);
         if (!TYPE_WORKFLOW.equals(job.getJobType()) && job.getJobLoad() > 0.0f
             && job.getProcessorServiceRegistration() != null
@@ -868,12 +972,21 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
         }
 
         // All WorkflowService Jobs will be ignored
-        if (oldJob.getStatus() != job.getStatus() && !TYPE_WORKFLOW.equals(job.getJobType())) {
-          updateServiceForFailover(job);
+        if (oldJob.get().getStatus() != job.getStatus() && !TYPE_WORKFLOW.equals(job.getJobType())) {
+          servicesChanged.set(updateServiceForFailover(job));
         }
 
         return jpaJob;
       });
+      if (servicesChanged.get()) {
+        registrationsChanged();
+      }
+      // Notify only once the new status is visible to the waiting parties
+      if (oldJob.get().getStatus() != updated.getStatus() && updated.getStatus().isTerminated()) {
+        jobCompleted(updated.getId(), updated.getStatus(), oldJob.get().getParentJobId());
+      }
+      recordJobTimes(oldJob.get(), updated);
+      return updated;
     } catch (ServiceRegistryException e) {
       throw e;
     } catch (NotFoundException e) {
@@ -893,6 +1006,92 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     return updateJob(jpaJob).toJob();
   }
 
+  @Override
+  public void addJobCompletionListener(JobCompletionListener listener) {
+    jobCompletionListeners.add(listener);
+  }
+
+  @Override
+  public void removeJobCompletionListener(JobCompletionListener listener) {
+    jobCompletionListeners.remove(listener);
+  }
+
+  @Override
+  public void fireJobCompleted(long jobId, Status status) {
+    for (JobCompletionListener listener : jobCompletionListeners) {
+      try {
+        listener.jobCompleted(jobId, status);
+      } catch (Exception e) {
+        logger.warn("Job completion listener failed on job {}", jobId, e);
+      }
+    }
+  }
+
+  @Override
+  public boolean notifiesRemoteCompletions() {
+    return notifyRemoteJobCompletion;
+  }
+
+  /**
+   * Notifies the local listeners about a completed job and, if the parent job is processed on another node, forwards
+   * the notification to that node, since this is where the barrier waiting for the job runs. Remote notifications are
+   * sent asynchronously and on a best effort basis, since waiting parties fall back to polling.
+   *
+   * @param jobId
+   *          the job identifier
+   * @param status
+   *          the terminal job status
+   * @param parentJobId
+   *          the identifier of the parent job or <code>null</code> if the job has no parent
+   */
+  private void jobCompleted(long jobId, Status status, Long parentJobId) {
+    fireJobCompleted(jobId, status);
+
+    if (!notifyRemoteJobCompletion || notificationExecutor == null || client == null || parentJobId == null) {
+      return;
+    }
+
+    final Organization organization = securityService.getOrganization();
+    final User user = securityService.getUser();
+    notificationExecutor.execute(() -> {
+      final String waitingHost;
+      try {
+        waitingHost = getJob(parentJobId).getProcessingHost();
+      } catch (NotFoundException | ServiceRegistryException e) {
+        logger.debug("Unable to find the host waiting for job {}", jobId, e);
+        return;
+      }
+      if (waitingHost == null || waitingHost.equals(hostName)) {
+        return;
+      }
+      HttpPost post = new HttpPost(UrlSupport.concat(waitingHost, JOB_COMPLETED_PATH));
+      List<BasicNameValuePair> params = new ArrayList<>();
+      params.add(new BasicNameValuePair("id", Long.toString(jobId)));
+      params.add(new BasicNameValuePair("status", status.toString()));
+      post.setEntity(new UrlEncodedFormEntity(params, UTF_8));
+      HttpResponse response = null;
+      securityService.setOrganization(organization);
+      securityService.setUser(user);
+      try {
+        response = client.execute(post);
+        if (response.getStatusLine().getStatusCode() != HttpStatus.SC_NO_CONTENT) {
+          logger.debug("Host {} did not accept completion notification of job {}: {}", waitingHost, jobId,
+                  response.getStatusLine());
+        }
+      } catch (Exception e) {
+        logger.debug("Unable to notify host {} about completion of job {}", waitingHost, jobId, e);
+      } finally {
+        try {
+          client.close(response);
+        } catch (IOException e) {
+          // ignore
+        }
+        securityService.setUser(null);
+        securityService.setOrganization(null);
+      }
+    });
+  }
+
   /**
    * Processes the job load changes for the *local* load cache
    *
@@ -951,29 +1150,127 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
    * @return the updated job
    */
   protected JpaJob updateInternal(JpaJob job) throws NotFoundException {
+    final AtomicReference<Job> before = new AtomicReference<>();
     JpaJob fromDb = db.execTxChecked(em -> {
       JpaJob j = em.find(JpaJob.class, job.getId());
       if (j == null) {
         throw new NotFoundException();
       }
 
+      before.set(j.toJob());
       update(j, job);
       em.merge(j);
       return j;
     });
 
-    job.setVersion(fromDb.toJob().getVersion());
+    final Job after = fromDb.toJob();
+    countActiveJob(before.get(), -1);
+    countActiveJob(after, 1);
+    job.setVersion(after.getVersion());
     setJobUri(job);
     return job;
   }
 
+  /**
+   * Returns a counter which is incremented each time this service registry writes a host or service registration.
+   * Callers holding a copy of the registrations can compare it to decide whether their copy is outdated.
+   *
+   * @return the current registrations version
+   */
+  long getRegistrationsVersion() {
+    return registrationsVersion.get();
+  }
+
+  private void registrationsChanged() {
+    registrationsVersion.incrementAndGet();
+  }
+
+  /**
+   * Records the time a job has been queued once it starts running and the time it has been running once it completes.
+   *
+   * @param oldJob
+   *          the job before the update
+   * @param job
+   *          the updated job
+   */
+  private void recordJobTimes(Job oldJob, JpaJob job) {
+    if (oldJob.getDateStarted() == null && job.getDateStarted() != null && Status.RUNNING.equals(job.getStatus())
+            && job.getDateCreated() != null) {
+      jobQueueTime.labels(job.getJobType(), job.getOperation())
+          .observe((job.getDateStarted().getTime() - job.getDateCreated().getTime()) / 1000.0);
+    }
+    if (oldJob.getDateCompleted() == null && job.getDateCompleted() != null && job.getDateStarted() != null) {
+      jobRunTime.labels(job.getJobType(), job.getOperation(), job.getStatus().toString())
+          .observe((job.getDateCompleted().getTime() - job.getDateStarted().getTime()) / 1000.0);
+    }
+  }
+
+  /**
+   * Updates the active job and workflow metrics for a job which has been committed by this node.
+   *
+   * @param job
+   *          the job as committed
+   * @param amount
+   *          1 if the job has been stored, -1 if it has been replaced
+   */
+  private static void countActiveJob(Job job, int amount) {
+    if (job == null || job.getStatus() == null || !job.getStatus().isActive()) {
+      return;
+    }
+    if (job.getProcessingHost() != null) {
+      activeJobs.labels(job.getProcessingHost(), job.getOrganization()).inc(amount);
+    }
+    if (START_WORKFLOW.equals(job.getOperation())) {
+      activeWorkflows.labels(job.getOrganization()).inc(amount);
+    }
+  }
+
+  /**
+   * Resets the active job and workflow metrics to the counts in the database. The metrics are maintained from the
+   * changes made by this node, which does not see the jobs changed by other nodes of the cluster or jobs changed in
+   * bulk, e.g. when a host is sanitized.
+   */
+  void reconcileActiveJobMetrics() {
+    try {
+      final List<Integer> statuses = Arrays.stream(activeJobStatus).map(Enum::ordinal).collect(Collectors.toList());
+      final List<Object[]> jobs = db.exec(namedQuery.findAll("Job.countPerHostOrganization.statuses", Object[].class,
+          Pair.of("statuses", statuses)));
+      final List<Object[]> workflows = db.exec(namedQuery.findAll("Job.countPerOrganization.statuses.operation",
+          Object[].class, Pair.of("statuses", statuses), Pair.of("operation", START_WORKFLOW)));
+
+      final Map<List<String>, Long> jobCounts = new HashMap<>();
+      for (Object[] row : jobs) {
+        jobCounts.put(Arrays.asList((String) row[0], (String) row[1]), ((Number) row[2]).longValue());
+      }
+      final Map<List<String>, Long> workflowCounts = new HashMap<>();
+      for (Object[] row : workflows) {
+        workflowCounts.put(Collections.singletonList((String) row[0]), ((Number) row[1]).longValue());
+      }
+      reconcile(activeJobs, jobCounts);
+      reconcile(activeWorkflows, workflowCounts);
+    } catch (Exception e) {
+      logger.warn("Unable to reconcile the active job metrics with the database", e);
+    }
+  }
+
+  private static void reconcile(Gauge gauge, Map<List<String>, Long> counts) {
+    for (Map.Entry<List<String>, Gauge.Child> child : gauge.getChildren().entrySet()) {
+      child.getValue().set(counts.getOrDefault(child.getKey(), 0L));
+    }
+    for (Map.Entry<List<String>, Long> count : counts.entrySet()) {
+      gauge.labels(count.getKey().toArray(new String[0])).set(count.getValue());
+    }
+  }
+
   public void updateStatisticsJobData() {
     jobsStatistics.updateAvg(db.exec(getAvgOperationsQuery()));
     jobsStatistics.updateJobCount(db.exec(getCountPerHostServiceQuery()));
   }
 
   /**
-   * Internal method to update the service registration state, throwing unwrapped JPA exceptions.
+   * Internal method to update the service registration state, throwing unwrapped JPA exceptions. Since this may be
+   * called within an enclosing database session, callers have to report the change using
+   * {@link #registrationsChanged()} once that session has been committed.
    *
    * @param registration
    *          the service registration to update
@@ -1117,6 +1414,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       });
 
       hostsStatistics.updateHost(hostRegistration);
+      registrationsChanged();
     } catch (Exception e) {
       throw new ServiceRegistryException(e);
     }
@@ -1146,6 +1444,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
       logger.info("Host {} unregistered", host);
       hostsStatistics.updateHost(existingHostRegistration);
+      registrationsChanged();
     } catch (Exception e) {
       throw new ServiceRegistryException(e);
     }
@@ -1178,6 +1477,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       });
 
       hostsStatistics.updateHost(hostRegistration);
+      registrationsChanged();
     } catch (NotFoundException e) {
       throw e;
     } catch (Exception e) {
@@ -1210,6 +1510,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       });
 
       hostsStatistics.updateHost(hostRegistration);
+      registrationsChanged();
     } catch (NotFoundException e) {
       throw e;
     } catch (Exception e) {
@@ -1311,6 +1612,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
       hostsStatistics.updateHost(hostRegistration.get());
       servicesStatistics.updateService(registration.get());
+      registrationsChanged();
       return registration.get();
     } catch (Exception e) {
       throw new ServiceRegistryException(e);
@@ -1475,6 +1777,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     });
 
     hostsStatistics.updateHost(reg);
+    registrationsChanged();
     logger.info("Finished setting maintenance mode on host '{}'", baseUrl);
   }
 
@@ -1754,6 +2057,34 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     };
   }
 
+  /**
+   * Gets the identifiers of all jobs having at least one descendant job in the given state, i.e. the ancestors of the
+   * matching jobs along their parent jobs. This matches {@link #getChildJobs(long)} which returns all descendants of a
+   * job, no matter whether they are found through their root or their parent job.
+   *
+   * @param status
+   *          the status of the descendant jobs
+   * @return the set of ancestor job identifiers
+   */
+  protected Function<EntityManager, Set<Long>> getJobsWithChildrenInStatusQuery(Status status) {
+    return em -> {
+      final Set<Long> ancestors = new HashSet<>();
+      List<Long> parents = namedQuery.findAll(
+          "Job.parents.status",
+          Long.class,
+          Pair.of("status", status.ordinal())
+      ).apply(em);
+      while (!parents.isEmpty()) {
+        final List<Long> unseen = parents.stream().filter(ancestors::add).collect(Collectors.toList());
+        parents = new ArrayList<>();
+        for (List<Long> ids : ListUtils.partition(unseen, MAX_IN_CLAUSE_SIZE)) {
+          parents.addAll(namedQuery.findAll("Job.parents", Long.class, Pair.of("ids", ids)).apply(em));
+        }
+      }
+      return ancestors;
+    };
+  }
+
   Function<EntityManager, List<Object[]>> getAvgOperationsQuery() {
     return namedQuery.findAll("Job.avgOperation", Object[].class);
   }
@@ -2211,21 +2542,23 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
    *
    * @param job
    *          the current job that failed/succeeded
+   * @return whether the state of a service has been updated
    * @throws ServiceRegistryException
    * @throws NotFoundException
    */
-  private void updateServiceForFailover(JpaJob job) throws ServiceRegistryException, NotFoundException {
+  private boolean updateServiceForFailover(JpaJob job) throws ServiceRegistryException, NotFoundException {
     if (job.getStatus() != Status.FAILED && job.getStatus() != Status.FINISHED) {
-      return;
+      return false;
     }
 
     job.setStatus(job.getStatus(), job.getFailureReason());
+    boolean changed = false;
 
     // At this point, the only possible states for the current service are NORMAL and WARNING,
     // the services in ERROR state will not be chosen by the dispatcher
     ServiceRegistrationJpaImpl currentService = job.getProcessorServiceRegistration();
     if (currentService == null) {
-      return;
+      return false;
     }
 
     // Job is finished with a failure
@@ -2258,6 +2591,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           }
 
           updateServiceState(relatedService);
+          changed = true;
         }
       }
 
@@ -2269,6 +2603,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
                   currentService.getHost());
           currentService.setServiceState(WARNING, job.toJob().getSignature());
           updateServiceState(currentService);
+          changed = true;
         }
 
         // The current service already is in WARNING state and max attempts is reached
@@ -2278,6 +2613,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
                   currentService.getHost());
           currentService.setServiceState(ERROR, job.toJob().getSignature());
           updateServiceState(currentService);
+          changed = true;
         }
       }
     }
@@ -2290,8 +2626,10 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
                 currentService.getHost());
         currentService.setServiceState(NORMAL);
         updateServiceState(currentService);
+        changed = true;
       }
     }
+    return changed;
   }
 
   /**
@@ -2310,6 +2648,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       service.setServiceState(NORMAL);
       updateServiceState(service);
     });
+    registrationsChanged();
   }
 
   /**
@@ -43,6 +43,7 @@ import org.opencastproject.serviceregistry.api.JaxbServiceHealth;
 import org.opencastproject.serviceregistry.api.JaxbServiceRegistration;
 import org.opencastproject.serviceregistry.api.JaxbServiceRegistrationList;
 import org.opencastproject.serviceregistry.api.JaxbServiceStatisticsList;
+import org.opencastproject.serviceregistry.api.JobCompletionNotifier;
 import org.opencastproject.serviceregistry.api.ServiceRegistration;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
@@ -537,6 +538,29 @@ public class ServiceRegistryEndpoint {
     }
   }
 
+  @POST
+  @Path("jobcompleted")
+  @RestQuery(name = "jobcompleted", description = "Notifies this node that a job has reached a terminal state on another node", returnDescription = "No content", restParameters = {
+          @RestParameter(name = "id", isRequired = true, type = Type.INTEGER, description = "The job identifier"),
+          @RestParameter(name = "status", isRequired = true, type = Type.STRING, description = "The terminal job status") }, responses = {
+          @RestResponse(responseCode = SC_NO_CONTENT, description = "Notification received."),
+          @RestResponse(responseCode = SC_BAD_REQUEST, description = "The status is not a terminal job status.") })
+  public Response jobCompleted(@FormParam("id") long id, @FormParam("status") String status) {
+    final Job.Status jobStatus;
+    try {
+      jobStatus = Job.Status.valueOf(StringUtils.trimToEmpty(status));
+    } catch (IllegalArgumentException e) {
+      return Response.status(Status.BAD_REQUEST).build();
+    }
+    if (!jobStatus.isTerminated()) {
+      return Response.status(Status.BAD_REQUEST).build();
+    }
+    if (serviceRegistry instanceof JobCompletionNotifier) {
+      ((JobCompletionNotifier) serviceRegistry).fireJobCompleted(id, jobStatus);
+    }
+    return Response.status(Status.NO_CONTENT).build();
+  }
+
   @GET
   @Path("job/{id}.xml")
   @Produces(MediaType.TEXT_XML)
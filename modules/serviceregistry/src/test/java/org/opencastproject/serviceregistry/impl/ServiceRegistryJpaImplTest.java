@@ -48,6 +48,8 @@ import org.opencastproject.serviceregistry.impl.ServiceRegistryJpaImpl.JobProduc
 import org.opencastproject.systems.OpencastConstants;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.jmx.JmxUtil;
+import org.opencastproject.util.metrics.Gauge;
+import org.opencastproject.util.metrics.Metrics;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpResponse;
@@ -83,6 +85,8 @@ import java.util.Date;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
@@ -353,6 +357,56 @@ public class ServiceRegistryJpaImplTest {
     assertEquals(Status.RUNNING, undispatchableJob2.getStatus());
   }
 
+  @Test
+  public void testJobBarrierNotifiedOnCompletion() throws Exception {
+    final Job testJob = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, false,
+            null);
+    // Without notifications, the barrier would not look at the job again before the polling interval has passed
+    final JobBarrier barrier = new JobBarrier(null, serviceRegistryJpaImpl, JobBarrier.DEFAULT_FALLBACK_POLLING_INTERVAL,
+            testJob);
+    final long start = System.currentTimeMillis();
+    Executors.newSingleThreadScheduledExecutor().schedule(() -> {
+      testJob.setStatus(Status.FINISHED);
+      serviceRegistryJpaImpl.updateJob(testJob);
+      return null;
+    }, 500, TimeUnit.MILLISECONDS);
+    JobBarrier.Result result = barrier.waitForJobs();
+    Assert.assertTrue(result.isSuccess());
+    Assert.assertTrue(System.currentTimeMillis() - start < JobBarrier.DEFAULT_FALLBACK_POLLING_INTERVAL);
+  }
+
+  @Test
+  public void testJobCompletionNotifiesParentHost() throws Exception {
+    final Capture<HttpUriRequest> notification = EasyMock.newCapture();
+    final CountDownLatch sent = new CountDownLatch(1);
+    final TrustedHttpClient notifiedClient = EasyMock.createNiceMock(TrustedHttpClient.class);
+    EasyMock.expect(notifiedClient.execute(EasyMock.capture(notification))).andAnswer(() -> {
+      sent.countDown();
+      return new BasicHttpResponse(new BasicStatusLine(new HttpVersion(1, 1), HttpStatus.SC_NO_CONTENT, "No content"));
+    }).anyTimes();
+    EasyMock.replay(notifiedClient);
+    final TrustedHttpClient client = serviceRegistryJpaImpl.client;
+    serviceRegistryJpaImpl.client = notifiedClient;
+    try {
+      // the barrier waiting for the child job runs on the host processing the parent job
+      Job parent = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, false, null);
+      parent.setStatus(Status.RUNNING);
+      parent.setProcessingHost(TEST_HOST_OTHER);
+      parent = serviceRegistryJpaImpl.updateJob(parent);
+      final Job child = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, false,
+              parent);
+      child.setStatus(Status.FINISHED);
+      child.setProcessingHost(TEST_HOST);
+      serviceRegistryJpaImpl.updateJob(child);
+
+      Assert.assertTrue(sent.await(10, TimeUnit.SECONDS));
+      assertEquals(TEST_HOST_OTHER + ServiceRegistryJpaImpl.JOB_COMPLETED_PATH,
+              notification.getValue().getURI().toString());
+    } finally {
+      serviceRegistryJpaImpl.client = client;
+    }
+  }
+
   @Test
   public void testHostAddedToPriorityList() throws Exception {
     Job testJob = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, true, null);
@@ -474,6 +528,103 @@ public class ServiceRegistryJpaImplTest {
     assertHostloads(j,1.0f, 2.0f, 4.0f);
   }
 
+  @Test
+  public void testJobDispatchingWithDispatchState() throws Exception {
+    Dictionary<String, String> properties = new Hashtable<>();
+    properties.put(JobDispatcher.OPT_DISPATCHINTERVAL, "0");
+    properties.put(JobDispatcher.OPT_DISPATCHSTATECACHE, "true");
+    properties.put(JobDispatcher.OPT_DISPATCHSTATERECONCILEINTERVAL, "3600");
+    jobDispatcher.updated(properties);
+    try {
+      Job j = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE_FAIRNESS, TEST_OPERATION, null, null, true, null, 1.0f);
+      assertHostloads(j, 0.0f, 0.0f, 1.0f);
+      j = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE_FAIRNESS, TEST_OPERATION, null, null, true, null, 1.0f);
+      assertHostloads(j, 0.0f, 1.0f, 1.0f);
+      j = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE_FAIRNESS, TEST_OPERATION, null, null, true, null, 1.0f);
+      assertHostloads(j, 1.0f, 1.0f, 1.0f);
+
+      // Putting a host into maintenance must be picked up by the dispatch state without waiting for reconciliation
+      serviceRegistryJpaImpl.setMaintenanceStatus(TEST_HOST_THIRD, true);
+      j = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE_FAIRNESS, TEST_OPERATION, null, null, true, null, 1.0f);
+      assertHostloads(j, 1.0f, 2.0f, 1.0f);
+    } finally {
+      serviceRegistryJpaImpl.setMaintenanceStatus(TEST_HOST_THIRD, false);
+      properties.remove(JobDispatcher.OPT_DISPATCHSTATECACHE);
+      jobDispatcher.updated(properties);
+    }
+  }
+
+  @Test
+  public void testJobsWithRunningChildren() throws Exception {
+    Job root = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_PATH, null, null, false, null, 1.0f);
+    Job child = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_PATH, null, null, false, root, 1.0f);
+    Job grandchild = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_PATH, null, null, false, child,
+            1.0f);
+    Job other = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_PATH, null, null, false, null, 1.0f);
+    grandchild.setStatus(Job.Status.RUNNING);
+    serviceRegistryJpaImpl.updateJob(grandchild);
+
+    // all ancestors of the running job, just like the child jobs found for them by getChildJobs
+    Set<Long> ancestors = serviceRegistryJpaImpl.db.exec(
+            serviceRegistryJpaImpl.getJobsWithChildrenInStatusQuery(Job.Status.RUNNING));
+    Assert.assertTrue(ancestors.containsAll(Arrays.asList(root.getId(), child.getId())));
+    Assert.assertFalse(ancestors.contains(grandchild.getId()));
+    Assert.assertFalse(ancestors.contains(other.getId()));
+  }
+
+  @Test
+  public void testServiceStateChangeReportedAfterCommit() throws Exception {
+    serviceRegistryJpaImpl.sanitize(TEST_SERVICE, TEST_HOST);
+    long version = serviceRegistryJpaImpl.getRegistrationsVersion();
+
+    // the failure pushes the service into warning state
+    Job job = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_PATH, new ArrayList(
+            Arrays.asList("a", "b")), null, true, null, 1.0f);
+    job.setStatus(Job.Status.FAILED);
+    job.setProcessingHost(TEST_HOST);
+    serviceRegistryJpaImpl.updateJob(job);
+    Assert.assertTrue(serviceRegistryJpaImpl.getRegistrationsVersion() > version);
+    Assert.assertEquals(ServiceState.WARNING,
+            serviceRegistryJpaImpl.getServiceRegistration(TEST_SERVICE, TEST_HOST).getServiceState());
+  }
+
+  @Test
+  public void testActiveJobMetrics() throws Exception {
+    // wait for the reconciliation scheduled on activation
+    serviceRegistryJpaImpl.scheduledExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    serviceRegistryJpaImpl.reconcileActiveJobMetrics();
+    final Gauge.Child activeJobs = Metrics.gauge("opencast_job_active", "Active jobs", "host", "organization")
+            .labels(TEST_HOST, DefaultOrganization.DEFAULT_ORGANIZATION_ID);
+    final Gauge.Child activeWorkflows = Metrics.gauge("opencast_workflow_active", "Active workflows", "organization")
+            .labels(DefaultOrganization.DEFAULT_ORGANIZATION_ID);
+    final double jobs = activeJobs.get();
+    final double workflows = activeWorkflows.get();
+
+    // undispatchable jobs are processed by the host creating them
+    Job job = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, false, null);
+    Job workflow = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, ServiceRegistryJpaImpl.START_WORKFLOW,
+            null, null, false, null);
+    assertEquals(jobs + 2, activeJobs.get(), 0);
+    assertEquals(workflows + 1, activeWorkflows.get(), 0);
+
+    job.setStatus(Status.RUNNING);
+    job = serviceRegistryJpaImpl.updateJob(job);
+    assertEquals(jobs + 2, activeJobs.get(), 0);
+
+    job.setStatus(Status.FINISHED);
+    serviceRegistryJpaImpl.updateJob(job);
+    workflow.setStatus(Status.FAILED);
+    serviceRegistryJpaImpl.updateJob(workflow);
+    assertEquals(jobs, activeJobs.get(), 0);
+    assertEquals(workflows, activeWorkflows.get(), 0);
+
+    // the counts of the database replace the counts maintained by this node
+    activeJobs.set(42);
+    activeWorkflows.set(42);
+    serviceRegistryJpaImpl.reconcileActiveJobMetrics();
+    assertEquals(jobs, activeJobs.get(), 0);
+    assertEquals(workflows, activeWorkflows.get(), 0);
+  }
 
   @Test
   public void testDispatchingJobsHigherMaxLoad() throws Exception {
@@ -0,0 +1,70 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.fsresources;
+
+import org.eclipse.jetty.server.HttpOutput;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+
+import javax.servlet.ServletOutputStream;
+
+/**
+ * Lets Jetty send content read from a channel. The Jetty packages are an optional import of this bundle, so this class
+ * must only be used if {@link #isAvailable()} returns true.
+ */
+final class JettyOutput {
+
+  private JettyOutput() {
+  }
+
+  /**
+   * Whether the Jetty server classes can be loaded by this bundle.
+   */
+  static boolean isAvailable() {
+    try {
+      Class.forName("org.eclipse.jetty.server.HttpOutput", false, JettyOutput.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Sends all remaining content of the channel as the rest of the response body, if the output stream is Jetty's.
+   *
+   * @param ostream
+   *          The output stream of the response
+   * @param channel
+   *          The channel to read from, positioned at the first byte to send
+   * @return true if the content has been sent, false if the output stream is not a Jetty output
+   * @throws IOException
+   *           if sending the content failed
+   */
+  static boolean sendContent(ServletOutputStream ostream, ReadableByteChannel channel) throws IOException {
+    if (!(ostream instanceof HttpOutput)) {
+      return false;
+    }
+    ((HttpOutput) ostream).sendContent(channel);
+    return true;
+  }
+}
@@ -41,10 +41,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -84,6 +89,9 @@ public class StaticResourceServlet extends HttpServlet {
   private static final String PROP_AUTH_REQUIRED = "authentication.required";
   private static final String PROP_X_ACCEL_REDIRECT = "x.accel.redirect";
 
+  /** Whether Jetty is available to send files from a channel on its own */
+  private static final boolean JETTY_OUTPUT_AVAILABLE = JettyOutput.isAvailable();
+
   /** static initializer */
   static {
     FULL_RANGE = new ArrayList<>();
@@ -191,14 +199,23 @@ public class StaticResourceServlet extends HttpServlet {
     }
 
     File file = new File(distributionDirectory, path);
-    if (!file.isFile() || !file.canRead()) {
+    // Read all file metadata at once instead of querying the file system for every single attribute
+    BasicFileAttributes attributes = null;
+    try {
+      attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    } catch (IOException e) {
+      logger.trace("Unable to read attributes of file '{}'", file, e);
+    }
+    if (attributes == null || !attributes.isRegularFile() || !file.canRead()) {
       logger.debug("Unable to find file '{}', returning HTTP 404", file);
       resp.sendError(HttpServletResponse.SC_NOT_FOUND);
       return;
     }
+    final long lastModified = attributes.lastModifiedTime().toMillis();
+    final long fileLength = attributes.size();
 
     logger.debug("Serving static resource '{}'", file.getAbsolutePath());
-    String eTag = computeEtag(file);
+    String eTag = computeEtag(file.getName(), lastModified, fileLength);
     if (eTag.equals(req.getHeader("If-None-Match"))) {
       resp.setStatus(304);
       return;
@@ -214,14 +231,14 @@ public class StaticResourceServlet extends HttpServlet {
     if (!MimeTypes.DEFAULT_TYPE.equals(contentType)) {
       resp.setContentType(contentType);
     }
-    resp.setHeader("Content-Length", Long.toString(file.length()));
-    resp.setDateHeader("Last-Modified", file.lastModified());
+    resp.setHeader("Content-Length", Long.toString(fileLength));
+    resp.setDateHeader("Last-Modified", lastModified);
 
     resp.setHeader("Accept-Ranges", "bytes");
-    ArrayList<Range> ranges = parseRange(req, resp, eTag, file.lastModified(), file.length());
+    ArrayList<Range> ranges = parseRange(req, resp, eTag, lastModified, fileLength);
 
     if ((((ranges == null) || (ranges.isEmpty())) && (req.getHeader("Range") == null)) || (ranges == FULL_RANGE)) {
-      IOException e = copyRange(new FileInputStream(file), resp.getOutputStream(), 0, file.length());
+      IOException e = sendRange(file, resp.getOutputStream(), 0, fileLength - 1, fileLength);
       if (e != null) {
         try {
           resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -246,13 +263,8 @@ public class StaticResourceServlet extends HttpServlet {
         // Set the content-length as String to be able to use a long
         resp.setHeader("content-length", "" + length);
       }
-      try {
-        resp.setBufferSize(2048);
-      } catch (IllegalStateException e) {
-        logger.debug(e.getMessage(), e);
-      }
       resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-      IOException e = copyRange(new FileInputStream(file), resp.getOutputStream(), range.start, range.end);
+      IOException e = sendRange(file, resp.getOutputStream(), range.start, range.end, fileLength);
       if (e != null) {
         try {
           resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -278,15 +290,19 @@ public class StaticResourceServlet extends HttpServlet {
   /**
    * Computes an etag for a file using the filename, last modified, and length of the file.
    *
-   * @param file
-   *          the file
+   * @param name
+   *          the file name
+   * @param lastModified
+   *          the last modification time of the file
+   * @param length
+   *          the file length
    * @return the etag
    */
-  private String computeEtag(File file) {
+  private String computeEtag(String name, long lastModified, long length) {
     CRC32 crc = new CRC32();
-    crc.update(file.getName().getBytes());
-    checksum(file.lastModified(), crc);
-    checksum(file.length(), crc);
+    crc.update(name.getBytes());
+    checksum(lastModified, crc);
+    checksum(length, crc);
     return Long.toString(crc.getValue());
   }
 
@@ -311,9 +327,7 @@ public class StaticResourceServlet extends HttpServlet {
       out.println();
 
       // Printing content
-      InputStream in = new FileInputStream(f);
-      exception = copyRange(in, out, currentRange.start, currentRange.end);
-      in.close();
+      exception = transferRange(f, out, currentRange.start, currentRange.end);
     }
     out.println();
     out.print("--" + mimeSeparation + "--");
@@ -494,6 +508,77 @@ public class StaticResourceServlet extends HttpServlet {
     return null;
   }
 
+  /**
+   * Transfer a range of a file to the specified output stream using a file channel. Unlike {@link #copyRange}, this
+   * does not read the skipped part of the file but starts reading at the beginning of the range.
+   *
+   * @param file
+   *          The file to read from
+   * @param ostream
+   *          The output stream to write to, which is not closed
+   * @param start
+   *          Start of the range which will be transferred
+   * @param end
+   *          End of the range which will be transferred, inclusive
+   * @return Exception which occurred during processing
+   */
+  protected IOException transferRange(File file, ServletOutputStream ostream, long start, long end) {
+    logger.debug("Serving bytes:{}-{}", start, end);
+    final WritableByteChannel target = Channels.newChannel(ostream);
+    long position = start;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final long last = Math.min(end, channel.size() - 1);
+      while (position <= last) {
+        final long transferred = channel.transferTo(position, last - position + 1, target);
+        if (transferred <= 0) {
+          // the file has been truncated while serving it
+          break;
+        }
+        position += transferred;
+      }
+    } catch (IOException e) {
+      logger.trace("IOException after transferring {} bytes. The user probably closed the client side after the file "
+              + "started copying.", position - start, e);
+      return e;
+    }
+    return null;
+  }
+
+  /**
+   * Send a range of a file as the whole response body. If the range reaches to the end of the file and the servlet
+   * container is Jetty, Jetty reads the file channel on its own. Otherwise, the range is transferred using
+   * {@link #transferRange}.
+   *
+   * @param file
+   *          The file to read from
+   * @param ostream
+   *          The output stream of the response
+   * @param start
+   *          Start of the range which will be sent
+   * @param end
+   *          End of the range which will be sent, inclusive
+   * @param fileLength
+   *          The length of the file
+   * @return Exception which occurred during processing
+   */
+  protected IOException sendRange(File file, ServletOutputStream ostream, long start, long end, long fileLength) {
+    if (!JETTY_OUTPUT_AVAILABLE || end != fileLength - 1) {
+      return transferRange(file, ostream, start, end);
+    }
+    logger.debug("Serving bytes:{}-{}", start, end);
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      channel.position(start);
+      if (JettyOutput.sendContent(ostream, channel)) {
+        return null;
+      }
+    } catch (IOException e) {
+      logger.trace("IOException while sending bytes {}-{}. The user probably closed the client side after the file "
+              + "started copying.", start, end, e);
+      return e;
+    }
+    return transferRange(file, ostream, start, end);
+  }
+
   protected class Range {
 
     protected long start;
@@ -23,14 +23,28 @@ package org.opencastproject.fsresources;
 
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
+import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Random;
 
 import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 /**
  * Test for StaticResourceServlet
@@ -40,6 +54,9 @@ import javax.servlet.ServletOutputStream;
  */
 public class StaticResourceServletTest {
 
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
   private StaticResourceServlet servlet;
   private ServletOutputStream ostream;
 
@@ -102,4 +119,85 @@ public class StaticResourceServletTest {
     testCopyRangeMethod(new byte[2047], 0, 2047);
     testCopyRangeMethod(new byte[0], 0, 0);
   }
+
+  /** Output stream collecting the response body */
+  private static final class BufferOutputStream extends ServletOutputStream {
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    @Override
+    public void write(int b) {
+      buffer.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      buffer.write(b, off, len);
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+    }
+
+    byte[] toByteArray() {
+      return buffer.toByteArray();
+    }
+  }
+
+  private byte[] createContent(File file, int length) throws IOException {
+    final byte[] content = new byte[length];
+    new Random(length).nextBytes(content);
+    Files.write(file.toPath(), content);
+    return content;
+  }
+
+  @Test
+  public void testTransferRange() throws Exception {
+    final File file = testFolder.newFile();
+    final byte[] content = createContent(file, 10000);
+
+    for (long[] range : new long[][] { { 0, 9999 }, { 0, 0 }, { 2048, 4095 }, { 9000, 9999 }, { 5000, 20000 } }) {
+      final BufferOutputStream out = new BufferOutputStream();
+      Assert.assertNull(servlet.transferRange(file, out, range[0], range[1]));
+      final int end = (int) Math.min(range[1], content.length - 1);
+      Assert.assertArrayEquals(Arrays.copyOfRange(content, (int) range[0], end + 1), out.toByteArray());
+    }
+  }
+
+  private BufferOutputStream get(String path, String range) throws IOException {
+    final BufferOutputStream out = new BufferOutputStream();
+    final HttpServletRequest request = EasyMock.createNiceMock(HttpServletRequest.class);
+    EasyMock.expect(request.getPathInfo()).andReturn(path).anyTimes();
+    EasyMock.expect(request.getHeader("Range")).andReturn(range).anyTimes();
+    final HttpServletResponse response = EasyMock.createNiceMock(HttpServletResponse.class);
+    EasyMock.expect(response.getOutputStream()).andReturn(out).anyTimes();
+    EasyMock.replay(request, response);
+    servlet.doGet(request, response);
+    return out;
+  }
+
+  @Test
+  public void testRangeRequest() throws Exception {
+    final File file = new File(testFolder.getRoot(), "segment.mp4");
+    final byte[] content = createContent(file, 10000);
+
+    final Hashtable<String, Object> properties = new Hashtable<>();
+    properties.put("authentication.required", "false");
+    final BundleContext bundleContext = EasyMock.createNiceMock(BundleContext.class);
+    EasyMock.expect(bundleContext.getProperty("org.opencastproject.download.directory"))
+        .andReturn(testFolder.getRoot().getAbsolutePath()).anyTimes();
+    final ComponentContext cc = EasyMock.createNiceMock(ComponentContext.class);
+    EasyMock.expect(cc.getProperties()).andReturn(properties).anyTimes();
+    EasyMock.expect(cc.getBundleContext()).andReturn(bundleContext).anyTimes();
+    EasyMock.replay(bundleContext, cc);
+    servlet.activate(cc);
+
+    Assert.assertArrayEquals(Arrays.copyOfRange(content, 2048, 4096),
+        get("/segment.mp4", "bytes=2048-4095").toByteArray());
+    Assert.assertArrayEquals(content, get("/segment.mp4", null).toByteArray());
+  }
 }
@@ -229,6 +229,17 @@ public interface UserTrackingService {
    */
   FootprintList getFootprints(String mediapackageId, String userId) throws UserTrackingException;
 
+  /**
+   * Recomputes the viewing statistics of all media packages from the stored user actions. The statistics are
+   * maintained while user actions are added, this is only needed for user actions which have been stored before the
+   * statistics were introduced or which have been changed in the database directly.
+   *
+   * @return the number of media packages whose statistics have been recomputed
+   * @throws UserTrackingException
+   *           if the user tracking service encounters an error
+   */
+  int rebuildStatistics() throws UserTrackingException;
+
   /**
    * Get a single user action by its identifier.
    *
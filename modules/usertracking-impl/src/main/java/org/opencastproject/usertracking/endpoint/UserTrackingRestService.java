@@ -21,6 +21,7 @@
 
 package org.opencastproject.usertracking.endpoint;
 
+import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
 import static javax.servlet.http.HttpServletResponse.SC_CREATED;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 
@@ -56,6 +57,7 @@ import java.text.ParseException;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -272,7 +274,7 @@ public class UserTrackingRestService {
           @RestParameter(name = "type", description = "The episode identifier", isRequired = true, type = Type.STRING),
           @RestParameter(name = "in", description = "The beginning of the time range", isRequired = true, type = Type.STRING),
           @RestParameter(name = "out", description = "The end of the time range", isRequired = false, type = Type.STRING),
-          @RestParameter(name = "playing", description = "Whether the player is currently playing", isRequired = false, type = Type.STRING)}, responses = { @RestResponse(responseCode = SC_CREATED, description = "An XML representation of the user action") })
+          @RestParameter(name = "playing", description = "Whether the player is currently playing", isRequired = false, type = Type.STRING)}, responses = { @RestResponse(responseCode = SC_CREATED, description = "An XML representation of the user action"), @RestResponse(responseCode = SC_ACCEPTED, description = "The user action has been queued to be stored") })
   public Response addFootprint(@FormParam("id") String mediapackageId, @FormParam("in") String inString,
           @FormParam("out") String outString, @FormParam("type") String type, @FormParam("playing") String isPlaying,
           @Context HttpServletRequest request) {
@@ -341,6 +343,11 @@ public class UserTrackingRestService {
       throw new WebApplicationException(e);
     }
 
+    // the action has been queued to be written asynchronously and has no identifier yet
+    if (a.getId() == null) {
+      return Response.accepted(a).build();
+    }
+
     URI uri;
     try {
       uri = new URI(UrlSupport.concat(new String[] { serverUrl, serviceUrl, "action", a.getId().toString(), ".xml" }));
@@ -404,6 +411,18 @@ public class UserTrackingRestService {
     return getFootprintAsXml(mediapackageId); // this is the same logic... it's just annotated differently
   }
 
+  @POST
+  @Produces(MediaType.TEXT_PLAIN)
+  @Path("/statistics/rebuild")
+  @RestQuery(name = "rebuildstatistics", description = "Recomputes the viewing statistics of all episodes from the stored user actions", returnDescription = "The number of episodes whose statistics have been recomputed", responses = { @RestResponse(responseCode = SC_OK, description = "The statistics have been recomputed") })
+  public Response rebuildStatistics() {
+    try {
+      return Response.ok(Integer.toString(usertrackingService.rebuildStatistics())).build();
+    } catch (UserTrackingException e) {
+      throw new WebApplicationException(e);
+    }
+  }
+
   @GET
   @Produces(MediaType.TEXT_PLAIN)
   @Path("/detailenabled")
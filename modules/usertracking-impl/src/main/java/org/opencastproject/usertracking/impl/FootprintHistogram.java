@@ -0,0 +1,295 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.usertracking.api.Footprint;
+import org.opencastproject.usertracking.api.FootprintList;
+import org.opencastproject.usertracking.endpoint.FootprintImpl;
+import org.opencastproject.usertracking.endpoint.FootprintsListImpl;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Run-length encoded view histogram of a media package.
+ * <p>
+ * The histogram is a sequence of runs, each given by the position it starts at and the number of views from that
+ * position up to the start of the next run. Positions before the first run and after the last run have no views. The
+ * runs are exactly the footprints returned by {@link UserTrackingServiceImpl#getFootprints(String, String)}, which
+ * allows to serve them without looking at the single footprints. The serialized form is a comma separated list of
+ * <code>position:views</code> pairs.
+ * <p>
+ * Alternatively, a histogram can be written as the changes of the views at each position, see
+ * {@link #serializeChanges()}. Changes are added up by concatenating them, so they can be added in the database
+ * without reading the histogram first.
+ * <p>
+ * Instances are not thread safe.
+ */
+final class FootprintHistogram {
+
+  /** Start positions of the runs, in ascending order */
+  private int[] positions;
+
+  /** Views of the runs */
+  private int[] views;
+
+  /** Number of runs */
+  private int size = 0;
+
+  FootprintHistogram() {
+    this(8);
+  }
+
+  private FootprintHistogram(int capacity) {
+    positions = new int[capacity];
+    views = new int[capacity];
+  }
+
+  /**
+   * Parses a serialized histogram.
+   *
+   * @param serialized
+   *          the histogram as returned by {@link #serialize()}, may be <code>null</code>
+   * @return the histogram
+   * @throws IllegalArgumentException
+   *           if the serialized histogram is malformed
+   */
+  static FootprintHistogram parse(String serialized) {
+    if (StringUtils.isBlank(serialized)) {
+      return new FootprintHistogram();
+    }
+    final String[] runs = serialized.split(",");
+    final FootprintHistogram histogram = new FootprintHistogram(runs.length);
+    for (String run : runs) {
+      final int separator = run.indexOf(':');
+      if (separator < 0) {
+        throw new IllegalArgumentException("Malformed footprint histogram run '" + run + "'");
+      }
+      histogram.positions[histogram.size] = Integer.parseInt(run.substring(0, separator).trim());
+      histogram.views[histogram.size] = Integer.parseInt(run.substring(separator + 1).trim());
+      histogram.size++;
+    }
+    return histogram;
+  }
+
+  /**
+   * Creates a histogram of the given footprint ranges.
+   *
+   * @param ranges
+   *          the inpoint and outpoint of each footprint
+   * @return the histogram
+   */
+  static FootprintHistogram of(Iterable<int[]> ranges) {
+    // count the changes of the views at each position and sum them up in order
+    final TreeMap<Integer, Integer> changes = new TreeMap<>();
+    for (int[] range : ranges) {
+      final int from = Math.max(0, range[0]);
+      if (range[1] > from) {
+        changes.merge(from, 1, Integer::sum);
+        changes.merge(range[1], -1, Integer::sum);
+      }
+    }
+    final FootprintHistogram histogram = new FootprintHistogram(Math.max(8, changes.size()));
+    int current = 0;
+    for (Map.Entry<Integer, Integer> change : changes.entrySet()) {
+      if (change.getValue() != 0) {
+        current += change.getValue();
+        histogram.positions[histogram.size] = change.getKey();
+        histogram.views[histogram.size] = current;
+        histogram.size++;
+      }
+    }
+    return histogram;
+  }
+
+  /**
+   * Adds views to all positions of a range.
+   *
+   * @param from
+   *          the first position of the range
+   * @param to
+   *          the position after the last position of the range
+   * @param delta
+   *          the number of views to add, may be negative
+   */
+  void add(int from, int to, int delta) {
+    from = Math.max(0, from);
+    if (to <= from || delta == 0) {
+      return;
+    }
+    final int start = split(from);
+    final int end = split(to);
+    for (int i = start; i < end; i++) {
+      views[i] += delta;
+    }
+    compact();
+  }
+
+  /**
+   * Adds the views of another histogram to this one.
+   *
+   * @param other
+   *          the histogram to add
+   */
+  void add(FootprintHistogram other) {
+    for (int i = 0; i < other.size - 1; i++) {
+      add(other.positions[i], other.positions[i + 1], other.views[i]);
+    }
+  }
+
+  /**
+   * Adds changes of the views as returned by {@link #serializeChanges()}, possibly concatenated.
+   *
+   * @param changes
+   *          the changes, may be <code>null</code>
+   * @throws IllegalArgumentException
+   *           if the changes are malformed
+   */
+  void addChanges(String changes) {
+    if (StringUtils.isBlank(changes)) {
+      return;
+    }
+    final TreeMap<Integer, Integer> sums = new TreeMap<>();
+    for (String change : changes.split(",")) {
+      if (change.isEmpty()) {
+        continue;
+      }
+      final int separator = change.indexOf(':');
+      if (separator < 0) {
+        throw new IllegalArgumentException("Malformed footprint change '" + change + "'");
+      }
+      sums.merge(Integer.parseInt(change.substring(0, separator).trim()),
+          Integer.parseInt(change.substring(separator + 1).trim()), Integer::sum);
+    }
+    int current = 0;
+    int from = 0;
+    for (Map.Entry<Integer, Integer> sum : sums.entrySet()) {
+      add(from, sum.getKey(), current);
+      current += sum.getValue();
+      from = sum.getKey();
+    }
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the footprints of this histogram. The first footprint is always at position 0, the last one always has no
+   * views.
+   */
+  FootprintList toFootprintList() {
+    final FootprintList list = new FootprintsListImpl();
+    if (size == 0 || positions[0] > 0) {
+      list.add(footprint(0, 0));
+    }
+    for (int i = 0; i < size; i++) {
+      list.add(footprint(positions[i], views[i]));
+    }
+    return list;
+  }
+
+  /**
+   * Returns the serialized form of this histogram which can be read by {@link #parse(String)}.
+   */
+  String serialize() {
+    final StringBuilder sb = new StringBuilder(size * 8);
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(positions[i]).append(':').append(views[i]);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns the changes of the views at the start of each run, as comma separated <code>position:change</code> pairs
+   * which are each preceded by a comma. Appending the changes of another histogram adds its views, see
+   * {@link #addChanges(String)}.
+   */
+  String serializeChanges() {
+    final StringBuilder sb = new StringBuilder(size * 8);
+    int last = 0;
+    for (int i = 0; i < size; i++) {
+      sb.append(',').append(positions[i]).append(':').append(views[i] - last);
+      last = views[i];
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public String toString() {
+    return serialize();
+  }
+
+  private static Footprint footprint(int position, int views) {
+    final Footprint footprint = new FootprintImpl();
+    footprint.setPosition(position);
+    footprint.setViews(views);
+    return footprint;
+  }
+
+  /**
+   * Makes sure a run starts at the given position.
+   *
+   * @return the index of the run starting at the position
+   */
+  private int split(int position) {
+    final int index = Arrays.binarySearch(positions, 0, size, position);
+    if (index >= 0) {
+      return index;
+    }
+    final int insert = -index - 1;
+    if (size == positions.length) {
+      positions = Arrays.copyOf(positions, size * 2);
+      views = Arrays.copyOf(views, size * 2);
+    }
+    System.arraycopy(positions, insert, positions, insert + 1, size - insert);
+    System.arraycopy(views, insert, views, insert + 1, size - insert);
+    positions[insert] = position;
+    views[insert] = insert == 0 ? 0 : views[insert - 1];
+    size++;
+    return insert;
+  }
+
+  /**
+   * Removes runs which have the same number of views as the run before them.
+   */
+  private void compact() {
+    int kept = 0;
+    int last = 0;
+    for (int i = 0; i < size; i++) {
+      if (views[i] != last) {
+        positions[kept] = positions[i];
+        views[kept] = views[i];
+        last = views[i];
+        kept++;
+      }
+    }
+    size = kept;
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * Viewing statistics of a media package which are maintained while user actions are added, so that they do not need
+ * to be computed from the user actions on every request.
+ */
+@Entity(name = "MediapackageStatistics")
+@Access(AccessType.FIELD)
+@Table(name = "oc_user_action_statistics")
+@NamedQueries({
+    @NamedQuery(name = "addMediapackageStatistics", query = "UPDATE MediapackageStatistics s SET s.views = s.views + :views, s.footprintChanges = CONCAT(s.footprintChanges, :changes), s.updates = s.updates + 1 WHERE s.mediapackageId = :mediapackageId"),
+    @NamedQuery(name = "compactMediapackageStatistics", query = "UPDATE MediapackageStatistics s SET s.footprints = :footprints, s.footprintChanges = '', s.updates = 0 WHERE s.mediapackageId = :mediapackageId AND s.updates = :updates"),
+    @NamedQuery(name = "deleteOrphanedMediapackageStatistics", query = "DELETE FROM MediapackageStatistics s WHERE s.mediapackageId NOT IN (SELECT DISTINCT a.mediapackageId FROM UserAction a)") })
+public class MediapackageStatisticsImpl {
+
+  @Id
+  @Column(name = "mediapackage", length = 128)
+  private String mediapackageId;
+
+  /** Number of sessions with at least one user action */
+  @Column(name = "views")
+  private int views;
+
+  /** The serialized {@link FootprintHistogram} */
+  @Lob
+  @Column(name = "footprints", length = 65535)
+  private String footprints;
+
+  /** Footprint changes added since the last compaction, see {@link FootprintHistogram#serializeChanges()} */
+  @Lob
+  @Column(name = "footprint_changes", length = 16777215)
+  private String footprintChanges = "";
+
+  /** Number of updates whose footprint changes have not been compacted yet */
+  @Column(name = "updates")
+  private int updates;
+
+  /**
+   * A no-arg constructor needed by JPA
+   */
+  public MediapackageStatisticsImpl() {
+  }
+
+  public MediapackageStatisticsImpl(String mediapackageId) {
+    this.mediapackageId = mediapackageId;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public int getViews() {
+    return views;
+  }
+
+  public void setViews(int views) {
+    this.views = views;
+  }
+
+  public int getUpdates() {
+    return updates;
+  }
+
+  /** Returns the footprints including the changes which have not been compacted yet. */
+  FootprintHistogram getFootprints() {
+    final FootprintHistogram histogram = FootprintHistogram.parse(footprints);
+    histogram.addChanges(footprintChanges);
+    return histogram;
+  }
+
+  void setFootprints(FootprintHistogram footprints) {
+    this.footprints = footprints.serialize();
+    this.footprintChanges = "";
+    this.updates = 0;
+  }
+
+}
@@ -0,0 +1,319 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.db.DBSession;
+import org.opencastproject.usertracking.api.UserAction;
+import org.opencastproject.usertracking.api.UserSession;
+import org.opencastproject.usertracking.impl.jmx.UserTrackingIngestBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Writes user actions to the database in batches on a background thread.
+ * <p>
+ * Actions are queued by {@link #offer(UserAction, UserSession)} and written once a batch is full or the flush interval
+ * since the first queued action has passed. Consecutive footprints of a session are merged into one action the same way
+ * {@link UserTrackingServiceImpl#addUserFootprint(UserAction, UserSession)} does. The last footprint of a session is
+ * looked up once per batch within its transaction, since other nodes may have written footprints of the same session.
+ * The media package statistics are updated once per batch and media package. If a batch cannot be written, its actions
+ * are written one by one, so that a single bad action does not drop the whole batch.
+ */
+final class UserActionWriter {
+
+  private static final Logger logger = LoggerFactory.getLogger(UserActionWriter.class);
+
+  private final UserTrackingServiceImpl service;
+  private final DBSession db;
+  private final BlockingQueue<UserAction> queue;
+  private final int batchSize;
+  private final long flushInterval;
+  private final UserTrackingIngestBean bean;
+  private final Thread thread;
+  private volatile boolean running = true;
+
+  /** Number of actions which have been queued but not yet been written */
+  private final AtomicLong pending = new AtomicLong(0);
+
+  /**
+   * Creates and starts a writer.
+   *
+   * @param service
+   *          the user tracking service used to look up and create sessions
+   * @param db
+   *          the database session
+   * @param capacity
+   *          the maximum number of queued actions
+   * @param batchSize
+   *          the maximum number of actions written in one transaction
+   * @param flushInterval
+   *          the maximum time in milliseconds an action is queued before it is written
+   */
+  UserActionWriter(UserTrackingServiceImpl service, DBSession db, int capacity, int batchSize, long flushInterval) {
+    this.service = service;
+    this.db = db;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.batchSize = batchSize;
+    this.flushInterval = flushInterval;
+    this.bean = new UserTrackingIngestBean(queue, capacity);
+    this.thread = new Thread(this::run, "user-tracking-writer");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  UserTrackingIngestBean getBean() {
+    return bean;
+  }
+
+  /**
+   * Queues an action of the given session.
+   *
+   * @return <code>false</code> if the queue is full and the action needs to be written by the caller
+   */
+  boolean offer(UserAction action, UserSession session) {
+    action.setSession(session);
+    pending.incrementAndGet();
+    if (running && queue.offer(action)) {
+      bean.accepted();
+      return true;
+    }
+    pending.decrementAndGet();
+    bean.overflowed();
+    return false;
+  }
+
+  /**
+   * Waits until all queued actions have been written.
+   */
+  synchronized void flush() {
+    try {
+      while (pending.get() > 0 && thread.isAlive()) {
+        wait(100);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private synchronized void written(int count) {
+    pending.addAndGet(-count);
+    notifyAll();
+  }
+
+  /**
+   * Stops the writer after writing all queued actions.
+   */
+  void stop() {
+    running = false;
+    thread.interrupt();
+    try {
+      thread.join(TimeUnit.SECONDS.toMillis(30));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!queue.isEmpty()) {
+      logger.warn("Discarding {} user actions which could not be written before shutdown", queue.size());
+    }
+  }
+
+  private void run() {
+    final List<UserAction> batch = new ArrayList<>(batchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        final UserAction first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        final long deadline = System.currentTimeMillis() + flushInterval;
+        while (running && batch.size() < batchSize) {
+          final long wait = deadline - System.currentTimeMillis();
+          if (wait <= 0) {
+            break;
+          }
+          final UserAction next = queue.poll(wait, TimeUnit.MILLISECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+          queue.drainTo(batch, batchSize - batch.size());
+        }
+      } catch (InterruptedException e) {
+        // stopping, write what is left
+        queue.drainTo(batch);
+      }
+      if (!batch.isEmpty()) {
+        write(batch);
+        written(batch.size());
+        batch.clear();
+      }
+    }
+  }
+
+  private void write(List<UserAction> batch) {
+    final long start = System.currentTimeMillis();
+    // merging footprints changes the outpoints of actions in the batch, which is undone if a transaction fails
+    final int[] outpoints = batch.stream().mapToInt(UserAction::getOutpoint).toArray();
+    try {
+      writeInTransaction(batch, outpoints);
+      bean.flushed(batch.size(), System.currentTimeMillis() - start, true);
+      logger.debug("Wrote {} user actions in {} ms", batch.size(), System.currentTimeMillis() - start);
+      return;
+    } catch (Exception e) {
+      logger.warn("Unable to write {} user actions at once, writing them one by one", batch.size(), e);
+    }
+
+    int failed = 0;
+    for (int i = 0; i < batch.size(); i++) {
+      final UserAction action = batch.get(i);
+      try {
+        writeInTransaction(Collections.singletonList(action), new int[] { outpoints[i] });
+      } catch (Exception e) {
+        failed++;
+        logger.warn("Unable to write user action of session {}", action.getSession().getSessionId(), e);
+      }
+    }
+    final long millis = System.currentTimeMillis() - start;
+    bean.flushed(batch.size() - failed, millis, true);
+    bean.flushed(failed, millis, false);
+  }
+
+  /**
+   * Writes actions and the changes of the media package statistics in one transaction, which is retried if it fails
+   * because of a transaction error.
+   *
+   * @param actions
+   *          the actions to write
+   * @param outpoints
+   *          the outpoints of the actions as they have been queued
+   */
+  private void writeInTransaction(List<UserAction> actions, int[] outpoints) {
+    // make sure all sessions and statistics exist before writing the actions referencing them
+    for (UserAction action : actions) {
+      if (!service.isKnownSession(action.getSession().getSessionId())) {
+        db.execTx(em -> {
+          service.populateSession(em, action.getSession());
+        });
+      }
+      service.ensureStatistics(action.getMediapackageId());
+    }
+    final Set<String> views = new HashSet<>();
+    db.execTx(em -> {
+      views.clear();
+      // reset the actions, they may have been changed by an attempt which has been rolled back
+      for (int i = 0; i < actions.size(); i++) {
+        actions.get(i).setId(null);
+        actions.get(i).setOutpoint(outpoints[i]);
+      }
+      // update the statistics in a fixed order to not deadlock with other writers
+      final Map<String, StatisticsUpdate> updates = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+      final Map<String, UserAction> lastFootprints = new HashMap<>();
+      for (UserAction action : actions) {
+        write(em, action, updates, views, lastFootprints);
+      }
+      for (Map.Entry<String, StatisticsUpdate> update : updates.entrySet()) {
+        service.updateStatistics(em, update.getKey(), update.getValue().views, update.getValue().footprints);
+      }
+    });
+    views.forEach(service::addKnownView);
+  }
+
+  private void write(EntityManager em, UserAction action, Map<String, StatisticsUpdate> updates, Set<String> views,
+          Map<String, UserAction> lastFootprints) {
+    final String sessionId = action.getSession().getSessionId();
+    final UserSession session = em.getReference(UserSessionImpl.class, sessionId);
+    final StatisticsUpdate update = updates.computeIfAbsent(action.getMediapackageId(), id -> new StatisticsUpdate());
+    if (!UserTrackingServiceImpl.FOOTPRINT_KEY.equals(action.getType())) {
+      countView(em, session, action, update, views);
+      action.setSession(session);
+      em.persist(action);
+      return;
+    }
+
+    UserAction last = lastFootprints.get(sessionId);
+    if (last == null) {
+      final List<UserAction> userActions = em
+          .createNamedQuery("findLastUserFootprintOfSession", UserAction.class)
+          .setParameter("session", session)
+          .setMaxResults(1)
+          .getResultList();
+      last = userActions.isEmpty() ? null : userActions.get(0);
+    }
+
+    if (last != null
+        && last.getMediapackageId().equals(action.getMediapackageId())
+        && last.getOutpoint() == action.getInpoint()) {
+      update.footprints.add(last.getInpoint(), action.getOutpoint(), 1);
+      update.footprints.add(last.getInpoint(), last.getOutpoint(), -1);
+      last.setOutpoint(action.getOutpoint());
+      if (!em.contains(last)) {
+        last = em.merge(last);
+      }
+      action.setId(last.getId());
+      lastFootprints.put(sessionId, last);
+      bean.coalesced();
+      return;
+    }
+
+    countView(em, session, action, update, views);
+    action.setSession(session);
+    em.persist(action);
+    update.footprints.add(action.getInpoint(), action.getOutpoint(), 1);
+    lastFootprints.put(sessionId, action);
+  }
+
+  /**
+   * Counts a new action as view if it is the first one of its session for the media package, including the actions
+   * written earlier in the same batch.
+   */
+  private void countView(EntityManager em, UserSession session, UserAction action, StatisticsUpdate update,
+          Set<String> views) {
+    final String key = UserTrackingServiceImpl.viewKey(session.getSessionId(), action.getMediapackageId());
+    if (views.add(key) && service.isNewView(em, session, action.getMediapackageId())) {
+      update.views++;
+    }
+  }
+
+  /** Changes of the statistics of a media package collected while writing a batch */
+  private static final class StatisticsUpdate {
+    private int views = 0;
+    private final FootprintHistogram footprints = new FootprintHistogram();
+  }
+
+}
@@ -39,13 +39,17 @@ import org.opencastproject.usertracking.endpoint.FootprintsListImpl;
 import org.opencastproject.usertracking.endpoint.ReportImpl;
 import org.opencastproject.usertracking.endpoint.ReportItemImpl;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.jmx.JmxUtil;
 
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,14 +57,24 @@ import org.slf4j.LoggerFactory;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import javax.management.ObjectInstance;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
+import javax.persistence.FlushModeType;
+import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
 import javax.persistence.TemporalType;
 import javax.persistence.TypedQuery;
@@ -89,6 +103,28 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public static final String IP_LOGGING = "org.opencastproject.usertracking.log.ip";
   public static final String USER_LOGGING = "org.opencastproject.usertracking.log.user";
   public static final String SESSION_LOGGING = "org.opencastproject.usertracking.log.session";
+  public static final String ASYNC_INGEST = "org.opencastproject.usertracking.async";
+  public static final String ASYNC_QUEUE_CAPACITY = "org.opencastproject.usertracking.async.queue.capacity";
+  public static final String ASYNC_BATCH_SIZE = "org.opencastproject.usertracking.async.batch.size";
+  public static final String ASYNC_FLUSH_INTERVAL = "org.opencastproject.usertracking.async.flush.interval";
+
+  private static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 50000;
+  private static final int DEFAULT_ASYNC_BATCH_SIZE = 500;
+  private static final long DEFAULT_ASYNC_FLUSH_INTERVAL = 1000L;
+
+  /** Number of session identifiers known to exist in the database which are kept in memory */
+  private static final int KNOWN_SESSIONS_SIZE = 100000;
+
+  /** Number of media packages known to have statistics in the database which are kept in memory */
+  private static final int KNOWN_STATISTICS_SIZE = 10000;
+
+  /** Number of statistics updates after which the footprint changes are merged into the footprints when read */
+  private static final int STATISTICS_COMPACTION_UPDATES = 100;
+
+  /** Number of session and media package combinations known to have been counted as view which are kept in memory */
+  private static final int KNOWN_VIEWS_SIZE = 100000;
+
+  private static final String JMX_INGEST_TYPE = "UserTrackingIngest";
 
   private static final Logger logger = LoggerFactory.getLogger(UserTrackingServiceImpl.class);
 
@@ -104,6 +140,36 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
 
   protected DBSession db;
 
+  /** Writes user actions in batches if asynchronous ingestion is enabled */
+  private volatile UserActionWriter writer = null;
+
+  private ObjectInstance registeredMXBean = null;
+
+  /** Identifiers of sessions which are known to exist in the database */
+  private final Set<String> knownSessions = newLruSet(KNOWN_SESSIONS_SIZE);
+
+  /** Lock serializing the creation of sessions */
+  private final Object sessionLock = new Object();
+
+  /** Identifiers of media packages whose statistics are known to exist in the database */
+  private final Set<String> knownStatistics = newLruSet(KNOWN_STATISTICS_SIZE);
+
+  /** Lock serializing the creation of media package statistics */
+  private final Object statisticsLock = new Object();
+
+  /** Keys of session and media package combinations which are known to be counted as view */
+  private final Set<String> knownViews = newLruSet(KNOWN_VIEWS_SIZE);
+
+  private static Set<String> newLruSet(int maxSize) {
+    return Collections.newSetFromMap(Collections.synchronizedMap(
+        new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > maxSize;
+          }
+        }));
+  }
+
   /** OSGi DI */
   @Reference(target = "(osgi.unit.name=org.opencastproject.usertracking)")
   void setEntityManagerFactory(EntityManagerFactory emf) {
@@ -124,6 +190,14 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     db = dbSessionFactory.createSession(emf);
   }
 
+  /**
+   * Deactivation callback, writes all queued user actions.
+   */
+  @Deactivate
+  public synchronized void deactivate() {
+    stopWriter();
+  }
+
   @Override
   public void updated(Dictionary props) throws ConfigurationException {
     if (props == null) {
@@ -148,9 +222,50 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
       logSession = Boolean.valueOf((String) val);
     }
 
+    final boolean async = BooleanUtils.toBoolean(Objects.toString(props.get(ASYNC_INGEST), null));
+    final int capacity = NumberUtils.toInt(Objects.toString(props.get(ASYNC_QUEUE_CAPACITY), null),
+        DEFAULT_ASYNC_QUEUE_CAPACITY);
+    final int batchSize = NumberUtils.toInt(Objects.toString(props.get(ASYNC_BATCH_SIZE), null),
+        DEFAULT_ASYNC_BATCH_SIZE);
+    final long flushInterval = NumberUtils.toLong(Objects.toString(props.get(ASYNC_FLUSH_INTERVAL), null),
+        DEFAULT_ASYNC_FLUSH_INTERVAL);
+    synchronized (this) {
+      stopWriter();
+      if (async) {
+        logger.info("Writing user actions asynchronously in batches of up to {} every {} ms", batchSize,
+            flushInterval);
+        writer = new UserActionWriter(this, db, Math.max(1, capacity), Math.max(1, batchSize), flushInterval);
+        registeredMXBean = JmxUtil.registerMXBean(writer.getBean(), JMX_INGEST_TYPE);
+      }
+    }
+  }
+
+  private void stopWriter() {
+    if (writer != null) {
+      writer.stop();
+      writer = null;
+    }
+    if (registeredMXBean != null) {
+      JmxUtil.unregisterMXBean(registeredMXBean);
+      registeredMXBean = null;
+    }
+  }
+
+  /**
+   * Waits until all user actions queued for asynchronous ingestion have been written. Used for testing.
+   */
+  void flush() {
+    final UserActionWriter currentWriter = writer;
+    if (currentWriter != null) {
+      currentWriter.flush();
+    }
   }
 
   public int getViews(String mediapackageId) {
+    final Optional<MediapackageStatisticsImpl> statistics = findStatistics(mediapackageId);
+    if (statistics.isPresent()) {
+      return statistics.get().getViews();
+    }
     return db.exec(namedQuery.find(
         "countSessionsOfMediapackage",
         Long.class,
@@ -164,8 +279,14 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     if (!logUser) session.setUserId("-omitted-");
     if (!logSession) session.setSessionId("-omitted-");
 
+    final UserActionWriter currentWriter = writer;
+    if (currentWriter != null && currentWriter.offer(action, session)) {
+      return action;
+    }
+
     try {
-      return db.execTx(em -> {
+      ensureStatistics(action.getMediapackageId());
+      final UserAction result = db.execTx(em -> {
         UserSession userSession = populateSession(em, session);
         List<UserAction> userActions = em
             .createNamedQuery("findLastUserFootprintOfSession", UserAction.class)
@@ -175,8 +296,7 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
 
         // no actions
         if (userActions.isEmpty()) {
-          action.setSession(userSession);
-          em.persist(action);
+          persistAction(em, action, userSession);
           return action;
         }
 
@@ -187,16 +307,21 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
             && lastAction.getOutpoint() == action.getInpoint()) {
           // we are assuming in this case that the sessions match and are unchanged (IP wise, for example)
           action.setId(lastAction.getId());
+          final FootprintHistogram footprints = new FootprintHistogram();
+          footprints.add(lastAction.getInpoint(), action.getOutpoint(), 1);
+          footprints.add(lastAction.getInpoint(), lastAction.getOutpoint(), -1);
           lastAction.setOutpoint(action.getOutpoint());
           em.persist(lastAction);
+          updateStatistics(em, lastAction.getMediapackageId(), 0, footprints);
           return lastAction;
         }
 
         // last action does not match current action
-        action.setSession(userSession);
-        em.persist(action);
+        persistAction(em, action, userSession);
         return action;
       });
+      addKnownView(viewKey(session.getSessionId(), action.getMediapackageId()));
+      return result;
     } catch (Exception e) {
       throw new UserTrackingException(e);
     }
@@ -207,36 +332,237 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     if (!logUser) session.setUserId("-omitted-");
     if (!logSession) session.setSessionId("-omitted-");
 
+    final UserActionWriter currentWriter = writer;
+    if (currentWriter != null && currentWriter.offer(a, session)) {
+      return a;
+    }
+
     try {
-      return db.execTx(em -> {
+      ensureStatistics(a.getMediapackageId());
+      final UserAction result = db.execTx(em -> {
         UserSession userSession = populateSession(em, session);
-        a.setSession(userSession);
-        em.persist(a);
+        persistAction(em, a, userSession);
         return a;
       });
+      addKnownView(viewKey(session.getSessionId(), a.getMediapackageId()));
+      return result;
+    } catch (Exception e) {
+      throw new UserTrackingException(e);
+    }
+  }
+
+  /**
+   * Persists a new user action and adds it to the statistics of its media package.
+   */
+  private void persistAction(EntityManager em, UserAction action, UserSession session) {
+    final int views = isNewView(em, session, action.getMediapackageId()) ? 1 : 0;
+    action.setSession(session);
+    em.persist(action);
+    final FootprintHistogram footprints = new FootprintHistogram();
+    if (FOOTPRINT_KEY.equals(action.getType())) {
+      footprints.add(action.getInpoint(), action.getOutpoint(), 1);
+    }
+    updateStatistics(em, action.getMediapackageId(), views, footprints);
+  }
+
+  static String viewKey(String sessionId, String mediapackageId) {
+    return sessionId + "/" + mediapackageId;
+  }
+
+  /**
+   * Remembers that a session has been counted as view of a media package after its user action has been written.
+   */
+  void addKnownView(String viewKey) {
+    knownViews.add(viewKey);
+  }
+
+  /**
+   * Returns whether a new user action of the given session is the first one for the media package and therefore
+   * counts as a new view. Must be called before the user action is persisted.
+   */
+  boolean isNewView(EntityManager em, UserSession session, String mediapackageId) {
+    if (knownViews.contains(viewKey(session.getSessionId(), mediapackageId))) {
+      return false;
+    }
+    // pending user actions of the current transaction are taken care of by the callers
+    return em.createNamedQuery("countUserActionsOfSessionAndMediapackage", Long.class)
+        .setParameter("session", session)
+        .setParameter("mediapackageId", mediapackageId)
+        .setFlushMode(FlushModeType.COMMIT)
+        .getSingleResult() == 0;
+  }
+
+  /**
+   * Makes sure the statistics of a media package exist in the database, computing them from the existing user actions
+   * if they do not. Called before writing user actions in a separate transaction, so that the statistics only need to
+   * be updated when writing the user actions.
+   */
+  void ensureStatistics(String mediapackageId) {
+    if (mediapackageId == null || knownStatistics.contains(mediapackageId)) {
+      return;
+    }
+    synchronized (statisticsLock) {
+      try {
+        db.execTx(1, em -> {
+          if (em.find(MediapackageStatisticsImpl.class, mediapackageId) == null) {
+            em.persist(buildStatistics(em, mediapackageId));
+          }
+        });
+      } catch (Exception e) {
+        // most likely created concurrently by another node, which is fine
+        logger.debug("Unable to create the statistics of media package {}", mediapackageId, e);
+      }
+    }
+    knownStatistics.add(mediapackageId);
+  }
+
+  /**
+   * Adds views and footprints to the statistics of a media package. The statistics are updated by a single atomic
+   * statement which appends the footprint changes, so that concurrent writers do not have to lock the row.
+   *
+   * @param em
+   *          the entity manager of the transaction writing the user actions
+   * @param mediapackageId
+   *          the media package identifier
+   * @param views
+   *          the number of new views
+   * @param footprints
+   *          the footprint changes
+   */
+  void updateStatistics(EntityManager em, String mediapackageId, int views, FootprintHistogram footprints) {
+    if (mediapackageId == null || (views == 0 && footprints.isEmpty())) {
+      return;
+    }
+    final int updated = em.createNamedQuery("addMediapackageStatistics")
+        .setParameter("views", views)
+        .setParameter("changes", footprints.serializeChanges())
+        .setParameter("mediapackageId", mediapackageId)
+        .executeUpdate();
+    if (updated == 0) {
+      // removed since being created, the next write will compute them again
+      logger.debug("No statistics found for media package {}", mediapackageId);
+      knownStatistics.remove(mediapackageId);
+    }
+  }
+
+  /**
+   * Computes the statistics of a media package from its user actions.
+   */
+  private MediapackageStatisticsImpl buildStatistics(EntityManager em, String mediapackageId) {
+    final MediapackageStatisticsImpl statistics = new MediapackageStatisticsImpl(mediapackageId);
+    statistics.setViews(namedQuery.find(
+        "countSessionsOfMediapackage",
+        Long.class,
+        Pair.of("mediapackageId", mediapackageId)
+    ).apply(em).intValue());
+    final List<int[]> ranges = em
+        .createNamedQuery("findFootprintRangesOfMediapackage", Object[].class)
+        .setParameter("mediapackageId", mediapackageId)
+        .getResultList()
+        .stream()
+        .map(range -> new int[] { ((Number) range[0]).intValue(), ((Number) range[1]).intValue() })
+        .collect(Collectors.toList());
+    statistics.setFootprints(FootprintHistogram.of(ranges));
+    return statistics;
+  }
+
+  private Optional<MediapackageStatisticsImpl> findStatistics(String mediapackageId) {
+    if (mediapackageId == null) {
+      return Optional.empty();
+    }
+    final Optional<MediapackageStatisticsImpl> statistics = db.exec(
+        namedQuery.findByIdOpt(MediapackageStatisticsImpl.class, mediapackageId));
+    statistics.filter(s -> s.getUpdates() >= STATISTICS_COMPACTION_UPDATES).ifPresent(this::compactStatistics);
+    return statistics;
+  }
+
+  /**
+   * Merges the footprint changes of the statistics into their footprints. Nothing is changed if the statistics have been
+   * updated since they were read, the next read will try again.
+   */
+  private void compactStatistics(MediapackageStatisticsImpl statistics) {
+    final String footprints = statistics.getFootprints().serialize();
+    try {
+      db.execTx(1, em -> {
+        em.createNamedQuery("compactMediapackageStatistics")
+            .setParameter("footprints", footprints)
+            .setParameter("mediapackageId", statistics.getMediapackageId())
+            .setParameter("updates", statistics.getUpdates())
+            .executeUpdate();
+      });
+    } catch (Exception e) {
+      logger.debug("Unable to compact the statistics of media package {}", statistics.getMediapackageId(), e);
+    }
+  }
+
+  @Override
+  public int rebuildStatistics() throws UserTrackingException {
+    try {
+      final List<String> mediapackageIds = db.exec(em -> {
+        return em.createNamedQuery("findMediapackageIdsOfUserActions", String.class).getResultList();
+      });
+      knownStatistics.clear();
+      int rebuilt = 0;
+      for (String mediapackageId : mediapackageIds) {
+        if (mediapackageId == null) {
+          continue;
+        }
+        db.execTx(em -> {
+          // lock first so that concurrently written user actions are either part of the result or added afterwards
+          final MediapackageStatisticsImpl statistics = em.find(MediapackageStatisticsImpl.class, mediapackageId,
+              LockModeType.PESSIMISTIC_WRITE);
+          final MediapackageStatisticsImpl computed = buildStatistics(em, mediapackageId);
+          if (statistics == null) {
+            em.persist(computed);
+          } else {
+            statistics.setViews(computed.getViews());
+            statistics.setFootprints(computed.getFootprints());
+          }
+        });
+        rebuilt++;
+      }
+      db.execTx(em -> {
+        em.createNamedQuery("deleteOrphanedMediapackageStatistics").executeUpdate();
+      });
+      logger.info("Rebuilt the viewing statistics of {} media packages", rebuilt);
+      return rebuilt;
     } catch (Exception e) {
       throw new UserTrackingException(e);
     }
   }
 
-  private synchronized UserSession populateSession(EntityManager em, UserSession session) {
+  /**
+   * Returns whether a session is known to exist in the database.
+   */
+  boolean isKnownSession(String sessionId) {
+    return knownSessions.contains(sessionId);
+  }
+
+  UserSession populateSession(EntityManager em, UserSession session) {
     // assumption: this code is only called inside a DB transaction
     //             => transaction retries are handled outside this method
-    try {
-      // Try and find the session. If not found, persist it
-      return namedQuery.find(
-          "findUserSessionBySessionId",
-          UserSession.class,
-          Pair.of("sessionId", session.getSessionId())
-      ).apply(em);
-    } catch (NoResultException n) {
-      em.persist(session);
-      // Commit the session object so that it's immediately found by other threads
-      EntityTransaction tx = em.getTransaction();
-      tx.commit();
-      tx.begin(); // start a new transaction to continue after session population
-    }
-    return session;
+    if (knownSessions.contains(session.getSessionId())) {
+      return em.getReference(UserSessionImpl.class, session.getSessionId());
+    }
+    UserSession result = session;
+    synchronized (sessionLock) {
+      try {
+        // Try and find the session. If not found, persist it
+        result = namedQuery.find(
+            "findUserSessionBySessionId",
+            UserSession.class,
+            Pair.of("sessionId", session.getSessionId())
+        ).apply(em);
+      } catch (NoResultException n) {
+        em.persist(session);
+        // Commit the session object so that it's immediately found by other threads
+        EntityTransaction tx = em.getTransaction();
+        tx.commit();
+        tx.begin(); // start a new transaction to continue after session population
+      }
+    }
+    knownSessions.add(session.getSessionId());
+    return result;
   }
 
   public UserActionList getUserActions(int offset, int limit) {
@@ -524,6 +850,13 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   }
 
   public FootprintList getFootprints(String mediapackageId, String userId) {
+    if (!logUser || StringUtils.trimToNull(userId) == null) {
+      final Optional<MediapackageStatisticsImpl> statistics = findStatistics(mediapackageId);
+      if (statistics.isPresent()) {
+        return statistics.get().getFootprints().toFootprintList();
+      }
+    }
+
     List<UserAction> userActions = db.exec(em -> {
       TypedQuery<UserAction> q;
       if (!logUser || StringUtils.trimToNull(userId) == null) {
@@ -0,0 +1,125 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl.jmx;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the asynchronous user action ingestion. Counters may be updated from multiple threads.
+ */
+public class UserTrackingIngestBean implements UserTrackingIngestMXBean {
+
+  private final BlockingQueue<?> queue;
+  private final int capacity;
+  private final AtomicLong accepted = new AtomicLong(0);
+  private final AtomicLong overflowed = new AtomicLong(0);
+  private final AtomicLong coalesced = new AtomicLong(0);
+  private final AtomicLong written = new AtomicLong(0);
+  private final AtomicLong failed = new AtomicLong(0);
+  private volatile long lastFlushMillis = 0L;
+
+  /**
+   * Creates a bean reporting on the given queue.
+   *
+   * @param queue
+   *          the ingestion queue
+   * @param capacity
+   *          the capacity of the queue
+   */
+  public UserTrackingIngestBean(BlockingQueue<?> queue, int capacity) {
+    this.queue = queue;
+    this.capacity = capacity;
+  }
+
+  public void accepted() {
+    accepted.incrementAndGet();
+  }
+
+  public void overflowed() {
+    overflowed.incrementAndGet();
+  }
+
+  public void coalesced() {
+    coalesced.incrementAndGet();
+  }
+
+  /**
+   * Records a batch write.
+   *
+   * @param count
+   *          the number of actions in the batch
+   * @param millis
+   *          the duration of the write
+   * @param success
+   *          whether the batch has been written
+   */
+  public void flushed(int count, long millis, boolean success) {
+    if (success) {
+      written.addAndGet(count);
+    } else {
+      failed.addAndGet(count);
+    }
+    lastFlushMillis = millis;
+  }
+
+  @Override
+  public int getQueued() {
+    return queue.size();
+  }
+
+  @Override
+  public int getQueueCapacity() {
+    return capacity;
+  }
+
+  @Override
+  public long getAccepted() {
+    return accepted.get();
+  }
+
+  @Override
+  public long getOverflowed() {
+    return overflowed.get();
+  }
+
+  @Override
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  @Override
+  public long getWritten() {
+    return written.get();
+  }
+
+  @Override
+  public long getFailed() {
+    return failed.get();
+  }
+
+  @Override
+  public long getLastFlushMillis() {
+    return lastFlushMillis;
+  }
+
+}
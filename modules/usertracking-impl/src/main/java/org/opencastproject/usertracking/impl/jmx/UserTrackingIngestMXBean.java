@@ -0,0 +1,85 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl.jmx;
+
+/**
+ * JMX Bean interface exposing the state of the asynchronous user action ingestion
+ */
+public interface UserTrackingIngestMXBean {
+
+  /**
+   * Gets the number of user actions waiting to be written to the database
+   *
+   * @return the queue length
+   */
+  int getQueued();
+
+  /**
+   * Gets the maximum number of user actions which may wait to be written to the database
+   *
+   * @return the queue capacity
+   */
+  int getQueueCapacity();
+
+  /**
+   * Gets the number of user actions accepted into the queue
+   *
+   * @return the number of accepted actions
+   */
+  long getAccepted();
+
+  /**
+   * Gets the number of user actions written synchronously because the queue was full
+   *
+   * @return the number of overflowing actions
+   */
+  long getOverflowed();
+
+  /**
+   * Gets the number of footprints merged into the preceding footprint of their session
+   *
+   * @return the number of coalesced footprints
+   */
+  long getCoalesced();
+
+  /**
+   * Gets the number of user actions written to the database by the batch writer
+   *
+   * @return the number of written actions
+   */
+  long getWritten();
+
+  /**
+   * Gets the number of user actions which could not be written to the database
+   *
+   * @return the number of failed actions
+   */
+  long getFailed();
+
+  /**
+   * Gets the duration of the latest batch write
+   *
+   * @return the duration in milliseconds
+   */
+  long getLastFlushMillis();
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.usertracking.api.FootprintList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class FootprintHistogramTest {
+
+  /**
+   * Ensures incrementally added ranges result in the same runs as computing them at once.
+   */
+  @Test
+  public void testAdd() {
+    FootprintHistogram histogram = new FootprintHistogram();
+    histogram.add(5, 15, 1);
+    histogram.add(0, 10, 1);
+    histogram.add(10, 20, 1);
+    Assert.assertEquals("0:1,5:2,15:1,20:0", histogram.serialize());
+
+    FootprintHistogram computed = FootprintHistogram.of(Arrays.asList(
+        new int[] { 0, 10 }, new int[] { 10, 20 }, new int[] { 5, 15 }, new int[] { 30, 30 }));
+    Assert.assertEquals(histogram.serialize(), computed.serialize());
+
+    // shrinking a range removes its views again
+    histogram.add(15, 20, -1);
+    Assert.assertEquals("0:1,5:2,15:0", histogram.serialize());
+  }
+
+  /**
+   * Ensures histograms are serialized and converted to footprints correctly.
+   */
+  @Test
+  public void testChanges() {
+    FootprintHistogram delta = new FootprintHistogram();
+    delta.add(5, 15, 1);
+    FootprintHistogram other = new FootprintHistogram();
+    other.add(0, 10, 2);
+    Assert.assertEquals(",5:1,15:-1", delta.serializeChanges());
+
+    FootprintHistogram histogram = FootprintHistogram.parse("20:1,30:0");
+    histogram.addChanges(delta.serializeChanges() + other.serializeChanges());
+    Assert.assertEquals("0:2,5:3,10:1,15:0,20:1,30:0", histogram.serialize());
+
+    histogram.addChanges("");
+    histogram.addChanges(null);
+    Assert.assertEquals("0:2,5:3,10:1,15:0,20:1,30:0", histogram.serialize());
+  }
+
+  @Test
+  public void testFootprints() {
+    FootprintHistogram histogram = FootprintHistogram.parse("5:1,10:0");
+    FootprintHistogram delta = new FootprintHistogram();
+    delta.add(0, 5, 2);
+    histogram.add(delta);
+    Assert.assertEquals("0:2,5:1,10:0", FootprintHistogram.parse(histogram.serialize()).serialize());
+
+    FootprintList list = FootprintHistogram.parse("5:1,10:0").toFootprintList();
+    Assert.assertEquals(3, list.getFootprints().size());
+    Assert.assertEquals(0, list.getFootprints().get(0).getPosition());
+    Assert.assertEquals(0, list.getFootprints().get(0).getViews());
+    Assert.assertEquals(5, list.getFootprints().get(1).getPosition());
+    Assert.assertEquals(1, list.getFootprints().get(1).getViews());
+
+    Assert.assertEquals(1, new FootprintHistogram().toFootprintList().getFootprints().size());
+  }
+
+}
@@ -38,6 +38,7 @@ import org.junit.Test;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Properties;
 
@@ -76,6 +77,124 @@ public class UserTrackingServiceImplTest {
     Assert.assertFalse(service.getUserTrackingEnabled());
   }
 
+  /**
+   * Test that asynchronously written footprints are merged and stored
+   * @throws Exception
+   */
+  @Test
+  public void testAsyncFootprints() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(UserTrackingServiceImpl.ASYNC_INGEST, "true");
+    props.setProperty(UserTrackingServiceImpl.ASYNC_FLUSH_INTERVAL, "10");
+    service.updated(props);
+    try {
+      UserSession session = createUserSession("async", "me", "127.0.0.1");
+      for (int i = 0; i < 5; i++) {
+        UserAction action = createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", i * 10, (i + 1) * 10,
+            new Date(), session);
+        Assert.assertNull(service.addUserFootprint(action, session).getId());
+      }
+      UserAction other = createUserAction("PLAY", "mp", 50, 50, new Date(), session);
+      service.addUserTrackingEvent(other, session);
+      service.flush();
+
+      UserActionList footprints = service.getUserActionsByType(UserTrackingServiceImpl.FOOTPRINT_KEY, 0, 0);
+      Assert.assertEquals(1, footprints.getTotal());
+      Assert.assertEquals(0, footprints.getUserActions().get(0).getInpoint());
+      Assert.assertEquals(50, footprints.getUserActions().get(0).getOutpoint());
+      Assert.assertEquals(1, service.getUserActionsByType("PLAY", 0, 0).getTotal());
+      Assert.assertEquals(1, service.getViews("mp"));
+    } finally {
+      service.deactivate();
+    }
+  }
+
+  /**
+   * Test that the other actions of a batch are written if one of them cannot be written
+   * @throws Exception
+   */
+  @Test
+  public void testAsyncBatchWithInvalidAction() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(UserTrackingServiceImpl.ASYNC_INGEST, "true");
+    props.setProperty(UserTrackingServiceImpl.ASYNC_FLUSH_INTERVAL, "1000");
+    service.updated(props);
+    try {
+      UserSession session = createUserSession("batch", "me", "127.0.0.1");
+      for (String type : new String[] { "PLAY", String.join("", Collections.nCopies(200, "x")), "PAUSE" }) {
+        service.addUserTrackingEvent(createUserAction(type, "mp", 0, 0, new Date(), session), session);
+      }
+      service.flush();
+
+      Assert.assertEquals(1, service.getUserActionsByType("PLAY", 0, 0).getTotal());
+      Assert.assertEquals(1, service.getUserActionsByType("PAUSE", 0, 0).getTotal());
+      Assert.assertEquals(1, service.getViews("mp"));
+    } finally {
+      service.deactivate();
+    }
+  }
+
+  /**
+   * Test that the maintained statistics match the user actions and can be rebuilt
+   * @throws Exception
+   */
+  @Test
+  public void testStatistics() throws Exception {
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "1", "mp", "me", "127.0.0.1", 0, 10);
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "1", "mp", "me", "127.0.0.1", 10, 20);
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "2", "mp", "you", "127.0.0.1", 5, 15);
+    createAndVerifyUserAction("PLAY", "3", "mp", "them", "127.0.0.1", 0, 0);
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "2", "other", "you", "127.0.0.1", 0, 5);
+
+    Assert.assertEquals(3, service.getViews("mp"));
+    Assert.assertEquals(1, service.getViews("other"));
+    FootprintList list = getFootprintList("mp", null, 4);
+    verifyFootprintViewsAndPositions(list, 0, 0, 1);
+    verifyFootprintViewsAndPositions(list, 1, 5, 2);
+    verifyFootprintViewsAndPositions(list, 2, 15, 1);
+    verifyFootprintViewsAndPositions(list, 3, 20, 0);
+
+    // break the statistics and rebuild them from the user actions
+    service.db.execTx(em -> {
+      MediapackageStatisticsImpl statistics = em.find(MediapackageStatisticsImpl.class, "mp");
+      statistics.setViews(0);
+      statistics.setFootprints(new FootprintHistogram());
+    });
+    Assert.assertEquals(0, service.getViews("mp"));
+    getFootprintList("mp", null, 1);
+
+    Assert.assertEquals(2, service.rebuildStatistics());
+    Assert.assertEquals(3, service.getViews("mp"));
+    Assert.assertEquals(1, service.getViews("other"));
+    list = getFootprintList("mp", null, 4);
+    verifyFootprintViewsAndPositions(list, 1, 5, 2);
+    verifyFootprintViewsAndPositions(list, 3, 20, 0);
+  }
+
+  /**
+   * Test that the footprint changes appended to the statistics are merged when they are read
+   * @throws Exception
+   */
+  @Test
+  public void testStatisticsCompaction() throws Exception {
+    for (int i = 0; i < 101; i++) {
+      createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "s" + i, "mp", "me", "127.0.0.1", 0, 10);
+    }
+    Assert.assertEquals(101, service.getViews("mp"));
+    MediapackageStatisticsImpl statistics = service.db.exec(em -> {
+      return em.find(MediapackageStatisticsImpl.class, "mp");
+    });
+    Assert.assertEquals(0, statistics.getUpdates());
+    Assert.assertEquals("0:101,10:0", statistics.getFootprints().serialize());
+
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "s0", "mp", "me", "127.0.0.1", 10, 20);
+    Assert.assertEquals(101, service.getViews("mp"));
+    FootprintList list = getFootprintList("mp", null, 3);
+    verifyFootprintViewsAndPositions(list, 0, 0, 101);
+    verifyFootprintViewsAndPositions(list, 1, 10, 1);
+    verifyFootprintViewsAndPositions(list, 2, 20, 0);
+  }
+
   /**
    * Test footprint functionality
    * @throws Exception
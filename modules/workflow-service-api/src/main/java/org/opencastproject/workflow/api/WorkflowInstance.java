@@ -32,17 +32,28 @@ import org.opencastproject.mediapackage.MediaPackageParser;
 import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.User;
 
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.persistence.Access;
 import javax.persistence.AccessType;
@@ -164,6 +175,7 @@ public class WorkflowInstance {
   @Temporal(TemporalType.TIMESTAMP)
   private Date dateCompleted = null;
 
+  /** The media package XML, or its compressed form prefixed with {@link #COMPRESSED_MEDIA_PACKAGE_PREFIX} */
   @Lob
   @Column(name = "mediapackage", length = 16777215)
   private String mediaPackage;
@@ -171,6 +183,10 @@ public class WorkflowInstance {
   @Transient
   private MediaPackage mediaPackageObj;
 
+  /** The media package XML the stored media package represents, if known */
+  @Transient
+  private String mediaPackageXml;
+
   @OneToMany(
           mappedBy = "instance",
           cascade = CascadeType.ALL,
@@ -230,6 +246,9 @@ public class WorkflowInstance {
   /** Logging utilities */
   private static final Logger logger = LoggerFactory.getLogger(WorkflowInstance.class);
 
+  /** Marks a stored media package as Base64 encoded, gzip compressed XML */
+  private static final String COMPRESSED_MEDIA_PACKAGE_PREFIX = "gzip:";
+
   /**
    * Default constructor without any import.
    */
@@ -253,6 +272,7 @@ public class WorkflowInstance {
     this.dateCreated = new Date();
     this.mediaPackageObj = mediaPackage;
     this.mediaPackage = mediaPackage == null ? null : MediaPackageParser.getAsXml(mediaPackage);
+    this.mediaPackageXml = this.mediaPackage;
     this.mediaPackageId = mediaPackage == null ? null : mediaPackage.getIdentifier().toString();
     this.seriesId = mediaPackage == null ? null : mediaPackage.getSeries();
 
@@ -291,6 +311,7 @@ public class WorkflowInstance {
     this.dateCompleted = dateCompleted;
     this.mediaPackageObj = mediaPackage;
     this.mediaPackage = mediaPackage == null ? null : MediaPackageParser.getAsXml(mediaPackage);
+    this.mediaPackageXml = this.mediaPackage;
     this.operations = operations;
     this.configurations = configurations;
     this.mediaPackageId = mediaPackageId;
@@ -379,22 +400,61 @@ public class WorkflowInstance {
         return mediaPackageObj;
       }
       if (mediaPackage != null) {
-        mediaPackageObj = MediaPackageParser.getFromXml(mediaPackage);
+        mediaPackageXml = decodeMediaPackage(mediaPackage);
+        mediaPackageObj = MediaPackageParser.getFromXml(mediaPackageXml);
         return mediaPackageObj;
       }
-    } catch (MediaPackageException e) {
+    } catch (MediaPackageException | IOException e) {
       logger.error("Error parsing media package in workflow instance", e);
     }
     return null;
   }
 
+  /**
+   * Sets the media package of this workflow. The stored media package is left untouched if the media package did not
+   * change, so that it is not written again when the workflow is persisted.
+   */
   public void setMediaPackage(MediaPackage mediaPackage) {
     this.mediaPackageObj = mediaPackage;
-    this.mediaPackage = mediaPackage == null ? null : MediaPackageParser.getAsXml(mediaPackage);
+    final String xml = mediaPackage == null ? null : MediaPackageParser.getAsXml(mediaPackage);
+    if (this.mediaPackage == null || !Objects.equals(xml, mediaPackageXml)) {
+      this.mediaPackage = xml;
+      this.mediaPackageXml = xml;
+    }
     this.mediaPackageId = mediaPackage == null ? null : mediaPackage.getIdentifier().toString();
     this.seriesId = mediaPackage == null ? null : mediaPackage.getSeries();
   }
 
+  /**
+   * Compresses the stored media package unless it is already compressed. Reading the media package is not affected.
+   */
+  public void compressMediaPackage() {
+    if (mediaPackage == null || mediaPackage.startsWith(COMPRESSED_MEDIA_PACKAGE_PREFIX)) {
+      return;
+    }
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(mediaPackage.length() / 4);
+    try (OutputStream out = new GZIPOutputStream(Base64.getEncoder().wrap(bytes))) {
+      out.write(mediaPackage.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      logger.warn("Unable to compress media package of workflow {}", workflowId, e);
+      return;
+    }
+    mediaPackageXml = mediaPackage;
+    mediaPackage = COMPRESSED_MEDIA_PACKAGE_PREFIX + new String(bytes.toByteArray(), StandardCharsets.US_ASCII);
+  }
+
+  /** Returns the media package XML of a stored media package, which may be compressed. */
+  private static String decodeMediaPackage(String stored) throws IOException {
+    if (!stored.startsWith(COMPRESSED_MEDIA_PACKAGE_PREFIX)) {
+      return stored;
+    }
+    final byte[] compressed = stored.substring(COMPRESSED_MEDIA_PACKAGE_PREFIX.length())
+        .getBytes(StandardCharsets.US_ASCII);
+    try (InputStream in = new GZIPInputStream(Base64.getDecoder().wrap(new ByteArrayInputStream(compressed)))) {
+      return IOUtils.toString(in, StandardCharsets.UTF_8);
+    }
+  }
+
   public boolean isActive() {
     return !getState().isTerminated();
   }
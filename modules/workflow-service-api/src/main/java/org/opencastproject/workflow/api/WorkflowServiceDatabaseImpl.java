@@ -28,6 +28,7 @@ import org.opencastproject.db.DBSessionFactory;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.util.NotFoundException;
 
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
@@ -60,6 +61,9 @@ public class WorkflowServiceDatabaseImpl implements WorkflowServiceDatabase {
   /** JPA persistence unit name */
   public static final String PERSISTENCE_UNIT = "org.opencastproject.workflow.api";
 
+  /** Configuration key for storing the media packages of workflows compressed */
+  public static final String COMPRESS_MEDIA_PACKAGE_KEY = "org.opencastproject.workflow.mediapackage.compress";
+
   /** Factory used to create {@link EntityManager}s for transactions */
   protected EntityManagerFactory emf;
 
@@ -70,6 +74,9 @@ public class WorkflowServiceDatabaseImpl implements WorkflowServiceDatabase {
   /** The security service */
   protected SecurityService securityService;
 
+  /** Whether media packages are stored compressed */
+  private boolean compressMediaPackages = false;
+
   /** OSGi DI */
   @Reference(name = "entityManagerFactory", target = "(osgi.unit.name=org.opencastproject.workflow.api)")
   public void setEntityManagerFactory(EntityManagerFactory emf) {
@@ -101,6 +108,17 @@ public class WorkflowServiceDatabaseImpl implements WorkflowServiceDatabase {
   public void activate(ComponentContext cc) {
     logger.info("Activating persistence manager for workflow");
     db = dbSessionFactory.createSession(emf);
+    if (cc != null) {
+      compressMediaPackages = BooleanUtils.toBoolean(cc.getBundleContext().getProperty(COMPRESS_MEDIA_PACKAGE_KEY));
+    }
+    logger.info("Storing workflow media packages {}", compressMediaPackages ? "compressed" : "uncompressed");
+  }
+
+  /**
+   * Sets whether media packages are stored compressed. Existing workflows are compressed when they are updated next.
+   */
+  public void setCompressMediaPackages(boolean compressMediaPackages) {
+    this.compressMediaPackages = compressMediaPackages;
   }
 
   /**
@@ -323,6 +341,9 @@ public class WorkflowServiceDatabaseImpl implements WorkflowServiceDatabase {
    * @see WorkflowServiceDatabase#updateInDatabase(WorkflowInstance instance)
    */
   public void updateInDatabase(WorkflowInstance instance) throws WorkflowDatabaseException {
+    if (compressMediaPackages) {
+      instance.compressMediaPackage();
+    }
     try {
       db.execTx(em -> {
         WorkflowInstance fromDb = em.find(WorkflowInstance.class, instance.getId());
@@ -33,6 +33,7 @@ import static org.opencastproject.workflow.api.WorkflowInstance.WorkflowState.SU
 import org.opencastproject.assetmanager.api.AssetManager;
 import org.opencastproject.assetmanager.api.query.RichAResult;
 import org.opencastproject.assetmanager.util.WorkflowPropertiesUtil;
+import org.opencastproject.elasticsearch.api.RefreshPolicy;
 import org.opencastproject.elasticsearch.api.SearchIndexException;
 import org.opencastproject.elasticsearch.api.SearchResult;
 import org.opencastproject.elasticsearch.api.SearchResultItem;
@@ -74,6 +75,8 @@ import org.opencastproject.serviceregistry.api.UndispatchableJobException;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.ReadinessIndicator;
 import org.opencastproject.util.data.Tuple;
+import org.opencastproject.util.metrics.Histogram;
+import org.opencastproject.util.metrics.Metrics;
 import org.opencastproject.workflow.api.ResumableWorkflowOperationHandler;
 import org.opencastproject.workflow.api.RetryStrategy;
 import org.opencastproject.workflow.api.WorkflowDatabaseException;
@@ -166,6 +169,10 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   /** Logging facility */
   private static final Logger logger = LoggerFactory.getLogger(WorkflowServiceImpl.class);
 
+  /** Time it takes to execute workflow operations, including the jobs they wait for */
+  private static final Histogram operationDuration = Metrics.histogram("opencast_workflow_operation_seconds",
+      "Time it took to execute a workflow operation", Histogram.PROCESSING_BUCKETS, "operation", "state");
+
   /** List of available operations on jobs */
   enum Operation {
     START_WORKFLOW, RESUME, START_OPERATION
@@ -720,7 +727,10 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
     // Execute the operation handler
     WorkflowOperationHandler operationHandler = selectOperationHandler(processingOperation);
     WorkflowOperationWorker worker = new WorkflowOperationWorker(operationHandler, workflow, properties, this);
+    final long start = System.nanoTime();
     workflow = worker.execute();
+    operationDuration.labels(processingOperation.getTemplate(), processingOperation.getState().toString())
+        .observeSince(start);
 
     Long currentOperationJobId = processingOperation.getId();
     try {
@@ -2356,7 +2366,8 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
     };
 
     try {
-      index.addOrUpdateEvent(mpId, updateFunction, orgId, user);
+      // Workflow states change frequently while workflows are running and do not need to be visible right away
+      index.addOrUpdateEvent(mpId, updateFunction, orgId, user, RefreshPolicy.NONE);
       logger.debug("Workflow instance {} of event {} updated in the {} index.", id, mpId,
               index.getIndexName());
     } catch (SearchIndexException e) {
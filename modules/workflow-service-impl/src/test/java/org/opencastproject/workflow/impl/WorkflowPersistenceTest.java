@@ -24,6 +24,8 @@ package org.opencastproject.workflow.impl;
 import static org.opencastproject.db.DBTestEnv.getDbSessionFactory;
 import static org.opencastproject.db.DBTestEnv.newEntityManagerFactory;
 
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.JaxbRole;
 import org.opencastproject.security.api.JaxbUser;
@@ -34,6 +36,7 @@ import org.opencastproject.workflow.api.WorkflowInstance;
 import org.opencastproject.workflow.api.WorkflowServiceDatabaseImpl;
 
 import org.easymock.EasyMock;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -75,6 +78,30 @@ public class WorkflowPersistenceTest {
     workflowDatabase.updateInDatabase(workflowInstance1);
   }
 
+  @Test
+  public void testCompressedMediaPackage() throws Exception {
+    MediaPackage mp = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    mp.setTitle("Compressed");
+    workflowInstance1.setMediaPackage(mp);
+    workflowDatabase.setCompressMediaPackages(true);
+    workflowDatabase.updateInDatabase(workflowInstance1);
+
+    WorkflowInstance stored = workflowDatabase.getWorkflow(1, null);
+    Assert.assertEquals(mp.getIdentifier(), stored.getMediaPackage().getIdentifier());
+    Assert.assertEquals("Compressed", stored.getMediaPackage().getTitle());
+
+    // updating an unchanged media package keeps the compressed form, changes are stored
+    stored.setMediaPackage(stored.getMediaPackage());
+    workflowDatabase.setCompressMediaPackages(false);
+    workflowDatabase.updateInDatabase(stored);
+    Assert.assertEquals("Compressed", workflowDatabase.getWorkflow(1, null).getMediaPackage().getTitle());
+
+    mp.setTitle("Changed");
+    stored.setMediaPackage(mp);
+    workflowDatabase.updateInDatabase(stored);
+    Assert.assertEquals("Changed", workflowDatabase.getWorkflow(1, null).getMediaPackage().getTitle());
+  }
+
   @Test
   public void testDeleting() throws Exception {
     workflowDatabase.updateInDatabase(workflowInstance1);
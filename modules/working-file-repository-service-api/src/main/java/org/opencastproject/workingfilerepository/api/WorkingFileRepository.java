@@ -24,6 +24,7 @@ package org.opencastproject.workingfilerepository.api;
 import org.opencastproject.storage.StorageUsage;
 import org.opencastproject.util.NotFoundException;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -163,6 +164,23 @@ public interface WorkingFileRepository extends StorageUsage {
    */
   URI putInCollection(String collectionId, String fileName, InputStream in) throws IOException;
 
+  /**
+   * Moves a local file into a collection, overwriting the existing file if present. The file is moved without copying
+   * its content if it is on the same file system as the repository and copied otherwise. In both cases, the file does
+   * not exist at its original location anymore afterwards.
+   *
+   * @param collectionId
+   *          The collection identifier
+   * @param fileName
+   *          The filename to use in storing the file
+   * @param file
+   *          the file to move into the collection
+   * @return The URI identifying the file
+   * @throws IOException
+   *           if the file cannot be accessed or cannot be moved to the repository
+   */
+  URI adoptInCollection(String collectionId, String fileName, File file) throws IOException;
+
   /**
    * Gets the URIs of the members of this collection
    *
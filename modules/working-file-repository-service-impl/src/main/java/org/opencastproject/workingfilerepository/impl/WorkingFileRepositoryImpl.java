@@ -706,6 +706,39 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     return getCollectionURI(collectionId, fileName);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.workingfilerepository.api.WorkingFileRepository#adoptInCollection(java.lang.String,
+   *      java.lang.String, java.io.File)
+   */
+  @Override
+  public URI adoptInCollection(String collectionId, String fileName, File file) throws IOException {
+    checkPathSafe(collectionId);
+    checkPathSafe(fileName);
+    File f = Paths.get(rootDirectory, COLLECTION_PATH_PREFIX, collectionId, toSafeName(fileName)).toFile();
+    FileUtils.forceMkdir(getCollectionDirectory(collectionId, true));
+    try {
+      Files.move(file.toPath(), f.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      logger.debug("Moved {} to {}", file, f);
+    } catch (AtomicMoveNotSupportedException e) {
+      // Different file systems, copy the content and calculate the checksum in one pass
+      logger.debug("Unable to move {} to {}, copying it", file, f);
+      try (InputStream in = new FileInputStream(file)) {
+        putInCollection(collectionId, fileName, in);
+      }
+      FileUtils.deleteQuietly(file);
+      return getCollectionURI(collectionId, fileName);
+    }
+    try {
+      createMd5(f);
+    } catch (IOException e) {
+      FileUtils.deleteQuietly(f);
+      throw e;
+    }
+    return getCollectionURI(collectionId, fileName);
+  }
+
   public URI copyTo(String fromCollection, String fromFileName, String toMediaPackage, String toMediaPackageElement,
                     String toFileName) throws NotFoundException, IOException {
     File source = getFileFromCollection(fromCollection, fromFileName);
@@ -30,6 +30,7 @@ import org.opencastproject.systems.OpencastConstants;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.UrlSupport;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.easymock.EasyMock;
@@ -40,6 +41,7 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -174,6 +176,27 @@ public class WorkingFileRepositoryTest {
     }
   }
 
+  @Test
+  public void testAdoptInCollection() throws Exception {
+    File source = new File(repo.rootDirectory, "encoder-output.gif");
+    try (InputStream in = getClass().getClassLoader().getResourceAsStream("opencast_header.gif")) {
+      FileUtils.copyInputStreamToFile(in, source);
+    }
+    String md5;
+    try (InputStream in = getClass().getClassLoader().getResourceAsStream("opencast_header.gif")) {
+      md5 = DigestUtils.md5Hex(in);
+    }
+
+    repo.adoptInCollection(collectionId, "adopted.gif", source);
+    Assert.assertFalse(source.exists());
+    try (InputStream in = repo.getFromCollection(collectionId, "adopted.gif")) {
+      Assert.assertEquals(md5, DigestUtils.md5Hex(in));
+    }
+    File md5File = Paths.get(repo.rootDirectory, WorkingFileRepositoryImpl.COLLECTION_PATH_PREFIX, collectionId,
+        "adopted.gif" + WorkingFileRepositoryImpl.MD5_EXTENSION).toFile();
+    Assert.assertEquals(md5, FileUtils.readFileToString(md5File, "UTF-8"));
+  }
+
   @Test
   public void testCollectionSize() throws Exception {
     Assert.assertEquals(1, repo.getCollectionSize(collectionId));
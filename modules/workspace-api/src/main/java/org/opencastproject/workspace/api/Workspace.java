@@ -124,6 +124,26 @@ public interface Workspace extends StorageUsage {
   URI putInCollection(String collectionId, String fileName, InputStream in) throws IOException,
           IllegalArgumentException;
 
+  /**
+   * Moves a local file into the given collection, overwriting any data with the same collection id and file name. This
+   * avoids copying the content wherever the file system allows it. The file does not exist at its original location
+   * anymore afterwards.
+   *
+   * @param collectionId
+   *          The collection to use for storing this data
+   * @param fileName
+   *          the filename to use in the collection.
+   * @param file
+   *          the file to move into the collection
+   * @return the URI of the stored data
+   * @throws IOException
+   *           if moving the file to the workspace fails
+   * @throws IllegalArgumentException
+   *           if a URI cannot be created using the arguments provided
+   */
+  URI adoptInCollection(String collectionId, String fileName, File file) throws IOException,
+          IllegalArgumentException;
+
   /**
    * Gets the URIs of the members of this collection
    *
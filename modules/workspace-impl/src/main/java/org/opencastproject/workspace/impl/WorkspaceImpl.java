@@ -53,17 +53,22 @@ import org.opencastproject.util.data.Function;
 import org.opencastproject.util.data.Option;
 import org.opencastproject.util.data.functions.Misc;
 import org.opencastproject.util.jmx.JmxUtil;
+import org.opencastproject.util.metrics.Counter;
+import org.opencastproject.util.metrics.Histogram;
+import org.opencastproject.util.metrics.Metrics;
 import org.opencastproject.workingfilerepository.api.PathMappable;
 import org.opencastproject.workingfilerepository.api.WorkingFileRepository;
 import org.opencastproject.workspace.api.Workspace;
 import org.opencastproject.workspace.impl.jmx.WorkspaceBean;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.io.input.TeeInputStream;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URIBuilder;
@@ -87,12 +92,20 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.time.Duration;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.management.ObjectInstance;
 import javax.servlet.http.HttpServletResponse;
@@ -119,6 +132,15 @@ public final class WorkspaceImpl implements Workspace {
   /** The logging facility */
   private static final Logger logger = LoggerFactory.getLogger(WorkspaceImpl.class);
 
+  /** Time it takes to get files into and put files from the workspace */
+  private static final Histogram requestDuration = Metrics.histogram("opencast_workspace_request_seconds",
+      "Time it took to get a file into or put a file from the workspace",
+      new double[] { .001, .005, .01, .05, .1, .5, 1, 5, 10, 30, 60, 300, 900 }, "method");
+
+  /** Bytes transferred into and from the workspace */
+  private static final Counter transferredBytes = Metrics.counter("opencast_workspace_transferred_bytes",
+      "Bytes downloaded or copied into the workspace by get and uploaded by put", "method");
+
   /** Configuration key for the workspace root directory */
   public static final String WORKSPACE_DIR_KEY = "org.opencastproject.workspace.rootdir";
   /** Configuration key for the storage directory */
@@ -127,6 +149,21 @@ public final class WorkspaceImpl implements Workspace {
   public static final String WORKSPACE_CLEANUP_PERIOD_KEY = "org.opencastproject.workspace.cleanup.period";
   /** Configuration key for garbage collection max age. */
   public static final String WORKSPACE_CLEANUP_MAX_AGE_KEY = "org.opencastproject.workspace.cleanup.max.age";
+  /** Configuration key for the number of times an interrupted download is resumed */
+  public static final String WORKSPACE_DOWNLOAD_RESUME_ATTEMPTS_KEY =
+      "org.opencastproject.workspace.download.resume.attempts";
+
+  /** Default number of times an interrupted download is resumed */
+  private static final int DEFAULT_DOWNLOAD_RESUME_ATTEMPTS = 3;
+
+  /** Content range of a partial response: first and last byte and total length */
+  private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+|\\*)");
+
+  /** An md5 in hexadecimal notation */
+  private static final Pattern MD5_HEX = Pattern.compile("[0-9a-fA-F]{32}");
+
+  /** Number of downloaded files whose digest is remembered */
+  private static final int DIGEST_CACHE_SIZE = 10000;
 
   /** Workspace JMX type */
   private static final String JMX_WORKSPACE_TYPE = "Workspace";
@@ -172,6 +209,24 @@ public final class WorkspaceImpl implements Workspace {
   /** The workspce cleaner */
   private WorkspaceCleaner workspaceCleaner = null;
 
+  /** Number of times an interrupted download is resumed using a range request */
+  private int downloadResumeAttempts = DEFAULT_DOWNLOAD_RESUME_ATTEMPTS;
+
+  /** Downloads currently in progress, by workspace file path. Requests for the same file wait for these. */
+  private final ConcurrentMap<String, CompletableFuture<File>> downloadsInProgress = new ConcurrentHashMap<>();
+
+  /**
+   * MD5 digests of downloaded files by workspace file path, used for conditional requests instead of hashing the files
+   * again. An entry is only valid as long as size and modification date of the file did not change.
+   */
+  private final Map<String, FileDigest> fileDigests = Collections.synchronizedMap(
+      new LinkedHashMap<String, FileDigest>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileDigest> eldest) {
+          return size() > DIGEST_CACHE_SIZE;
+        }
+      });
+
   public WorkspaceImpl() {
   }
 
@@ -293,6 +348,16 @@ public final class WorkspaceImpl implements Workspace {
       }
     }
 
+    if (ensureContextProp(cc, WORKSPACE_DOWNLOAD_RESUME_ATTEMPTS_KEY)) {
+      String attempts = cc.getBundleContext().getProperty(WORKSPACE_DOWNLOAD_RESUME_ATTEMPTS_KEY);
+      try {
+        downloadResumeAttempts = Integer.parseInt(attempts);
+      } catch (NumberFormatException e) {
+        logger.warn("Invalid configuration for workspace download resume attempts ({}={})",
+                WORKSPACE_DOWNLOAD_RESUME_ATTEMPTS_KEY, attempts);
+      }
+    }
+
     registeredMXBean = JmxUtil.registerMXBean(workspaceBean, JMX_WORKSPACE_TYPE);
 
     // Start cleanup scheduler if we have sensible cleanup values:
@@ -357,6 +422,15 @@ public final class WorkspaceImpl implements Workspace {
 
   @Override
   public File get(final URI uri, final boolean uniqueFilename) throws NotFoundException, IOException {
+    final long start = System.nanoTime();
+    try {
+      return getFile(uri, uniqueFilename);
+    } finally {
+      requestDuration.labels("get").observeSince(start);
+    }
+  }
+
+  private File getFile(final URI uri, final boolean uniqueFilename) throws NotFoundException, IOException {
     File inWs = toWorkspaceFile(uri);
 
     if (uniqueFilename) {
@@ -395,11 +469,50 @@ public final class WorkspaceImpl implements Workspace {
     if (asset != null) {
       logger.debug("Copy local file {} from asset manager to workspace", asset);
       Files.copy(asset.toPath(), inWs.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      transferredBytes.labels("get").inc(inWs.length());
       return new File(inWs.getAbsolutePath());
     }
 
     // do HTTP transfer
-    return locked(inWs, downloadIfNecessary(uri));
+    return download(uri, inWs);
+  }
+
+  /**
+   * Downloads <code>uri</code> to the workspace file <code>dst</code> if necessary. If a download of the same file is
+   * already in progress, its result is awaited instead of starting another request.
+   *
+   * @return the file
+   */
+  private File download(final URI uri, final File dst) throws NotFoundException, IOException {
+    final String key = dst.getAbsolutePath();
+    final CompletableFuture<File> download = new CompletableFuture<>();
+    final CompletableFuture<File> inProgress = downloadsInProgress.putIfAbsent(key, download);
+    if (inProgress != null) {
+      logger.debug("Waiting for download of {} in progress", uri);
+      try {
+        return new File(inProgress.get().getAbsolutePath());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for download of " + uri, e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof NotFoundException) {
+          throw new NotFoundException(e.getCause().getMessage(), e.getCause());
+        }
+        throw new IOException("Download of " + uri + " failed", e.getCause());
+      }
+    }
+    try {
+      final File file = locked(dst, downloadIfNecessary(uri));
+      download.complete(file);
+      return file;
+    } catch (NotFoundException | IOException | RuntimeException e) {
+      download.completeExceptionally(e);
+      throw e;
+    } finally {
+      // make sure waiting requests never block on a download that ended in an unexpected way
+      download.completeExceptionally(new IOException("Download of " + uri + " failed"));
+      downloadsInProgress.remove(key, download);
+    }
   }
 
   @Override
@@ -464,8 +577,8 @@ public final class WorkspaceImpl implements Workspace {
    * @throws IOException
    *           in case of any IO related issues
    */
-  private Either<String, Option<File>> handleDownloadResponse(HttpResponse response, URI src, File dst)
-          throws IOException {
+  private Either<String, Option<File>> handleDownloadResponse(HttpResponse response, URI src, URI requestUri,
+          File dst) throws IOException {
     final String url = src.toString();
     final int status = response.getStatusLine().getStatusCode();
     switch (status) {
@@ -479,7 +592,7 @@ public final class WorkspaceImpl implements Workspace {
         return left(response.getHeaders("token")[0].getValue());
       case HttpServletResponse.SC_OK:
         logger.debug("Downloading {} to {}", url, dst.getAbsolutePath());
-        return right(some(downloadTo(response, dst)));
+        return right(some(downloadTo(response, requestUri, dst)));
       default:
         logger.warn("Received unexpected response status {} while trying to download from {}", status, url);
         FileUtils.deleteQuietly(dst);
@@ -497,7 +610,7 @@ public final class WorkspaceImpl implements Workspace {
       final HttpGet get = new HttpGet(builder.build());
       // if the destination file already exists add the If-None-Match header
       if (dst.isFile() && dst.length() > 0) {
-        get.setHeader("If-None-Match", md5(dst));
+        get.setHeader("If-None-Match", digest(dst));
       }
       return get;
     } catch (URISyntaxException e) {
@@ -520,7 +633,7 @@ public final class WorkspaceImpl implements Workspace {
         final Either<String, Option<File>> result;
         try {
           response = trustedHttpClient.execute(get);
-          result = handleDownloadResponse(response, src, dst);
+          result = handleDownloadResponse(response, src, get.getURI(), dst);
         } finally {
           if (response != null) {
             trustedHttpClient.close(response);
@@ -560,21 +673,229 @@ public final class WorkspaceImpl implements Workspace {
   }
 
   /**
-   * Download content of an HTTP response to a file.
+   * Download content of an HTTP response to a file. If the transfer is interrupted, it is resumed where it stopped
+   * using range requests, as long as the server identifies the content by a strong entity tag. If the entity tag is the
+   * md5 of the content, as for Opencast's own file servers, a resumed download is verified against it once it is
+   * complete. A download which cannot be resumed safely or fails verification is started over.
    *
    * @return the destination file
    */
-  private static File downloadTo(final HttpResponse response, final File dst) throws IOException {
+  private File downloadTo(final HttpResponse response, final URI uri, final File dst) throws IOException {
+    final MessageDigest md5 = DigestUtils.getMd5Digest();
+    final byte[] buffer = new byte[8192];
+    final String etag = getStrongEntityTag(response);
+    long written = 0L;
+    long length = response.getEntity().getContentLength();
+    long transferred = 0L;
+    HttpResponse current = response;
+    int resumes = 0;
+    boolean resumed = false;
     // ignore return value
     dst.createNewFile();
-    try (InputStream in = response.getEntity().getContent()) {
-      try (OutputStream out = new FileOutputStream(dst)) {
-        IOUtils.copyLarge(in, out);
+    try (FileOutputStream out = new FileOutputStream(dst)) {
+      while (true) {
+        try (InputStream in = current.getEntity().getContent()) {
+          int n;
+          while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+            md5.update(buffer, 0, n);
+            written += n;
+            transferred += n;
+          }
+          if (length > 0 && written != length) {
+            throw new IOException(format("Received %d of %d bytes", written, length));
+          }
+        } catch (IOException e) {
+          if (etag == null || resumes >= downloadResumeAttempts) {
+            throw e;
+          }
+          resumes++;
+          logger.warn("Download of {} interrupted after {} bytes, resuming ({}/{}): {}", uri, written, resumes,
+                  downloadResumeAttempts, e.getMessage());
+          if (current != response) {
+            trustedHttpClient.close(current);
+          }
+          current = null;
+          sleep(1000L * resumes);
+          final HttpGet get = new HttpGet(uri);
+          get.setHeader("Range", "bytes=" + written + "-");
+          get.setHeader("If-Range", etag);
+          current = trustedHttpClient.execute(get);
+          final int status = current.getStatusLine().getStatusCode();
+          final long end = status == HttpServletResponse.SC_PARTIAL_CONTENT
+                  ? getRangeEnd(current, written, length)
+                  : -1L;
+          if (end >= 0) {
+            resumed = true;
+            length = end + 1;
+            continue;
+          }
+          if (status == HttpServletResponse.SC_OK) {
+            // The content has changed or the server does not support ranges, start over
+            logger.debug("Server sent the complete content of {} again", uri);
+            clear(out, md5);
+          } else {
+            // The server sent an unexpected range or failed, start over
+            logger.debug("Unable to resume download of {}: status {}, downloading it again", uri, status);
+            trustedHttpClient.close(current);
+            current = null;
+            current = startOver(uri, out, md5);
+          }
+          written = 0L;
+          length = current.getEntity().getContentLength();
+          resumed = false;
+          continue;
+        }
+
+        if (resumed && !matchesEntityTag(etag, md5)) {
+          // The content changed between the requests although the entity tag did not, start over without resuming
+          logger.warn("Resumed download of {} does not match its entity tag {}, downloading it again", uri, etag);
+          if (current != response) {
+            trustedHttpClient.close(current);
+          }
+          current = null;
+          current = startOver(uri, out, md5);
+          written = 0L;
+          length = current.getEntity().getContentLength();
+          resumed = false;
+          resumes = downloadResumeAttempts;
+          continue;
+        }
+        break;
+      }
+    } finally {
+      if (current != null && current != response) {
+        trustedHttpClient.close(current);
       }
     }
+    transferredBytes.labels("get").inc(transferred);
+    fileDigests.put(dst.getAbsolutePath(), new FileDigest(Hex.encodeHexString(md5.digest()), dst));
     return dst;
   }
 
+  /**
+   * Requests the complete content again and clears what has been downloaded so far.
+   *
+   * @return the response with the complete content
+   */
+  private HttpResponse startOver(final URI uri, final FileOutputStream out, final MessageDigest md5)
+          throws IOException {
+    final HttpResponse response = trustedHttpClient.execute(new HttpGet(uri));
+    final int status = response.getStatusLine().getStatusCode();
+    if (status != HttpServletResponse.SC_OK) {
+      trustedHttpClient.close(response);
+      throw new IOException(format("Unable to download %s again: status %d", uri, status));
+    }
+    clear(out, md5);
+    return response;
+  }
+
+  /** Discards what has been downloaded so far. */
+  private static void clear(final FileOutputStream out, final MessageDigest md5) throws IOException {
+    out.getChannel().truncate(0L);
+    out.getChannel().position(0L);
+    md5.reset();
+  }
+
+  /**
+   * Returns the last byte of a partial response if it continues the download at the given offset, or -1 if it does not.
+   *
+   * @param response
+   *          the partial response
+   * @param offset
+   *          the number of bytes downloaded so far
+   * @param length
+   *          the expected length of the complete content or -1 if it is unknown
+   */
+  private static long getRangeEnd(final HttpResponse response, final long offset, final long length) {
+    final Header header = response.getFirstHeader("Content-Range");
+    if (header == null) {
+      return -1L;
+    }
+    final Matcher matcher = CONTENT_RANGE.matcher(header.getValue().trim());
+    if (!matcher.matches()) {
+      return -1L;
+    }
+    final long start = Long.parseLong(matcher.group(1));
+    final long end = Long.parseLong(matcher.group(2));
+    final long total = "*".equals(matcher.group(3)) ? -1L : Long.parseLong(matcher.group(3));
+    final long contentLength = response.getEntity() == null ? -1L : response.getEntity().getContentLength();
+    if (start != offset || end < start
+            || (total >= 0 && end != total - 1)
+            || (length > 0 && end != length - 1)
+            || (contentLength > 0 && contentLength != end - start + 1)) {
+      return -1L;
+    }
+    return end;
+  }
+
+  /**
+   * Returns the entity tag of a response, including its quotes, or <code>null</code> if there is none or it is weak.
+   * Weak entity tags must not be used to request parts of the content.
+   */
+  private static String getStrongEntityTag(final HttpResponse response) {
+    final Header header = response.getFirstHeader("ETag");
+    if (header == null) {
+      return null;
+    }
+    final String etag = header.getValue().trim();
+    if (etag.length() < 2 || !etag.startsWith("\"") || !etag.endsWith("\"")) {
+      return null;
+    }
+    return etag;
+  }
+
+  /**
+   * Whether the downloaded content matches the entity tag, if the entity tag is an md5. Other entity tags cannot be
+   * verified.
+   */
+  private static boolean matchesEntityTag(final String etag, final MessageDigest md5) throws IOException {
+    final String value = etag.substring(1, etag.length() - 1);
+    if (!MD5_HEX.matcher(value).matches()) {
+      return true;
+    }
+    try {
+      // Check a copy, the digest of the complete file is still needed
+      return value.equalsIgnoreCase(Hex.encodeHexString(((MessageDigest) md5.clone()).digest()));
+    } catch (CloneNotSupportedException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Returns the md5 of a downloaded file, using the digest computed during the download if the file did not change
+   * since.
+   */
+  private String digest(final File file) throws IOException {
+    final FileDigest cached = fileDigests.get(file.getAbsolutePath());
+    if (cached != null && cached.matches(file)) {
+      return cached.md5;
+    }
+    final String md5 = md5(file);
+    fileDigests.put(file.getAbsolutePath(), new FileDigest(md5, file));
+    return md5;
+  }
+
+  /**
+   * The md5 of a file along with the size and modification date the file had when the digest was computed. A change
+   * of the file which keeps its size within the granularity of the file system's modification dates is not noticed.
+   */
+  private static final class FileDigest {
+    private final String md5;
+    private final long length;
+    private final long lastModified;
+
+    private FileDigest(String md5, File file) {
+      this.md5 = md5;
+      this.length = file.length();
+      this.lastModified = file.lastModified();
+    }
+
+    private boolean matches(File file) {
+      return file.length() == length && file.lastModified() == lastModified;
+    }
+  }
+
   /**
    * Returns the md5 of a file
    *
@@ -665,9 +986,21 @@ public final class WorkspaceImpl implements Workspace {
   @Override
   public URI put(String mediaPackageID, String mediaPackageElementID, String fileName, InputStream in)
           throws IOException {
+    notNull(in, "in");
+    final long start = System.nanoTime();
+    final CountingInputStream counted = new CountingInputStream(in);
+    try {
+      return putFile(mediaPackageID, mediaPackageElementID, fileName, counted);
+    } finally {
+      requestDuration.labels("put").observeSince(start);
+      transferredBytes.labels("put").inc(counted.getByteCount());
+    }
+  }
+
+  private URI putFile(String mediaPackageID, String mediaPackageElementID, String fileName, InputStream in)
+          throws IOException {
     String safeFileName = toSafeName(fileName);
     final URI uri = wfr.getURI(mediaPackageID, mediaPackageElementID, fileName);
-    notNull(in, "in");
 
     // Determine the target location in the workspace
     File workspaceFile = null;
@@ -737,6 +1070,29 @@ public final class WorkspaceImpl implements Workspace {
     return uri;
   }
 
+  @Override
+  public URI adoptInCollection(String collectionId, String fileName, File file) throws IOException {
+    if (!linkingEnabled) {
+      // without access to the working file repository's files the content needs to be copied anyway
+      final URI uri;
+      try (InputStream in = new FileInputStream(file)) {
+        uri = putInCollection(collectionId, fileName, in);
+      }
+      FileUtils.deleteQuietly(file);
+      return uri;
+    }
+
+    final URI uri = wfr.adoptInCollection(collectionId, fileName, file);
+    final File workspaceFile = toWorkspaceFile(uri);
+    FileUtils.forceMkdir(workspaceFile.getParentFile());
+    final File workingFileRepoCopy = new File(
+            workingFileRepositoryFile(WorkingFileRepository.COLLECTION_PATH_PREFIX, collectionId),
+            toSafeName(fileName));
+    FileSupport.link(workingFileRepoCopy, workspaceFile, true);
+    waitForResource(uri, HttpServletResponse.SC_OK, "File %s does not appear in WFR");
+    return uri;
+  }
+
   @Override
   public URI getURI(String mediaPackageID, String mediaPackageElementID) {
     return wfr.getURI(mediaPackageID, mediaPackageElementID);
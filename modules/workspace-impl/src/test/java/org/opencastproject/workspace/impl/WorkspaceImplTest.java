@@ -33,17 +33,22 @@ import org.opencastproject.workingfilerepository.api.WorkingFileRepository;
 
 import com.entwinemedia.fn.Prelude;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.ProtocolVersion;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicStatusLine;
 import org.easymock.Capture;
+import org.easymock.CaptureType;
 import org.easymock.EasyMock;
+import org.easymock.IExpectationSetters;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -53,11 +58,13 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.List;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -276,6 +283,125 @@ public class WorkspaceImplTest {
     Assert.assertEquals(expectedFile, resultingFile);
   }
 
+  @Test
+  public void testGetResumesInterruptedDownload() throws Exception {
+    final Capture<HttpUriRequest> requests = prepareDownload(
+        response(200, interrupted("asdf"), new BasicHeader("ETag", "\"abc\"")),
+        response(206, IOUtils.toInputStream("ghjk", StandardCharsets.UTF_8),
+            new BasicHeader("Content-Range", "bytes 4-7/8")));
+
+    File file = workspace.get(URI.create("http://foo.com/resume/video.mp4"));
+    Assert.assertEquals("asdfghjk", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+
+    final List<HttpUriRequest> sent = requests.getValues();
+    Assert.assertEquals(2, sent.size());
+    Assert.assertEquals("bytes=4-", sent.get(1).getFirstHeader("Range").getValue());
+    Assert.assertEquals("\"abc\"", sent.get(1).getFirstHeader("If-Range").getValue());
+  }
+
+  @Test
+  public void testGetDoesNotResumeWithWeakEntityTag() throws Exception {
+    final Capture<HttpUriRequest> requests = prepareDownload(
+        response(200, interrupted("asdf"), new BasicHeader("ETag", "W/\"abc\"")));
+
+    try {
+      workspace.get(URI.create("http://foo.com/weak/video.mp4"));
+      Assert.fail("Download should not have been resumed");
+    } catch (IOException e) {
+      // expected
+    }
+    Assert.assertEquals(1, requests.getValues().size());
+  }
+
+  @Test
+  public void testGetStartsOverOnUnexpectedRange() throws Exception {
+    final Capture<HttpUriRequest> requests = prepareDownload(
+        response(200, interrupted("asdf"), new BasicHeader("ETag", "\"abc\"")),
+        response(206, IOUtils.toInputStream("asdfghjk", StandardCharsets.UTF_8),
+            new BasicHeader("Content-Range", "bytes 0-7/8")),
+        response(200, IOUtils.toInputStream("asdfghjk", StandardCharsets.UTF_8)));
+
+    File file = workspace.get(URI.create("http://foo.com/range/video.mp4"));
+    Assert.assertEquals("asdfghjk", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+
+    final List<HttpUriRequest> sent = requests.getValues();
+    Assert.assertEquals(3, sent.size());
+    Assert.assertNull(sent.get(2).getFirstHeader("Range"));
+  }
+
+  @Test
+  public void testGetVerifiesResumedDownload() throws Exception {
+    // the entity tag is the md5 of the complete content, which changed although the tag did not
+    final String etag = "\"" + DigestUtils.md5Hex("asdfqwer") + "\"";
+    final Capture<HttpUriRequest> requests = prepareDownload(
+        response(200, interrupted("asdf"), new BasicHeader("ETag", etag)),
+        response(206, IOUtils.toInputStream("ghjk", StandardCharsets.UTF_8),
+            new BasicHeader("Content-Range", "bytes 4-7/8")),
+        response(200, IOUtils.toInputStream("asdfqwer", StandardCharsets.UTF_8)));
+
+    File file = workspace.get(URI.create("http://foo.com/verify/video.mp4"));
+    Assert.assertEquals("asdfqwer", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+
+    final List<HttpUriRequest> sent = requests.getValues();
+    Assert.assertEquals(3, sent.size());
+    Assert.assertNull(sent.get(2).getFirstHeader("Range"));
+  }
+
+  /** Lets the workspace download from a client returning the given responses one after the other. */
+  private Capture<HttpUriRequest> prepareDownload(HttpResponse... responses) throws Exception {
+    WorkingFileRepository repo = EasyMock.createNiceMock(WorkingFileRepository.class);
+    EasyMock.expect(repo.getBaseUri()).andReturn(new URI("http://localhost:8080/files")).anyTimes();
+    EasyMock.replay(repo);
+    workspace.setRepository(repo);
+
+    Organization organization = EasyMock.createMock(Organization.class);
+    EasyMock.expect(organization.getId()).andReturn("org1").anyTimes();
+    SecurityService securityService = EasyMock.createMock(SecurityService.class);
+    EasyMock.expect(securityService.getOrganization()).andReturn(organization).anyTimes();
+    EasyMock.replay(securityService, organization);
+    workspace.setSecurityService(securityService);
+
+    final Capture<HttpUriRequest> requests = Capture.newInstance(CaptureType.ALL);
+    TrustedHttpClient trustedHttpClient = EasyMock.createNiceMock(TrustedHttpClient.class);
+    IExpectationSetters<HttpResponse> execute = expect(trustedHttpClient.execute(EasyMock.capture(requests)));
+    for (HttpResponse response : responses) {
+      execute = execute.andReturn(response);
+    }
+    EasyMock.replay(trustedHttpClient);
+    workspace.setTrustedHttpClient(trustedHttpClient);
+    return requests;
+  }
+
+  private static HttpResponse response(int status, InputStream content, Header... headers) throws IOException {
+    HttpEntity entity = EasyMock.createNiceMock(HttpEntity.class);
+    expect(entity.getContent()).andReturn(content);
+    HttpResponse response = EasyMock.createNiceMock(HttpResponse.class);
+    expect(response.getStatusLine())
+        .andReturn(new BasicStatusLine(new ProtocolVersion("Http", 1, 1), status, null)).anyTimes();
+    expect(response.getEntity()).andReturn(entity).anyTimes();
+    for (Header header : headers) {
+      expect(response.getFirstHeader(header.getName())).andReturn(header).anyTimes();
+    }
+    EasyMock.replay(entity, response);
+    return response;
+  }
+
+  /** A stream which breaks off after the given content. */
+  private static InputStream interrupted(String content) {
+    return new InputStream() {
+      private final InputStream in = IOUtils.toInputStream(content, StandardCharsets.UTF_8);
+
+      @Override
+      public int read() throws IOException {
+        final int b = in.read();
+        if (b == -1) {
+          throw new IOException("Connection reset");
+        }
+        return b;
+      }
+    };
+  }
+
   @Test
   public void testCleanup() throws Exception {
     workspace.cleanup(-1);